@@ -0,0 +1,455 @@
+package fr.inria.sniffer.tracker.analysis;
+
+import fr.inria.sniffer.tracker.analysis.model.Repository;
+import fr.inria.sniffer.tracker.analysis.persistence.AsyncPersistence;
+import fr.inria.sniffer.tracker.analysis.persistence.JDBCPersistence;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.TransactionGranularity;
+import fr.inria.sniffer.tracker.analysis.query.commit.CommitDetailsProvider;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+/**
+ * Tuning options shared by the different analyses.
+ */
+public final class AnalysisOptions {
+    private final int batchSize;
+    private final boolean copy;
+    private final int fetchSize;
+    private final boolean writeBehind;
+    private final TransactionGranularity transaction;
+    private final int commitInterval;
+    private final boolean asyncCommit;
+    private final int smellThreads;
+    private final CommitDetailsProvider commitDetails;
+    private final int commitThreads;
+    private final boolean commitGraphCache;
+    private final boolean incremental;
+    private final boolean resume;
+    private final boolean presenceIntervals;
+    private final int branchThreads;
+    private final int deletionThreads;
+
+    private AnalysisOptions(Builder builder) {
+        this.batchSize = builder.batchSize;
+        this.copy = builder.copy;
+        this.fetchSize = builder.fetchSize;
+        this.writeBehind = builder.writeBehind;
+        this.transaction = builder.transaction;
+        this.commitInterval = builder.commitInterval;
+        this.asyncCommit = builder.asyncCommit;
+        this.smellThreads = builder.smellThreads;
+        this.commitDetails = builder.commitDetails;
+        this.commitThreads = builder.commitThreads;
+        this.commitGraphCache = builder.commitGraphCache;
+        this.incremental = builder.incremental;
+        this.resume = builder.resume;
+        this.presenceIntervals = builder.presenceIntervals;
+        this.branchThreads = builder.branchThreads;
+        this.deletionThreads = builder.deletionThreads;
+    }
+
+    /**
+     * Constructor for command line arguments
+     *
+     * @param arguments The command line arguments.
+     */
+    AnalysisOptions(Namespace arguments) {
+        this(new Builder()
+                .batchSize(arguments.getInt("batchSize"))
+                .copy(arguments.getBoolean("copy"))
+                .fetchSize(arguments.getInt("fetchSize"))
+                .writeBehind(arguments.getBoolean("writeBehind"))
+                .transaction(arguments.get("transaction"))
+                .commitInterval(arguments.getInt("commitInterval"))
+                .asyncCommit(arguments.getBoolean("asyncCommit"))
+                .smellThreads(arguments.getInt("smellThreads"))
+                .commitDetails(arguments.get("commitDetails"))
+                .commitThreads(arguments.getInt("commitThreads"))
+                .commitGraphCache(arguments.getBoolean("commitGraphCache"))
+                .incremental(arguments.getBoolean("incremental"))
+                .resume(arguments.getBoolean("resume"))
+                .presenceIntervals(arguments.getBoolean("presenceIntervals"))
+                .branchThreads(arguments.getInt("branchThreads"))
+                .deletionThreads(arguments.getInt("deletionThreads")));
+    }
+
+    /**
+     * Builder of {@link AnalysisOptions}, starting from the default options.
+     */
+    static final class Builder {
+        private int batchSize = JDBCPersistence.DEFAULT_BATCH_SIZE;
+        private boolean copy = false;
+        private int fetchSize = JDBCPersistence.DEFAULT_FETCH_SIZE;
+        private boolean writeBehind = false;
+        private TransactionGranularity transaction = TransactionGranularity.STATEMENT;
+        private int commitInterval = JDBCPersistence.DEFAULT_COMMIT_INTERVAL;
+        private boolean asyncCommit = false;
+        private int smellThreads = 1;
+        private CommitDetailsProvider commitDetails = CommitDetailsProvider.GIT;
+        private int commitThreads = 1;
+        private boolean commitGraphCache = false;
+        private boolean incremental = false;
+        private boolean resume = false;
+        private boolean presenceIntervals = false;
+        private int branchThreads = 1;
+        private int deletionThreads = 1;
+
+        /**
+         * @param batchSize Number of parameterized rows sent in a single batch.
+         */
+        Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param copy Load the high volume tables through COPY instead of batched statements.
+         */
+        Builder copy(boolean copy) {
+            this.copy = copy;
+            return this;
+        }
+
+        /**
+         * @param fetchSize Number of rows fetched at once when streaming query results.
+         */
+        Builder fetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
+        /**
+         * @param writeBehind Execute the statements on a dedicated writer thread.
+         */
+        Builder writeBehind(boolean writeBehind) {
+            this.writeBehind = writeBehind;
+            return this;
+        }
+
+        /**
+         * @param transaction Unit of work committed in a single transaction.
+         */
+        Builder transaction(TransactionGranularity transaction) {
+            this.transaction = transaction;
+            return this;
+        }
+
+        /**
+         * @param commitInterval Number of rows committed at once with the {@link TransactionGranularity#ROWS} granularity.
+         */
+        Builder commitInterval(int commitInterval) {
+            this.commitInterval = commitInterval;
+            return this;
+        }
+
+        /**
+         * @param asyncCommit Do not wait for the commits to be flushed on disk.
+         */
+        Builder asyncCommit(boolean asyncCommit) {
+            this.asyncCommit = asyncCommit;
+            return this;
+        }
+
+        /**
+         * @param smellThreads Number of smell types analyzed concurrently.
+         */
+        Builder smellThreads(int smellThreads) {
+            this.smellThreads = smellThreads;
+            return this;
+        }
+
+        /**
+         * @param commitDetails Implementation retrieving the commits diff and renames.
+         */
+        Builder commitDetails(CommitDetailsProvider commitDetails) {
+            this.commitDetails = commitDetails;
+            return this;
+        }
+
+        /**
+         * @param commitThreads Number of threads retrieving the commits details.
+         */
+        Builder commitThreads(int commitThreads) {
+            this.commitThreads = commitThreads;
+            return this;
+        }
+
+        /**
+         * @param commitGraphCache Keep the repository commit graph in a file reused by the next analyses.
+         */
+        Builder commitGraphCache(boolean commitGraphCache) {
+            this.commitGraphCache = commitGraphCache;
+            return this;
+        }
+
+        /**
+         * @param incremental Only analyze the commits added since the previous analysis of the project.
+         */
+        Builder incremental(boolean incremental) {
+            this.incremental = incremental;
+            return this;
+        }
+
+        /**
+         * @param resume Record the analysis progress and skip the work completed by an interrupted analysis.
+         */
+        Builder resume(boolean resume) {
+            this.resume = resume;
+            return this;
+        }
+
+        /**
+         * @param presenceIntervals Store the smells presence as intervals of branch commits.
+         */
+        Builder presenceIntervals(boolean presenceIntervals) {
+            this.presenceIntervals = presenceIntervals;
+            return this;
+        }
+
+        /**
+         * @param branchThreads Number of branches of a smell type analyzed concurrently.
+         */
+        Builder branchThreads(int branchThreads) {
+            this.branchThreads = branchThreads;
+            return this;
+        }
+
+        /**
+         * @param deletionThreads Number of commits whose smells deletion is checked concurrently.
+         */
+        Builder deletionThreads(int deletionThreads) {
+            this.deletionThreads = deletionThreads;
+            return this;
+        }
+
+        AnalysisOptions build() {
+            return new AnalysisOptions(this);
+        }
+    }
+
+    /**
+     * Apply the options on the given persistence.
+     *
+     * @param persistence The persistence to configure.
+     * @return The persistence to use for the analysis.
+     */
+    Persistence configure(JDBCPersistence persistence) {
+        persistence.setBatchSize(batchSize);
+        persistence.setCopyEnabled(copy);
+        persistence.setFetchSize(fetchSize);
+        persistence.setCommitInterval(commitInterval);
+        persistence.setTransactionGranularity(transaction);
+        if (asyncCommit) {
+            persistence.setSynchronousCommit(false);
+        }
+        return writeBehind ? new AsyncPersistence(persistence) : persistence;
+    }
+
+    /**
+     * Apply the options on the given repository.
+     *
+     * @param repository The repository to configure.
+     * @return The configured repository.
+     */
+    Repository configure(Repository repository) {
+        repository.setCommitGraphCached(commitGraphCache);
+        return repository;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    boolean isCopy() {
+        return copy;
+    }
+
+    int getFetchSize() {
+        return fetchSize;
+    }
+
+    boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    TransactionGranularity getTransaction() {
+        return transaction;
+    }
+
+    int getCommitInterval() {
+        return commitInterval;
+    }
+
+    boolean isAsyncCommit() {
+        return asyncCommit;
+    }
+
+    int getSmellThreads() {
+        return smellThreads;
+    }
+
+    /**
+     * @return The maximum number of database connections held at once by an analysis,
+     * i.e. its own connection and the one of each smell type worker.
+     */
+    int getConnectionsPerAnalysis() {
+        return smellThreads > 1 ? 1 + smellThreads : 1;
+    }
+
+    CommitDetailsProvider getCommitDetails() {
+        return commitDetails;
+    }
+
+    int getCommitThreads() {
+        return commitThreads;
+    }
+
+    boolean isCommitGraphCache() {
+        return commitGraphCache;
+    }
+
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    boolean isResume() {
+        return resume;
+    }
+
+    boolean isPresenceIntervals() {
+        return presenceIntervals;
+    }
+
+    int getBranchThreads() {
+        return branchThreads;
+    }
+
+    int getDeletionThreads() {
+        return deletionThreads;
+    }
+
+    /**
+     * Defines the available tuning inputs.
+     *
+     * @param parser The parser to configure
+     */
+    static void setArguments(Subparser parser) {
+        parser.addArgument("--batchSize")
+                .help("Number of rows sent to the database in a single batch")
+                .type(Integer.class)
+                .setDefault(JDBCPersistence.DEFAULT_BATCH_SIZE)
+                .required(false);
+
+        parser.addArgument("--copy")
+                .help("Load commits, branches, and smells through COPY instead of batched inserts")
+                .action(Arguments.storeTrue())
+                .required(false);
+
+        parser.addArgument("--fetchSize")
+                .help("Number of rows fetched at once when streaming large query results")
+                .type(Integer.class)
+                .setDefault(JDBCPersistence.DEFAULT_FETCH_SIZE)
+                .required(false);
+
+        parser.addArgument("--writeBehind")
+                .help("Execute the database statements on a dedicated thread, overlapping with the analysis")
+                .action(Arguments.storeTrue())
+                .required(false);
+
+        parser.addArgument("--transaction")
+                .help("Unit of work committed in a single transaction")
+                .type(Arguments.enumStringType(TransactionGranularity.class))
+                .setDefault(TransactionGranularity.STATEMENT)
+                .required(false);
+
+        parser.addArgument("--commitInterval")
+                .help("Number of rows committed at once with the ROWS transaction granularity")
+                .type(Integer.class)
+                .setDefault(JDBCPersistence.DEFAULT_COMMIT_INTERVAL)
+                .required(false);
+
+        parser.addArgument("--asyncCommit")
+                .help("Do not wait for the commits to be flushed on disk, a server crash may lose the last transactions")
+                .action(Arguments.storeTrue())
+                .required(false);
+
+        parser.addArgument("--smellThreads")
+                .help("Number of smell types analyzed concurrently, each using its own database connection")
+                .type(Integer.class)
+                .setDefault(1)
+                .required(false);
+
+        parser.addArgument("--commitDetails")
+                .help("Retrieve the commits diff and renames by calling the local git program for each commit (GIT), " +
+                        "through long-lived git processes (GIT_BATCH, requires git 2.31) or in process (JGIT)")
+                .type(Arguments.enumStringType(CommitDetailsProvider.class))
+                .setDefault(CommitDetailsProvider.GIT)
+                .required(false);
+
+        parser.addArgument("--commitGraphCache")
+                .help("Keep the repository commit graph in the git directory, reused while its HEAD does not move")
+                .action(Arguments.storeTrue())
+                .required(false);
+
+        parser.addArgument("--commitThreads")
+                .help("Number of threads retrieving the commits details, the commits are still persisted in order")
+                .type(Integer.class)
+                .setDefault(1)
+                .required(false);
+
+        parser.addArgument("--incremental")
+                .help("Only analyze the commits added since the previous analysis of the project, " +
+                        "keeping its persisted branches and smells")
+                .action(Arguments.storeTrue())
+                .required(false);
+
+        parser.addArgument("--resume")
+                .help("Record the analysis progress in the database, " +
+                        "a restarted analysis skips the queries and smell types already completed")
+                .action(Arguments.storeTrue())
+                .required(false);
+
+        parser.addArgument("--presenceIntervals")
+                .help("Store the smells presence as ranges of consecutive branch commits instead of one row per commit, " +
+                        "the all_smell_presence view lists them by commit")
+                .action(Arguments.storeTrue())
+                .required(false);
+
+        parser.addArgument("--branchThreads")
+                .help("Number of branches of a smell type analyzed concurrently, " +
+                        "each branch waiting for the commits it is started from or merges")
+                .type(Integer.class)
+                .setDefault(1)
+                .required(false);
+
+        parser.addArgument("--deletionThreads")
+                .help("Number of commits whose smells deletion is checked concurrently by the supplementary analysis")
+                .type(Integer.class)
+                .setDefault(1)
+                .required(false);
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisOptions{" +
+                "batchSize=" + batchSize +
+                ", copy=" + copy +
+                ", fetchSize=" + fetchSize +
+                ", writeBehind=" + writeBehind +
+                ", transaction=" + transaction +
+                ", commitInterval=" + commitInterval +
+                ", asyncCommit=" + asyncCommit +
+                ", smellThreads=" + smellThreads +
+                ", commitDetails=" + commitDetails +
+                ", commitThreads=" + commitThreads +
+                ", commitGraphCache=" + commitGraphCache +
+                ", incremental=" + incremental +
+                ", resume=" + resume +
+                ", presenceIntervals=" + presenceIntervals +
+                ", branchThreads=" + branchThreads +
+                ", deletionThreads=" + deletionThreads +
+                '}';
+    }
+}
@@ -1,6 +1,7 @@
 package fr.inria.sniffer.tracker.analysis;
 
 import com.mchange.v2.c3p0.DataSources;
+import com.mchange.v2.c3p0.PoolConfig;
 import net.sourceforge.argparse4j.inf.Namespace;
 import net.sourceforge.argparse4j.inf.Subparser;
 import org.slf4j.LoggerFactory;
@@ -26,6 +27,10 @@ import java.util.concurrent.TimeUnit;
  */
 public class MultiAppAnalysis {
     private static final org.slf4j.Logger logger = LoggerFactory.getLogger(MultiAppAnalysis.class.getName());
+    /**
+     * Milliseconds to wait for a connection of the pool before failing the analysis.
+     */
+    private static final int CONNECTION_CHECKOUT_TIMEOUT = 5 * 60 * 1000;
 
     private final List<String> applications;
     private final Map<String, String> remoteRepositories;
@@ -35,6 +40,7 @@ public class MultiAppAnalysis {
     private final String appLocalRepositories;
     private AnalysisType analysisType;
     private final DataSource connectionPool;
+    private final AnalysisOptions options;
 
     /**
      * Start a simultaneous analysis on multiple projects.
@@ -44,13 +50,16 @@ public class MultiAppAnalysis {
      * @param githubToken          Github API token to query on developers.
      * @param threadsCount         Number of available threads for the analysis.
      * @param appLocalRepositories Path to the git remoteRepositories of applications to avoid cloning them, under the form repos/$appName.
+     * @param options              Tuning options of each analysis.
      */
-    MultiAppAnalysis(String appsFile, String paprikaDBs, String githubToken, int threadsCount, String appLocalRepositories, AnalysisType analysisType) {
+    MultiAppAnalysis(String appsFile, String paprikaDBs, String githubToken, int threadsCount, String appLocalRepositories,
+                     AnalysisType analysisType, AnalysisOptions options) {
         this.paprikaDBs = paprikaDBs;
         this.githubToken = githubToken;
         this.threadsCount = threadsCount;
         this.appLocalRepositories = appLocalRepositories;
         this.analysisType = analysisType;
+        this.options = options;
 
         applications = new ArrayList<>();
         remoteRepositories = new HashMap<>();
@@ -83,7 +92,14 @@ public class MultiAppAnalysis {
         try {
             DataSource ds_unpooled = DataSources.unpooledDataSource(
                     "jdbc:postgresql:" + Main.DATABASE_URL, Main.DATABASE_USERNAME, Main.DATABASE_PASSWORD);
-            return DataSources.pooledDataSource(ds_unpooled);
+            PoolConfig poolConfig = new PoolConfig();
+            // Every concurrent analysis must be able to hold all its connections at once.
+            int connections = threadsCount * options.getConnectionsPerAnalysis();
+            poolConfig.setMaxPoolSize(Math.max(PoolConfig.defaultMaxPoolSize(), connections));
+            // Fail instead of waiting forever for a connection that is never released.
+            poolConfig.setCheckoutTimeout(CONNECTION_CHECKOUT_TIMEOUT);
+            logger.info("Using a pool of up to " + poolConfig.getMaxPoolSize() + " connections");
+            return DataSources.pooledDataSource(ds_unpooled, poolConfig);
         } catch (SQLException e) {
             throw new RuntimeException("Unable to create DataSource", e);
         }
@@ -100,7 +116,7 @@ public class MultiAppAnalysis {
         for (String app : applications) {
             repository = chooseRepository(app);
             paprikaDB = Paths.get(paprikaDBs, app, "databases", "graph.db").toString();
-            analysis = analysisType.getCallable(app, repository, paprikaDB, githubToken, remoteRepositories.get(app), connectionPool);
+            analysis = analysisType.getCallable(app, repository, paprikaDB, githubToken, remoteRepositories.get(app), connectionPool, options);
             logger.info("New app analysis: " + analysis);
             executorService.submit(analysis);
         }
@@ -131,7 +147,8 @@ public class MultiAppAnalysis {
                 arguments.getString("githubToken"),
                 arguments.getInt("threads"),
                 arguments.getString("repositories"),
-                arguments.get("type") != null ? arguments.get("type") : AnalysisType.SINGLE_APP
+                arguments.get("type") != null ? arguments.get("type") : AnalysisType.SINGLE_APP,
+                new AnalysisOptions(arguments)
         );
     }
 
@@ -173,5 +190,7 @@ public class MultiAppAnalysis {
                 .type(String.class)
                 .required(false);
 
+        AnalysisOptions.setArguments(parser);
+
     }
 }
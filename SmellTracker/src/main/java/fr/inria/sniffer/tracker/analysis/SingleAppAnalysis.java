@@ -3,20 +3,26 @@ package fr.inria.sniffer.tracker.analysis;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.DeveloperQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCBranchQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCCommitQueries;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCProgressQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCProjectQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
 import fr.inria.sniffer.tracker.analysis.model.Repository;
 import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.PersistenceException;
 import fr.inria.sniffer.tracker.analysis.persistence.PostgresqlPersistence;
+import fr.inria.sniffer.tracker.analysis.persistence.TransactionGranularity;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.BranchQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.CommitQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCDeveloperQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCSmellQueries;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.ProgressQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.ProjectQueries;
+import fr.inria.sniffer.tracker.analysis.query.AnalysisProgress;
 import fr.inria.sniffer.tracker.analysis.query.Query;
 import fr.inria.sniffer.tracker.analysis.query.QueryException;
 import fr.inria.sniffer.tracker.analysis.query.branch.BranchQuery;
 import fr.inria.sniffer.tracker.analysis.query.commit.CommitsQuery;
+import fr.inria.sniffer.tracker.analysis.query.smell.SmellAnalysisSettings;
 import fr.inria.sniffer.tracker.analysis.query.smell.SmellQuery;
 import net.sourceforge.argparse4j.inf.Namespace;
 import net.sourceforge.argparse4j.inf.Subparser;
@@ -25,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static fr.inria.sniffer.tracker.analysis.Main.DATABASE_PASSWORD;
 import static fr.inria.sniffer.tracker.analysis.Main.DATABASE_URL;
@@ -36,21 +43,41 @@ import static fr.inria.sniffer.tracker.analysis.Main.DATABASE_USERNAME;
 public class SingleAppAnalysis implements Analysis {
     private static final org.slf4j.Logger logger = LoggerFactory.getLogger(SingleAppAnalysis.class.getName());
 
+    /**
+     * {@link AnalysisProgress} step holding the incremental analysis threshold,
+     * kept for the whole analysis since the resumed queries inserted commits after it.
+     */
+    private static final String LAST_ANALYZED_COMMIT_STEP = "lastAnalyzedCommit";
+
     private final String appName;
     private final String appRepo;
     private final String paprikaDB;
     private final String githubToken;
     private final String projectUrl;
+    private final AnalysisOptions options;
 
     private List<Query> getAnalysisProcess(int appId, Repository repository, Persistence persistence,
+                                           Supplier<Persistence> workerPersistence,
                                            ProjectQueries projectQueries, DeveloperQueries developerQueries,
                                            CommitQueries commitQueries, SmellQueries smellQueries,
-                                           BranchQueries branchQueries) {
+                                           BranchQueries branchQueries, AnalysisProgress progress) {
         List<Query> analysisProcess = new ArrayList<>();
+        Integer lastAnalyzedCommitId = options.isIncremental() ?
+                retrieveLastAnalyzedCommitId(appId, persistence, commitQueries, progress) : null;
+        boolean incremental = lastAnalyzedCommitId != null;
 
-        analysisProcess.add(new CommitsQuery(appId, paprikaDB, repository, persistence, developerQueries, commitQueries));
-        analysisProcess.add(new BranchQuery(appId, repository, persistence, commitQueries, branchQueries));
-        analysisProcess.add(new SmellQuery(appId, paprikaDB, persistence, commitQueries, smellQueries, branchQueries));
+        analysisProcess.add(new CommitsQuery(appId, paprikaDB, repository, persistence, developerQueries, commitQueries,
+                options.getCommitDetails(), options.getCommitThreads(), incremental));
+        analysisProcess.add(new BranchQuery(appId, repository, persistence, commitQueries, branchQueries, incremental));
+        SmellAnalysisSettings smellSettings = new SmellAnalysisSettings.Builder()
+                .smellThreads(options.getSmellThreads())
+                .lastAnalyzedCommitId(lastAnalyzedCommitId)
+                .progress(progress)
+                .presenceIntervals(options.isPresenceIntervals())
+                .branchThreads(options.getBranchThreads())
+                .build();
+        analysisProcess.add(new SmellQuery(appId, paprikaDB, persistence, commitQueries, smellQueries, branchQueries,
+                workerPersistence, smellSettings));
 
         // if (githubToken != null) {
         //     analysisProcess.add(new DevelopersQuery(appRepo, githubToken));
@@ -58,6 +85,37 @@ public class SingleAppAnalysis implements Analysis {
         return analysisProcess;
     }
 
+    /**
+     * Retrieve the last commit inserted by the previous analysis of the project.
+     * <p>
+     * When resuming an interrupted analysis, the commit recorded by this analysis is used instead.
+     *
+     * @param appId         The project identifier.
+     * @param persistence   The persistence to query.
+     * @param commitQueries The {@link CommitQueries} to use.
+     * @param progress      The {@link AnalysisProgress} of the project, null if not recorded.
+     * @return The commit identifier, null if the project has never been analyzed.
+     */
+    private static Integer retrieveLastAnalyzedCommitId(int appId, Persistence persistence,
+                                                        CommitQueries commitQueries, AnalysisProgress progress) {
+        Integer commitId;
+        if (progress != null && progress.isDone(AnalysisProgress.QUERY_STAGE, LAST_ANALYZED_COMMIT_STEP)) {
+            commitId = progress.value(AnalysisProgress.QUERY_STAGE, LAST_ANALYZED_COMMIT_STEP);
+        } else {
+            List<Map<String, Object>> result = persistence.query(commitQueries.lastProjectCommitIdQuery(appId));
+            commitId = result.isEmpty() ? null : (Integer) result.get(0).get("id");
+            if (progress != null) {
+                progress.record(persistence, AnalysisProgress.QUERY_STAGE, LAST_ANALYZED_COMMIT_STEP, commitId);
+            }
+        }
+        if (commitId == null) {
+            logger.info("[" + appId + "] No previous analysis found, analyzing every commit");
+        } else {
+            logger.info("[" + appId + "] Incremental analysis after commit: " + commitId);
+        }
+        return commitId;
+    }
+
     /**
      * Compute a single project analysis.
      *
@@ -65,13 +123,16 @@ public class SingleAppAnalysis implements Analysis {
      * @param appRepo     Github repository as "username/repository" or local path.
      * @param paprikaDB   Path to paprika database.
      * @param githubToken Github API token to query on developers.
+     * @param options     Tuning options of the analysis.
      */
-    SingleAppAnalysis(String appName, String appRepo, String paprikaDB, String githubToken, String url) {
+    SingleAppAnalysis(String appName, String appRepo, String paprikaDB, String githubToken, String url,
+                      AnalysisOptions options) {
         this.appName = appName;
         this.appRepo = appRepo;
         this.paprikaDB = paprikaDB;
         this.githubToken = githubToken;
         projectUrl = url;
+        this.options = options;
     }
 
     /**
@@ -97,41 +158,80 @@ public class SingleAppAnalysis implements Analysis {
     public void analyze() throws AnalysisException {
         // TODO: Use dependency injection someday
         // Persistence persistence = new SQLitePersistence("output.sqlite");
-        Persistence persistence = new PostgresqlPersistence(DATABASE_URL, DATABASE_USERNAME, DATABASE_PASSWORD);
+        Supplier<Persistence> persistenceSupplier = () ->
+                options.configure(new PostgresqlPersistence(DATABASE_URL, DATABASE_USERNAME, DATABASE_PASSWORD));
+        Persistence persistence = persistenceSupplier.get();
         ProjectQueries projectQueries = new JDBCProjectQueries();
         DeveloperQueries developerQueries = new JDBCDeveloperQueries();
         CommitQueries commitQueries = new JDBCCommitQueries(developerQueries);
         SmellQueries smellQueries = new JDBCSmellQueries(commitQueries);
         BranchQueries branchQueries = new JDBCBranchQueries(commitQueries, smellQueries);
-        this.analyze(persistence, projectQueries, developerQueries, commitQueries, smellQueries, branchQueries);
+        ProgressQueries progressQueries = new JDBCProgressQueries();
+        this.analyze(persistence, persistenceSupplier,
+                projectQueries, developerQueries, commitQueries, smellQueries, branchQueries, progressQueries);
     }
 
-    public void analyze(Persistence persistence,
+    /**
+     * Run the analysis.
+     *
+     * @param persistence       The persistence to write the analysis into.
+     * @param workerPersistence Open new persistences for the concurrent parts of the analysis.
+     * @throws AnalysisException If the repository could not be opened.
+     */
+    public void analyze(Persistence persistence, Supplier<Persistence> workerPersistence,
                         ProjectQueries projectQueries, DeveloperQueries developerQueries,
                         CommitQueries commitQueries, SmellQueries smellQueries,
-                        BranchQueries branchQueries) throws AnalysisException {
+                        BranchQueries branchQueries, ProgressQueries progressQueries) throws AnalysisException {
         persistence.initialize();
         int appId = persistApp(appName, projectUrl, persistence, projectQueries);
 
-        Repository repository = new Repository(appRepo);
+        Repository repository = options.configure(new Repository(appRepo));
         try {
             repository.initializeRepository();
         } catch (Repository.RepositoryException e) {
             throw new AnalysisException("Unable to open repository", e);
         }
         logger.info("[" + appId + "] Analyzing application: " + appName);
-        for (Query process : getAnalysisProcess(appId, repository, persistence,
-                projectQueries, developerQueries, commitQueries, smellQueries, branchQueries)) {
+        AnalysisProgress progress = null;
+        if (options.isResume()) {
+            progress = new AnalysisProgress(appId, progressQueries);
+            progress.load(persistence);
+        }
+        boolean complete = true;
+        for (Query process : getAnalysisProcess(appId, repository, persistence, workerPersistence,
+                projectQueries, developerQueries, commitQueries, smellQueries, branchQueries, progress)) {
+            String step = process.getClass().getSimpleName();
+            if (progress != null && progress.isDone(AnalysisProgress.QUERY_STAGE, step)) {
+                logger.info("[" + appId + "] Skipping completed query: " + step);
+                continue;
+            }
             try {
                 process.query();
-            } catch (QueryException e) {
+                persistence.endTransaction(TransactionGranularity.QUERY);
+                // Ensure the query writes are done before starting the next one.
+                persistence.flush();
+                if (progress != null) {
+                    progress.record(persistence, AnalysisProgress.QUERY_STAGE, step);
+                }
+            } catch (QueryException | PersistenceException e) {
+                complete = false;
                 logger.warn("An error occurred during query!", e);
+                if (progress != null) {
+                    // The next queries rely on this one, they are all analyzed again when resuming.
+                    logger.warn("[" + appId + "] Stopping the analysis, to be resumed from: " + step);
+                    break;
+                }
             }
         }
 
         repository.finalizeRepository();
+        if (progress != null && complete) {
+            // The next analysis starts from scratch, or incrementally.
+            progress.clear(persistence);
+        }
 
         logger.info("[" + appId + "] Analysis done for: " + appName);
+        persistence.endTransaction(TransactionGranularity.PROJECT);
         persistence.close();
     }
 
@@ -146,7 +246,8 @@ public class SingleAppAnalysis implements Analysis {
                 arguments.getString("repository"),
                 arguments.getString("database"),
                 arguments.getString("githubToken"),
-                arguments.getString("url")
+                arguments.getString("url"),
+                new AnalysisOptions(arguments)
         );
     }
 
@@ -180,5 +281,7 @@ public class SingleAppAnalysis implements Analysis {
                 .help("Repository complete path to log in database")
                 .type(String.class)
                 .required(false);
+
+        AnalysisOptions.setArguments(parser);
     }
 }
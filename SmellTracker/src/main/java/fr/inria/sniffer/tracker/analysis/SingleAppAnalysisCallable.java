@@ -3,17 +3,22 @@ package fr.inria.sniffer.tracker.analysis;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.DeveloperQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCBranchQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCCommitQueries;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCProgressQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCProjectQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.PersistenceException;
 import fr.inria.sniffer.tracker.analysis.persistence.PostgresqlPersistence;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.BranchQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.CommitQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCDeveloperQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCSmellQueries;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.ProgressQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.ProjectQueries;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.util.concurrent.Callable;
 
 final class SingleAppAnalysisCallable implements Callable<Void> {
@@ -24,9 +29,11 @@ final class SingleAppAnalysisCallable implements Callable<Void> {
     private String githubToken;
     private String url;
     DataSource connections;
+    private final AnalysisOptions options;
 
     public SingleAppAnalysisCallable(String application, String repository, String paprikaDB,
-                                     String githubToken, String url, DataSource connections) {
+                                     String githubToken, String url, DataSource connections,
+                                     AnalysisOptions options) {
         this.application = application;
         this.repository = repository;
         this.paprikaDB = paprikaDB;
@@ -39,25 +46,42 @@ final class SingleAppAnalysisCallable implements Callable<Void> {
             this.url = Main.GITHUB_URL + (url.startsWith("/") ? url.substring(1) : url);
         }
         this.connections = connections;
+        this.options = options;
     }
 
     @Override
     public Void call() throws Exception {
-        SingleAppAnalysis analysis = new SingleAppAnalysis(application, repository, paprikaDB, githubToken, url);
-        PostgresqlPersistence persistence = new PostgresqlPersistence(connections.getConnection());
+        SingleAppAnalysis analysis = new SingleAppAnalysis(application, repository, paprikaDB, githubToken, url, options);
+        Persistence persistence = openPersistence();
         ProjectQueries projectQueries = new JDBCProjectQueries();
         DeveloperQueries developerQueries = new JDBCDeveloperQueries();
         CommitQueries commitQueries = new JDBCCommitQueries(developerQueries);
         SmellQueries smellQueries = new JDBCSmellQueries(commitQueries);
         BranchQueries branchQueries = new JDBCBranchQueries(commitQueries, smellQueries);
+        ProgressQueries progressQueries = new JDBCProgressQueries();
         try {
-            analysis.analyze(persistence, projectQueries, developerQueries, commitQueries, smellQueries, branchQueries);
+            analysis.analyze(persistence, this::openPersistence,
+                    projectQueries, developerQueries, commitQueries, smellQueries, branchQueries, progressQueries);
         } catch (AnalysisException e) {
             logger.error("Unable to perform analysis on project " + application, e);
         }
         return null;
     }
 
+    /**
+     * Open a new persistence from the connection pool.
+     *
+     * @return The configured persistence.
+     * @throws PersistenceException If no connection could be retrieved.
+     */
+    private Persistence openPersistence() {
+        try {
+            return options.configure(new PostgresqlPersistence(connections.getConnection()));
+        } catch (SQLException e) {
+            throw new PersistenceException("Unable to retrieve a connection from the pool", e);
+        }
+    }
+
     @Override
     public String toString() {
         return "SingleAnalysisTask{" +
@@ -2,7 +2,9 @@ package fr.inria.sniffer.tracker.analysis;
 
 import fr.inria.sniffer.tracker.analysis.model.Repository;
 import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.PersistenceException;
 import fr.inria.sniffer.tracker.analysis.persistence.PostgresqlPersistence;
+import fr.inria.sniffer.tracker.analysis.persistence.TransactionGranularity;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.CommitQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.DeveloperQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCCommitQueries;
@@ -32,6 +34,7 @@ public class SupplementaryAnalysis implements Analysis {
     private final String appName;
     private final String paprikaDB;
     private final String appRepo;
+    private final AnalysisOptions options;
 
     private List<Query> getAnalysisProcess(int appId, Repository repository, Persistence persistence,
                                            CommitQueries commitQueries, SmellQueries smellQueries,
@@ -39,8 +42,10 @@ public class SupplementaryAnalysis implements Analysis {
         List<Query> analysisProcess = new ArrayList<>();
         analysisProcess.add(new SizeQuery(appId, paprikaDB, persistence, commitQueries));
         analysisProcess.add(new TagQuery(appId, repository, persistence, tagQueries));
-        analysisProcess.add(new SmellDeletionQuery(appId, paprikaDB, persistence, smellQueries));
-        analysisProcess.add(new FilesChangeDetectionQuery(appId, repository, persistence, commitQueries));
+        analysisProcess.add(new SmellDeletionQuery(appId, paprikaDB, persistence, smellQueries,
+                options.getDeletionThreads()));
+        analysisProcess.add(new FilesChangeDetectionQuery(appId, repository, persistence, commitQueries,
+                options.getCommitDetails()));
         return analysisProcess;
     }
 
@@ -48,11 +53,13 @@ public class SupplementaryAnalysis implements Analysis {
      * Compute a single project analysis.
      *
      * @param paprikaDB Path to paprika database.
+     * @param options   Tuning options of the analysis.
      */
-    SupplementaryAnalysis(String appName, String paprikaDB, String appRepo) {
+    SupplementaryAnalysis(String appName, String paprikaDB, String appRepo, AnalysisOptions options) {
         this.appName = appName;
         this.paprikaDB = paprikaDB;
         this.appRepo = appRepo;
+        this.options = options;
     }
 
     /**
@@ -74,7 +81,7 @@ public class SupplementaryAnalysis implements Analysis {
     public void analyze() throws AnalysisException {
         // TODO: Use dependency injection someday
         // Persistence persistence = new SQLitePersistence("output.sqlite");
-        Persistence persistence = new PostgresqlPersistence(Main.DATABASE_URL, Main.DATABASE_USERNAME, Main.DATABASE_PASSWORD);
+        Persistence persistence = options.configure(new PostgresqlPersistence(Main.DATABASE_URL, Main.DATABASE_USERNAME, Main.DATABASE_PASSWORD));
         ProjectQueries projectQueries = new JDBCProjectQueries();
         DeveloperQueries developerQueries = new JDBCDeveloperQueries();
         CommitQueries commitQueries = new JDBCCommitQueries(developerQueries);
@@ -88,7 +95,8 @@ public class SupplementaryAnalysis implements Analysis {
         persistence.initialize();
         int appId = appId(appName, persistence, projectQueries);
         logger.info("[" + appId + "] Starting supplementary analysis");
-        Repository repository = new Repository(appRepo);
+        commitQueries.loadCommitIds(persistence, appId);
+        Repository repository = options.configure(new Repository(appRepo));
         try {
             repository.initializeRepository();
         } catch (Repository.RepositoryException e) {
@@ -99,13 +107,17 @@ public class SupplementaryAnalysis implements Analysis {
                 commitQueries, smellQueries, tagQueries)) {
             try {
                 process.query();
-            } catch (QueryException e) {
+                persistence.endTransaction(TransactionGranularity.QUERY);
+                // Ensure the query writes are done before starting the next one.
+                persistence.flush();
+            } catch (QueryException | PersistenceException e) {
                 logger.warn("An error occurred during query!", e);
             }
         }
 
         logger.info("[" + appId + "] Supplementary analysis done.");
         repository.finalizeRepository();
+        persistence.endTransaction(TransactionGranularity.PROJECT);
         persistence.close();
     }
 
@@ -118,7 +130,8 @@ public class SupplementaryAnalysis implements Analysis {
         this(
                 arguments.getString("name"),
                 arguments.getString("database"),
-                arguments.getString("repository")
+                arguments.getString("repository"),
+                new AnalysisOptions(arguments)
         );
     }
 
@@ -142,5 +155,7 @@ public class SupplementaryAnalysis implements Analysis {
                 .help("Github repository as \"username/repository\" or local path")
                 .type(String.class)
                 .required(true);
+
+        AnalysisOptions.setArguments(parser);
     }
 }
@@ -6,6 +6,7 @@ import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCProjectQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCSmellQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.TagQueries;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
 import fr.inria.sniffer.tracker.analysis.persistence.PostgresqlPersistence;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.CommitQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCDeveloperQueries;
@@ -22,18 +23,21 @@ final class SupplementaryAnalysisCallable implements Callable<Void> {
     private final String repository;
     private final String paprikaDB;
     private final DataSource connections;
+    private final AnalysisOptions options;
 
-    public SupplementaryAnalysisCallable(String appName, String repository, String paprikaDB, DataSource connections) {
+    public SupplementaryAnalysisCallable(String appName, String repository, String paprikaDB, DataSource connections,
+                                         AnalysisOptions options) {
         this.appName = appName;
         this.repository = repository;
         this.paprikaDB = paprikaDB;
         this.connections = connections;
+        this.options = options;
     }
 
     @Override
     public Void call() throws Exception {
-        SupplementaryAnalysis analysis = new SupplementaryAnalysis(appName, paprikaDB, repository);
-        PostgresqlPersistence persistence = new PostgresqlPersistence(connections.getConnection());
+        SupplementaryAnalysis analysis = new SupplementaryAnalysis(appName, paprikaDB, repository, options);
+        Persistence persistence = options.configure(new PostgresqlPersistence(connections.getConnection()));
         ProjectQueries projectQueries = new JDBCProjectQueries();
         DeveloperQueries developerQueries = new JDBCDeveloperQueries();
         CommitQueries commitQueries = new JDBCCommitQueries(developerQueries);
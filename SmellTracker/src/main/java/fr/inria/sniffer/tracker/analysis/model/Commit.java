@@ -19,9 +19,11 @@ public class Commit {
 
     private boolean inPaprika;
 
-    private final List<Smell> smells;
-    private final List<Smell> mergedSmells;
-    private final Map<Smell, Smell> renamedSmells;
+    // The smells are kept as codes of a dictionary, shared by the compared commits.
+    private SmellDictionary smellDictionary;
+    private final SmellCodes smells;
+    private final SmellCodes mergedSmells;
+    private Map<Smell, Smell> renamedSmells;
 
     /**
      * Create a new, empty commit with an empty sha and an invalid ordinal.
@@ -73,9 +75,9 @@ public class Commit {
         this.message = message;
         this.authorEmail = authorEmail;
         this.parents = parents;
-        this.smells = new ArrayList<>();
-        this.renamedSmells = new HashMap<>();
-        this.mergedSmells = new ArrayList<>();
+        this.smells = new SmellCodes();
+        this.mergedSmells = new SmellCodes();
+        this.renamedSmells = Collections.emptyMap();
     }
 
     /**
@@ -241,7 +243,29 @@ public class Commit {
      * @return true in case of a merge commit, false otherwise.
      */
     public boolean isMerge() {
-        return this.mergedSmells != null && !this.mergedSmells.isEmpty();
+        return !this.mergedSmells.isEmpty();
+    }
+
+    /**
+     * Set the {@link SmellDictionary} encoding the commit smells.
+     * The commits compared to each other should share the same dictionary,
+     * otherwise the smells of the previous commit are encoded again on each comparison.
+     *
+     * @param smellDictionary The dictionary to use.
+     * @throws IllegalStateException If smells were already encoded in another dictionary.
+     */
+    public void setSmellDictionary(SmellDictionary smellDictionary) {
+        if (this.smellDictionary != smellDictionary && (!smells.isEmpty() || !mergedSmells.isEmpty())) {
+            throw new IllegalStateException("Smells already added to commit: " + sha);
+        }
+        this.smellDictionary = smellDictionary;
+    }
+
+    private SmellDictionary smellDictionary() {
+        if (smellDictionary == null) {
+            smellDictionary = new SmellDictionary();
+        }
+        return smellDictionary;
     }
 
     public void addSmell(Smell smell) {
@@ -249,11 +273,11 @@ public class Commit {
     }
 
     public void addSmells(Collection<Smell> smells) {
-        this.smells.addAll(smells);
+        encode(smells, this.smells);
     }
 
     public Collection<Smell> getSmells() {
-        return this.smells;
+        return decode(this.smells);
     }
 
 
@@ -262,14 +286,72 @@ public class Commit {
     }
 
     public void addMergedSmells(Collection<Smell> smells) {
-        this.mergedSmells.addAll(smells);
+        encode(smells, this.mergedSmells);
     }
 
     public Collection<Smell> getMergedSmells() {
-        return mergedSmells;
+        return decode(mergedSmells);
+    }
+
+    private void encode(Collection<Smell> smells, SmellCodes codes) {
+        SmellDictionary dictionary = smellDictionary();
+        for (Smell smell : smells) {
+            codes.add(dictionary.encode(smell));
+        }
+    }
+
+    private List<Smell> decode(SmellCodes codes) {
+        List<Smell> decoded = new ArrayList<>(codes.size());
+        for (int i = 0; i < codes.size(); i++) {
+            decoded.add(smellDictionary.decode(codes.get(i)));
+        }
+        return decoded;
+    }
+
+    private List<Smell> decode(int[] codes) {
+        List<Smell> decoded = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            decoded.add(smellDictionary.decode(code));
+        }
+        return decoded;
+    }
+
+    /**
+     * @param smells The smells to encode.
+     * @return The distinct codes of the smells in this commit dictionary, in ascending order.
+     */
+    private int[] sortedCodes(Collection<Smell> smells) {
+        SmellDictionary dictionary = smellDictionary();
+        int[] codes = new int[smells.size()];
+        int i = 0;
+        for (Smell smell : smells) {
+            codes[i++] = dictionary.encode(smell);
+        }
+        return SmellCodes.distinct(codes);
+    }
+
+    /**
+     * @param dictionary The dictionary to encode the smells into.
+     * @return The distinct codes of this commit smells in the given dictionary, in ascending order.
+     */
+    private int[] sortedCodesIn(SmellDictionary dictionary) {
+        if (smells.isEmpty()) {
+            return SmellCodes.EMPTY;
+        }
+        if (dictionary == smellDictionary) {
+            return smells.sorted();
+        }
+        int[] codes = new int[smells.size()];
+        for (int i = 0; i < smells.size(); i++) {
+            codes[i] = dictionary.encode(smellDictionary.decode(smells.get(i)));
+        }
+        return SmellCodes.distinct(codes);
     }
 
     public void setRenamedSmell(Smell parent, Smell renamed) {
+        if (this.renamedSmells.isEmpty()) {
+            this.renamedSmells = new HashMap<>();
+        }
         this.renamedSmells.put(parent, renamed);
     }
 
@@ -290,13 +372,15 @@ public class Commit {
      * @return The list of {@link Smell} introduced in the current commit.
      */
     public List<Smell> getIntroduced(Commit previous) {
-        List<Smell> introduction = new ArrayList<>(this.getSmells());
-        introduction.removeAll(previous.getSmells());
+        if (smells.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int[] introduction = SmellCodes.difference(smells.sorted(), previous.sortedCodesIn(smellDictionary));
         if (this.isMerge()) {
-            introduction.removeAll(this.getMergedSmells());
+            introduction = SmellCodes.difference(introduction, mergedSmells.sorted());
         }
-        introduction.removeAll(this.getRenamedSmells());
-        return introduction;
+        introduction = SmellCodes.difference(introduction, sortedCodes(getRenamedSmells()));
+        return decode(introduction);
     }
 
     /**
@@ -309,16 +393,18 @@ public class Commit {
      * @return The list of {@link Smell} refactored in the current commit.
      */
     public List<Smell> getRefactored(Commit previous) {
-        List<Smell> refactoring = new ArrayList<>(previous.getSmells());
+        if (previous.smells.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int[] refactoring = previous.sortedCodesIn(smellDictionary());
         if (this.isMerge()) {
-            refactoring.retainAll(this.getMergedSmells());
+            refactoring = SmellCodes.intersection(refactoring, mergedSmells.sorted());
         }
-        refactoring.removeAll(this.getSmells());
-
+        refactoring = SmellCodes.difference(refactoring, smells.sorted());
         // We don't count the Smell as refactoring if its parent Smell
         // is the origin of a renamed smell in the previous commit.
-        refactoring.removeAll(getRenamedSmellsOrigins());
-        return refactoring;
+        refactoring = SmellCodes.difference(refactoring, sortedCodes(getRenamedSmellsOrigins()));
+        return decode(refactoring);
     }
 
     /**
@@ -329,13 +415,7 @@ public class Commit {
      * @return The previous {@link Smell} if found,the tested {@link Smell} if not found.
      */
     public Smell getPreviousInstance(Smell tested) {
-        for (Smell smell : getSmells()) {
-            if (Smell.copyWithoutParent(smell).equals(tested)) {
-                return smell;
-            }
-
-        }
-        return tested;
+        return firstInstance(smells, tested);
     }
 
     /**
@@ -346,12 +426,27 @@ public class Commit {
      * @return The previous {@link Smell} if found,the tested {@link Smell} if not found.
      */
     public Smell getMergedInstance(Smell tested) {
-        for (Smell smell : getMergedSmells()) {
-            if (Smell.copyWithoutParent(smell).equals(tested)) {
-                return smell;
-            }
+        return firstInstance(mergedSmells, tested);
+    }
+
+    /**
+     * Find the first added smell having the identity of the tested smell, whatever its parent.
+     *
+     * @param codes  The smells to look into.
+     * @param tested The instance to retrieve, expected without parent.
+     * @return The found {@link Smell}, the tested {@link Smell} if not found.
+     */
+    private Smell firstInstance(SmellCodes codes, Smell tested) {
+        if (codes.isEmpty()) {
+            return tested;
+        }
+        int code = smellDictionary.find(tested);
+        // A tested smell with a parent never matches, as the smells are indexed without parent.
+        if (code < 0 || smellDictionary.baseCode(code) != code) {
+            return tested;
         }
-        return tested;
+        int found = codes.firstWithBase(code, smellDictionary);
+        return found < 0 ? tested : smellDictionary.decode(found);
     }
 
     public boolean isInPaprika() {
@@ -0,0 +1,254 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.joda.time.DateTime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, read-only view of all the commits reachable from a repository HEAD.
+ * <p>
+ * The commits are indexed from 0 in the git log order, HEAD being the first one.
+ * Parents, dates, authors and messages are stored in arrays indexed by the commit,
+ * so that each commit object is parsed once for the whole analysis.
+ * <p>
+ * This class is immutable, thus thread safe.
+ */
+public final class CommitGraph {
+    final String[] shas;
+    private final Map<String, Integer> indexes;
+    // Parents of commit i are parents[parentOffsets[i]] to parents[parentOffsets[i + 1] - 1].
+    final int[] parentOffsets;
+    final int[] parents;
+    final int[] commitTimes;
+    final int[] authors;
+    final String[] authorEmails;
+    // Message of commit i is messages[messageOffsets[i]] to messages[messageOffsets[i + 1] - 1].
+    final int[] messageOffsets;
+    final String messages;
+
+    CommitGraph(String[] shas, int[] parentOffsets, int[] parents, int[] commitTimes, int[] authors,
+                String[] authorEmails, int[] messageOffsets, String messages) {
+        this(shas, indexes(shas), parentOffsets, parents, commitTimes, authors, authorEmails, messageOffsets, messages);
+    }
+
+    private CommitGraph(String[] shas, Map<String, Integer> indexes, int[] parentOffsets, int[] parents,
+                        int[] commitTimes, int[] authors, String[] authorEmails,
+                        int[] messageOffsets, String messages) {
+        this.shas = shas;
+        this.indexes = indexes;
+        this.parentOffsets = parentOffsets;
+        this.parents = parents;
+        this.commitTimes = commitTimes;
+        this.authors = authors;
+        this.authorEmails = authorEmails;
+        this.messageOffsets = messageOffsets;
+        this.messages = messages;
+    }
+
+    private static Map<String, Integer> indexes(String[] shas) {
+        Map<String, Integer> indexes = new HashMap<>(shas.length * 2);
+        for (int i = 0; i < shas.length; i++) {
+            indexes.put(shas[i], i);
+        }
+        return indexes;
+    }
+
+    /**
+     * Resolve the current HEAD of a repository.
+     *
+     * @param repository The git repository.
+     * @return The HEAD commit identifier.
+     * @throws IOException If the repository has no HEAD or could not be read.
+     */
+    static ObjectId resolveHead(org.eclipse.jgit.lib.Repository repository) throws IOException {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            throw new IOException("Unable to resolve HEAD of repository: " + repository.getDirectory());
+        }
+        return head;
+    }
+
+    /**
+     * Load the commits reachable from HEAD in a single {@link RevWalk} pass.
+     *
+     * @param repository The git repository.
+     * @return The loaded {@link CommitGraph}.
+     * @throws IOException If the repository has no HEAD or could not be read.
+     */
+    static CommitGraph load(org.eclipse.jgit.lib.Repository repository) throws IOException {
+        return load(repository, resolveHead(repository));
+    }
+
+    /**
+     * Load the commits reachable from the given head in a single {@link RevWalk} pass.
+     *
+     * @param repository The git repository.
+     * @param head       The first commit of the graph.
+     * @return The loaded {@link CommitGraph}.
+     * @throws IOException If the repository could not be read.
+     */
+    static CommitGraph load(org.eclipse.jgit.lib.Repository repository, ObjectId head) throws IOException {
+        List<RevCommit> commits = new ArrayList<>();
+        Map<String, Integer> indexes = new HashMap<>();
+        Map<String, Integer> authorIndexes = new HashMap<>();
+        List<String> authorEmails = new ArrayList<>();
+        int[] authors = new int[64];
+        int[] commitTimes = new int[64];
+        int[] messageOffsets = new int[65];
+        StringBuilder messages = new StringBuilder();
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.markStart(walk.parseCommit(head));
+            RevCommit commit;
+            while ((commit = walk.next()) != null) {
+                int index = commits.size();
+                if (index == commitTimes.length) {
+                    commitTimes = Arrays.copyOf(commitTimes, index * 2);
+                    authors = Arrays.copyOf(authors, index * 2);
+                    messageOffsets = Arrays.copyOf(messageOffsets, index * 2 + 1);
+                }
+                commits.add(commit);
+                indexes.put(commit.name(), index);
+                commitTimes[index] = commit.getCommitTime();
+
+                String email = commit.getAuthorIdent().getEmailAddress();
+                Integer author = authorIndexes.get(email);
+                if (author == null) {
+                    author = authorEmails.size();
+                    authorIndexes.put(email, author);
+                    authorEmails.add(email);
+                }
+                authors[index] = author;
+
+                messages.append(commit.getFullMessage());
+                messageOffsets[index + 1] = messages.length();
+                // The body is no longer needed, only the parents are.
+                commit.disposeBody();
+            }
+
+            // The parents that were not walked, e.g. cut by a shallow clone or a graft, are left out.
+            int size = commits.size();
+            int[] parentOffsets = new int[size + 1];
+            int[] parents = new int[size];
+            int parentCount = 0;
+            for (int i = 0; i < size; i++) {
+                RevCommit current = commits.get(i);
+                for (int p = 0; p < current.getParentCount(); p++) {
+                    Integer parent = indexes.get(current.getParent(p).name());
+                    if (parent != null) {
+                        if (parentCount == parents.length) {
+                            parents = Arrays.copyOf(parents, parentCount * 2);
+                        }
+                        parents[parentCount++] = parent;
+                    }
+                }
+                parentOffsets[i + 1] = parentCount;
+            }
+            parents = Arrays.copyOf(parents, parentCount);
+
+            String[] shas = new String[size];
+            for (int i = 0; i < size; i++) {
+                shas[i] = commits.get(i).name();
+            }
+            return new CommitGraph(shas, indexes, parentOffsets, parents,
+                    Arrays.copyOf(commitTimes, size), Arrays.copyOf(authors, size),
+                    authorEmails.toArray(new String[0]),
+                    Arrays.copyOf(messageOffsets, size + 1), messages.toString());
+        }
+    }
+
+    /**
+     * @return The number of commits.
+     */
+    public int size() {
+        return shas.length;
+    }
+
+    /**
+     * @param sha The commit sha1.
+     * @return The commit index, -1 if the commit is not reachable from HEAD.
+     */
+    public int indexOf(String sha) {
+        return indexes.getOrDefault(sha, -1);
+    }
+
+    public String sha(int commit) {
+        return shas[commit];
+    }
+
+    public int parentCount(int commit) {
+        return parentOffsets[commit + 1] - parentOffsets[commit];
+    }
+
+    /**
+     * @param commit   The commit index.
+     * @param position The nth parent.
+     * @return The index of the nth parent of the commit.
+     */
+    public int parent(int commit, int position) {
+        if (position >= parentCount(commit)) {
+            throw new IndexOutOfBoundsException("Commit " + shas[commit] + " has no parent n°" + position);
+        }
+        return parents[parentOffsets[commit] + position];
+    }
+
+    /**
+     * @param commit The commit index.
+     * @return The commit time, in seconds since the epoch.
+     */
+    public int commitTime(int commit) {
+        return commitTimes[commit];
+    }
+
+    public String authorEmail(int commit) {
+        return authorEmails[authors[commit]];
+    }
+
+    public String message(int commit) {
+        return messages.substring(messageOffsets[commit], messageOffsets[commit + 1]);
+    }
+
+    /**
+     * @return The commit sha1s in the git log order.
+     */
+    public List<String> log() {
+        return Collections.unmodifiableList(Arrays.asList(shas));
+    }
+
+    /**
+     * Create a {@link Commit} filled with its parents, but not its details,
+     * as {@link Commit#commitWithParents(RevCommit)} would.
+     *
+     * @param commit The commit index.
+     * @return A new {@link Commit}.
+     */
+    public Commit commitWithParents(int commit) {
+        List<Commit> parentCommits = new ArrayList<>(parentCount(commit));
+        for (int p = 0; p < parentCount(commit); p++) {
+            parentCommits.add(new Commit(shas[parent(commit, p)], -1, new ArrayList<>()));
+        }
+        return new Commit(shas[commit], -1, parentCommits);
+    }
+
+    /**
+     * Create a {@link Commit} filled with its details, but not its parents,
+     * as {@link Commit#commitWithDetails(RevCommit)} would.
+     *
+     * @param commit The commit index.
+     * @return A new {@link Commit}.
+     */
+    public Commit commitWithDetails(int commit) {
+        return new Commit(shas[commit], -1, new DateTime(((long) commitTimes[commit]) * 1000),
+                message(commit), authorEmail(commit), new ArrayList<>());
+    }
+}
@@ -0,0 +1,197 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary file caching the {@link CommitGraph} of a repository between analyses.
+ * <p>
+ * The file is stored in the git directory and keyed by the HEAD commit: since git objects are
+ * immutable, the commits reachable from an unchanged HEAD are unchanged as well.
+ * Whenever HEAD moves, the graph is walked again and the file replaced.
+ * <p>
+ * The file is memory mapped, then decoded in the {@link CommitGraph} arrays.
+ */
+final class CommitGraphCache {
+    private static final Logger logger = LoggerFactory.getLogger(CommitGraphCache.class.getName());
+    static final String FILE_NAME = "sniffer-commit-graph";
+    private static final int MAGIC = 0x534E4347; // 'SNCG'
+    private static final int VERSION = 1;
+    private static final int SHA_LENGTH = 20;
+
+    private CommitGraphCache() {
+    }
+
+    /**
+     * Load the {@link CommitGraph} from the cache file if it matches the repository HEAD,
+     * walk the repository and write the cache file otherwise.
+     *
+     * @param repository The git repository.
+     * @return The repository {@link CommitGraph}.
+     * @throws IOException If the repository could not be read.
+     */
+    static CommitGraph load(org.eclipse.jgit.lib.Repository repository) throws IOException {
+        ObjectId head = CommitGraph.resolveHead(repository);
+        Path file = repository.getDirectory().toPath().resolve(FILE_NAME);
+
+        CommitGraph graph = read(file, head);
+        if (graph != null) {
+            logger.debug("Commit graph read from cache: " + file);
+            return graph;
+        }
+        graph = CommitGraph.load(repository, head);
+        write(file, head, graph);
+        return graph;
+    }
+
+    /**
+     * Read the cache file.
+     *
+     * @param file The cache file.
+     * @param head The expected HEAD commit.
+     * @return The cached {@link CommitGraph}, null if the file is absent, outdated or invalid.
+     */
+    static CommitGraph read(Path file, ObjectId head) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.info("Ignoring commit graph cache of unknown format: " + file);
+                return null;
+            }
+            byte[] rawSha = new byte[SHA_LENGTH];
+            buffer.get(rawSha);
+            if (!head.equals(ObjectId.fromRaw(rawSha))) {
+                logger.debug("Commit graph cache outdated: " + file);
+                return null;
+            }
+
+            int size = buffer.getInt();
+            int parentCount = buffer.getInt();
+            int authorCount = buffer.getInt();
+            int messagesLength = buffer.getInt();
+
+            String[] shas = new String[size];
+            byte[] rawShas = new byte[size * SHA_LENGTH];
+            buffer.get(rawShas);
+            for (int i = 0; i < size; i++) {
+                shas[i] = ObjectId.fromRaw(rawShas, i * SHA_LENGTH).name();
+            }
+            int[] parentOffsets = readInts(buffer, size + 1);
+            int[] parents = readInts(buffer, parentCount);
+            int[] commitTimes = readInts(buffer, size);
+            int[] authors = readInts(buffer, size);
+            int[] messageOffsets = readInts(buffer, size + 1);
+            String[] authorEmails = new String[authorCount];
+            for (int i = 0; i < authorCount; i++) {
+                byte[] email = new byte[buffer.getInt()];
+                buffer.get(email);
+                authorEmails[i] = new String(email, StandardCharsets.UTF_8);
+            }
+            if (buffer.remaining() != messagesLength * Character.BYTES) {
+                logger.warn("Ignoring truncated commit graph cache: " + file);
+                return null;
+            }
+            char[] messages = new char[messagesLength];
+            buffer.asCharBuffer().get(messages);
+
+            return new CommitGraph(shas, parentOffsets, parents, commitTimes, authors,
+                    authorEmails, messageOffsets, new String(messages));
+        } catch (IOException | RuntimeException e) {
+            // Any inconsistency in the file content is handled as an invalid cache.
+            logger.warn("Unable to read commit graph cache: " + file, e);
+            return null;
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+        return values;
+    }
+
+    private static void writeInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    /**
+     * Write the cache file, replacing any previous one.
+     * A failure is only logged since the cache is not required by the analysis.
+     *
+     * @param file  The cache file.
+     * @param head  The HEAD commit of the graph.
+     * @param graph The {@link CommitGraph} to write.
+     */
+    static void write(Path file, ObjectId head, CommitGraph graph) {
+        int size = graph.size();
+        byte[][] emails = new byte[graph.authorEmails.length][];
+        long length = 6 * Integer.BYTES + SHA_LENGTH + (long) size * SHA_LENGTH
+                + (long) Integer.BYTES * (4 * size + 2 + graph.parents.length + emails.length)
+                + 2L * graph.messages.length();
+        for (int i = 0; i < emails.length; i++) {
+            emails[i] = graph.authorEmails[i].getBytes(StandardCharsets.UTF_8);
+            length += emails[i].length;
+        }
+        if (length > Integer.MAX_VALUE) {
+            logger.warn("Commit graph too large to be cached (" + length + " bytes)");
+            return;
+        }
+
+        Path temporary = file.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                buffer.putInt(MAGIC);
+                buffer.putInt(VERSION);
+                byte[] rawSha = new byte[SHA_LENGTH];
+                head.copyRawTo(rawSha, 0);
+                buffer.put(rawSha);
+                buffer.putInt(size);
+                buffer.putInt(graph.parents.length);
+                buffer.putInt(emails.length);
+                buffer.putInt(graph.messages.length());
+
+                for (String sha : graph.shas) {
+                    ObjectId.fromString(sha).copyRawTo(rawSha, 0);
+                    buffer.put(rawSha);
+                }
+                writeInts(buffer, graph.parentOffsets);
+                writeInts(buffer, graph.parents);
+                writeInts(buffer, graph.commitTimes);
+                writeInts(buffer, graph.authors);
+                writeInts(buffer, graph.messageOffsets);
+                for (byte[] email : emails) {
+                    buffer.putInt(email.length);
+                    buffer.put(email);
+                }
+                buffer.asCharBuffer().put(graph.messages);
+                buffer.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Commit graph cache written: " + file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to write commit graph cache: " + file, e);
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // Nothing more to do.
+            }
+        }
+    }
+}
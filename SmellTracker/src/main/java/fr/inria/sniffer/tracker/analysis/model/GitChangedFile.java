@@ -1,14 +1,9 @@
 package fr.inria.sniffer.tracker.analysis.model;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class GitChangedFile {
     public final String name;
     public final int changeSize;
 
-    private static final Pattern FILE_CHANGED = Pattern.compile("^([^\\s]*)\\s*\\|\\s*(\\d+)\\s*[+-]*$");
-
     public GitChangedFile(String name, int changeSize) {
         this.name = name;
         this.changeSize = changeSize;
@@ -28,14 +23,15 @@ public class GitChangedFile {
      *
      * @param line The line to parse.
      * @return a {@link GitChangedFile}
+     * @throws Exception If the line is not a file change, use {@link GitSummaryParser} to parse a whole output.
      */
     public static GitChangedFile parseFileChange(String line) throws Exception {
-        line = line.trim();
-        Matcher matcher = FILE_CHANGED.matcher(line);
-        if (matcher.find()) {
-            return new GitChangedFile(matcher.group(1), Integer.valueOf(matcher.group(2)));
+        int start = GitSummaryParser.start(line);
+        GitChangedFile changedFile = new GitSummaryParser().changedFile(line, start, GitSummaryParser.end(line, start));
+        if (changedFile == null) {
+            throw new Exception("Unable to parse line: " + line.trim());
         }
-        throw new Exception("Unable to parse line: " + line);
+        return changedFile;
     }
 
 
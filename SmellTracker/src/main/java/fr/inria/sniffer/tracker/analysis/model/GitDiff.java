@@ -3,16 +3,13 @@ package fr.inria.sniffer.tracker.analysis.model;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class GitDiff {
     private static final Logger logger = LoggerFactory.getLogger(GitDiff.class.getName());
     public static final GitDiff EMPTY = new GitDiff(0, 0, 0); // TODO: See if we set to -1 ?
-    private static final Pattern MODIF_PATTERN = Pattern.compile("(?<number>\\d+)\\s(insertion[s]?|deletion[s]?)\\((?<sign>[+-])\\)");
-    private static final Pattern FILE_PATTERN = Pattern.compile("(?<number>\\d+)\\sfile[s]?\\schanged");
+    static final Pattern MODIF_PATTERN = Pattern.compile("(?<number>\\d+)\\s(insertion[s]?|deletion[s]?)\\((?<sign>[+-])\\)");
+    static final Pattern FILE_PATTERN = Pattern.compile("(?<number>\\d+)\\sfile[s]?\\schanged");
 
     private final int addition;
     private final int deletion;
@@ -29,39 +26,16 @@ public class GitDiff {
      * 3 files changed, 65 insertions(+), 5 deletions(-)
      *
      * @param line Line to parse.
-     * @return found {@link GitDiff}, null if could not parse.
+     * @return found {@link GitDiff}.
+     * @throws Exception If the line is not a diff summary, use {@link GitSummaryParser} to parse a whole output.
      */
     public static GitDiff parse(String line) throws Exception {
-        line = line.trim();
-        String[] split = line.split(",");
-        Map<String, Integer> modifications = new HashMap<>();
-
-        Matcher matcher = FILE_PATTERN.matcher(split[0]);
-        if (!matcher.find()) {
-            throw new Exception("Unable to parse diff line: " + line);
-        }
-        int changedFiles = Integer.valueOf(matcher.group("number"));
-
-        // We should be greater than 1
-        String input;
-        if (split.length > 1) {
-            input = split[1];
-            matcher = MODIF_PATTERN.matcher(input);
-            if (matcher.find()) {
-                modifications.put(matcher.group("sign"), Integer.valueOf(matcher.group("number")));
-            }
+        int start = GitSummaryParser.start(line);
+        GitDiff diff = new GitSummaryParser().diff(line, start, GitSummaryParser.end(line, start));
+        if (diff == null) {
+            throw new Exception("Unable to parse diff line: " + line.trim());
         }
-        if (split.length > 2) {
-            input = split[2];
-            matcher = MODIF_PATTERN.matcher(input);
-            if (matcher.find()) {
-                modifications.put(matcher.group("sign"), Integer.valueOf(matcher.group("number")));
-            }
-        }
-
-        int addition = modifications.getOrDefault("+", 0);
-        int deletion = modifications.getOrDefault("-", 0);
-        return new GitDiff(addition, deletion, changedFiles);
+        return diff;
     }
 
     public int getAddition() {
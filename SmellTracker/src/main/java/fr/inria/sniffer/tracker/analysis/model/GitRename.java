@@ -1,6 +1,5 @@
 package fr.inria.sniffer.tracker.analysis.model;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public final class GitRename {
@@ -14,8 +13,8 @@ public final class GitRename {
         this.similarity = similarity;
     }
 
-    private static final Pattern RENAME_WITH_BRACKETS = Pattern.compile("^rename\\s([^{]*)\\{(.*)\\s=>\\s([^}]*)\\}(.*)\\s\\((\\d+)%\\)$");
-    private static final Pattern RENAME_WITHOUT_BRACKETS = Pattern.compile("^rename\\s(.*)\\s=>\\s(.*)\\s\\((\\d+)%\\)$");
+    static final Pattern RENAME_WITH_BRACKETS = Pattern.compile("^rename\\s([^{]*)\\{(.*)\\s=>\\s([^}]*)\\}(.*)\\s\\((\\d+)%\\)$");
+    static final Pattern RENAME_WITHOUT_BRACKETS = Pattern.compile("^rename\\s(.*)\\s=>\\s(.*)\\s\\((\\d+)%\\)$");
 
 
     /**
@@ -29,48 +28,19 @@ public final class GitRename {
      *
      * @param line The line to parse.
      * @return a {@link GitRename}
+     * @throws Exception If the line is not a rename, use {@link GitSummaryParser} to parse a whole output.
      */
     public static GitRename parseRenamed(String line) throws Exception {
-        line = line.trim();
-        if (line.startsWith("rename")) {
-            GitRename rename;
-            if (line.contains("{")) {
-                rename = parseWithBraces(line);
-                if (rename != null) {
-                    return rename;
-                }
-            } else {
-                rename = parseWithoutBraces(line);
-                if (rename != null) {
-                    return rename;
-                }
-            }
+        int start = GitSummaryParser.start(line);
+        int end = GitSummaryParser.end(line, start);
+        GitRename rename = null;
+        if (line.startsWith("rename", start)) {
+            rename = new GitSummaryParser().rename(line, start, end);
         }
-        throw new Exception("Unable to parse line: " + line);
-    }
-
-    private static GitRename parseWithoutBraces(String line) {
-        Matcher matcher = RENAME_WITHOUT_BRACKETS.matcher(line);
-
-        if (matcher.find()) {
-            return new GitRename(matcher.group(1), matcher.group(2), Integer.valueOf(matcher.group(3)));
-        }
-        return null;
-    }
-
-    private static GitRename parseWithBraces(String line) throws Exception {
-        Matcher matcher = RENAME_WITH_BRACKETS.matcher(line);
-        if (matcher.find()) {
-            // Handle edge case where the entry is like 'a/b/{ => d}/C.java', or the other way around
-            String oldfourthGroup = matcher.group(2).isEmpty() ? matcher.group(4).substring(1) : matcher.group(4);
-            String newfourthGroup = matcher.group(3).isEmpty() ? matcher.group(4).substring(1) : matcher.group(4);
-
-            // Taking respectively the left and right arguments in the braces for old and new file.
-            String oldFile = matcher.group(1) + matcher.group(2) + oldfourthGroup;
-            String newFile = matcher.group(1) + matcher.group(3) + newfourthGroup;
-            return new GitRename(oldFile, newFile, Integer.valueOf(matcher.group(5)));
+        if (rename == null) {
+            throw new Exception("Unable to parse line: " + line.trim());
         }
-        return null;
+        return rename;
     }
 
     @Override
@@ -0,0 +1,251 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * Single pass parser of the 'git show --stat --summary' output.
+ * <p>
+ * Each line is classified on its first characters, then parsed by the matching rule only:
+ * <pre>
+ * <code>
+ *  any/file.java | 2 +-                           {@link GitChangedFile}
+ *  2 files changed, 6 insertions(+), 1 deletion(-) {@link GitDiff}
+ *  rename a.txt => b.txt (76%)                     {@link GitRename}
+ * </code>
+ * </pre>
+ * Lines are parsed in place, between their first and last non whitespace characters,
+ * and the regular expression matchers are reused from a line to another.
+ * <p>
+ * This class is not thread safe.
+ */
+public final class GitSummaryParser {
+    private static final String RENAME_PREFIX = "rename ";
+
+    private final Matcher renameWithBraces = GitRename.RENAME_WITH_BRACKETS.matcher("");
+    private final Matcher renameWithoutBraces = GitRename.RENAME_WITHOUT_BRACKETS.matcher("");
+    private final Matcher fileCount = GitDiff.FILE_PATTERN.matcher("");
+    private final Matcher modification = GitDiff.MODIF_PATTERN.matcher("");
+
+    /**
+     * Parse the output of a 'git show -M50% --stat --summary' command.
+     *
+     * @param lines The command output.
+     * @return The parsed {@link CommitDetails}.
+     */
+    public CommitDetails parse(List<String> lines) {
+        List<GitRename> renames = new ArrayList<>();
+        List<GitChangedFile> changedFiles = new ArrayList<>();
+        GitDiff diff = GitDiff.EMPTY;
+
+        for (String line : lines) {
+            int start = start(line);
+            int end = end(line, start);
+            if (start == end) {
+                continue;
+            }
+            if (line.startsWith(RENAME_PREFIX, start)) {
+                GitRename rename = rename(line, start, end);
+                if (rename != null) {
+                    renames.add(rename);
+                }
+            } else if (indexOf(line, '|', start, end) >= 0) {
+                GitChangedFile changedFile = changedFile(line, start, end);
+                if (changedFile != null) {
+                    changedFiles.add(changedFile);
+                }
+            } else if (isDigit(line.charAt(start))) {
+                GitDiff lineDiff = diff(line, start, end);
+                if (lineDiff != null) {
+                    diff = lineDiff;
+                }
+            }
+        }
+        return new CommitDetails(diff, renames, changedFiles);
+    }
+
+    /**
+     * @param line The line to look into.
+     * @return Index of the first non whitespace character, the line length if none.
+     */
+    static int start(String line) {
+        int start = 0;
+        while (start < line.length() && line.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * @param line  The line to look into.
+     * @param start Index of the first non whitespace character.
+     * @return Index following the last non whitespace character.
+     */
+    static int end(String line, int start) {
+        int end = line.length();
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Parse a rename line, see {@link GitRename#parseRenamed(String)} for the syntax.
+     *
+     * @param line  The line to parse.
+     * @param start Start of the line content.
+     * @param end   End of the line content.
+     * @return The parsed {@link GitRename}, null if the line is not a rename.
+     */
+    GitRename rename(String line, int start, int end) {
+        if (indexOf(line, '{', start, end) >= 0) {
+            Matcher matcher = region(renameWithBraces, line, start, end);
+            if (!matcher.find()) {
+                return null;
+            }
+            // Handle edge case where the entry is like 'a/b/{ => d}/C.java', or the other way around
+            String suffix = matcher.group(4);
+            boolean emptyBraceSide = matcher.start(2) == matcher.end(2) || matcher.start(3) == matcher.end(3);
+            if (emptyBraceSide && suffix.isEmpty()) {
+                return null;
+            }
+            String oldSuffix = matcher.start(2) == matcher.end(2) ? suffix.substring(1) : suffix;
+            String newSuffix = matcher.start(3) == matcher.end(3) ? suffix.substring(1) : suffix;
+
+            // Taking respectively the left and right arguments in the braces for old and new file.
+            String oldFile = matcher.group(1) + matcher.group(2) + oldSuffix;
+            String newFile = matcher.group(1) + matcher.group(3) + newSuffix;
+            int similarity = parseInt(line, matcher.start(5), matcher.end(5));
+            return similarity < 0 ? null : new GitRename(oldFile, newFile, similarity);
+        }
+
+        Matcher matcher = region(renameWithoutBraces, line, start, end);
+        if (!matcher.find()) {
+            return null;
+        }
+        int similarity = parseInt(line, matcher.start(3), matcher.end(3));
+        return similarity < 0 ? null : new GitRename(matcher.group(1), matcher.group(2), similarity);
+    }
+
+    /**
+     * Parse a changed file line, see {@link GitChangedFile#parseFileChange(String)} for the syntax,
+     * i.e. a file name without whitespace, a pipe, the change size and its '+' and '-' representation.
+     * Binary files, showing their size in bytes instead, are not considered.
+     *
+     * @param line  The line to parse.
+     * @param start Start of the line content.
+     * @param end   End of the line content.
+     * @return The parsed {@link GitChangedFile}, null if the line is not a changed file.
+     */
+    GitChangedFile changedFile(String line, int start, int end) {
+        int nameEnd = start;
+        while (nameEnd < end && line.charAt(nameEnd) > ' ') {
+            nameEnd++;
+        }
+        int index = skipWhitespaces(line, nameEnd, end);
+        if (index == end || line.charAt(index) != '|') {
+            return null;
+        }
+        int sizeStart = skipWhitespaces(line, index + 1, end);
+        int sizeEnd = sizeStart;
+        while (sizeEnd < end && isDigit(line.charAt(sizeEnd))) {
+            sizeEnd++;
+        }
+        int changeSize = parseInt(line, sizeStart, sizeEnd);
+        if (changeSize < 0) {
+            return null;
+        }
+        for (index = skipWhitespaces(line, sizeEnd, end); index < end; index++) {
+            if (line.charAt(index) != '+' && line.charAt(index) != '-') {
+                return null;
+            }
+        }
+        return new GitChangedFile(line.substring(start, nameEnd), changeSize);
+    }
+
+    /**
+     * Parse a diff summary line, see {@link GitDiff#parse(String)} for the syntax.
+     *
+     * @param line  The line to parse.
+     * @param start Start of the line content.
+     * @param end   End of the line content.
+     * @return The parsed {@link GitDiff}, null if the line is not a diff summary.
+     */
+    GitDiff diff(String line, int start, int end) {
+        int firstComma = indexOf(line, ',', start, end);
+        int segmentEnd = firstComma < 0 ? end : firstComma;
+        Matcher matcher = region(fileCount, line, start, segmentEnd);
+        if (!matcher.find()) {
+            return null;
+        }
+        int changedFiles = parseInt(line, matcher.start("number"), matcher.end("number"));
+        if (changedFiles < 0) {
+            return null;
+        }
+
+        int addition = 0;
+        int deletion = 0;
+        // Only the two segments following the files count hold modifications.
+        for (int segment = 0; segment < 2 && segmentEnd < end; segment++) {
+            int segmentStart = segmentEnd + 1;
+            int nextComma = indexOf(line, ',', segmentStart, end);
+            segmentEnd = nextComma < 0 ? end : nextComma;
+            matcher = region(modification, line, segmentStart, segmentEnd);
+            if (matcher.find()) {
+                int number = parseInt(line, matcher.start("number"), matcher.end("number"));
+                if (number < 0) {
+                    return null;
+                }
+                if (line.charAt(matcher.start("sign")) == '+') {
+                    addition = number;
+                } else {
+                    deletion = number;
+                }
+            }
+        }
+        return new GitDiff(addition, deletion, changedFiles);
+    }
+
+    private static Matcher region(Matcher matcher, String line, int start, int end) {
+        return matcher.reset(line).region(start, end);
+    }
+
+    private static int indexOf(String line, char character, int start, int end) {
+        int index = line.indexOf(character, start);
+        return index < end ? index : -1;
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    private static int skipWhitespaces(String line, int index, int end) {
+        while (index < end && line.charAt(index) <= ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Parse a positive decimal number without allocating a String.
+     *
+     * @param line  The line holding the number.
+     * @param start Index of the first digit.
+     * @param end   Index following the last digit.
+     * @return The parsed number, -1 if there is no digit or the number is too large for an int.
+     */
+    static int parseInt(String line, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (line.charAt(i) - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) value;
+    }
+}
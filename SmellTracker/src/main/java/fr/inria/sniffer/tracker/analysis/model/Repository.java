@@ -26,6 +26,8 @@ public class Repository {
     private Path cloneDir;
     private boolean isRemote = false;
     private Git git;
+    private volatile CommitGraph commitGraph;
+    private boolean commitGraphCached = false;
 
     /**
      * Initialize a new repository.
@@ -63,6 +65,7 @@ public class Repository {
         if (logger.isDebugEnabled() && cloneDir != null) {
             logger.debug("Repository already initialized, doing nothing (" + repository + ")");
         }
+        this.commitGraph = null;
         if (Files.exists(Paths.get(this.repository))) {
             this.git = initializeLocalRepository();
         } else {
@@ -95,6 +98,11 @@ public class Repository {
      * @throws IOException If anything goes wrong while parsing Git repository.
      */
     public Commit getCommitWithParents(String sha) throws IOException {
+        CommitGraph graph = getCommitGraph();
+        int index = graph.indexOf(sha);
+        if (index >= 0) {
+            return graph.commitWithParents(index);
+        }
         ObjectId commitId = ObjectId.fromString(sha);
         return Commit.commitWithParents(getRevCommit(commitId));
     }
@@ -108,6 +116,11 @@ public class Repository {
      * @throws IOException If anything goes wrong while parsing Git repository.
      */
     public Commit getCommitWithDetails(String sha) throws IOException {
+        CommitGraph graph = getCommitGraph();
+        int index = graph.indexOf(sha);
+        if (index >= 0) {
+            return graph.commitWithDetails(index);
+        }
         ObjectId commitId = ObjectId.fromString(sha);
         return Commit.commitWithDetails(getRevCommit(commitId));
     }
@@ -123,7 +136,7 @@ public class Repository {
     public Commit getHead() throws IOException {
         org.eclipse.jgit.lib.Repository gitRepo = getGitRepository().getRepository();
         Ref head = gitRepo.findRef("HEAD");
-        return Commit.commitWithParents(getRevCommit(head.getObjectId()));
+        return getCommitWithParents(head.getObjectId().name());
     }
 
     /**
@@ -133,15 +146,39 @@ public class Repository {
      * @throws IOException If an exception occurred while retrieving git log.
      */
     public List<String> getLog() throws IOException {
-        List<String> shas = new ArrayList<>();
-        try {
-            for (RevCommit commit : getGitRepository().log().call()) {
-                shas.add(commit.name());
+        return new ArrayList<>(getCommitGraph().log());
+    }
+
+    /**
+     * Keep the {@link CommitGraph} in a file of the git directory, in order to reuse it
+     * in the next analyses of the repository as long as its HEAD does not move.
+     *
+     * @param commitGraphCached True to read and write the commit graph cache file.
+     */
+    public void setCommitGraphCached(boolean commitGraphCached) {
+        this.commitGraphCached = commitGraphCached;
+    }
+
+    /**
+     * Returns the graph of the commits reachable from HEAD, loaded on the first call.
+     *
+     * @return The {@link CommitGraph} of the repository.
+     * @throws IOException If an exception occurred while walking the repository.
+     */
+    public CommitGraph getCommitGraph() throws IOException {
+        CommitGraph graph = commitGraph;
+        if (graph == null) {
+            synchronized (this) {
+                graph = commitGraph;
+                if (graph == null) {
+                    org.eclipse.jgit.lib.Repository gitRepo = getGitRepository().getRepository();
+                    graph = commitGraphCached ? CommitGraphCache.load(gitRepo) : CommitGraph.load(gitRepo);
+                    logger.debug("Loaded commit graph of " + graph.size() + " commits (" + repository + ")");
+                    commitGraph = graph;
+                }
             }
-            return shas;
-        } catch (GitAPIException e) {
-            throw new IOException(e.getMessage(), e);
         }
+        return graph;
     }
 
     /**
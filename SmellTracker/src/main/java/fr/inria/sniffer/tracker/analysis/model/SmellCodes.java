@@ -0,0 +1,142 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import java.util.Arrays;
+
+/**
+ * Smells of a {@link Commit}, as {@link SmellDictionary} codes in their insertion order.
+ * <p>
+ * The sorted views used to compare the commits are computed on demand and kept until the next insertion.
+ */
+final class SmellCodes {
+    static final int[] EMPTY = new int[0];
+
+    private int[] codes = EMPTY;
+    private int size = 0;
+    // Distinct codes in ascending order.
+    private int[] sorted;
+    // Base code of each smell in the high bits, insertion index in the low bits, in ascending order.
+    private long[] byBase;
+
+    void add(int code) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, Math.max(8, size * 2));
+        }
+        codes[size++] = code;
+        sorted = null;
+        byBase = null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int get(int index) {
+        return codes[index];
+    }
+
+    /**
+     * @return The distinct codes, in ascending order.
+     */
+    int[] sorted() {
+        if (sorted == null) {
+            sorted = distinct(Arrays.copyOf(codes, size));
+        }
+        return sorted;
+    }
+
+    /**
+     * Find the first added smell having the given identity without parent.
+     *
+     * @param base       The code of the identity without parent.
+     * @param dictionary The {@link SmellDictionary} of the codes.
+     * @return The smell code, -1 if none.
+     */
+    int firstWithBase(int base, SmellDictionary dictionary) {
+        if (byBase == null) {
+            byBase = new long[size];
+            for (int i = 0; i < size; i++) {
+                byBase[i] = ((long) dictionary.baseCode(codes[i]) << 32) | i;
+            }
+            Arrays.sort(byBase);
+        }
+        int position = Arrays.binarySearch(byBase, (long) base << 32);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        if (position == byBase.length || (int) (byBase[position] >>> 32) != base) {
+            return -1;
+        }
+        return codes[(int) byBase[position]];
+    }
+
+    /**
+     * Sort the codes and remove the duplicates, in place.
+     *
+     * @param codes The codes to sort.
+     * @return The distinct codes in ascending order.
+     */
+    static int[] distinct(int[] codes) {
+        if (codes.length == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(codes);
+        int length = 1;
+        for (int i = 1; i < codes.length; i++) {
+            if (codes[i] != codes[length - 1]) {
+                codes[length++] = codes[i];
+            }
+        }
+        return length == codes.length ? codes : Arrays.copyOf(codes, length);
+    }
+
+    /**
+     * @param a Distinct codes in ascending order.
+     * @param b Distinct codes in ascending order.
+     * @return The codes of a not in b, in ascending order.
+     */
+    static int[] difference(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return a;
+        }
+        int[] result = new int[a.length];
+        int length = 0;
+        int j = 0;
+        for (int code : a) {
+            while (j < b.length && b[j] < code) {
+                j++;
+            }
+            if (j == b.length || b[j] != code) {
+                result[length++] = code;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * @param a Distinct codes in ascending order.
+     * @param b Distinct codes in ascending order.
+     * @return The codes of a also in b, in ascending order.
+     */
+    static int[] intersection(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[length++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+}
@@ -0,0 +1,148 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Dictionary encoding the {@link Smell} identities, i.e. their type, instance, file, and parent,
+ * as dense integer codes.
+ * <p>
+ * Two smells have the same code if and only if they are equal, thus the smells of a {@link Commit}
+ * are kept as integer arrays and compared without hashing their Strings and parents chain again.
+ * The parent of a smell is referenced by its own code.
+ * <p>
+ * Each code is also bound to the code of the same identity without parent, used to find
+ * the previous instance of a smell. The dictionary keeps the first added instance of each identity,
+ * preferring an identified one, to decode the codes.
+ * <p>
+ * This class is not thread safe.
+ */
+public final class SmellDictionary {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NO_PARENT = -1;
+
+    private final Map<Identity, Integer> codes;
+    private Smell[] smells;
+    private int[] baseCodes;
+    private int size;
+
+    public SmellDictionary() {
+        this.codes = new HashMap<>();
+        this.smells = new Smell[INITIAL_CAPACITY];
+        this.baseCodes = new int[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Encode a smell, along with its parents, adding its identity to the dictionary if unknown.
+     *
+     * @param smell The smell to encode.
+     * @return The smell code.
+     */
+    public int encode(Smell smell) {
+        int parent = smell.parent == null ? NO_PARENT : encode(smell.parent);
+        return encode(new Identity(smell.type, smell.instance, smell.file, parent), smell);
+    }
+
+    /**
+     * Look for the code of a smell without adding it to the dictionary.
+     *
+     * @param smell The smell to look for.
+     * @return The smell code, -1 if the smell or one of its parents is unknown.
+     */
+    public int find(Smell smell) {
+        int parent = NO_PARENT;
+        if (smell.parent != null) {
+            parent = find(smell.parent);
+            if (parent < 0) {
+                return -1;
+            }
+        }
+        Integer code = codes.get(new Identity(smell.type, smell.instance, smell.file, parent));
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * @param code A smell code.
+     * @return The first added {@link Smell} having this code.
+     */
+    public Smell decode(int code) {
+        return smells[code];
+    }
+
+    /**
+     * @param code A smell code.
+     * @return The code of the same smell identity without parent, the code itself if the smell has no parent.
+     */
+    public int baseCode(int code) {
+        return baseCodes[code];
+    }
+
+    /**
+     * @return The number of encoded identities.
+     */
+    public int size() {
+        return size;
+    }
+
+    private int encode(Identity identity, Smell smell) {
+        Integer known = codes.get(identity);
+        if (known != null) {
+            Smell decoded = smells[known];
+            if (decoded == null || (decoded.id == -1 && smell != null && smell.id != -1)) {
+                smells[known] = smell;
+            }
+            return known;
+        }
+
+        // The identity without parent is only used as a key, it is decoded once added as a smell.
+        int base = identity.parent == NO_PARENT ? size :
+                encode(new Identity(identity.type, identity.instance, identity.file, NO_PARENT), null);
+        if (size == smells.length) {
+            smells = Arrays.copyOf(smells, size * 2);
+            baseCodes = Arrays.copyOf(baseCodes, size * 2);
+        }
+        int code = size++;
+        smells[code] = smell;
+        baseCodes[code] = base;
+        codes.put(identity, code);
+        return code;
+    }
+
+    /**
+     * Identity of a smell, referencing its parent identity by code.
+     */
+    private static final class Identity {
+        private final String type;
+        private final String instance;
+        private final String file;
+        private final int parent;
+        private final int hash;
+
+        Identity(String type, String instance, String file, int parent) {
+            this.type = type;
+            this.instance = instance;
+            this.file = file;
+            this.parent = parent;
+            this.hash = Objects.hash(type, instance, file, parent);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Identity identity = (Identity) o;
+            return parent == identity.parent &&
+                    Objects.equals(type, identity.type) &&
+                    Objects.equals(instance, identity.instance) &&
+                    Objects.equals(file, identity.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package fr.inria.sniffer.tracker.analysis.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind decorator of a {@link Persistence}.
+ * <p>
+ * Every operation is processed in order by a dedicated writer thread.
+ * The statements additions and commits are queued without waiting for their execution,
+ * while the operations returning a result wait for all the previous operations, hence read their own writes.
+ * The first failure of a queued operation is thrown back as a {@link PersistenceException}
+ * on the next call to the persistence, and the writes failed by the decorated persistence on the next {@link #flush()}.
+ */
+public class AsyncPersistence implements Persistence {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncPersistence.class.getName());
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+    private static final AtomicInteger writers = new AtomicInteger();
+    private static final Runnable STOP = () -> {
+    };
+
+    private final Persistence persistence;
+    private final BlockingQueue<Runnable> operations;
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final Thread writer;
+
+    public AsyncPersistence(Persistence persistence) {
+        this(persistence, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * @param persistence The decorated persistence, only used by the writer thread.
+     * @param queueSize   Number of operations waiting for the writer before blocking the callers.
+     */
+    public AsyncPersistence(Persistence persistence, int queueSize) {
+        this.persistence = persistence;
+        this.operations = new ArrayBlockingQueue<>(queueSize);
+        this.writer = new Thread(this::write, "persistence-writer-" + writers.incrementAndGet());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private void write() {
+        try {
+            Runnable operation;
+            while ((operation = operations.take()) != STOP) {
+                operation.run();
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Persistence writer interrupted, " + operations.size() + " operations dropped");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isWriter() {
+        return Thread.currentThread() == writer;
+    }
+
+    private void enqueue(Runnable operation) {
+        try {
+            operations.put(operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while waiting for the persistence writer", e);
+        }
+    }
+
+    /**
+     * Queue an operation without waiting for its execution.
+     *
+     * @param operation The operation to execute on the writer thread.
+     */
+    private void submit(Runnable operation) {
+        if (isWriter()) {
+            operation.run();
+            return;
+        }
+        throwFailure();
+        enqueue(() -> {
+            try {
+                operation.run();
+            } catch (RuntimeException e) {
+                logger.error("Unable to process persistence operation", e);
+                failure.compareAndSet(null, e);
+            }
+        });
+    }
+
+    /**
+     * Queue an operation and wait for its result.
+     *
+     * @param operation The operation to execute on the writer thread.
+     * @param <T>       The operation result type.
+     * @return The operation result.
+     */
+    private <T> T call(Callable<T> operation) {
+        FutureTask<T> task = new FutureTask<>(operation);
+        if (isWriter()) {
+            task.run();
+        } else {
+            throwFailure();
+            enqueue(task);
+        }
+        try {
+            T result = task.get();
+            throwFailure();
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while waiting for the persistence writer", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new PersistenceException("Unable to process persistence operation", e.getCause());
+        }
+    }
+
+    /**
+     * Throw the pending failure of the writer thread, if any.
+     */
+    private void throwFailure() {
+        RuntimeException cause = failure.getAndSet(null);
+        if (cause != null) {
+            throw new PersistenceException("A previous persistence operation failed", cause);
+        }
+    }
+
+    @Override
+    public void addStatements(String... statements) {
+        submit(() -> persistence.addStatements(statements));
+    }
+
+    @Override
+    public void addParameterizedStatements(ParameterizedStatement... statements) {
+        submit(() -> persistence.addParameterizedStatements(statements));
+    }
+
+    @Override
+    public void commit() {
+        submit(persistence::commit);
+    }
+
+    @Override
+    public void endTransaction(TransactionGranularity unit) {
+        submit(() -> persistence.endTransaction(unit));
+    }
+
+    @Override
+    public void flush() {
+        call(() -> {
+            persistence.flush();
+            return null;
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> query(String statement) {
+        return call(() -> persistence.query(statement));
+    }
+
+    @Override
+    public int streamQuery(String statement, Consumer<Map<String, Object>> consumer) {
+        return call(() -> persistence.streamQuery(statement, consumer));
+    }
+
+    @Override
+    public <T> int streamQuery(String statement, RowMapper<T> mapper, Consumer<? super T> consumer) {
+        return call(() -> persistence.streamQuery(statement, mapper, consumer));
+    }
+
+    @Override
+    public void close() {
+        try {
+            call(() -> {
+                persistence.close();
+                return null;
+            });
+        } finally {
+            if (!isWriter()) {
+                enqueue(STOP);
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void initialize() {
+        call(() -> {
+            persistence.initialize();
+            return null;
+        });
+    }
+
+    @Override
+    public int execute(String statement) {
+        return call(() -> persistence.execute(statement));
+    }
+
+    @Override
+    public long copyFile(String path, String table, String columns) {
+        return call(() -> persistence.copyFile(path, table, columns));
+    }
+}
@@ -0,0 +1,110 @@
+package fr.inria.sniffer.tracker.analysis.persistence;
+
+import java.io.Reader;
+
+/**
+ * In memory buffer of rows encoded in the COPY text format for a given {@link CopyTarget}.
+ */
+final class CopyBuffer {
+    private final CopyTarget target;
+    private final StringBuilder content;
+    private int rows;
+
+    CopyBuffer(CopyTarget target) {
+        this.target = target;
+        this.content = new StringBuilder();
+        this.rows = 0;
+    }
+
+    CopyTarget getTarget() {
+        return target;
+    }
+
+    /**
+     * Encode a new row at the end of the buffer.
+     *
+     * @param values The ordered row values.
+     */
+    void add(Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                content.append('\t');
+            }
+            appendValue(values[i]);
+        }
+        content.append('\n');
+        rows++;
+    }
+
+    private void appendValue(Object value) {
+        if (value == null) {
+            content.append("\\N");
+            return;
+        }
+        String text = value.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    content.append("\\\\");
+                    break;
+                case '\t':
+                    content.append("\\t");
+                    break;
+                case '\n':
+                    content.append("\\n");
+                    break;
+                case '\r':
+                    content.append("\\r");
+                    break;
+                default:
+                    content.append(c);
+            }
+        }
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return The number of encoded characters.
+     */
+    int length() {
+        return content.length();
+    }
+
+    boolean isEmpty() {
+        return rows == 0;
+    }
+
+    /**
+     * @return A {@link Reader} streaming the buffer content without copying it.
+     */
+    Reader reader() {
+        return new Reader() {
+            private int position = 0;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (position >= content.length()) {
+                    return -1;
+                }
+                int count = Math.min(length, content.length() - position);
+                content.getChars(position, position + count, buffer, offset);
+                position += count;
+                return count;
+            }
+
+            @Override
+            public void close() {
+                // Nothing to release.
+            }
+        };
+    }
+
+    void clear() {
+        content.setLength(0);
+        rows = 0;
+    }
+}
@@ -0,0 +1,61 @@
+package fr.inria.sniffer.tracker.analysis.persistence;
+
+/**
+ * Describe how to bulk load the rows of a {@link ParameterizedStatement} using the COPY protocol.
+ * <p>
+ * Since COPY can't resolve identifiers through sub queries, the rows are loaded into a temporary
+ * staging table whose columns match the statement parameters in order.
+ * The merge statements then move the staged rows into the actual tables. They resolve the identifiers
+ * with outer joins, so that an unknown reference fails as the sub query of the statement would,
+ * instead of silently dropping the row.
+ */
+public final class CopyTarget {
+    private final String stagingTable;
+    private final String columnsDefinition;
+    private final String[] mergeStatements;
+
+    /**
+     * @param stagingTable      Name of the temporary table receiving the rows.
+     * @param columnsDefinition Definition of the staging columns, matching the statement parameters.
+     * @param mergeStatements   Statements inserting the staged rows into the actual tables.
+     */
+    public CopyTarget(String stagingTable, String columnsDefinition, String... mergeStatements) {
+        this.stagingTable = stagingTable;
+        this.columnsDefinition = columnsDefinition;
+        this.mergeStatements = mergeStatements;
+    }
+
+    public String getStagingTable() {
+        return stagingTable;
+    }
+
+    /**
+     * @return The statement creating the staging table if it does not exist.
+     */
+    public String creationStatement() {
+        return "CREATE TEMP TABLE IF NOT EXISTS " + stagingTable + " (" + columnsDefinition + ")";
+    }
+
+    /**
+     * @return The COPY statement to stream the rows in.
+     */
+    public String copyStatement() {
+        return "COPY " + stagingTable + " FROM STDIN";
+    }
+
+    public String[] getMergeStatements() {
+        return mergeStatements;
+    }
+
+    /**
+     * @return The statement emptying the staging table once merged.
+     */
+    public String truncateStatement() {
+        return "TRUNCATE " + stagingTable;
+    }
+
+    @Override
+    public String toString() {
+        return "CopyTarget{" + stagingTable + "}";
+    }
+}
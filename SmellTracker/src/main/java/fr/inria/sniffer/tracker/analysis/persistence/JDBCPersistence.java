@@ -16,20 +16,47 @@ import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 
 public class JDBCPersistence implements Persistence {
     private static final Logger logger = LoggerFactory.getLogger(JDBCPersistence.class.getName());
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_COPY_BUFFER_SIZE = 8 * 1024 * 1024;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    public static final int DEFAULT_COMMIT_INTERVAL = 10000;
+
     private final Connection connection;
     private Statement sqlStatement;
+    private final Map<String, PreparedStatement> preparedStatements = new HashMap<>();
+    private PreparedStatement pendingStatement;
+    private int pendingCount;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private boolean copyEnabled = false;
+    private int copyBufferSize = DEFAULT_COPY_BUFFER_SIZE;
+    private final Map<CopyTarget, CopyBuffer> copyBuffers = new LinkedHashMap<>();
+    private final Set<String> stagingTables = new HashSet<>();
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private TransactionGranularity granularity = TransactionGranularity.STATEMENT;
+    private int commitInterval = DEFAULT_COMMIT_INTERVAL;
+    private int uncommittedRows;
+    private int openStreams;
+    private boolean commitDeferred;
+    private Exception writeFailure;
     private final String path;
     private final String schemaResourcePath;
 
@@ -67,8 +94,112 @@ public class JDBCPersistence implements Persistence {
         this.path = connection.toString();
     }
 
+    /**
+     * Set the maximum number of parameterized rows sent to the database in a single batch.
+     *
+     * @param batchSize The chunk size, must be strictly positive.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be strictly positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Load the parameterized statements defining a {@link CopyTarget} using the COPY protocol
+     * instead of batched statements. Only available on PostgreSQL.
+     *
+     * @param copyEnabled True to enable the COPY loading.
+     */
+    public void setCopyEnabled(boolean copyEnabled) {
+        this.copyEnabled = copyEnabled;
+    }
+
+    /**
+     * Set the number of characters a COPY buffer can hold before being streamed to the database.
+     *
+     * @param copyBufferSize The buffer bound, must be strictly positive.
+     */
+    public void setCopyBufferSize(int copyBufferSize) {
+        if (copyBufferSize < 1) {
+            throw new IllegalArgumentException("Copy buffer size must be strictly positive: " + copyBufferSize);
+        }
+        this.copyBufferSize = copyBufferSize;
+    }
+
+    /**
+     * Set the number of rows fetched at once by the cursor of a streamed query.
+     *
+     * @param fetchSize The fetch size, must be strictly positive.
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be strictly positive: " + fetchSize);
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Group the written statements in explicit transactions instead of committing each of them on its own.
+     * A failing batch is rolled back to the state preceding it, without discarding the rest of the transaction.
+     *
+     * @param granularity The unit of work committed at once.
+     */
+    public void setTransactionGranularity(TransactionGranularity granularity) {
+        if (this.granularity == granularity) {
+            return;
+        }
+        commitTransaction();
+        try {
+            connection.setAutoCommit(granularity == TransactionGranularity.STATEMENT);
+            this.granularity = granularity;
+        } catch (SQLException e) {
+            SQLException nextException = e.getNextException();
+            if (nextException != null) {
+                e = nextException;
+            }
+            logger.error("Unable to change transaction mode on database: " + path, e);
+        }
+    }
+
+    /**
+     * Set the number of written rows after which the transaction is committed,
+     * when using the {@link TransactionGranularity#ROWS} granularity.
+     *
+     * @param commitInterval The number of rows, must be strictly positive.
+     */
+    public void setCommitInterval(int commitInterval) {
+        if (commitInterval < 1) {
+            throw new IllegalArgumentException("Commit interval must be strictly positive: " + commitInterval);
+        }
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Choose whether a commit waits for its changes to be flushed on disk.
+     * Disabling it may lose the last transactions on a server crash, but never corrupts the database.
+     * Only available on PostgreSQL.
+     *
+     * @param synchronousCommit False to return from commits before their WAL flush.
+     */
+    public void setSynchronousCommit(boolean synchronousCommit) {
+        try (Statement settingStatement = connection.createStatement()) {
+            settingStatement.execute("SET synchronous_commit = " + (synchronousCommit ? "on" : "off"));
+        } catch (SQLException e) {
+            SQLException nextException = e.getNextException();
+            if (nextException != null) {
+                e = nextException;
+            }
+            logger.error("Unable to set synchronous commit on database: " + path, e);
+        }
+    }
+
     @Override
     public void addStatements(String... statements) {
+        // Parameterized statements added before have to be executed first.
+        executePreparedBatch();
+        executeCopyBuffers();
         try {
             if (sqlStatement == null) {
                 sqlStatement = connection.createStatement();
@@ -83,18 +214,338 @@ public class JDBCPersistence implements Persistence {
                 e = nextException;
             }
             logger.error("Unable to create statement for database: " + path, e);
+            onWriteFailure(e);
+        }
+    }
+
+    @Override
+    public void addParameterizedStatements(ParameterizedStatement... statements) {
+        // Plain statements added before have to be executed first.
+        if (sqlStatement != null) {
+            executeStatementBatch();
+        }
+        for (ParameterizedStatement statement : statements) {
+            if (copyEnabled && statement.getCopyTarget() != null) {
+                addCopyRow(statement);
+                continue;
+            }
+            // Copied rows added before have to be loaded first, if the statement uses them.
+            executeCopyBuffers(statement.getCopyDependencies());
+            logger.trace("Adding new parameterized statement: " + statement);
+            try {
+                PreparedStatement prepared = prepare(statement.getSql());
+                if (prepared != pendingStatement) {
+                    executePreparedBatch();
+                    pendingStatement = prepared;
+                }
+                bindParameters(prepared, statement.getParameters());
+                prepared.addBatch();
+                if (++pendingCount >= batchSize) {
+                    executePreparedBatch();
+                }
+            } catch (SQLException e) {
+                SQLException nextException = e.getNextException();
+                if (nextException != null) {
+                    e = nextException;
+                }
+                logger.error("Unable to prepare statement for database: " + path, e);
+                onWriteFailure(e);
+            }
+        }
+    }
+
+    /**
+     * Buffer the statement parameters as a row of its {@link CopyTarget}.
+     * The buffer is streamed to the database as soon as it reaches its bound.
+     *
+     * @param statement The statement to copy.
+     */
+    private void addCopyRow(ParameterizedStatement statement) {
+        logger.trace("Adding new copy row: " + statement);
+        CopyBuffer buffer = copyBuffers.computeIfAbsent(statement.getCopyTarget(), CopyBuffer::new);
+        buffer.add(statement.getParameters());
+        if (buffer.length() >= copyBufferSize) {
+            executeCopyBuffer(buffer);
+        }
+    }
+
+    /**
+     * Load all the pending COPY buffers, in the order of their first row.
+     */
+    private void executeCopyBuffers() {
+        for (CopyBuffer buffer : copyBuffers.values()) {
+            executeCopyBuffer(buffer);
+        }
+    }
+
+    /**
+     * Load the pending COPY buffers of the given targets, in the order of their first row.
+     *
+     * @param targets The {@link CopyTarget}s to load, null to load every buffer.
+     */
+    private void executeCopyBuffers(CopyTarget[] targets) {
+        if (targets == null) {
+            executeCopyBuffers();
+            return;
+        }
+        Set<CopyTarget> loaded = new HashSet<>(Arrays.asList(targets));
+        for (CopyBuffer buffer : copyBuffers.values()) {
+            if (loaded.contains(buffer.getTarget())) {
+                executeCopyBuffer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Stream the buffer rows into their staging table and merge them into the actual tables.
+     * Unless already in a transaction, the load is done in its own transaction.
+     *
+     * @param buffer The {@link CopyBuffer} to load.
+     */
+    private void executeCopyBuffer(CopyBuffer buffer) {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        // The copied rows may use the rows of the pending prepared batch, e.g. the inserted smells.
+        executePreparedBatch();
+        CopyTarget target = buffer.getTarget();
+        int rows = buffer.getRows();
+        logger.debug("Copying " + rows + " rows into " + target);
+        Savepoint savepoint = setSavepoint();
+        boolean autoCommit = true;
+        boolean copied = false;
+        try {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement copyStatement = connection.createStatement()) {
+                if (stagingTables.add(target.getStagingTable())) {
+                    copyStatement.execute(target.creationStatement());
+                }
+                getPgConnection().getCopyAPI().copyIn(target.copyStatement(), buffer.reader());
+                for (String merge : target.getMergeStatements()) {
+                    copyStatement.execute(merge);
+                }
+                copyStatement.execute(target.truncateStatement());
+            }
+            if (autoCommit) {
+                connection.commit();
+            }
+            releaseSavepoint(savepoint);
+            copied = true;
+        } catch (SQLException | IOException e) {
+            Exception cause = e;
+            if (e instanceof SQLException && ((SQLException) e).getNextException() != null) {
+                cause = ((SQLException) e).getNextException();
+            }
+            logger.error("Unable to copy rows into database: " + path, cause);
+            onWriteFailure(cause);
+            stagingTables.remove(target.getStagingTable());
+            if (autoCommit) {
+                rollback();
+            } else {
+                rollback(savepoint);
+            }
+        } finally {
+            buffer.clear();
+            restoreAutoCommit(autoCommit);
+        }
+        if (copied) {
+            onWritten(rows);
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.warn("Unable to rollback transaction from database: " + path, e);
+        }
+    }
+
+    private void rollback(Savepoint savepoint) {
+        if (savepoint == null) {
+            return;
+        }
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            logger.warn("Unable to rollback to savepoint from database: " + path, e);
+        }
+    }
+
+    /**
+     * Mark the current state of the running transaction,
+     * so that a failing statement only discards its own changes.
+     *
+     * @return The new {@link Savepoint}, null if no transaction is running.
+     */
+    private Savepoint setSavepoint() {
+        try {
+            if (connection.getAutoCommit()) {
+                return null;
+            }
+            return connection.setSavepoint();
+        } catch (SQLException e) {
+            logger.warn("Unable to set savepoint on database: " + path, e);
+            return null;
+        }
+    }
+
+    private void releaseSavepoint(Savepoint savepoint) {
+        if (savepoint == null) {
+            return;
+        }
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            logger.warn("Unable to release savepoint from database: " + path, e);
+        }
+    }
+
+    /**
+     * Account for successfully written rows, committing the running transaction
+     * if they complete its unit of work.
+     *
+     * @param rows The number of written rows.
+     */
+    private void onWritten(int rows) {
+        if (granularity == TransactionGranularity.STATEMENT) {
+            return;
+        }
+        uncommittedRows += rows;
+        if (granularity == TransactionGranularity.BATCH
+                || (granularity == TransactionGranularity.ROWS && uncommittedRows >= commitInterval)) {
+            commitTransaction();
+        }
+    }
+
+    /**
+     * Commit the running transaction, if any.
+     * Since committing would close the opened cursors, this is deferred until the end of the streamed queries.
+     */
+    private void commitTransaction() {
+        if (granularity == TransactionGranularity.STATEMENT) {
+            return;
+        }
+        if (openStreams > 0) {
+            commitDeferred = true;
+            return;
+        }
+        logger.debug("Committing transaction of " + uncommittedRows + " rows");
+        commitDeferred = false;
+        uncommittedRows = 0;
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            SQLException nextException = e.getNextException();
+            if (nextException != null) {
+                e = nextException;
+            }
+            logger.error("Unable to commit transaction into database: " + path, e);
+            onWriteFailure(e);
+            rollback();
+        }
+    }
+
+    private void restoreAutoCommit(boolean autoCommit) {
+        try {
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            logger.warn("Unable to restore auto commit on database: " + path, e);
+        }
+    }
+
+    /**
+     * Retrieve the {@link PreparedStatement} for the given SQL, preparing it on first use.
+     *
+     * @param sql The statement SQL.
+     * @return The cached {@link PreparedStatement}.
+     * @throws SQLException If the statement could not be prepared.
+     */
+    private PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement prepared = preparedStatements.get(sql);
+        if (prepared == null) {
+            logger.debug("Preparing statement: " + sql);
+            prepared = connection.prepareStatement(sql);
+            preparedStatements.put(sql, prepared);
+        }
+        return prepared;
+    }
+
+    private static void bindParameters(PreparedStatement statement, Object[] parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
+
+    /**
+     * Send the pending rows of the current {@link PreparedStatement} to the database.
+     */
+    private void executePreparedBatch() {
+        if (pendingStatement == null) {
+            return;
+        }
+        logger.trace("Executing prepared batch of size: " + pendingCount);
+        int rows = pendingCount;
+        Savepoint savepoint = setSavepoint();
+        try {
+            pendingStatement.executeBatch();
+            releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            SQLException nextException = e.getNextException();
+            if (nextException != null) {
+                e = nextException;
+            }
+            logger.warn("Unable to execute prepared batch into database: " + path, e);
+            onWriteFailure(e);
+            rollback(savepoint);
+            rows = 0;
+            try {
+                pendingStatement.clearBatch();
+            } catch (SQLException clearException) {
+                logger.warn("Unable to clear prepared batch from database: " + path, clearException);
+            }
+        } finally {
+            pendingStatement = null;
+            pendingCount = 0;
+        }
+        if (rows > 0) {
+            onWritten(rows);
         }
     }
 
     @Override
     public void commit() {
         logger.debug("Committing transaction");
+        executePreparedBatch();
+        executeCopyBuffers();
         if (sqlStatement == null) {
             logger.debug("Nothing to commit, skipping");
             return;
         }
+        executeStatementBatch();
+    }
+
+    @Override
+    public void endTransaction(TransactionGranularity unit) {
+        if (!granularity.endsWith(unit)) {
+            return;
+        }
+        logger.debug("End of " + unit + " transaction");
+        // The pending statements belong to the ending unit of work.
+        commit();
+        commitTransaction();
+    }
+
+    /**
+     * Execute and close the current plain {@link Statement} batch.
+     */
+    private void executeStatementBatch() {
+        int rows = 0;
+        Savepoint savepoint = setSavepoint();
         try {
-            sqlStatement.executeBatch();
+            rows = sqlStatement.executeBatch().length;
+            releaseSavepoint(savepoint);
             sqlStatement.clearBatch();
         } catch (SQLException e) {
             SQLException nextException = e.getNextException();
@@ -102,28 +553,131 @@ public class JDBCPersistence implements Persistence {
                 e = nextException;
             }
             logger.warn("Unable to commit transaction into database: " + path, e);
+            onWriteFailure(e);
+            rollback(savepoint);
         } finally {
             closeStatement();
         }
+        if (rows > 0) {
+            onWritten(rows);
+        }
     }
 
     @Override
     public List<Map<String, Object>> query(String statement) {
         logger.debug("Querying database: " + statement);
 
+        Savepoint savepoint = setSavepoint();
         try (Statement queryStatement = connection.createStatement()) {
             ResultSet resultSet = queryStatement.executeQuery(statement);
-            return resultSetToArrayList(resultSet);
+            List<Map<String, Object>> result = resultSetToArrayList(resultSet);
+            releaseSavepoint(savepoint);
+            return result;
         } catch (SQLException e) {
             SQLException nextException = e.getNextException();
             if (nextException != null) {
                 e = nextException;
             }
             logger.error("Unable to query database: " + path, e);
+            rollback(savepoint);
         }
         return new ArrayList<>();
     }
 
+    /**
+     * Keep the first write failure, reported on the next {@link #flush()}.
+     *
+     * @param cause The failure cause.
+     */
+    private void onWriteFailure(Exception cause) {
+        if (writeFailure == null) {
+            writeFailure = cause;
+        }
+    }
+
+    /**
+     * Every operation is processed synchronously, only report the failed writes since the previous flush.
+     *
+     * @throws PersistenceException If a batch, COPY, or commit failed since the previous flush.
+     */
+    @Override
+    public void flush() {
+        Exception cause = writeFailure;
+        writeFailure = null;
+        if (cause != null) {
+            throw new PersistenceException("Unable to write into database: " + path, cause);
+        }
+    }
+
+    @Override
+    public int streamQuery(String statement, Consumer<Map<String, Object>> consumer) {
+        return streamQuery(statement, JDBCPersistence::rowToMap, consumer);
+    }
+
+    @Override
+    public <T> int streamQuery(String statement, RowMapper<T> mapper, Consumer<? super T> consumer) {
+        logger.debug("Streaming query on database: " + statement);
+        int count = 0;
+        Savepoint savepoint = setSavepoint();
+        boolean autoCommit = true;
+        openStreams++;
+        try {
+            autoCommit = connection.getAutoCommit();
+            // The driver only uses a cursor outside of the auto commit mode.
+            connection.setAutoCommit(false);
+            try (Statement queryStatement = connection.createStatement(
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                queryStatement.setFetchSize(fetchSize);
+                try (ResultSet resultSet = queryStatement.executeQuery(statement)) {
+                    while (resultSet.next()) {
+                        consumer.accept(mapper.map(resultSet));
+                        count++;
+                    }
+                }
+            }
+            if (autoCommit) {
+                connection.commit();
+            }
+            releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            SQLException nextException = e.getNextException();
+            if (nextException != null) {
+                e = nextException;
+            }
+            logger.error("Unable to stream query on database: " + path, e);
+            if (autoCommit) {
+                rollback();
+            } else {
+                rollback(savepoint);
+            }
+            count = -1;
+        } finally {
+            restoreAutoCommit(autoCommit);
+            openStreams--;
+        }
+        if (openStreams == 0 && commitDeferred) {
+            commitTransaction();
+        }
+        return count;
+    }
+
+    /**
+     * Transform the current row of the {@link ResultSet} to a {@link Map}.
+     *
+     * @param rs The {@link ResultSet} positioned on the row to transform.
+     * @return The row as a {@link Map} containing the column names as key.
+     * @throws SQLException If anything goes wrong while fetching data.
+     */
+    private static Map<String, Object> rowToMap(ResultSet rs) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        int columns = md.getColumnCount();
+        Map<String, Object> row = new HashMap<>(columns);
+        for (int i = 1; i <= columns; ++i) {
+            row.put(md.getColumnName(i), rs.getObject(i));
+        }
+        return row;
+    }
+
     /**
      * Transform the query result to a {@link List} of {@link Map} containing {@link String} as key and {@link Object}
      * as value.
@@ -165,6 +719,12 @@ public class JDBCPersistence implements Persistence {
     @Override
     public void close() {
         logger.info("Closing database connection");
+        if (hasPendingStatements()) {
+            logger.warn("Closing database connection before committing the pending statements, committing them");
+            commit();
+        }
+        closePreparedStatements();
+        commitTransaction();
         if (connection != null) {
             try {
                 connection.close();
@@ -178,9 +738,39 @@ public class JDBCPersistence implements Persistence {
         }
     }
 
+    /**
+     * @return True if statements were added but not executed yet.
+     */
+    private boolean hasPendingStatements() {
+        if (pendingStatement != null || sqlStatement != null) {
+            return true;
+        }
+        for (CopyBuffer buffer : copyBuffers.values()) {
+            if (!buffer.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void closePreparedStatements() {
+        for (PreparedStatement prepared : preparedStatements.values()) {
+            try {
+                prepared.close();
+            } catch (SQLException e) {
+                logger.warn("Unable to close prepared statement from database: " + path, e);
+            }
+        }
+        preparedStatements.clear();
+        pendingStatement = null;
+        pendingCount = 0;
+        copyBuffers.clear();
+    }
+
     @Override
     public void initialize() {
         logger.info("Initializing database: " + this.path);
+        Savepoint savepoint = setSavepoint();
         try (Statement initStatement = connection.createStatement()) {
             List<String> initialization = loadDatabaseSchema();
             for (String statement : initialization) {
@@ -188,29 +778,40 @@ public class JDBCPersistence implements Persistence {
                 initStatement.addBatch(statement);
             }
             initStatement.executeBatch();
+            releaseSavepoint(savepoint);
         } catch (SQLException e) {
             SQLException nextException = e.getNextException();
             if (nextException != null) {
                 e = nextException;
             }
             logger.error("Unable to initialize database: " + path, e);
+            onWriteFailure(e);
+            rollback(savepoint);
         }
+        // The schema must be available to every other connection.
+        commitTransaction();
     }
 
 
     @Override
     public int execute(String statement) {
         logger.debug("Executing on database: " + statement);
+        Savepoint savepoint = setSavepoint();
+        int affected;
         try (Statement executeStatement = connection.createStatement()) {
-            return executeStatement.executeUpdate(statement);
+            affected = executeStatement.executeUpdate(statement);
+            releaseSavepoint(savepoint);
         } catch (SQLException e) {
             SQLException nextException = e.getNextException();
             if (nextException != null) {
                 e = nextException;
             }
             logger.error("Unable to execute on database: " + path, e);
+            rollback(savepoint);
+            return -1;
         }
-        return -1;
+        onWritten(1);
+        return affected;
     }
 
     public long copyFile(String path, String table, String columns) {
@@ -0,0 +1,96 @@
+package fr.inria.sniffer.tracker.analysis.persistence;
+
+import java.util.Arrays;
+
+/**
+ * A statement using '?' placeholders, with the values to bind on execution.
+ * <p>
+ * Statements sharing the same SQL are prepared once by the {@link Persistence}
+ * and executed in batches, only the parameters differ between rows.
+ * <p>
+ * Unless declared otherwise, a statement may depend on any row previously loaded through a {@link CopyTarget},
+ * which are then loaded before its execution.
+ */
+public final class ParameterizedStatement {
+    private final String sql;
+    private final CopyTarget copyTarget;
+    private final Object[] parameters;
+    private final CopyTarget[] copyDependencies;
+
+    public ParameterizedStatement(String sql, Object... parameters) {
+        this(sql, null, parameters);
+    }
+
+    /**
+     * @param sql        The statement with '?' placeholders.
+     * @param copyTarget The {@link CopyTarget} to bulk load the parameters into, if the persistence allows it.
+     * @param parameters The ordered values to bind.
+     */
+    public ParameterizedStatement(String sql, CopyTarget copyTarget, Object... parameters) {
+        this(sql, copyTarget, parameters, null);
+    }
+
+    private ParameterizedStatement(String sql, CopyTarget copyTarget, Object[] parameters,
+                                   CopyTarget[] copyDependencies) {
+        this.sql = sql;
+        this.copyTarget = copyTarget;
+        this.parameters = parameters;
+        this.copyDependencies = copyDependencies;
+    }
+
+    /**
+     * Restrict the rows that have to be loaded before executing this statement.
+     *
+     * @param copyDependencies The {@link CopyTarget}s whose rows are used by this statement, none if independent.
+     * @return The same statement, only depending on the given targets.
+     */
+    public ParameterizedStatement dependingOn(CopyTarget... copyDependencies) {
+        return new ParameterizedStatement(sql, copyTarget, parameters, copyDependencies);
+    }
+
+    /**
+     * @return The {@link CopyTarget}s whose rows are used by this statement, null if it may use any of them.
+     */
+    public CopyTarget[] getCopyDependencies() {
+        return copyDependencies;
+    }
+
+    /**
+     * @return The {@link CopyTarget} able to load this statement parameters, null if it can't be copied.
+     */
+    public CopyTarget getCopyTarget() {
+        return copyTarget;
+    }
+
+    /**
+     * @return The SQL of the statement, used as key to reuse the prepared statement.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return The ordered values to bind on the statement placeholders.
+     */
+    public Object[] getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ParameterizedStatement that = (ParameterizedStatement) o;
+        return sql.equals(that.sql) && Arrays.equals(parameters, that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * sql.hashCode() + Arrays.hashCode(parameters);
+    }
+
+    @Override
+    public String toString() {
+        return sql + " " + Arrays.toString(parameters);
+    }
+}
@@ -2,6 +2,7 @@ package fr.inria.sniffer.tracker.analysis.persistence;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface Persistence {
     /**
@@ -11,11 +12,37 @@ public interface Persistence {
      */
     void addStatements(String... statements);
 
+    /**
+     * Add parameterized statements to execute on the database.
+     * <p>
+     * Each distinct SQL is prepared once and reused, consecutive statements sharing the same SQL
+     * are sent in batches. The statements are executed in the order they were added, along with
+     * the ones from {@link Persistence#addStatements(String...)}.
+     *
+     * @param statements An array of statements to execute at the latest on {@link Persistence#commit()}.
+     */
+    void addParameterizedStatements(ParameterizedStatement... statements);
+
     /**
      * Actually persist all the given statements and remove them from the buffer.
      */
     void commit();
 
+    /**
+     * Notify the end of a unit of work, committing the running transaction
+     * if the configured {@link TransactionGranularity} ends with this unit.
+     *
+     * @param unit The unit of work that just ended.
+     */
+    void endTransaction(TransactionGranularity unit);
+
+    /**
+     * Wait for all the previously given operations to be processed by the persistence.
+     *
+     * @throws PersistenceException If one of the operations failed.
+     */
+    void flush();
+
     /**
      * Query the persistence with a specific statement.
      *
@@ -24,6 +51,28 @@ public interface Persistence {
      */
     List<Map<String, Object>> query(String statement);
 
+    /**
+     * Query the persistence with a specific statement, streaming the rows to the consumer
+     * instead of loading the whole result in memory.
+     *
+     * @param statement The query statement to execute.
+     * @param consumer  Called for each row, as a {@link Map} from column name to value.
+     * @return The number of streamed rows, -1 if an error occurred.
+     */
+    int streamQuery(String statement, Consumer<Map<String, Object>> consumer);
+
+    /**
+     * Query the persistence with a specific statement, streaming the rows to the consumer
+     * instead of loading the whole result in memory.
+     *
+     * @param statement The query statement to execute.
+     * @param mapper    Transform each row into the consumed type.
+     * @param consumer  Called for each mapped row.
+     * @param <T>       The type of the mapped rows.
+     * @return The number of streamed rows, -1 if an error occurred.
+     */
+    <T> int streamQuery(String statement, RowMapper<T> mapper, Consumer<? super T> consumer);
+
     /**
      * Close the database connection.
      */
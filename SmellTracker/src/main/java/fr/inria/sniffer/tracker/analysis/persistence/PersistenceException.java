@@ -0,0 +1,10 @@
+package fr.inria.sniffer.tracker.analysis.persistence;
+
+/**
+ * Thrown when the {@link Persistence} failed to process a previously given operation.
+ */
+public class PersistenceException extends RuntimeException {
+    public PersistenceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
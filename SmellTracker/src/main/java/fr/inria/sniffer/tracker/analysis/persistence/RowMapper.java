@@ -0,0 +1,21 @@
+package fr.inria.sniffer.tracker.analysis.persistence;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Map the current row of a {@link ResultSet} to a typed instance.
+ *
+ * @param <T> The type of the mapped rows.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    /**
+     * Map the current row, the implementation must not move the cursor.
+     *
+     * @param row The {@link ResultSet} positioned on the row to map.
+     * @return The mapped instance.
+     * @throws SQLException If a column could not be read.
+     */
+    T map(ResultSet row) throws SQLException;
+}
@@ -0,0 +1,80 @@
+package fr.inria.sniffer.tracker.analysis.persistence;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Decorator of a {@link Persistence} shared by concurrent threads.
+ * <p>
+ * Every operation holds the lock of this persistence, hence the statements added by a thread
+ * keep their order in the decorated persistence, and a query reads the statements committed by any thread.
+ * The consumers of the streamed queries are called while holding the lock.
+ */
+public class SynchronizedPersistence implements Persistence {
+    private final Persistence persistence;
+
+    public SynchronizedPersistence(Persistence persistence) {
+        this.persistence = persistence;
+    }
+
+    @Override
+    public synchronized void addStatements(String... statements) {
+        persistence.addStatements(statements);
+    }
+
+    @Override
+    public synchronized void addParameterizedStatements(ParameterizedStatement... statements) {
+        persistence.addParameterizedStatements(statements);
+    }
+
+    @Override
+    public synchronized void commit() {
+        persistence.commit();
+    }
+
+    @Override
+    public synchronized void endTransaction(TransactionGranularity unit) {
+        persistence.endTransaction(unit);
+    }
+
+    @Override
+    public synchronized void flush() {
+        persistence.flush();
+    }
+
+    @Override
+    public synchronized List<Map<String, Object>> query(String statement) {
+        return persistence.query(statement);
+    }
+
+    @Override
+    public synchronized int streamQuery(String statement, Consumer<Map<String, Object>> consumer) {
+        return persistence.streamQuery(statement, consumer);
+    }
+
+    @Override
+    public synchronized <T> int streamQuery(String statement, RowMapper<T> mapper, Consumer<? super T> consumer) {
+        return persistence.streamQuery(statement, mapper, consumer);
+    }
+
+    @Override
+    public synchronized void close() {
+        persistence.close();
+    }
+
+    @Override
+    public synchronized void initialize() {
+        persistence.initialize();
+    }
+
+    @Override
+    public synchronized int execute(String statement) {
+        return persistence.execute(statement);
+    }
+
+    @Override
+    public synchronized long copyFile(String path, String table, String columns) {
+        return persistence.copyFile(path, table, columns);
+    }
+}
@@ -0,0 +1,40 @@
+package fr.inria.sniffer.tracker.analysis.persistence;
+
+/**
+ * Defines how much work a single database transaction holds.
+ * The values are ordered from the finest to the coarsest unit of work.
+ */
+public enum TransactionGranularity {
+    /**
+     * Auto commit, each statement is its own transaction.
+     */
+    STATEMENT,
+    /**
+     * Commit once each batch of statements is executed.
+     */
+    BATCH,
+    /**
+     * Commit as soon as the configured number of rows has been written.
+     */
+    ROWS,
+    /**
+     * Commit once all the smells of a given type have been processed.
+     */
+    SMELL_TYPE,
+    /**
+     * Commit at the end of each {@link fr.inria.sniffer.tracker.analysis.query.Query}.
+     */
+    QUERY,
+    /**
+     * Commit once the whole project has been analyzed.
+     */
+    PROJECT;
+
+    /**
+     * @param unit The unit of work that just ended.
+     * @return True if the end of this unit of work terminates a transaction of this granularity.
+     */
+    public boolean endsWith(TransactionGranularity unit) {
+        return this != STATEMENT && compareTo(unit) <= 0;
+    }
+}
@@ -2,6 +2,7 @@ package fr.inria.sniffer.tracker.analysis.persistence.queries;
 
 import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
 
 public interface BranchQueries {
     /**
@@ -15,6 +16,18 @@ public interface BranchQueries {
      */
     String branchInsertionStatement(int projectId, int ordinal, Commit parentCommit, Commit mergedInto);
 
+    /**
+     * Create a parameterized Branch insertion query.
+     *
+     * @param projectId    Current project.
+     * @param ordinal      Branch ordinal.
+     * @param parentCommit The {@link Commit} from which this branch forks.
+     * @param mergedInto   The last {@link Commit} into which this branch is merged.
+     * @return The generated insertion statement.
+     * @see BranchQueries#branchInsertionStatement(int, int, Commit, Commit)
+     */
+    ParameterizedStatement parameterizedBranchInsertion(int projectId, int ordinal, Commit parentCommit, Commit mergedInto);
+
     /**
      * Create a BranchCommit insertion query.
      *
@@ -26,6 +39,18 @@ public interface BranchQueries {
      */
     String branchCommitInsertionQuery(int projectId, int branchOrdinal, String commitSha, int ordinal);
 
+    /**
+     * Create a parameterized BranchCommit insertion query.
+     *
+     * @param projectId     Current project.
+     * @param branchOrdinal Branch ordinal.
+     * @param commitSha     Sha1 of the commit to insert.
+     * @param ordinal       {@link Commit} ordinal in the branch.
+     * @return The generated insertion statement.
+     * @see BranchQueries#branchCommitInsertionQuery(int, int, String, int)
+     */
+    ParameterizedStatement parameterizedBranchCommitInsertion(int projectId, int branchOrdinal, String commitSha, int ordinal);
+
     /**
      * Query the identifier of a Branch.
      *
@@ -91,6 +116,25 @@ public interface BranchQueries {
      */
     String lastCommitShaQuery(int projectId, int branchId);
 
+    /**
+     * Retrieve the last commit of the branch analyzed by a previous analysis,
+     * i.e. the commit in detector with the highest ordinal whose identifier is not greater than the given one.
+     *
+     * @param projectId            The project identifier.
+     * @param branchId             The branch identifier.
+     * @param lastAnalyzedCommitId Identifier of the last commit inserted by the previous analysis.
+     * @return The generated query statement, returning the id and sha1 columns.
+     */
+    String lastAnalyzedCommitQuery(int projectId, int branchId, int lastAnalyzedCommitId);
+
+    /**
+     * Retrieve the highest branch ordinal of the project.
+     *
+     * @param projectId The project identifier.
+     * @return The generated query statement, returning a null ordinal if the project has no branch.
+     */
+    String lastBranchOrdinalQuery(int projectId);
+
     /**
      * Retrieve the smells present on the last commit of the branch merged in the given commit.
      *
@@ -111,6 +155,15 @@ public interface BranchQueries {
      */
     String commitOrdinalQuery(int projectId, int branchId, Commit commit);
 
+    /**
+     * Retrieve the branch identifier and ordinal of every commit of the project,
+     * ordered by branch identifier.
+     *
+     * @param projectId The project identifier.
+     * @return The generated query statement, returning the sha1, branch_id, and ordinal columns.
+     */
+    String branchCommitsQuery(int projectId);
+
     /**
      * Return the identifier of the second branch this commit is merging, if any.
      *
@@ -0,0 +1,51 @@
+package fr.inria.sniffer.tracker.analysis.persistence.queries;
+
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Client side cache of the commit_entry identifiers, by project and sha1.
+ */
+final class CommitIdCache {
+    private static final Logger logger = LoggerFactory.getLogger(CommitIdCache.class.getName());
+
+    private final Map<Integer, Map<String, Integer>> projects = new HashMap<>();
+
+    /**
+     * Load the identifiers of every commit of the project, replacing the previously loaded ones.
+     *
+     * @param persistence The persistence to query.
+     * @param projectId   The project to load.
+     * @return The number of loaded identifiers, -1 if an error occurred.
+     */
+    int load(Persistence persistence, int projectId) {
+        Map<String, Integer> ids = new HashMap<>();
+        int count = persistence.streamQuery(
+                "SELECT sha1, id FROM commit_entry WHERE project_id = " + projectId,
+                row -> new AbstractMap.SimpleImmutableEntry<>(row.getString("sha1"), row.getInt("id")),
+                entry -> ids.put(entry.getKey(), entry.getValue())
+        );
+        if (count < 0) {
+            logger.warn("[" + projectId + "] Unable to load commit identifiers");
+            return count;
+        }
+        projects.put(projectId, ids);
+        logger.debug("[" + projectId + "] Loaded " + count + " commit identifiers");
+        return count;
+    }
+
+    /**
+     * @param projectId The project of the commit.
+     * @param sha       The commit sha1.
+     * @return The commit identifier, null if not loaded.
+     */
+    Integer get(int projectId, String sha) {
+        Map<String, Integer> ids = projects.get(projectId);
+        return ids == null ? null : ids.get(sha);
+    }
+}
@@ -4,6 +4,8 @@ import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.GitChangedFile;
 import fr.inria.sniffer.tracker.analysis.model.GitDiff;
 import fr.inria.sniffer.tracker.analysis.model.GitRename;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
 
 public interface CommitQueries {
     /**
@@ -16,6 +18,17 @@ public interface CommitQueries {
      */
     String commitInsertionStatement(int projectId, Commit commit, GitDiff diff);
 
+    /**
+     * Generate a parameterized statement inserting the commit into the persistence.
+     *
+     * @param projectId The project identifier.
+     * @param commit    The commit to insert.
+     * @param diff      {@link GitDiff} for this commit.
+     * @return The generated insertion statement.
+     * @see CommitQueries#commitInsertionStatement(int, Commit, GitDiff)
+     */
+    ParameterizedStatement parameterizedCommitInsertion(int projectId, Commit commit, GitDiff diff);
+
     /**
      * Generate a statement inserting a {@link GitRename} into the persistence.
      *
@@ -26,6 +39,17 @@ public interface CommitQueries {
      */
     String fileRenameInsertionStatement(int projectId, String commitSha, GitRename rename);
 
+    /**
+     * Generate a parameterized statement inserting a {@link GitRename} into the persistence.
+     *
+     * @param projectId The project identifier.
+     * @param commitSha Sha1 of the commit to link.
+     * @param rename    {@link GitRename} instance to persist.
+     * @return The generated insertion statement.
+     * @see CommitQueries#fileRenameInsertionStatement(int, String, GitRename)
+     */
+    ParameterizedStatement parameterizedFileRenameInsertion(int projectId, String commitSha, GitRename rename);
+
     /**
      * Query the identifier of a commit.
      *
@@ -35,6 +59,36 @@ public interface CommitQueries {
      */
     String idFromShaQuery(int projectId, String sha);
 
+    /**
+     * Load the identifiers of every commit of the project.
+     * <p>
+     * The statements generated afterwards reference the loaded commits by their identifier
+     * instead of looking them up with {@link CommitQueries#idFromShaQuery(int, String)}.
+     *
+     * @param persistence The persistence to load the identifiers from.
+     * @param projectId   Project to load.
+     * @return The number of loaded identifiers, -1 if an error occurred.
+     */
+    int loadCommitIds(Persistence persistence, int projectId);
+
+    /**
+     * Return the identifier of a commit loaded by {@link CommitQueries#loadCommitIds(Persistence, int)}.
+     *
+     * @param projectId Project to look into.
+     * @param sha       Commit sha.
+     * @return The commit identifier, null if not loaded.
+     */
+    Integer cachedCommitId(int projectId, String sha);
+
+    /**
+     * Reference the identifier of a commit from another statement.
+     *
+     * @param projectId Project to look into.
+     * @param sha       Commit sha.
+     * @return The identifier if loaded, the identifier query between parenthesis otherwise.
+     */
+    String commitIdReference(int projectId, String sha);
+
     /**
      * Query the sha1 of a commit.
      *
@@ -81,6 +135,17 @@ public interface CommitQueries {
      */
     String lastProjectCommitShaQuery(int projectId, boolean paprikaOnly);
 
+    /**
+     * Returns the highest identifier given to a commit of the project.
+     * <p>
+     * Since identifiers are generated in insertion order,
+     * the commits inserted afterwards have a greater identifier.
+     *
+     * @param projectId Project to look into.
+     * @return The generated query statement, returning a null id if the project has no commit.
+     */
+    String lastProjectCommitIdQuery(int projectId);
+
     /**
      * Returns the id of the commit merged into this one, if exists.
      *
@@ -90,6 +155,15 @@ public interface CommitQueries {
      */
     String mergedCommitIdQuery(int projectId, Commit commit);
 
+    /**
+     * Returns the id and sha1 of the commit merged into this one, no row if the commit is not a merge.
+     *
+     * @param projectId Project to look into.
+     * @param commit    The commit to look on.
+     * @return The generated query statement.
+     */
+    String mergedCommitQuery(int projectId, Commit commit);
+
     /**
      * Return the id of the project holding the given commit sha.
      *
@@ -117,4 +191,35 @@ public interface CommitQueries {
      * @return The generated insertion statement.
      */
     String fileChangedInsertionStatement(int projectId, String commitSha, GitChangedFile changedFile);
+
+    /**
+     * Generate a parameterized statement inserting a {@link GitChangedFile} into the persistence.
+     *
+     * @param projectId   The project identifier.
+     * @param commitSha   Sha1 of the commit to link.
+     * @param changedFile {@link GitChangedFile} instance to persist.
+     * @return The generated insertion statement.
+     * @see CommitQueries#fileChangedInsertionStatement(int, String, GitChangedFile)
+     */
+    ParameterizedStatement parameterizedFileChangedInsertion(int projectId, String commitSha, GitChangedFile changedFile);
+
+    /**
+     * Record that the changed files of a commit were persisted, even if it has none.
+     *
+     * @param projectId The project identifier.
+     * @param commitSha Sha1 of the commit.
+     * @return The generated update statement.
+     */
+    ParameterizedStatement parameterizedChangedFilesComputed(int projectId, String commitSha);
+
+    /**
+     * Retrieve the commits of the project without any changed file persisted,
+     * e.g. inserted before the changed files were persisted along with the commits.
+     * The commits whose changed files were recorded as computed are not returned.
+     *
+     * @param projectId The project identifier.
+     * @return The generated query statement, returning the commits sha1.
+     * @see CommitQueries#parameterizedChangedFilesComputed(int, String)
+     */
+    String commitsWithoutChangedFileQuery(int projectId);
 }
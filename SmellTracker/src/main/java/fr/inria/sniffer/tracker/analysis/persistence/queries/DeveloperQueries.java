@@ -1,5 +1,7 @@
 package fr.inria.sniffer.tracker.analysis.persistence.queries;
 
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
+
 public interface DeveloperQueries {
     /**
      * Generate a statement inserting the developer into the persistence.
@@ -9,6 +11,15 @@ public interface DeveloperQueries {
      */
     String developerInsertStatement(String developerName);
 
+    /**
+     * Generate a parameterized statement inserting the developer into the persistence.
+     *
+     * @param developerName The developer name
+     * @return The generated insertion statement.
+     * @see DeveloperQueries#developerInsertStatement(String)
+     */
+    ParameterizedStatement parameterizedDeveloperInsertion(String developerName);
+
     /**
      * Generate a statement binding the developer to the project into the persistence.
      *
@@ -18,6 +29,16 @@ public interface DeveloperQueries {
      */
     String projectDeveloperInsertStatement(int projectId, String developerName);
 
+    /**
+     * Generate a parameterized statement binding the developer to the project into the persistence.
+     *
+     * @param projectId     The project identifier.
+     * @param developerName The developer name (must be in developer table).
+     * @return The generated insertion statement.
+     * @see DeveloperQueries#projectDeveloperInsertStatement(int, String)
+     */
+    ParameterizedStatement parameterizedProjectDeveloperInsertion(int projectId, String developerName);
+
     /**
      * Query the identifier of a developer.
      *
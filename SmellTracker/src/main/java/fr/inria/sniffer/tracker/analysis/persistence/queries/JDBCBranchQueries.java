@@ -1,8 +1,38 @@
 package fr.inria.sniffer.tracker.analysis.persistence.queries;
 
 import fr.inria.sniffer.tracker.analysis.model.Commit;
+import fr.inria.sniffer.tracker.analysis.persistence.CopyTarget;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
 
 public class JDBCBranchQueries extends JDBCQueriesHelper implements BranchQueries {
+    private static final String BRANCH_INSERTION = "INSERT INTO branch " +
+            "(project_id, ordinal, parent_commit, merged_into) VALUES (?, ?, " +
+            JDBCCommitQueries.COMMIT_ID_PARAMETERS + ", " + JDBCCommitQueries.COMMIT_ID_PARAMETERS +
+            ") ON CONFLICT DO NOTHING;";
+    private static final String BRANCH_INSERTION_BY_ID = "INSERT INTO branch " +
+            "(project_id, ordinal, parent_commit, merged_into) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING;";
+    private static final String BRANCH_COMMIT_INSERTION = "INSERT INTO branch_commit " +
+            "(branch_id, commit_id, ordinal) VALUES ((SELECT id FROM branch WHERE project_id = ? AND ordinal = ?), " +
+            JDBCCommitQueries.COMMIT_ID_PARAMETERS + ", ?) ON CONFLICT DO NOTHING;";
+    private static final CopyTarget BRANCH_COMMIT_COPY = new CopyTarget("copy_branch_commit",
+            "project_id INTEGER, branch_ordinal INTEGER, sha1 VARCHAR(40), commit_project_id INTEGER, ordinal INTEGER",
+            "INSERT INTO branch_commit (branch_id, commit_id, ordinal) " +
+                    "SELECT b.id, c.id, s.ordinal FROM copy_branch_commit s " +
+                    "LEFT JOIN branch b ON b.project_id = s.project_id AND b.ordinal = s.branch_ordinal " +
+                    "LEFT JOIN commit_entry c ON c.sha1 = s.sha1 AND c.project_id = s.commit_project_id " +
+                    "ON CONFLICT DO NOTHING"
+    );
+    private static final String BRANCH_COMMIT_INSERTION_BY_ID = "INSERT INTO branch_commit " +
+            "(branch_id, commit_id, ordinal) VALUES ((SELECT id FROM branch WHERE project_id = ? AND ordinal = ?), " +
+            "?, ?) ON CONFLICT DO NOTHING;";
+    private static final CopyTarget BRANCH_COMMIT_ID_COPY = new CopyTarget("copy_id_branch_commit",
+            "project_id INTEGER, branch_ordinal INTEGER, commit_id INTEGER, ordinal INTEGER",
+            "INSERT INTO branch_commit (branch_id, commit_id, ordinal) " +
+                    "SELECT b.id, s.commit_id, s.ordinal FROM copy_id_branch_commit s " +
+                    "LEFT JOIN branch b ON b.project_id = s.project_id AND b.ordinal = s.branch_ordinal " +
+                    "ON CONFLICT DO NOTHING"
+    );
+
     private CommitQueries commitQueries;
     private SmellQueries smellQueries;
 
@@ -13,8 +43,8 @@ public class JDBCBranchQueries extends JDBCQueriesHelper implements BranchQuerie
 
     @Override
     public String branchInsertionStatement(int projectId, int ordinal, Commit parentCommit, Commit mergedInto) {
-        String parentCommitQuery = parentCommit == null ? null : "(" + commitQueries.idFromShaQuery(projectId, parentCommit.sha) + ")";
-        String mergedIntoQuery = mergedInto == null ? null : "(" + commitQueries.idFromShaQuery(projectId, mergedInto.sha) + ")";
+        String parentCommitQuery = parentCommit == null ? null : commitQueries.commitIdReference(projectId, parentCommit.sha);
+        String mergedIntoQuery = mergedInto == null ? null : commitQueries.commitIdReference(projectId, mergedInto.sha);
         return "INSERT INTO branch (project_id, ordinal, parent_commit, merged_into) VALUES ('"
                 + projectId + "', '" + ordinal + "', " + parentCommitQuery + ", " + mergedIntoQuery
                 + ") ON CONFLICT DO NOTHING;";
@@ -24,7 +54,31 @@ public class JDBCBranchQueries extends JDBCQueriesHelper implements BranchQuerie
     public String branchCommitInsertionQuery(int projectId, int branchOrdinal, String commitSha, int ordinal) {
         return "INSERT INTO branch_commit (branch_id, commit_id, ordinal) VALUES (" +
                 "(" + idFromOrdinalQueryStatement(projectId, branchOrdinal) + "), " +
-                "(" + commitQueries.idFromShaQuery(projectId, commitSha) + "), " + ordinal + ") ON CONFLICT DO NOTHING;";
+                commitQueries.commitIdReference(projectId, commitSha) + ", " + ordinal + ") ON CONFLICT DO NOTHING;";
+    }
+
+    @Override
+    public ParameterizedStatement parameterizedBranchInsertion(int projectId, int ordinal, Commit parentCommit, Commit mergedInto) {
+        String parentCommitSha = parentCommit == null ? null : parentCommit.sha;
+        String mergedIntoSha = mergedInto == null ? null : mergedInto.sha;
+        Integer parentCommitId = parentCommit == null ? null : commitQueries.cachedCommitId(projectId, parentCommitSha);
+        Integer mergedIntoId = mergedInto == null ? null : commitQueries.cachedCommitId(projectId, mergedIntoSha);
+        if ((parentCommit == null || parentCommitId != null) && (mergedInto == null || mergedIntoId != null)) {
+            return new ParameterizedStatement(BRANCH_INSERTION_BY_ID, projectId, ordinal, parentCommitId, mergedIntoId);
+        }
+        return new ParameterizedStatement(BRANCH_INSERTION, projectId, ordinal,
+                parentCommitSha, projectId, mergedIntoSha, projectId);
+    }
+
+    @Override
+    public ParameterizedStatement parameterizedBranchCommitInsertion(int projectId, int branchOrdinal, String commitSha, int ordinal) {
+        Integer commitId = commitQueries.cachedCommitId(projectId, commitSha);
+        if (commitId != null) {
+            return new ParameterizedStatement(BRANCH_COMMIT_INSERTION_BY_ID, BRANCH_COMMIT_ID_COPY, projectId, branchOrdinal,
+                    commitId, ordinal);
+        }
+        return new ParameterizedStatement(BRANCH_COMMIT_INSERTION, BRANCH_COMMIT_COPY, projectId, branchOrdinal,
+                commitSha, projectId, ordinal);
     }
 
     @Override
@@ -53,7 +107,7 @@ public class JDBCBranchQueries extends JDBCQueriesHelper implements BranchQuerie
 
     @Override
     public String mergedBranchIdQuery(int projectId, Commit commit) {
-        return "SELECT id FROM branch WHERE merged_into = (" + commitQueries.idFromShaQuery(projectId, commit.sha) + ")";
+        return "SELECT id FROM branch WHERE merged_into = " + commitQueries.commitIdReference(projectId, commit.sha);
     }
 
     @Override
@@ -95,6 +149,22 @@ public class JDBCBranchQueries extends JDBCQueriesHelper implements BranchQuerie
         return branchLastCommitQuery(projectId, branchId, "id");
     }
 
+    @Override
+    public String lastAnalyzedCommitQuery(int projectId, int branchId, int lastAnalyzedCommitId) {
+        return "SELECT commit_entry.id, commit_entry.sha1 FROM commit_entry " +
+                "JOIN branch_commit ON branch_commit.commit_id = commit_entry.id " +
+                "WHERE branch_commit.branch_id = " + branchId + " " +
+                "AND commit_entry.project_id = " + projectId + " " +
+                "AND commit_entry.id <= " + lastAnalyzedCommitId + " " +
+                "AND commit_entry.in_detector IS TRUE " +
+                "ORDER BY branch_commit.ordinal DESC LIMIT 1";
+    }
+
+    @Override
+    public String lastBranchOrdinalQuery(int projectId) {
+        return "SELECT MAX(ordinal) AS ordinal FROM branch WHERE project_id = " + projectId;
+    }
+
     @Override
     public String commitOrdinalQuery(int projectId, int branchId, Commit commit) {
         return "SELECT branch_commit.ordinal FROM branch_commit " +
@@ -103,6 +173,14 @@ public class JDBCBranchQueries extends JDBCQueriesHelper implements BranchQuerie
                 "AND commit_entry.sha1 = '" + commit.sha + "'";
     }
 
+    @Override
+    public String branchCommitsQuery(int projectId) {
+        return "SELECT commit_entry.sha1, branch_commit.branch_id, branch_commit.ordinal FROM branch_commit " +
+                "JOIN commit_entry ON commit_entry.id = branch_commit.commit_id " +
+                "WHERE commit_entry.project_id = " + projectId + " " +
+                "ORDER BY branch_commit.branch_id";
+    }
+
     /**
      * Helper method to fetch a last branch commit's commit_entry specific field.
      *
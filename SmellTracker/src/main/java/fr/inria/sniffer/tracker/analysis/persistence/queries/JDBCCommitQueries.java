@@ -4,10 +4,52 @@ import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.GitChangedFile;
 import fr.inria.sniffer.tracker.analysis.model.GitDiff;
 import fr.inria.sniffer.tracker.analysis.model.GitRename;
+import fr.inria.sniffer.tracker.analysis.persistence.CopyTarget;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+
+import java.sql.Date;
 
 public class JDBCCommitQueries extends JDBCQueriesHelper implements CommitQueries {
+    static final String COMMIT_ID_PARAMETERS = "(SELECT id FROM commit_entry WHERE sha1 = ? AND project_id = ?)";
+
+    private static final String COMMIT_INSERTION = "INSERT INTO commit_entry (project_id, developer_id, sha1, " +
+            "ordinal, date, additions, deletions, files_changed, message, merged_commit_id, in_detector) VALUES " +
+            "(?, (" + JDBCDeveloperQueries.DEVELOPER_ID_PARAMETERS + "), ?, ?, ?, ?, ?, ?, ?, " +
+            COMMIT_ID_PARAMETERS + ", ?) ON CONFLICT DO NOTHING;";
+    private static final CopyTarget COMMIT_COPY = new CopyTarget("copy_commit_entry",
+            "project_id INTEGER, developer VARCHAR(256), sha1 VARCHAR(40), ordinal INTEGER, date DATE, " +
+                    "additions INTEGER, deletions INTEGER, files_changed INTEGER, message TEXT, " +
+                    "merged_sha1 VARCHAR(40), merged_project_id INTEGER, in_detector BOOLEAN",
+            "INSERT INTO commit_entry (project_id, developer_id, sha1, ordinal, date, " +
+                    "additions, deletions, files_changed, message, in_detector) " +
+                    "SELECT s.project_id, d.id, s.sha1, s.ordinal, s.date, " +
+                    "s.additions, s.deletions, s.files_changed, s.message, s.in_detector " +
+                    // A missing developer fails on the NOT NULL developer_id, as the inserted statement would.
+                    "FROM copy_commit_entry s LEFT JOIN developer d ON d.username = s.developer " +
+                    "ON CONFLICT DO NOTHING",
+            // Merged commits may be part of the same copy, hence are bound once all inserted.
+            "UPDATE commit_entry SET merged_commit_id = m.id FROM copy_commit_entry s " +
+                    "JOIN commit_entry m ON m.sha1 = s.merged_sha1 AND m.project_id = s.merged_project_id " +
+                    "WHERE commit_entry.sha1 = s.sha1 AND commit_entry.project_id = s.project_id"
+    );
+    private static final String FILE_RENAME_INSERTION = "INSERT INTO file_rename " +
+            "(project_id, commit_id, old_file, new_file, similarity) VALUES " +
+            "(?, " + COMMIT_ID_PARAMETERS + ", ?, ?, ?) ON CONFLICT DO NOTHING;";
+    private static final String FILE_RENAME_INSERTION_BY_ID = "INSERT INTO file_rename " +
+            "(project_id, commit_id, old_file, new_file, similarity) VALUES " +
+            "(?, ?, ?, ?, ?) ON CONFLICT DO NOTHING;";
+    private static final String FILE_CHANGED_INSERTION = "INSERT INTO file_changed " +
+            "(project_id, commit_id, file_name, modification_size) VALUES " +
+            "(?, " + COMMIT_ID_PARAMETERS + ", ?, ?) ON CONFLICT DO NOTHING;";
+    private static final String FILE_CHANGED_INSERTION_BY_ID = "INSERT INTO file_changed " +
+            "(project_id, commit_id, file_name, modification_size) VALUES " +
+            "(?, ?, ?, ?) ON CONFLICT DO NOTHING;";
+    private static final String CHANGED_FILES_COMPUTED = "UPDATE commit_entry SET changed_files_computed = TRUE " +
+            "WHERE project_id = ? AND sha1 = ?;";
 
     private DeveloperQueries developerQueries;
+    private final CommitIdCache commitIds = new CommitIdCache();
 
     public JDBCCommitQueries(DeveloperQueries developerQueries) {
         this.developerQueries = developerQueries;
@@ -22,7 +64,7 @@ public class JDBCCommitQueries extends JDBCQueriesHelper implements CommitQuerie
         String commitMessage = escapeStringEntry(commit.message);
 
         String mergedCommit = commit.getParentCount() >= 2 ?
-                "(" + idFromShaQuery(projectId, commit.getParent(1).sha) + ")" : null;
+                commitIdReference(projectId, commit.getParent(1).sha) : null;
 
         String developerQuery = developerQueries.idFromEmailQuery(commit.authorEmail);
         return "INSERT INTO commit_entry (project_id, developer_id, sha1, ordinal, date, " +
@@ -32,11 +74,42 @@ public class JDBCCommitQueries extends JDBCQueriesHelper implements CommitQuerie
                 ", $$ " + commitMessage + " $$, " + mergedCommit + ", " + commit.isInPaprika() + ") ON CONFLICT DO NOTHING;";
     }
 
+    @Override
+    public ParameterizedStatement parameterizedCommitInsertion(int projectId, Commit commit, GitDiff diff) {
+        logger.trace("[" + projectId + "] Inserting commit: " + commit.sha
+                + " - ordinal: " + commit.ordinal + " - diff: " + diff + " - time: " + commit.date);
+
+        String mergedCommitSha = commit.getParentCount() >= 2 ? commit.getParent(1).sha : null;
+        // The message is stored as in the dollar quoted insertion to keep both statements interchangeable.
+        String commitMessage = " " + escapeStringEntry(commit.message) + " ";
+        return new ParameterizedStatement(COMMIT_INSERTION, COMMIT_COPY, projectId,
+                escapeStringEntry(commit.authorEmail), commit.sha,
+                commit.ordinal, Date.valueOf(commit.date.toLocalDate().toString()),
+                diff.getAddition(), diff.getDeletion(), diff.getChangedFiles(), commitMessage,
+                mergedCommitSha, projectId, commit.isInPaprika());
+    }
+
     @Override
     public String idFromShaQuery(int projectId, String sha) {
         return idFromShaQuery(projectId, sha, false);
     }
 
+    @Override
+    public int loadCommitIds(Persistence persistence, int projectId) {
+        return commitIds.load(persistence, projectId);
+    }
+
+    @Override
+    public Integer cachedCommitId(int projectId, String sha) {
+        return commitIds.get(projectId, sha);
+    }
+
+    @Override
+    public String commitIdReference(int projectId, String sha) {
+        Integer commitId = commitIds.get(projectId, sha);
+        return commitId != null ? String.valueOf(commitId) : "(" + idFromShaQuery(projectId, sha) + ")";
+    }
+
     @Override
     public String shaFromOrdinalQuery(int projectId, int ordinal) {
         return shaFromOrdinalQuery(projectId, ordinal, false);
@@ -76,18 +149,41 @@ public class JDBCCommitQueries extends JDBCQueriesHelper implements CommitQuerie
         return query;
     }
 
+    @Override
+    public String lastProjectCommitIdQuery(int projectId) {
+        return "SELECT MAX(id) AS id FROM commit_entry WHERE project_id = " + projectId;
+    }
+
     @Override
     public String fileRenameInsertionStatement(int projectId, String commitSha, GitRename rename) {
         return "INSERT INTO file_rename (project_id, commit_id, old_file, new_file, similarity) VALUES ('" +
-                projectId + "', (" + idFromShaQuery(projectId, commitSha) + "), '" + rename.oldFile + "', '" +
+                projectId + "', " + commitIdReference(projectId, commitSha) + ", '" + rename.oldFile + "', '" +
                 rename.newFile + "', " + rename.similarity + ") ON CONFLICT DO NOTHING;";
     }
 
+    @Override
+    public ParameterizedStatement parameterizedFileRenameInsertion(int projectId, String commitSha, GitRename rename) {
+        Integer commitId = commitIds.get(projectId, commitSha);
+        if (commitId != null) {
+            return new ParameterizedStatement(FILE_RENAME_INSERTION_BY_ID, projectId, commitId,
+                    rename.oldFile, rename.newFile, rename.similarity);
+        }
+        return new ParameterizedStatement(FILE_RENAME_INSERTION, projectId, commitSha, projectId,
+                rename.oldFile, rename.newFile, rename.similarity);
+    }
+
     @Override
     public String mergedCommitIdQuery(int projectId, Commit commit) {
         return "SELECT merged_commit_id AS id FROM commit_entry where sha1 = '" + commit.sha + "'";
     }
 
+    @Override
+    public String mergedCommitQuery(int projectId, Commit commit) {
+        return "SELECT merged.id AS id, merged.sha1 AS sha1 FROM commit_entry " +
+                "JOIN commit_entry AS merged ON merged.id = commit_entry.merged_commit_id " +
+                "WHERE commit_entry.project_id = " + projectId + " AND commit_entry.sha1 = '" + commit.sha + "'";
+    }
+
     @Override
     public String projectIdFromShaQuery(String sha) {
         return "SELECT project_id from commit_entry WHERE sha1 = '" + sha + "'";
@@ -109,8 +205,32 @@ public class JDBCCommitQueries extends JDBCQueriesHelper implements CommitQuerie
     @Override
     public String fileChangedInsertionStatement(int projectId, String commitSha, GitChangedFile changedFile) {
         return "INSERT INTO file_changed (project_id, commit_id, file_name, modification_size) VALUES ('" +
-                projectId + "', (" + idFromShaQuery(projectId, commitSha) + "), '" + escapeStringEntry(changedFile.name) + "', '" +
+                projectId + "', " + commitIdReference(projectId, commitSha) + ", '" + escapeStringEntry(changedFile.name) + "', '" +
                 changedFile.changeSize + "') ON CONFLICT DO NOTHING;";
     }
 
+    @Override
+    public ParameterizedStatement parameterizedFileChangedInsertion(int projectId, String commitSha, GitChangedFile changedFile) {
+        Integer commitId = commitIds.get(projectId, commitSha);
+        if (commitId != null) {
+            return new ParameterizedStatement(FILE_CHANGED_INSERTION_BY_ID, projectId, commitId,
+                    escapeStringEntry(changedFile.name), changedFile.changeSize);
+        }
+        return new ParameterizedStatement(FILE_CHANGED_INSERTION, projectId, commitSha, projectId,
+                escapeStringEntry(changedFile.name), changedFile.changeSize);
+    }
+
+    @Override
+    public ParameterizedStatement parameterizedChangedFilesComputed(int projectId, String commitSha) {
+        return new ParameterizedStatement(CHANGED_FILES_COMPUTED, projectId, commitSha);
+    }
+
+    @Override
+    public String commitsWithoutChangedFileQuery(int projectId) {
+        return "SELECT sha1 FROM commit_entry WHERE project_id = " + projectId + " " +
+                "AND NOT changed_files_computed " +
+                "AND NOT EXISTS (SELECT 1 FROM file_changed " +
+                "WHERE file_changed.project_id = commit_entry.project_id AND file_changed.commit_id = commit_entry.id)";
+    }
+
 }
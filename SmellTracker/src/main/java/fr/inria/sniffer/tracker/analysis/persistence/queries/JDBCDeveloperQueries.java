@@ -1,6 +1,15 @@
 package fr.inria.sniffer.tracker.analysis.persistence.queries;
 
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
+
 public class JDBCDeveloperQueries extends JDBCQueriesHelper implements DeveloperQueries {
+    static final String DEVELOPER_ID_PARAMETERS = "SELECT id FROM developer WHERE username = ?";
+
+    private static final String DEVELOPER_INSERTION =
+            "INSERT INTO developer (username) VALUES (?) ON CONFLICT DO NOTHING;";
+    private static final String PROJECT_DEVELOPER_INSERTION = "INSERT INTO project_developer " +
+            "(developer_id, project_id) VALUES ((" + DEVELOPER_ID_PARAMETERS + "), ?) ON CONFLICT DO NOTHING;";
+
     @Override
     public String developerInsertStatement(String developerName) {
         return "INSERT INTO developer (username) VALUES ($$" + escapeStringEntry(developerName) + "$$) ON CONFLICT DO NOTHING;";
@@ -12,6 +21,16 @@ public class JDBCDeveloperQueries extends JDBCQueriesHelper implements Developer
                 "(" + idFromEmailQuery(developerName) + "), " + projectId + ") ON CONFLICT DO NOTHING;";
     }
 
+    @Override
+    public ParameterizedStatement parameterizedDeveloperInsertion(String developerName) {
+        return new ParameterizedStatement(DEVELOPER_INSERTION, escapeStringEntry(developerName));
+    }
+
+    @Override
+    public ParameterizedStatement parameterizedProjectDeveloperInsertion(int projectId, String developerName) {
+        return new ParameterizedStatement(PROJECT_DEVELOPER_INSERTION, escapeStringEntry(developerName), projectId);
+    }
+
     @Override
     public String idFromEmailQuery(String email) {
         return "SELECT id FROM developer WHERE username = $$" + escapeStringEntry(email) + "$$";
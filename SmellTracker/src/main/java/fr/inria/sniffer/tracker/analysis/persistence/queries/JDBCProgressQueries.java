@@ -0,0 +1,23 @@
+package fr.inria.sniffer.tracker.analysis.persistence.queries;
+
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
+
+public class JDBCProgressQueries extends JDBCQueriesHelper implements ProgressQueries {
+    private static final String PROGRESS_INSERTION = "INSERT INTO analysis_progress " +
+            "(project_id, stage, step, value) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING;";
+
+    @Override
+    public ParameterizedStatement parameterizedProgressInsertion(int projectId, String stage, String step, Integer value) {
+        return new ParameterizedStatement(PROGRESS_INSERTION, projectId, stage, step, value);
+    }
+
+    @Override
+    public String progressQuery(int projectId) {
+        return "SELECT stage, step, value FROM analysis_progress WHERE project_id = " + projectId;
+    }
+
+    @Override
+    public String progressDeletionStatement(int projectId) {
+        return "DELETE FROM analysis_progress WHERE project_id = " + projectId;
+    }
+}
@@ -1,9 +1,44 @@
 package fr.inria.sniffer.tracker.analysis.persistence.queries;
 
 import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.CopyTarget;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
 import fr.inria.sniffer.tracker.analysis.persistence.SmellCategory;
 
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
 public class JDBCSmellQueries extends JDBCQueriesHelper implements SmellQueries {
+    private static final String SMELL_INSERTION = "INSERT INTO smell " +
+            "(id, project_id, instance, type, file, renamed_from) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING;";
+    private static final String SMELL_PRESENCE_INTERVAL_INSERTION = "INSERT INTO smell_presence_interval " +
+            "(project_id, smell_id, branch_id, since, until) VALUES (?, ?, ?, ?, ?) " +
+            // A resumed analysis inserts again the intervals flushed before its interruption, with a further end.
+            "ON CONFLICT (smell_id, branch_id, since) DO UPDATE " +
+            "SET until = GREATEST(smell_presence_interval.until, EXCLUDED.until);";
+    private static final Map<SmellCategory, CopyTarget> CATEGORY_COPIES = new EnumMap<>(SmellCategory.class);
+    private static final Map<SmellCategory, CopyTarget> CATEGORY_ID_COPIES = new EnumMap<>(SmellCategory.class);
+
+    static {
+        for (SmellCategory category : SmellCategory.values()) {
+            String staging = "copy_" + category.getName();
+            CATEGORY_COPIES.put(category, new CopyTarget(staging,
+                    "project_id INTEGER, smell_id INTEGER, sha1 VARCHAR(40), commit_project_id INTEGER",
+                    "INSERT INTO " + category.getName() + " (project_id, smell_id, commit_id) " +
+                            "SELECT s.project_id, s.smell_id, c.id FROM " + staging + " s " +
+                            "LEFT JOIN commit_entry c ON c.sha1 = s.sha1 AND c.project_id = s.commit_project_id " +
+                            "ON CONFLICT DO NOTHING"
+            ));
+            String idStaging = "copy_id_" + category.getName();
+            CATEGORY_ID_COPIES.put(category, new CopyTarget(idStaging,
+                    "project_id INTEGER, smell_id INTEGER, commit_id INTEGER",
+                    "INSERT INTO " + category.getName() + " (project_id, smell_id, commit_id) " +
+                            "SELECT project_id, smell_id, commit_id FROM " + idStaging + " " +
+                            "ON CONFLICT DO NOTHING"
+            ));
+        }
+    }
 
     private CommitQueries commitQueries;
 
@@ -20,11 +55,57 @@ public class JDBCSmellQueries extends JDBCQueriesHelper implements SmellQueries
                 + smell.file + "', " + parentIdOrNull + ") ON CONFLICT DO NOTHING;";
     }
 
+    @Override
+    public ParameterizedStatement parameterizedSmellInsertion(int projectId, Smell smell) {
+        Integer parentId = smell.parent == null ? null : smell.parent.id;
+        // The smells are inserted along with the copied presence rows, which do not have to be loaded first.
+        return new ParameterizedStatement(SMELL_INSERTION, smell.id, projectId, smell.instance, smell.type,
+                smell.file, parentId).dependingOn();
+    }
+
+    @Override
+    public String smellIdReservationQuery(int count) {
+        return "SELECT nextval(pg_get_serial_sequence('smell', 'id')) AS id FROM generate_series(1, " + count + ")";
+    }
+
+    @Override
+    public String projectSmellsQuery(int projectId) {
+        return "SELECT id, type, instance, file, renamed_from FROM smell WHERE project_id = " + projectId;
+    }
+
     @Override
     public String smellCategoryInsertionStatement(int projectId, String sha1, Smell smell, SmellCategory category) {
         return "INSERT INTO " + category.getName() + " (project_id, smell_id, commit_id) VALUES " +
-                "(" + projectId + ", " + smell.id + ", (" +
-                commitQueries.idFromShaQuery(projectId, sha1) + "));";
+                "(" + projectId + ", " + smell.id + ", " +
+                commitQueries.commitIdReference(projectId, sha1) + ");";
+    }
+
+    @Override
+    public ParameterizedStatement parameterizedSmellCategoryInsertion(int projectId, String sha1, Smell smell, SmellCategory category) {
+        Integer commitId = commitQueries.cachedCommitId(projectId, sha1);
+        if (commitId != null) {
+            String sql = "INSERT INTO " + category.getName() + " (project_id, smell_id, commit_id) VALUES (?, ?, ?) " +
+                    "ON CONFLICT DO NOTHING;";
+            return new ParameterizedStatement(sql, CATEGORY_ID_COPIES.get(category), projectId, smell.id, commitId);
+        }
+        String sql = "INSERT INTO " + category.getName() + " (project_id, smell_id, commit_id) VALUES " +
+                "(?, ?, " + JDBCCommitQueries.COMMIT_ID_PARAMETERS + ") ON CONFLICT DO NOTHING;";
+        return new ParameterizedStatement(sql, CATEGORY_COPIES.get(category), projectId, smell.id, sha1, projectId);
+    }
+
+    @Override
+    public ParameterizedStatement parameterizedLostSmellCategoryInsertion(int projectId, Smell smell, SmellCategory category,
+                                                                          int since, int until) {
+        String sql = "INSERT INTO lost_" + category.getName() + " (project_id, smell_id, since, until) VALUES " +
+                "(?, ?, ?, ?) ON CONFLICT DO NOTHING;";
+        return new ParameterizedStatement(sql, projectId, smell.id, since, until).dependingOn();
+    }
+
+    @Override
+    public ParameterizedStatement parameterizedSmellPresenceIntervalInsertion(int projectId, Smell smell, int branchId,
+                                                                              int since, int until) {
+        return new ParameterizedStatement(SMELL_PRESENCE_INTERVAL_INSERTION, projectId, smell.id, branchId, since, until)
+                .dependingOn();
     }
 
     @Override
@@ -32,7 +113,7 @@ public class JDBCSmellQueries extends JDBCQueriesHelper implements SmellQueries
         String lostCategory = "lost_" + category.getName();
         return "INSERT INTO " + lostCategory + " (project_id, smell_id, since, until) VALUES " +
                 "(" + projectId + ", (" + smellIdQuery(projectId, smell) +
-                "), " + "" + since + " , " + until + ");";
+                "), " + "" + since + " , " + until + ") ON CONFLICT DO NOTHING;";
     }
 
     @Override
@@ -77,8 +158,8 @@ public class JDBCSmellQueries extends JDBCQueriesHelper implements SmellQueries
     @Override
     public String commitSmellsQuery(int projectId, String commitId, String smellType) {
         String smellsQuery = "SELECT smell.id, type, instance, file, renamed_from FROM smell " +
-                "RIGHT JOIN smell_presence ON smell_presence.smell_id = smell.id " +
-                "WHERE smell_presence.commit_id = " + commitId;
+                "RIGHT JOIN all_smell_presence ON all_smell_presence.smell_id = smell.id " +
+                "WHERE all_smell_presence.commit_id = " + commitId;
         if (smellType != null) {
             smellsQuery += " AND smell.type = '" + smellType + "'";
         }
@@ -110,8 +191,28 @@ public class JDBCSmellQueries extends JDBCQueriesHelper implements SmellQueries
                 "WHERE smell_refactoring.project_id = " + projectId;
     }
 
-    public String setAsDeleted(int projectId, int refactoringId, boolean deleted) {
+    @Override
+    public String setAsDeleted(int projectId, Collection<Integer> refactoringIds, Collection<Integer> deletedIds) {
+        String deleted;
+        if (deletedIds.isEmpty()) {
+            deleted = "false";
+        } else if (deletedIds.size() == refactoringIds.size()) {
+            deleted = "true";
+        } else {
+            deleted = "id IN " + idList(deletedIds);
+        }
         return "UPDATE smell_refactoring SET deleted = " + deleted + " " +
-                "WHERE id = " + refactoringId;
+                "WHERE id IN " + idList(refactoringIds);
+    }
+
+    private static String idList(Collection<Integer> ids) {
+        StringBuilder list = new StringBuilder("(");
+        for (Integer id : ids) {
+            if (list.length() > 1) {
+                list.append(", ");
+            }
+            list.append(id);
+        }
+        return list.append(")").toString();
     }
 }
@@ -12,7 +12,7 @@ public class JDBCTagQueries implements TagQueries {
 
     @Override
     public String tagInsertionStatement(int projectId, Tag tag) {
-        String commitId = "(" + commitQueries.idFromShaQuery(projectId, tag.getSha()) + ")";
+        String commitId = commitQueries.commitIdReference(projectId, tag.getSha());
         return "INSERT INTO tag (project_id, commit_id, name, date) " +
                 "VALUES " +
                 "(" + projectId + ", " + commitId + ",  '"
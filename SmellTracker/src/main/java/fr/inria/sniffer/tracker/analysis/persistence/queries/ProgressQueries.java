@@ -0,0 +1,32 @@
+package fr.inria.sniffer.tracker.analysis.persistence.queries;
+
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
+
+public interface ProgressQueries {
+    /**
+     * Generate a parameterized statement recording a completed analysis step.
+     *
+     * @param projectId The project identifier.
+     * @param stage     The analysis stage holding the step.
+     * @param step      The completed step.
+     * @param value     An optional value bound to the step, may be null.
+     * @return The generated insertion statement.
+     */
+    ParameterizedStatement parameterizedProgressInsertion(int projectId, String stage, String step, Integer value);
+
+    /**
+     * Retrieve the completed steps of the project analysis.
+     *
+     * @param projectId The project identifier.
+     * @return The generated query statement, returning the stage, step, and value columns.
+     */
+    String progressQuery(int projectId);
+
+    /**
+     * Remove the recorded progress of the project analysis.
+     *
+     * @param projectId The project identifier.
+     * @return The generated deletion statement.
+     */
+    String progressDeletionStatement(int projectId);
+}
@@ -1,8 +1,11 @@
 package fr.inria.sniffer.tracker.analysis.persistence.queries;
 
 import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
 import fr.inria.sniffer.tracker.analysis.persistence.SmellCategory;
 
+import java.util.Collection;
+
 public interface SmellQueries {
     /**
      * @param projectId The project identifier.
@@ -11,6 +14,33 @@ public interface SmellQueries {
      */
     String smellInsertionStatement(int projectId, Smell smell);
 
+    /**
+     * Generate a parameterized statement inserting a {@link Smell} with an already allocated identifier.
+     *
+     * @param projectId The project identifier.
+     * @param smell     The smell instance to insert, must be identified,
+     *                  as well as its parent if any.
+     * @return The generated insertion statement.
+     * @see SmellQueries#smellIdReservationQuery(int)
+     */
+    ParameterizedStatement parameterizedSmellInsertion(int projectId, Smell smell);
+
+    /**
+     * Reserve a block of smell identifiers, which can then be used on insertion.
+     *
+     * @param count The number of identifiers to reserve.
+     * @return The generated query statement, returning one 'id' per row.
+     */
+    String smellIdReservationQuery(int count);
+
+    /**
+     * Query all the smells of a project, along with their parent identifier.
+     *
+     * @param projectId The project identifier.
+     * @return The generated query statement.
+     */
+    String projectSmellsQuery(int projectId);
+
     /**
      * Generate a statement inserting a {@link Smell} introduction, presence, or refactor into the persistence.
      *
@@ -22,6 +52,20 @@ public interface SmellQueries {
      */
     String smellCategoryInsertionStatement(int projectId, String sha1, Smell smell, SmellCategory category);
 
+    /**
+     * Generate a parameterized statement inserting a {@link Smell} introduction, presence, or refactor
+     * into the persistence.
+     * An already inserted row is ignored, as a resumed analysis inserts again the unfinished branches.
+     *
+     * @param projectId The project identifier.
+     * @param sha1      Sha1 of the commit to bind the Smell category onto.
+     * @param smell     The smell instance to insert, must be identified.
+     * @param category  The {@link SmellCategory} to insert the smell into.
+     * @return The generated insertion statement.
+     * @see SmellQueries#smellCategoryInsertionStatement(int, String, Smell, SmellCategory)
+     */
+    ParameterizedStatement parameterizedSmellCategoryInsertion(int projectId, String sha1, Smell smell, SmellCategory category);
+
     /**
      * Generate a statement inserting a lost {@link Smell} introduction, or refactor into the persistence.
      *
@@ -34,6 +78,35 @@ public interface SmellQueries {
      */
     String lostSmellCategoryInsertionStatement(int projectId, Smell smell, SmellCategory category, int since, int until);
 
+    /**
+     * Generate a parameterized statement inserting a lost {@link Smell} introduction, or refactor into the persistence.
+     * An already inserted interval is ignored, as a resumed analysis inserts again the unfinished branches.
+     *
+     * @param projectId The project identifier.
+     * @param smell     The smell instance to insert, must be identified.
+     * @param category  The {@link SmellCategory} to insert the smell into.
+     * @param since     The lower ordinal of the interval in which the smell it lost.
+     * @param until     The upper ordinal of the interval in which the smell it lost.
+     * @return The generated insertion statement.
+     * @see SmellQueries#lostSmellCategoryInsertionStatement(int, Smell, SmellCategory, int, int)
+     */
+    ParameterizedStatement parameterizedLostSmellCategoryInsertion(int projectId, Smell smell, SmellCategory category,
+                                                                   int since, int until);
+
+    /**
+     * Generate a parameterized statement inserting the presence of a {@link Smell} in a range of consecutive
+     * commits of a branch, from its first to its last commit ordinal in the branch.
+     *
+     * @param projectId The project identifier.
+     * @param smell     The smell instance to insert, must be identified.
+     * @param branchId  The branch holding the commits.
+     * @param since     The branch ordinal of the first commit holding the smell.
+     * @param until     The branch ordinal of the last commit holding the smell.
+     * @return The generated insertion statement.
+     */
+    ParameterizedStatement parameterizedSmellPresenceIntervalInsertion(int projectId, Smell smell, int branchId,
+                                                                       int since, int until);
+
     /**
      * Query the identifier of a smell.
      * <p>
@@ -74,12 +147,12 @@ public interface SmellQueries {
     String allRefactoredInstancesWithSha1(int projectId);
 
     /**
-     * Set the smell_refactoring entry as deleted.
+     * Set the deleted value of multiple smell_refactoring entries at once.
      *
-     * @param projectId     The project identifier.
-     * @param refactoringId Id of the refactoring to set as deleted.
-     * @param deleted       Set the deleted value.
+     * @param projectId      The project identifier.
+     * @param refactoringIds Ids of the refactorings to update.
+     * @param deletedIds     Ids of the refactorings to set as deleted, the others are set as not deleted.
      * @return The generated query statement.
      */
-    String setAsDeleted(int projectId, int refactoringId, boolean deleted);
+    String setAsDeleted(int projectId, Collection<Integer> refactoringIds, Collection<Integer> deletedIds);
 }
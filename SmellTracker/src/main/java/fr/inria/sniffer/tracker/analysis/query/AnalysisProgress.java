@@ -0,0 +1,142 @@
+package fr.inria.sniffer.tracker.analysis.query;
+
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.ProgressQueries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Completed steps of a project analysis, persisted to resume an interrupted analysis.
+ * <p>
+ * A step is identified by its stage, e.g. the {@link Query} stages or the smell types,
+ * and by a name in this stage. A step is recorded in the persistence right after its own writes,
+ * thus a restarted analysis can skip it.
+ * <p>
+ * This class is thread safe, the steps may be recorded concurrently using different persistences.
+ */
+public class AnalysisProgress {
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisProgress.class.getName());
+
+    /**
+     * Stage of the {@link Query} completed by the analysis.
+     */
+    public static final String QUERY_STAGE = "query";
+    /**
+     * Stage of the smell types completed by the SmellQuery.
+     */
+    public static final String SMELL_TYPE_STAGE = "smell_type";
+    /**
+     * Prefix of the stages listing the branches finalized for a smell type.
+     */
+    public static final String BRANCH_STAGE_PREFIX = "branch:";
+
+    private final int projectId;
+    private final ProgressQueries progressQueries;
+    private final Map<String, Map<String, Integer>> steps;
+
+    public AnalysisProgress(int projectId, ProgressQueries progressQueries) {
+        this.projectId = projectId;
+        this.progressQueries = progressQueries;
+        this.steps = new HashMap<>();
+    }
+
+    /**
+     * Load the steps recorded by the previous analyses of the project.
+     *
+     * @param persistence The persistence to read.
+     */
+    public synchronized void load(Persistence persistence) {
+        steps.clear();
+        int count = persistence.streamQuery(progressQueries.progressQuery(projectId), row ->
+                steps.computeIfAbsent((String) row.get("stage"), k -> new HashMap<>())
+                        .put((String) row.get("step"), (Integer) row.get("value")));
+        if (count < 0) {
+            logger.warn("[" + projectId + "] Unable to load the analysis progress, analyzing from scratch");
+            steps.clear();
+        } else if (count > 0) {
+            logger.info("[" + projectId + "] Resuming analysis, " + count + " steps already completed");
+        }
+    }
+
+    /**
+     * @param stage The stage of the step.
+     * @param step  The step name.
+     * @return True if the step was recorded as completed, false otherwise.
+     */
+    public synchronized boolean isDone(String stage, String step) {
+        return steps.containsKey(stage) && steps.get(stage).containsKey(step);
+    }
+
+    /**
+     * @param stage The stage to look for.
+     * @return The completed steps of this stage.
+     */
+    public synchronized Set<String> doneSteps(String stage) {
+        if (!steps.containsKey(stage)) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(steps.get(stage).keySet());
+    }
+
+    /**
+     * @param stage The stage of the step.
+     * @param step  The step name.
+     * @return The value recorded with the step, null if none or if the step is not completed.
+     */
+    public synchronized Integer value(String stage, String step) {
+        return steps.containsKey(stage) ? steps.get(stage).get(step) : null;
+    }
+
+    /**
+     * Record a completed step.
+     * The step is only written once the statements previously added to the persistence succeeded.
+     *
+     * @param persistence The persistence holding the step writes.
+     * @param stage       The stage of the step.
+     * @param step        The step name.
+     * @param value       An optional value bound to the step, may be null.
+     * @throws fr.inria.sniffer.tracker.analysis.persistence.PersistenceException If the step writes failed,
+     *                                                                            the step is then not recorded.
+     */
+    public void record(Persistence persistence, String stage, String step, Integer value) {
+        persistence.commit();
+        persistence.flush();
+        persistence.addParameterizedStatements(
+                progressQueries.parameterizedProgressInsertion(projectId, stage, step, value));
+        persistence.commit();
+        persistence.flush();
+        synchronized (this) {
+            steps.computeIfAbsent(stage, k -> new HashMap<>()).put(step, value);
+        }
+    }
+
+    /**
+     * Record a completed step without value.
+     *
+     * @param persistence The persistence holding the step writes.
+     * @param stage       The stage of the step.
+     * @param step        The step name.
+     */
+    public void record(Persistence persistence, String stage, String step) {
+        record(persistence, stage, step, null);
+    }
+
+    /**
+     * Remove the recorded steps, once the analysis is complete.
+     *
+     * @param persistence The persistence to write into.
+     */
+    public void clear(Persistence persistence) {
+        persistence.addStatements(progressQueries.progressDeletionStatement(projectId));
+        persistence.commit();
+        synchronized (this) {
+            steps.clear();
+        }
+    }
+}
@@ -2,63 +2,182 @@ package fr.inria.sniffer.tracker.analysis.query.branch;
 
 import fr.inria.sniffer.tracker.analysis.model.Branch;
 import fr.inria.sniffer.tracker.analysis.model.Commit;
+import fr.inria.sniffer.tracker.analysis.model.CommitGraph;
 import fr.inria.sniffer.tracker.analysis.model.Repository;
 import fr.inria.sniffer.tracker.analysis.query.PersistenceAnalyzer;
 import fr.inria.sniffer.tracker.analysis.query.Query;
 import fr.inria.sniffer.tracker.analysis.query.QueryException;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
 import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.BranchQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.CommitQueries;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Build a branch tree in the Persistence for the given project.
  */
 public class BranchQuery extends PersistenceAnalyzer implements Query {
+    private static final int PRINCIPAL_BRANCH = 0;
+
     private final Repository repository;
     private final BranchQueries branchQueries;
+    private final boolean incremental;
 
     private int branchCounter;
+    private CommitGraph graph;
+    // Commits already part of a branch, by graph index.
+    private BitSet analyzed;
 
     public BranchQuery(int projectId, Repository repository,
                        Persistence persistence, CommitQueries commitQueries, BranchQueries branchQueries) {
+        this(projectId, repository, persistence, commitQueries, branchQueries, false);
+    }
+
+    /**
+     * @param incremental Keep the branches already persisted for this project,
+     *                    only extending the principal branch and adding the new branches.
+     */
+    public BranchQuery(int projectId, Repository repository,
+                       Persistence persistence, CommitQueries commitQueries, BranchQueries branchQueries,
+                       boolean incremental) {
         super(LoggerFactory.getLogger(BranchQuery.class.getName()), projectId, persistence, commitQueries);
         this.repository = repository;
         this.branchQueries = branchQueries;
+        this.incremental = incremental;
         branchCounter = 0;
     }
 
     @Override
     public void query() throws QueryException {
         logger.info("[" + projectId + "] Starting Branches insertion");
-        Commit commit = retrieveHeadCommit();
+        int commit = retrieveHeadCommit();
 
-        List<Branch> branches = buildBranchTree(null, commit);
-        for (Branch branch : branches) {
-            persistBranch(branch);
+        Integer lastBranchOrdinal = incremental ? retrieveLastBranchOrdinal() : null;
+        if (lastBranchOrdinal != null) {
+            extendBranchTree(commit, lastBranchOrdinal);
+        } else {
+            List<Branch> branches = buildBranchTree(buildBranch(null, commit));
+            for (Branch branch : branches) {
+                persistBranch(branch);
+            }
         }
         persistence.commit();
     }
 
     /**
-     * Retrieve the last commit analyzed by Paprika.
+     * Retrieve the highest ordinal of the branches already persisted for the project.
+     *
+     * @return The branch ordinal, null if the project has no branch.
+     */
+    private Integer retrieveLastBranchOrdinal() {
+        List<Map<String, Object>> result = persistence.query(branchQueries.lastBranchOrdinalQuery(projectId));
+        return result.isEmpty() ? null : (Integer) result.get(0).get("ordinal");
+    }
+
+    /**
+     * Add the commits of the persisted branches to the tree, then build the branches of the new commits.
+     * <p>
+     * The new commits following the persisted principal branch are appended to it,
+     * the other ones are set in new branches, given ordinals after the persisted ones.
+     *
+     * @param head              The project HEAD commit.
+     * @param lastBranchOrdinal The highest ordinal of the persisted branches.
+     * @throws QueryException If HEAD does not descend from the persisted principal branch.
+     */
+    private void extendBranchTree(int head, int lastBranchOrdinal) throws QueryException {
+        loadPersistedBranches();
+        if (analyzed.get(head)) {
+            logger.info("[" + projectId + "] => HEAD already in a branch, nothing to add");
+            return;
+        }
+
+        List<Map<String, Object>> result = persistence.query(branchQueries.lastCommitShaQuery(projectId,
+                retrieveBranchId(PRINCIPAL_BRANCH)));
+        String principalLastCommit = result.isEmpty() ? null : (String) result.get(0).get("sha1");
+        Branch extension = buildBranch(PRINCIPAL_BRANCH, null, head);
+        Commit parentCommit = extension.getParentCommit();
+        if (parentCommit == null || !parentCommit.sha.equals(principalLastCommit)) {
+            throw new QueryException(logger.getName(), "HEAD does not descend from the principal branch last commit ("
+                    + principalLastCommit + "), a complete analysis is required");
+        }
+        int firstOrdinal = retrieveBranchOrdinal(PRINCIPAL_BRANCH, parentCommit) + 1;
+        logger.info("[" + projectId + "] => Extending principal branch from: " + parentCommit.sha);
+
+        branchCounter = lastBranchOrdinal + 1;
+        for (Branch branch : buildBranchTree(extension)) {
+            if (branch == extension) {
+                persistBranchCommits(branch, firstOrdinal);
+            } else {
+                persistBranch(branch);
+            }
+        }
+    }
+
+    /**
+     * Flag all the commits of the persisted branches as analyzed.
+     *
+     * @throws QueryException If the branch commits could not be loaded.
+     */
+    private void loadPersistedBranches() throws QueryException {
+        int count = persistence.streamQuery(branchQueries.branchCommitsQuery(projectId), row -> {
+            // The persisted commits no longer reachable from HEAD are not part of the tree.
+            int index = graph.indexOf((String) row.get("sha1"));
+            if (index >= 0) {
+                analyzed.set(index);
+            }
+        });
+        if (count < 0) {
+            throw new QueryException(logger.getName(), "Unable to load the persisted branch commits");
+        }
+        logger.info("[" + projectId + "] => Loaded " + count + " persisted branch commits");
+    }
+
+    private int retrieveBranchId(int branchOrdinal) throws QueryException {
+        List<Map<String, Object>> result = persistence.query(
+                branchQueries.idFromOrdinalQueryStatement(projectId, branchOrdinal));
+        if (result.isEmpty()) {
+            throw new QueryException(logger.getName(), "No branch found with ordinal: " + branchOrdinal);
+        }
+        return (int) result.get(0).get("id");
+    }
+
+    private int retrieveBranchOrdinal(int branchOrdinal, Commit commit) throws QueryException {
+        List<Map<String, Object>> result = persistence.query(
+                branchQueries.commitOrdinalQuery(projectId, retrieveBranchId(branchOrdinal), commit));
+        if (result.isEmpty()) {
+            throw new QueryException(logger.getName(), "Commit " + commit.sha + " not found in branch: " + branchOrdinal);
+        }
+        return (int) result.get(0).get("ordinal");
+    }
+
+    /**
+     * Load the repository {@link CommitGraph} and retrieve its HEAD.
      *
-     * @return The first commit to analyze on branch query.
+     * @return The index of the first commit to analyze on branch query.
      * @throws QueryException If the commit could not be found.
      */
-    private Commit retrieveHeadCommit() throws QueryException {
-        Commit commit;
+    private int retrieveHeadCommit() throws QueryException {
+        int commit;
         try {
-            commit = repository.getCommitWithParents(repository.getHead().sha);
-            logger.info("[" + projectId + "] => Found HEAD commit: " + commit.sha);
+            graph = repository.getCommitGraph();
+            commit = graph.indexOf(repository.getHead().sha);
         } catch (IOException | IndexOutOfBoundsException e) {
             throw new QueryException(logger.getName(), e);
         }
+        if (commit < 0) {
+            throw new QueryException(logger.getName(), "HEAD commit not found in the repository commit graph");
+        }
+        analyzed = new BitSet(graph.size());
+        logger.info("[" + projectId + "] => Found HEAD commit: " + graph.sha(commit));
         return commit;
     }
 
@@ -68,16 +187,26 @@ public class BranchQuery extends PersistenceAnalyzer implements Query {
      * @param branch The branch to persist.
      */
     private void persistBranch(Branch branch) {
-        String statement = branchQueries.branchInsertionStatement(projectId, branch.getOrdinal(),
+        ParameterizedStatement statement = branchQueries.parameterizedBranchInsertion(projectId, branch.getOrdinal(),
                 branch.getParentCommit(), branch.getMergedInto());
-        persistence.addStatements(statement);
+        persistence.addParameterizedStatements(statement);
+        persistBranchCommits(branch, 0);
+    }
 
+    /**
+     * Persist the commits of the given branch, from the oldest one.
+     *
+     * @param branch       The branch to persist the commits of.
+     * @param firstOrdinal Ordinal of the oldest commit in the branch.
+     */
+    private void persistBranchCommits(Branch branch, int firstOrdinal) {
         List<Commit> commits = branch.getCommits();
         Collections.reverse(commits);
         reverse_ordinal(commits);
         for (Commit commit : commits) {
-            statement = branchQueries.branchCommitInsertionQuery(projectId, branch.getOrdinal(), commit.sha, commit.getBranchOrdinal());
-            persistence.addStatements(statement);
+            ParameterizedStatement statement = branchQueries.parameterizedBranchCommitInsertion(projectId,
+                    branch.getOrdinal(), commit.sha, firstOrdinal + commit.getBranchOrdinal());
+            persistence.addParameterizedStatements(statement);
 
         }
     }
@@ -95,144 +224,124 @@ public class BranchQuery extends PersistenceAnalyzer implements Query {
 
     /**
      * Create the Tree of branches from the principal one.
-     * This will parse all merge commits and follow their child branches recursively.
+     * This will parse all merge commits and follow their child branches, depth first.
+     * <p>
+     * The branches are returned after all the branches merged into them,
+     * their ordinals being given in creation order.
      *
-     * @param mother The branch on which this branch is built.
-     * @param start  The branch first commit.
+     * @param principal The principal branch.
      * @return The list of {@link Branch} in this project.
      */
-    private List<Branch> buildBranchTree(Branch mother, Commit start) {
-        // In the case that a merge commit will send us to already analyzed commits.
-        // It can happen in the case of BranchQueryTest#testContinuingBranches
-        if (isInBranch(mother, start)) {
-            logger.debug("We already analyzed this commit, returning.");
-            return Collections.emptyList();
-        }
+    private List<Branch> buildBranchTree(Branch principal) {
+        List<Branch> branches = new ArrayList<>();
+        Deque<BranchMerges> stack = new ArrayDeque<>();
+        stack.push(new BranchMerges(principal));
 
-        Branch current = buildBranch(mother, start);
+        while (!stack.isEmpty()) {
+            BranchMerges current = stack.peek();
+            if (!current.hasNext()) {
+                stack.pop();
+                branches.add(current.branch);
+                continue;
+            }
 
-        List<Branch> newBranches;
-        List<Branch> branches = new ArrayList<>();
-        Branch traversedCommits = Branch.newMother(mother, current);
-
-        // We build a branch tree for all merge commits of the current branch.
-        for (Commit merge : current.getMerges()) {
-            Commit parentCommit = retrieveParentCommit(merge, 1);
-            if (parentCommit != null) {
-                logger.debug("[" + projectId + "] => Handling merge commit: " + merge.sha);
-                // We set the merge commit to the branch to be able to retrieve it in the child branch.
-                traversedCommits.setMergedInto(merge);
-                newBranches = buildBranchTree(traversedCommits, parentCommit);
-
-                for (Branch traversedBranch : newBranches) {
-                    traversedCommits.addCommits(traversedBranch.getCommits());
-                }
-                branches.addAll(newBranches);
+            Commit merge = current.next();
+            int parentCommit = graph.parent(graph.indexOf(merge.sha), 1);
+            // The merged commit may have already been analyzed, e.g. in BranchQueryTest#testContinuingBranches
+            if (analyzed.get(parentCommit)) {
+                logger.debug("We already analyzed this commit, skipping.");
+                continue;
             }
+            logger.debug("[" + projectId + "] => Handling merge commit: " + merge.sha);
+            stack.push(new BranchMerges(buildBranch(merge, parentCommit)));
         }
-
-        branches.add(current);
         return branches;
     }
 
     /**
      * Build a branch with ordered commits.
      *
-     * @param mother The branch from which the current one is forked.
-     * @param start  The starting commit of our current branch.
+     * @param mergedInto The merge commit of the new branch into its mother, null for the principal branch.
+     * @param start      Index of the starting commit of our current branch.
      * @return The newly built branch.
      */
-    private Branch buildBranch(Branch mother, Commit start) {
-        Branch current = Branch.fromMother(mother, branchCounter++);
+    private Branch buildBranch(Commit mergedInto, int start) {
+        return buildBranch(branchCounter++, mergedInto, start);
+    }
 
-        Commit commit = start;
-        int commitOrdinal = 0;
-        while (nextStillInBranch(commit, mother)) {
-            logger.trace("[" + projectId + "] => Handling commit: " + commit.sha);
-            logger.trace("[" + projectId + "] ==> commit parents (" + commit.getParentCount() + "): " + commit.parents);
+    /**
+     * Build a branch with ordered commits.
+     *
+     * @param ordinal    The branch ordinal.
+     * @param mergedInto The merge commit of the new branch into its mother, null for the principal branch.
+     * @param start      Index of the starting commit of our current branch.
+     * @return The newly built branch.
+     */
+    private Branch buildBranch(int ordinal, Commit mergedInto, int start) {
+        Branch current = new Branch(ordinal, mergedInto);
 
-            current.addCommit(commit, commitOrdinal);
-            if (commit.getParentCount() >= 2) {
-                current.addMerge(commit);
-            }
+        int commit = start;
+        int commitOrdinal = 0;
+        while (nextStillInBranch(commit)) {
+            logger.trace("[" + projectId + "] => Handling commit: " + graph.sha(commit));
+            addCommit(current, commit, commitOrdinal);
 
             // Retrieve the parent commit, and do the same.
-            commit = retrieveParentCommit(commit, 0);
+            commit = graph.parent(commit, 0);
             // But we increase the ordinal whichever the commit to notify the commit gap
             // in case that Paprika does not know the commit.
             commitOrdinal++;
         }
 
         // Last execution setting parent commit
-        if (commit != null) {
-            if (commit.getParentCount() >= 2) {
-                current.addMerge(commit);
-            }
-            current.addCommit(commit, commitOrdinal);
-            // If the current commit has a parent, we set this parent
-            // as the whole branch parent commit.
-            if (commit.getParentCount() >= 1) {
-                current.setParentCommit(retrieveParentCommit(commit, 0));
-            }
+        addCommit(current, commit, commitOrdinal);
+        // If the current commit has a parent, we set this parent
+        // as the whole branch parent commit.
+        if (graph.parentCount(commit) >= 1) {
+            current.setParentCommit(graph.commitWithParents(graph.parent(commit, 0)));
         }
         return current;
     }
 
-    /**
-     * Retrieve the nth parent of the given commit.
-     * If it could not retrieve the parent for any reason, we log as error the reason and return null.
-     *
-     * @param commit   The commit to retrieve parent from.
-     * @param position The nth parent to fetch.
-     * @return The {@link Commit} if found, null otherwise.
-     */
-    private Commit retrieveParentCommit(Commit commit, int position) {
-        try {
-            return repository.getCommitWithParents(commit.getParent(position).sha);
-        } catch (IOException e) {
-            logger.error("[" + projectId + "] ==> Unable to fetch parent n°" + position + " (" + commit.getParent(1).sha +
-                    ") for commit: " + commit.sha, e);
-            return null;
+    private void addCommit(Branch branch, int commit, int ordinal) {
+        Commit added = graph.commitWithParents(commit);
+        logger.trace("[" + projectId + "] ==> commit parents (" + added.getParentCount() + "): " + added.parents);
+        branch.addCommit(added, ordinal);
+        if (added.getParentCount() >= 2) {
+            branch.addMerge(added);
         }
+        analyzed.set(commit);
     }
 
     /**
      * Determine if the next commit (the given commit's parent)
      * is still in the analyzed branch.
      *
-     * @param commit The commit to check.
-     * @param mother The mother of the analyzed branch.
-     * @return False if the commit parent is null or in the mother branch,
-     * True otherwise.
+     * @param commit Index of the commit to check.
+     * @return False if the commit has no parent, i.e. is the original commit of the principal branch,
+     * or if its parent is already in a branch, True otherwise.
      */
-    private boolean nextStillInBranch(Commit commit, Branch mother) {
-        return !(isProjectFirstCommit(commit)
-                || isInBranch(mother, commit.getParent(0)));
+    private boolean nextStillInBranch(int commit) {
+        return graph.parentCount(commit) > 0 && !analyzed.get(graph.parent(commit, 0));
     }
 
     /**
-     * Determine if the given commit is the origin of the currently parsed branch.
-     *
-     * @param commit The current commit to assert. If the commit is null or has no parent,
-     *               we consider that we reached the end of the commit tree,
-     *               i.e. the original commit of the principal branch.
-     * @return True if the commit is null or has no parent, false otherwise.
+     * A built branch, along with the merge commits whose child branches are still to build.
      */
-    private boolean isProjectFirstCommit(Commit commit) {
-        return commit == null || commit.getParentCount() == 0;
-    }
+    private static final class BranchMerges {
+        final Branch branch;
+        private int nextMerge = 0;
 
-    /**
-     * Determine if the given commit is contained in the given branch.
-     *
-     * @param branch The mother branch in which we could find the original commit.
-     *               If we are handling the principal branch, this can be null,
-     *               thus the commit will never be part of the mother branch.
-     * @param commit The commit to check.
-     * @return True if the commit is part of the mother branch, false otherwise.
-     */
-    private boolean isInBranch(Branch branch, Commit commit) {
-        return branch != null && branch.contains(commit);
-    }
+        BranchMerges(Branch branch) {
+            this.branch = branch;
+        }
 
-}
\ No newline at end of file
+        boolean hasNext() {
+            return nextMerge < branch.getMerges().size();
+        }
+
+        Commit next() {
+            return branch.getMerges().get(nextMerge++);
+        }
+    }
+}
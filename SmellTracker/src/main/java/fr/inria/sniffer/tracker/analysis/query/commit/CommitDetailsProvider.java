@@ -0,0 +1,45 @@
+package fr.inria.sniffer.tracker.analysis.query.commit;
+
+import fr.inria.sniffer.tracker.analysis.model.Repository;
+
+/**
+ * Available implementations of the {@link CommitDetailsChecker}.
+ */
+public enum CommitDetailsProvider {
+    /**
+     * Parse the output of the local Git program, started for each commit.
+     */
+    GIT {
+        @Override
+        CommitDetailsChecker create(Repository repository) {
+            return new GitCommitDetailsChecker(repository.getRepoDir().toString());
+        }
+    },
+    /**
+     * Parse the output of long-lived local Git processes, one per analyzing thread.
+     */
+    GIT_BATCH {
+        @Override
+        CommitDetailsChecker create(Repository repository) {
+            return new GitBatchCommitDetailsChecker(repository.getRepoDir().toString(),
+                    Runtime.getRuntime().availableProcessors());
+        }
+    },
+    /**
+     * Compute the details in process using JGit.
+     */
+    JGIT {
+        @Override
+        CommitDetailsChecker create(Repository repository) {
+            return new JGitCommitDetailsChecker(repository.getGitRepository().getRepository());
+        }
+    };
+
+    /**
+     * Create the {@link CommitDetailsChecker} for an initialized repository.
+     *
+     * @param repository The repository to analyze.
+     * @return A new {@link CommitDetailsChecker}.
+     */
+    abstract CommitDetailsChecker create(Repository repository);
+}
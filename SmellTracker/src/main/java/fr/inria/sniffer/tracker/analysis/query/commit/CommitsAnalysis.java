@@ -2,9 +2,11 @@ package fr.inria.sniffer.tracker.analysis.query.commit;
 
 import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.CommitDetails;
+import fr.inria.sniffer.tracker.analysis.model.GitChangedFile;
 import fr.inria.sniffer.tracker.analysis.model.GitDiff;
 import fr.inria.sniffer.tracker.analysis.model.GitRename;
 import fr.inria.sniffer.tracker.analysis.model.Repository;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
 import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.DeveloperQueries;
 import fr.inria.sniffer.tracker.analysis.query.Query;
@@ -14,19 +16,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * Actual analysis and persisting of commits and authors for a project.
+ * Actual analysis and persisting of commits and authors for a project,
+ * along with their renamed and changed files.
  */
 class CommitsAnalysis implements Query {
     private static final Logger logger = LoggerFactory.getLogger(CommitsAnalysis.class.getName());
     public static final int BATCH_SIZE = 1000;
+    private static final int WINDOW_PER_THREAD = 16;
 
     private final int projectId;
     private final Repository repository;
@@ -37,19 +47,29 @@ class CommitsAnalysis implements Query {
     private final DeveloperQueries developerQueries;
     private final CommitQueries commitQueries;
     private final boolean paprikaOnly;
+    private final int parallelism;
+    private final boolean incremental;
 
     CommitsAnalysis(int projectId, Persistence persistence, Repository repository,
                     Iterator<Map<String, Object>> commits,
                     CommitDetailsChecker detailsChecker,
                     DeveloperQueries developerQueries, CommitQueries commitQueries) {
-        this(projectId, persistence, repository, commits, detailsChecker, developerQueries, commitQueries, false);
+        this(projectId, persistence, repository, commits, detailsChecker, developerQueries, commitQueries,
+                false, 1, false);
     }
 
+    /**
+     * @param paprikaOnly Only persist the commits analyzed by Paprika.
+     * @param parallelism Number of threads retrieving the commits details,
+     *                    the commits are still persisted in order by the calling thread.
+     * @param incremental Skip the commits whose identifier is loaded in the {@link CommitQueries},
+     *                    i.e. already persisted by a previous analysis.
+     */
     CommitsAnalysis(int projectId, Persistence persistence, Repository repository,
                     Iterator<Map<String, Object>> commits,
                     CommitDetailsChecker detailsChecker,
                     DeveloperQueries developerQueries, CommitQueries commitQueries,
-                    boolean paprikaOnly) {
+                    boolean paprikaOnly, int parallelism, boolean incremental) {
         this.projectId = projectId;
         this.persistence = persistence;
         this.repository = repository;
@@ -58,6 +78,8 @@ class CommitsAnalysis implements Query {
         this.developerQueries = developerQueries;
         this.commitQueries = commitQueries;
         this.paprikaOnly = paprikaOnly;
+        this.parallelism = parallelism;
+        this.incremental = incremental;
     }
 
     private static Map<String, Commit> mapPaprikaCommits(Iterator<Map<String, Object>> commits) {
@@ -72,33 +94,64 @@ class CommitsAnalysis implements Query {
 
     @Override
     public void query() throws QueryException {
-        List<String> commitStatements = new ArrayList<>();
-        List<String> authorStatements = new ArrayList<>();
-        List<String> renameStatements = new ArrayList<>();
-
-        int commitCount = 0;
-        CommitDetails details;
-        Commit currentCommit;
-        for (String commit : choseCommitsSource()) {
-            currentCommit = fillCommit(commit);
-
-            logger.debug("[" + projectId + "] => Analyzing commit: " + currentCommit.sha);
-            details = detailsChecker.fetch(currentCommit.sha);
-
-            authorStatements.addAll(authorStatements(currentCommit.authorEmail));
-            // GitCommit will not contain the right ordinal.
-            commitStatements.add(commitStatement(currentCommit, details));
-            renameStatements.addAll(fileRenameStatements(currentCommit, details));
+        List<String> commits = choseCommitsSource();
+        if (incremental) {
+            commits = removePersistedCommits(commits);
+        }
+        if (parallelism <= 1) {
+            CommitBatch batch = new CommitBatch();
+            for (String commit : commits) {
+                Commit currentCommit = fillCommit(commit);
+                logger.debug("[" + projectId + "] => Analyzing commit: " + currentCommit.sha);
+                batch.add(currentCommit, detailsChecker.fetch(currentCommit.sha));
+            }
+            batch.persist();
+        } else {
+            analyzeConcurrently(commits);
+        }
+    }
 
-            if (++commitCount % BATCH_SIZE == 0) {
-                logger.info("[" + projectId + "] Persist commit batch of size: " + BATCH_SIZE);
-                persistBatch(commitStatements, authorStatements, renameStatements);
-                authorStatements.clear();
-                commitStatements.clear();
-                renameStatements.clear();
+    /**
+     * Retrieve the commits details on a pool of threads, while the calling thread
+     * sequences the results back in the log order before persisting them.
+     *
+     * @param commits The commits to analyze, in persistence order.
+     * @throws QueryException If a commit could not be retrieved.
+     */
+    private void analyzeConcurrently(List<String> commits) throws QueryException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        // Bounding the number of commits waiting in memory for the sequencer.
+        int window = parallelism * WINDOW_PER_THREAD;
+        Deque<Future<AnalyzedCommit>> pending = new ArrayDeque<>(window);
+        Iterator<String> remaining = commits.iterator();
+        CommitBatch batch = new CommitBatch();
+        try {
+            while (remaining.hasNext() || !pending.isEmpty()) {
+                while (remaining.hasNext() && pending.size() < window) {
+                    String sha1 = remaining.next();
+                    pending.add(executor.submit(() -> analyzeCommit(sha1)));
+                }
+                AnalyzedCommit analyzed = pending.poll().get();
+                batch.add(analyzed.commit, analyzed.details);
+            }
+            batch.persist();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryException(logger.getName(), "Interrupted while analyzing commits");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof QueryException) {
+                throw (QueryException) e.getCause();
             }
+            throw new QueryException(logger.getName(), e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
-        persistBatch(commitStatements, authorStatements, renameStatements);
+    }
+
+    private AnalyzedCommit analyzeCommit(String sha1) throws QueryException {
+        Commit commit = fillCommit(sha1);
+        logger.debug("[" + projectId + "] => Analyzing commit: " + commit.sha);
+        return new AnalyzedCommit(commit, detailsChecker.fetch(commit.sha));
     }
 
     /**
@@ -122,6 +175,23 @@ class CommitsAnalysis implements Query {
         }
     }
 
+    /**
+     * Remove the commits already persisted from the commits to analyze.
+     *
+     * @param commits The commits to analyze.
+     * @return The commits that are not yet persisted, in the same order.
+     */
+    private List<String> removePersistedCommits(List<String> commits) {
+        List<String> newCommits = new ArrayList<>();
+        for (String commit : commits) {
+            if (commitQueries.cachedCommitId(projectId, commit) == null) {
+                newCommits.add(commit);
+            }
+        }
+        logger.info("[" + projectId + "] => Analyzing " + newCommits.size() + " new commits out of " + commits.size());
+        return newCommits;
+    }
+
     /**
      * Retrieve the git repository's log.
      *
@@ -172,24 +242,6 @@ class CommitsAnalysis implements Query {
         return result;
     }
 
-    /**
-     * Create Developer and project_developer insertion statements.
-     *
-     * @param emailAddress The developer mail.
-     * @return The generated statements.
-     */
-    private List<String> authorStatements(String emailAddress) {
-        List<String> statements = new ArrayList<>();
-
-        // Try to insert the developer if not exist
-        statements.add(developerQueries.developerInsertStatement(emailAddress));
-
-        // Try to insert the developer/project mapping if not exist
-        statements.add(developerQueries.projectDeveloperInsertStatement(projectId, emailAddress));
-
-        return statements;
-    }
-
     /**
      * Creates the {@link Commit} insertion statement.
      *
@@ -197,8 +249,8 @@ class CommitsAnalysis implements Query {
      * @param details Commit details containing file_rename and {@link GitDiff} info.
      * @return The generated persistence statement.
      */
-    private String commitStatement(Commit commit, CommitDetails details) {
-        return commitQueries.commitInsertionStatement(projectId, commit, details.diff);
+    private ParameterizedStatement commitStatement(Commit commit, CommitDetails details) {
+        return commitQueries.parameterizedCommitInsertion(projectId, commit, details.diff);
     }
 
     /**
@@ -208,8 +260,8 @@ class CommitsAnalysis implements Query {
      * @param details The commit details containing FileRename.
      * @return The generated statements.
      */
-    private List<String> fileRenameStatements(Commit commit, CommitDetails details) {
-        List<String> result = new ArrayList<>();
+    private List<ParameterizedStatement> fileRenameStatements(Commit commit, CommitDetails details) {
+        List<ParameterizedStatement> result = new ArrayList<>();
 
         for (GitRename rename : details.renames) {
             if (!(rename.oldFile.endsWith(".java") && rename.newFile.endsWith(".java"))) {
@@ -220,24 +272,84 @@ class CommitsAnalysis implements Query {
             logger.trace("[" + projectId + "]    => new file: " + rename.newFile);
             logger.trace("[" + projectId + "]    => Similarity: " + rename.similarity);
 
-            result.add(commitQueries.fileRenameInsertionStatement(projectId, commit.sha, rename));
+            result.add(commitQueries.parameterizedFileRenameInsertion(projectId, commit.sha, rename));
         }
         return result;
     }
 
     /**
-     * Persist the current commit state.
-     * We add everything in a bulk insert since we must have a coherent state.
-     * Warning, we have to insert authors, then commits, then renaming!
+     * Creates the file_changed insertion statements,
+     * followed by the statement recording that the commit changed files were computed.
      *
-     * @param commitStatements CommitEntry to persists.
-     * @param authorStatements Developer to persist.
-     * @param renameStatements FileRename to persist.
+     * @param commit  The commit to generate changed files onto.
+     * @param details The commit details containing the {@link GitChangedFile}.
+     * @return The generated statements.
+     */
+    private List<ParameterizedStatement> fileChangedStatements(Commit commit, CommitDetails details) {
+        List<ParameterizedStatement> result = new ArrayList<>(details.changedFiles.size() + 1);
+        for (GitChangedFile changedFile : details.changedFiles) {
+            result.add(commitQueries.parameterizedFileChangedInsertion(projectId, commit.sha, changedFile));
+        }
+        // The commits without any changed file are not computed again by FilesChangeDetectionQuery.
+        result.add(commitQueries.parameterizedChangedFilesComputed(projectId, commit.sha));
+        return result;
+    }
+
+    private static final class AnalyzedCommit {
+        final Commit commit;
+        final CommitDetails details;
+
+        AnalyzedCommit(Commit commit, CommitDetails details) {
+            this.commit = commit;
+            this.details = details;
+        }
+    }
+
+    /**
+     * Statements of the analyzed commits, persisted every {@link CommitsAnalysis#BATCH_SIZE} commits.
      */
-    private void persistBatch(List<String> commitStatements, List<String> authorStatements, List<String> renameStatements) {
-        persistence.addStatements(authorStatements.toArray(new String[0]));
-        persistence.addStatements(commitStatements.toArray(new String[0]));
-        persistence.addStatements(renameStatements.toArray(new String[0]));
-        persistence.commit();
+    private final class CommitBatch {
+        private final List<ParameterizedStatement> commitStatements = new ArrayList<>();
+        private final List<ParameterizedStatement> developerStatements = new ArrayList<>();
+        private final List<ParameterizedStatement> projectDeveloperStatements = new ArrayList<>();
+        private final List<ParameterizedStatement> renameStatements = new ArrayList<>();
+        private final List<ParameterizedStatement> changedFileStatements = new ArrayList<>();
+        private int commitCount = 0;
+
+        void add(Commit commit, CommitDetails details) {
+            // Try to insert the developer and the developer/project mapping if not exist
+            developerStatements.add(developerQueries.parameterizedDeveloperInsertion(commit.authorEmail));
+            projectDeveloperStatements.add(
+                    developerQueries.parameterizedProjectDeveloperInsertion(projectId, commit.authorEmail));
+            // GitCommit will not contain the right ordinal.
+            commitStatements.add(commitStatement(commit, details));
+            renameStatements.addAll(fileRenameStatements(commit, details));
+            changedFileStatements.addAll(fileChangedStatements(commit, details));
+
+            if (++commitCount % BATCH_SIZE == 0) {
+                logger.info("[" + projectId + "] Persist commit batch of size: " + BATCH_SIZE);
+                persist();
+            }
+        }
+
+        /**
+         * Persist the current commit state.
+         * We add everything in a bulk insert since we must have a coherent state.
+         * Warning, we have to insert authors, then commits, then renaming and changed files!
+         * Each kind of statement is added in a row so that they are sent together to the persistence.
+         */
+        void persist() {
+            persistence.addParameterizedStatements(developerStatements.toArray(new ParameterizedStatement[0]));
+            persistence.addParameterizedStatements(projectDeveloperStatements.toArray(new ParameterizedStatement[0]));
+            persistence.addParameterizedStatements(commitStatements.toArray(new ParameterizedStatement[0]));
+            persistence.addParameterizedStatements(renameStatements.toArray(new ParameterizedStatement[0]));
+            persistence.addParameterizedStatements(changedFileStatements.toArray(new ParameterizedStatement[0]));
+            persistence.commit();
+            developerStatements.clear();
+            projectDeveloperStatements.clear();
+            commitStatements.clear();
+            renameStatements.clear();
+            changedFileStatements.clear();
+        }
     }
 }
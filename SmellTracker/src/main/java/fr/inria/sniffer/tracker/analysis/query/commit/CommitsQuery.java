@@ -24,15 +24,47 @@ public class CommitsQuery implements Query {
     private final Persistence persistence;
     private final DeveloperQueries developerQueries;
     private final CommitQueries commitQueries;
+    private final CommitDetailsProvider detailsProvider;
+    private final int parallelism;
+    private final boolean incremental;
 
     public CommitsQuery(int projectId, String paprikaDB, Repository repository,
                         Persistence persistence, DeveloperQueries developerQueries, CommitQueries commitQueries) {
+        this(projectId, paprikaDB, repository, persistence, developerQueries, commitQueries, CommitDetailsProvider.GIT);
+    }
+
+    public CommitsQuery(int projectId, String paprikaDB, Repository repository,
+                        Persistence persistence, DeveloperQueries developerQueries, CommitQueries commitQueries,
+                        CommitDetailsProvider detailsProvider) {
+        this(projectId, paprikaDB, repository, persistence, developerQueries, commitQueries, detailsProvider, 1);
+    }
+
+    /**
+     * @param parallelism Number of threads retrieving the commits details.
+     */
+    public CommitsQuery(int projectId, String paprikaDB, Repository repository,
+                        Persistence persistence, DeveloperQueries developerQueries, CommitQueries commitQueries,
+                        CommitDetailsProvider detailsProvider, int parallelism) {
+        this(projectId, paprikaDB, repository, persistence, developerQueries, commitQueries,
+                detailsProvider, parallelism, false);
+    }
+
+    /**
+     * @param parallelism Number of threads retrieving the commits details.
+     * @param incremental Only analyze the commits not yet persisted for this project.
+     */
+    public CommitsQuery(int projectId, String paprikaDB, Repository repository,
+                        Persistence persistence, DeveloperQueries developerQueries, CommitQueries commitQueries,
+                        CommitDetailsProvider detailsProvider, int parallelism, boolean incremental) {
         this.projectId = projectId;
         this.paprikaDB = paprikaDB;
         this.repository = repository;
         this.persistence = persistence;
         this.developerQueries = developerQueries;
         this.commitQueries = commitQueries;
+        this.detailsProvider = detailsProvider;
+        this.parallelism = parallelism;
+        this.incremental = incremental;
     }
 
     @Override
@@ -45,11 +77,19 @@ public class CommitsQuery implements Query {
             throw new QueryException(logger.getName(), e);
         }
 
-        QueryEngine engine = new QueryEngine(paprikaDB);
-        CommitDetailsChecker detailsChecker = new CommitDetailsChecker(repository.getRepoDir().toString());
+        if (incremental) {
+            // The already persisted commits are recognized by their loaded identifier.
+            commitQueries.loadCommitIds(persistence, projectId);
+        }
 
+        QueryEngine engine = new QueryEngine(paprikaDB);
         Result commits = getCommits(engine);
-        new CommitsAnalysis(projectId, persistence, repository, commits, detailsChecker, developerQueries, commitQueries).query();
+        try (CommitDetailsChecker detailsChecker = detailsProvider.create(repository)) {
+            new CommitsAnalysis(projectId, persistence, repository, commits, detailsChecker,
+                    developerQueries, commitQueries, false, parallelism, incremental).query();
+        }
+        // The following queries can then reference the inserted commits by their identifier.
+        commitQueries.loadCommitIds(persistence, projectId);
 
         engine.shutDown();
         repository.finalizeRepository();
@@ -3,6 +3,7 @@ package fr.inria.sniffer.tracker.analysis.query.commit;
 import fr.inria.sniffer.tracker.analysis.model.CommitDetails;
 import fr.inria.sniffer.tracker.analysis.model.GitChangedFile;
 import fr.inria.sniffer.tracker.analysis.model.Repository;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
 import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.CommitQueries;
 import fr.inria.sniffer.tracker.analysis.query.Query;
@@ -10,10 +11,15 @@ import fr.inria.sniffer.tracker.analysis.query.QueryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Persist the changed files of the commits inserted without them.
+ * <p>
+ * The changed files are persisted along with the commits by {@link CommitsQuery},
+ * this query only fills the projects analyzed beforehand.
+ */
 public class FilesChangeDetectionQuery implements Query {
     private static final Logger logger = LoggerFactory.getLogger(FilesChangeDetectionQuery.class.getName());
 
@@ -21,50 +27,51 @@ public class FilesChangeDetectionQuery implements Query {
     private final Repository repository;
     private final Persistence persistence;
     private final CommitQueries commitQueries;
+    private final CommitDetailsProvider detailsProvider;
 
     public FilesChangeDetectionQuery(int appId, Repository repository, Persistence persistence, CommitQueries commitQueries) {
+        this(appId, repository, persistence, commitQueries, CommitDetailsProvider.GIT);
+    }
+
+    public FilesChangeDetectionQuery(int appId, Repository repository, Persistence persistence, CommitQueries commitQueries,
+                                     CommitDetailsProvider detailsProvider) {
         this.appId = appId;
         this.repository = repository;
         this.persistence = persistence;
         this.commitQueries = commitQueries;
+        this.detailsProvider = detailsProvider;
     }
 
     @Override
     public void query() throws QueryException {
-        List<String> log;
-        try {
-            log = repository.getLog();
-        } catch (IOException e) {
-            throw new QueryException(logger.getName(), e);
+        List<String> commits = new ArrayList<>();
+        int count = persistence.streamQuery(commitQueries.commitsWithoutChangedFileQuery(appId),
+                row -> commits.add((String) row.get("sha1")));
+        if (count < 0) {
+            throw new QueryException(logger.getName(), "Unable to retrieve the commits of project: " + appId);
         }
+        if (commits.isEmpty()) {
+            logger.info("[" + appId + "] Changed files already persisted for every commit");
+            return;
+        }
+        logger.info("[" + appId + "] Retrieving changed files of " + commits.size() + " commits");
 
-        CommitDetailsChecker detailsChecker = new CommitDetailsChecker(repository.getRepoDir().toString());
-
-        persistence.execute(createFilesTable());
-        for (String sha1 : log) {
-            CommitDetails details = detailsChecker.fetch(sha1);
-            List<Map<String, Object>> commitId;
-
-            for (GitChangedFile changedFile : details.changedFiles) {
-                commitId = persistence.query(commitQueries.idFromShaQuery(appId, sha1));
-                if (commitId.isEmpty()) {
-                    logger.warn("Unable to find commit id for project " + appId + " - sha: " + sha1);
-                } else {
-                    persistence.addStatements(commitQueries.fileChangedInsertionStatement(appId, sha1, changedFile));
+        List<ParameterizedStatement> statements = new ArrayList<>();
+        try (CommitDetailsChecker detailsChecker = detailsProvider.create(repository)) {
+            for (String sha1 : commits) {
+                CommitDetails details = detailsChecker.fetch(sha1);
+                for (GitChangedFile changedFile : details.changedFiles) {
+                    statements.add(commitQueries.parameterizedFileChangedInsertion(appId, sha1, changedFile));
+                }
+                // The commits without any changed file are not listed again by the next analyses.
+                statements.add(commitQueries.parameterizedChangedFilesComputed(appId, sha1));
+                if (statements.size() >= CommitsAnalysis.BATCH_SIZE) {
+                    persistence.addParameterizedStatements(statements.toArray(new ParameterizedStatement[0]));
+                    statements.clear();
                 }
             }
         }
+        persistence.addParameterizedStatements(statements.toArray(new ParameterizedStatement[0]));
         persistence.commit();
     }
-
-    private static String createFilesTable() {
-        return "CREATE TABLE IF NOT EXISTS file_changed" +
-                "(" +
-                "project_id INT NOT NULL, " +
-                "commit_id INT NOT NULL, " +
-                "file_name VARCHAR NOT NULL, " +
-                "modification_size INT," +
-                "UNIQUE (project_id, commit_id, file_name)" +
-                ")";
-    }
 }
@@ -0,0 +1,33 @@
+package fr.inria.sniffer.tracker.analysis.query.commit;
+
+import fr.inria.sniffer.tracker.analysis.model.CommitDetails;
+
+/**
+ * Retrieve all details of a commit using a pool of long-lived local Git processes,
+ * instead of starting a new process for each commit.
+ * <p>
+ * Version 2.31 of git is required, since we use the '--diff-merges' parameter.
+ * <p>
+ * This class is thread safe.
+ */
+class GitBatchCommitDetailsChecker implements CommitDetailsChecker {
+    private final GitProcessPool pool;
+
+    /**
+     * @param repository Path to the local repository.
+     * @param processes  Maximum number of git processes, started on demand.
+     */
+    GitBatchCommitDetailsChecker(String repository, int processes) {
+        this.pool = new GitProcessPool(repository, processes);
+    }
+
+    @Override
+    public CommitDetails fetch(String sha1) {
+        return GitCommitDetailsChecker.parse(pool.commitSummary(sha1));
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
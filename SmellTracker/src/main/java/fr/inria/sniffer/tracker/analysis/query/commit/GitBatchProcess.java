@@ -0,0 +1,104 @@
+package fr.inria.sniffer.tracker.analysis.query.commit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived local 'git diff-tree' process, reading the commits to summarize on its standard input.
+ * <p>
+ * The lines that are not commit identifiers are echoed back by git once the previous commits are written,
+ * thus each commit is followed by a {@link GitBatchProcess#FRAME_END} line delimiting its summary.
+ * <p>
+ * Version 2.31 of git is required, since we use the '--diff-merges' parameter.
+ * <p>
+ * This class is not thread safe, see {@link GitProcessPool}.
+ */
+class GitBatchProcess implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(GitBatchProcess.class.getName());
+    static final String FRAME_END = "#end-of-commit";
+
+    private final Process process;
+    private final BufferedWriter stdIn;
+    private final BufferedReader stdOut;
+
+    GitBatchProcess(String repository) throws IOException {
+        // stat=800 avoids losing file name when too long (default is 80)
+        process = new ProcessBuilder("git", "-C", repository, "diff-tree", "--stdin", "--root",
+                "--diff-merges=first-parent", "-M50%", "--stat=800", "--summary", "--format=%H").start();
+        stdIn = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        stdOut = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        drainErrors();
+    }
+
+    /**
+     * Log the git errors, also avoiding the process to block on a full error stream.
+     */
+    private void drainErrors() {
+        Thread drain = new Thread(() -> {
+            try (BufferedReader stdErr = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+                String line;
+                while ((line = stdErr.readLine()) != null) {
+                    logger.warn("[git] " + line);
+                }
+            } catch (IOException e) {
+                logger.debug("Git error stream closed", e);
+            }
+        }, "git-stderr");
+        drain.setDaemon(true);
+        drain.start();
+    }
+
+    /**
+     * Retrieve the summary of a commit, as the 'git show -M50% --stat=800 --summary' command would.
+     *
+     * @param commit The commit sha1.
+     * @return The summary lines, empty if the commit could not be found.
+     * @throws IOException If the process could not be reached or ended.
+     */
+    List<String> commitSummary(String commit) throws IOException {
+        stdIn.write(commit);
+        stdIn.newLine();
+        stdIn.write(FRAME_END);
+        stdIn.newLine();
+        stdIn.flush();
+
+        List<String> result = new ArrayList<>();
+        String line;
+        while ((line = stdOut.readLine()) != null) {
+            if (line.equals(FRAME_END)) {
+                return result;
+            }
+            // Skipping the commit identifier header and the empty separator lines.
+            if (line.startsWith(" ")) {
+                result.add(line);
+            }
+        }
+        throw new IOException("Git process ended while reading commit: " + commit);
+    }
+
+    @Override
+    public void close() {
+        try {
+            stdIn.close();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                logger.warn("Git process did not end in time, destroying it");
+            }
+        } catch (IOException e) {
+            logger.debug("Unable to close git process input", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            process.destroy();
+        }
+    }
+}
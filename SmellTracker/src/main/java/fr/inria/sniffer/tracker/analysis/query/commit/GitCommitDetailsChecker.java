@@ -0,0 +1,38 @@
+package fr.inria.sniffer.tracker.analysis.query.commit;
+
+import fr.inria.sniffer.tracker.analysis.model.CommitDetails;
+import fr.inria.sniffer.tracker.analysis.model.GitSummaryParser;
+
+import java.util.List;
+
+/**
+ * Retrieve all details of a commit using a runtime execution of the local Git program.
+ * <p>
+ * Version 2.13 is required, since we use the '-C' parameter.
+ * <p>
+ * This class will build a {@link CommitDetails} class, holding the fetched data.
+ */
+class GitCommitDetailsChecker implements CommitDetailsChecker {
+    // Parsers reuse their matchers, the details may be fetched concurrently.
+    private static final ThreadLocal<GitSummaryParser> PARSER = ThreadLocal.withInitial(GitSummaryParser::new);
+    private final String repository;
+
+    GitCommitDetailsChecker(String repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public CommitDetails fetch(String sha1) {
+        return parse(GitExecution.commitSummary(repository, sha1));
+    }
+
+    /**
+     * Parse the output of a 'git show -M50% --stat --summary' command.
+     *
+     * @param lines The command output.
+     * @return The parsed {@link CommitDetails}.
+     */
+    static CommitDetails parse(List<String> lines) {
+        return PARSER.get().parse(lines);
+    }
+}
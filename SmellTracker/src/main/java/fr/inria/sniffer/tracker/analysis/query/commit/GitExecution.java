@@ -24,14 +24,8 @@ class GitExecution {
             String command = gitCommand(repository, query);
             Process p = Runtime.getRuntime().exec(command);
             BufferedReader stdIn = new BufferedReader(new InputStreamReader(p.getInputStream()));
-            try {
-                p.waitFor(2, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                logger.error("Git execution took too much time, skipping", e);
-                return result;
-            }
+            // Reading the output as it comes, git would block on a full output buffer otherwise.
             String line;
-
             while ((line = stdIn.readLine()) != null) {
                 result.add(line);
             }
@@ -0,0 +1,113 @@
+package fr.inria.sniffer.tracker.analysis.query.commit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of {@link GitBatchProcess} on the same repository.
+ * <p>
+ * The processes are started on demand, up to the pool size, and reused by the following calls.
+ * A process failing to answer is discarded and replaced on the next call.
+ * <p>
+ * This class is thread safe.
+ */
+class GitProcessPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(GitProcessPool.class.getName());
+    private static final long ACQUIRE_TIMEOUT_MS = 100;
+
+    private final String repository;
+    private final int size;
+    private final BlockingQueue<GitBatchProcess> idle = new LinkedBlockingQueue<>();
+    private final List<GitBatchProcess> processes = new ArrayList<>();
+    private boolean closed = false;
+
+    /**
+     * @param repository Path to the local repository.
+     * @param size       Maximum number of git processes.
+     */
+    GitProcessPool(String repository, int size) {
+        this.repository = repository;
+        this.size = Math.max(1, size);
+    }
+
+    /**
+     * Retrieve the summary of a commit using one of the pooled processes,
+     * waiting for a process to be available if necessary.
+     *
+     * @param commit The commit sha1.
+     * @return The summary lines, empty if the commit could not be analyzed.
+     */
+    List<String> commitSummary(String commit) {
+        GitBatchProcess process;
+        try {
+            process = acquire();
+        } catch (IOException e) {
+            logger.error("Unable to start git process", e);
+            return new ArrayList<>();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for a git process", e);
+            return new ArrayList<>();
+        }
+
+        try {
+            List<String> summary = process.commitSummary(commit);
+            idle.add(process);
+            return summary;
+        } catch (IOException e) {
+            logger.error("Unable to execute git command", e);
+            discard(process);
+            return new ArrayList<>();
+        }
+    }
+
+    private GitBatchProcess acquire() throws IOException, InterruptedException {
+        while (true) {
+            GitBatchProcess process = idle.poll();
+            if (process != null) {
+                return process;
+            }
+            synchronized (processes) {
+                if (closed) {
+                    throw new IOException("Git process pool is closed");
+                }
+                if (processes.size() < size) {
+                    process = new GitBatchProcess(repository);
+                    processes.add(process);
+                    return process;
+                }
+            }
+            // Regularly checking the pool size, in case a failing process has been discarded.
+            process = idle.poll(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (process != null) {
+                return process;
+            }
+        }
+    }
+
+    private void discard(GitBatchProcess process) {
+        synchronized (processes) {
+            processes.remove(process);
+        }
+        process.close();
+    }
+
+    @Override
+    public void close() {
+        synchronized (processes) {
+            closed = true;
+            for (GitBatchProcess process : processes) {
+                process.close();
+            }
+            processes.clear();
+            idle.clear();
+        }
+    }
+}
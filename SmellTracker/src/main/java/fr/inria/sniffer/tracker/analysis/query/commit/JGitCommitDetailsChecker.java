@@ -0,0 +1,135 @@
+package fr.inria.sniffer.tracker.analysis.query.commit;
+
+import fr.inria.sniffer.tracker.analysis.model.CommitDetails;
+import fr.inria.sniffer.tracker.analysis.model.GitChangedFile;
+import fr.inria.sniffer.tracker.analysis.model.GitDiff;
+import fr.inria.sniffer.tracker.analysis.model.GitRename;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.patch.FileHeader;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retrieve all details of a commit in process, using JGit.
+ * <p>
+ * This computes the same values as the parsed output of
+ * 'git show -M50% --stat --summary', i.e. a diff against the first parent using
+ * the Myers algorithm and a 50% rename similarity threshold.
+ * <p>
+ * This class is thread safe.
+ */
+class JGitCommitDetailsChecker implements CommitDetailsChecker {
+    private static final Logger logger = LoggerFactory.getLogger(JGitCommitDetailsChecker.class.getName());
+    static final int RENAME_SCORE = 50;
+
+    private final Repository repository;
+
+    JGitCommitDetailsChecker(Repository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public CommitDetails fetch(String sha1) {
+        List<GitRename> renames = new ArrayList<>();
+        List<GitChangedFile> changedFiles = new ArrayList<>();
+        int additions = 0;
+        int deletions = 0;
+
+        try (RevWalk walk = new RevWalk(repository);
+             DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            ObjectId commitId = repository.resolve(sha1);
+            if (commitId == null) {
+                logger.warn("Unable to find commit: " + sha1);
+                return new CommitDetails(GitDiff.EMPTY, renames, changedFiles);
+            }
+            RevCommit commit = walk.parseCommit(commitId);
+            RevTree parentTree = commit.getParentCount() > 0 ? walk.parseCommit(commit.getParent(0)).getTree() : null;
+
+            formatter.setRepository(repository);
+            formatter.setDiffAlgorithm(DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.MYERS));
+            formatter.setDiffComparator(RawTextComparator.DEFAULT);
+            formatter.setDetectRenames(true);
+            formatter.getRenameDetector().setRenameScore(RENAME_SCORE);
+
+            List<DiffEntry> entries = formatter.scan(parentTree, commit.getTree());
+            for (DiffEntry entry : entries) {
+                int added = 0;
+                int deleted = 0;
+                boolean binary;
+                if (entry.getChangeType() == DiffEntry.ChangeType.COPY) {
+                    // Copies are not looked for by git, thus reported as new files.
+                    RawText content = loadText(entry.getNewId().toObjectId());
+                    binary = content == null;
+                    added = binary ? 0 : content.size();
+                } else {
+                    FileHeader header = formatter.toFileHeader(entry);
+                    binary = header.getPatchType() != FileHeader.PatchType.UNIFIED;
+                    for (Edit edit : header.toEditList()) {
+                        added += edit.getLengthB();
+                        deleted += edit.getLengthA();
+                    }
+                }
+                additions += added;
+                deletions += deleted;
+
+                if (entry.getChangeType() == DiffEntry.ChangeType.RENAME) {
+                    renames.add(new GitRename(entry.getOldPath(), entry.getNewPath(), entry.getScore()));
+                } else if (!binary) {
+                    String path = entry.getChangeType() == DiffEntry.ChangeType.DELETE ?
+                            entry.getOldPath() : entry.getNewPath();
+                    if (isListed(path)) {
+                        changedFiles.add(new GitChangedFile(path, added + deleted));
+                    }
+                }
+            }
+            GitDiff diff = entries.isEmpty() ? GitDiff.EMPTY : new GitDiff(additions, deletions, entries.size());
+            return new CommitDetails(diff, renames, changedFiles);
+        } catch (IOException e) {
+            logger.error("Unable to compute details of commit: " + sha1, e);
+            return new CommitDetails(GitDiff.EMPTY, new ArrayList<>(), new ArrayList<>());
+        }
+    }
+
+    /**
+     * Load a file content as text.
+     *
+     * @param blob The file blob.
+     * @return The {@link RawText}, null if the file is binary.
+     * @throws IOException If the blob could not be read.
+     */
+    private RawText loadText(ObjectId blob) throws IOException {
+        byte[] content = repository.open(blob).getCachedBytes(Integer.MAX_VALUE);
+        return RawText.isBinary(content) ? null : new RawText(content);
+    }
+
+    /**
+     * The git output parsing can't read the stat line of files containing whitespaces,
+     * they are skipped as well to keep the same results.
+     *
+     * @param path The changed file path.
+     * @return True if the file is part of the changed files.
+     */
+    private static boolean isListed(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            if (Character.isWhitespace(path.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,6 +2,7 @@ package fr.inria.sniffer.tracker.analysis.query.smell;
 
 import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.model.SmellDictionary;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
 import fr.inria.sniffer.tracker.analysis.query.PersistenceAnalyzer;
 import fr.inria.sniffer.tracker.analysis.query.QueryException;
@@ -16,7 +17,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Analyze the smell introduction/presence/refactoring for a given branch.
@@ -30,6 +30,9 @@ class BranchAnalyzer extends PersistenceAnalyzer implements BranchAnalysis {
     // Analyzer data source
     private final SmellQueries smellQueries;
     private final SmellDuplicationChecker duplicationChecker;
+    private final SmellIdentifier smellIdentifier;
+    private final SmellPresenceIntervals presenceIntervals;
+    private final SmellDictionary smellDictionary;
 
     // Those attributes are the class state.
     private Commit previous;
@@ -38,22 +41,31 @@ class BranchAnalyzer extends PersistenceAnalyzer implements BranchAnalysis {
 
     BranchAnalyzer(int projectId, Persistence persistence, SmellDuplicationChecker duplicationChecker,
                    CommitQueries commitQueries, SmellQueries smellQueries) {
-        this(projectId, persistence, duplicationChecker, commitQueries, smellQueries, new SingleBranchGapHandler(projectId, persistence, commitQueries));
-    }
-
-    BranchAnalyzer(int projectId, Persistence persistence, SmellDuplicationChecker duplicationChecker,
-                   CommitQueries commitQueries, SmellQueries smellQueries,
-                   CommitGapHandler gapHandler) {
-        this(projectId, persistence, duplicationChecker, commitQueries, smellQueries, gapHandler, null);
+        this(projectId, persistence, duplicationChecker, commitQueries, smellQueries,
+                new SingleBranchGapHandler(projectId, persistence, commitQueries), null,
+                new SynchronousSmellIdentifier(projectId, persistence, smellQueries), null, new SmellDictionary());
     }
 
+    /**
+     * @param gapHandler        The {@link CommitGapHandler} locating the commits of the branch.
+     * @param parentCommitSha   The commit the branch starts from, null if none.
+     * @param smellIdentifier   The {@link SmellIdentifier} bound to the persistence.
+     * @param presenceIntervals Record the smells presence as intervals of branch ordinals,
+     *                          null to insert the presence of each smell in each commit.
+     * @param smellDictionary   The {@link SmellDictionary} encoding the smells of the analyzed commits,
+     *                          may be shared with the analyzers of the other branches.
+     */
     BranchAnalyzer(int projectId, Persistence persistence, SmellDuplicationChecker duplicationChecker,
                    CommitQueries commitQueries, SmellQueries smellQueries,
-                   CommitGapHandler gapHandler, String parentCommitSha) {
+                   CommitGapHandler gapHandler, String parentCommitSha, SmellIdentifier smellIdentifier,
+                   SmellPresenceIntervals presenceIntervals, SmellDictionary smellDictionary) {
         super(logger, projectId, persistence, commitQueries);
         this.duplicationChecker = duplicationChecker;
         this.smellQueries = smellQueries;
         this.gapHandler = gapHandler;
+        this.smellIdentifier = smellIdentifier;
+        this.presenceIntervals = presenceIntervals;
+        this.smellDictionary = smellDictionary;
 
         previous = Commit.empty();
         if (parentCommitSha != null) {
@@ -61,6 +73,8 @@ class BranchAnalyzer extends PersistenceAnalyzer implements BranchAnalysis {
         } else {
             underAnalysis = Commit.empty();
         }
+        previous.setSmellDictionary(smellDictionary);
+        underAnalysis.setSmellDictionary(smellDictionary);
         this.resetLostCommit();
     }
 
@@ -98,6 +112,9 @@ class BranchAnalyzer extends PersistenceAnalyzer implements BranchAnalysis {
                 handleCommitGap();
             }
             updateCommitTracking(commit);
+            if (presenceIntervals != null) {
+                presenceIntervals.notifyCommit(commit.getBranchOrdinal());
+            }
             logger.debug("[" + projectId + "] => Now analysing commit: " + underAnalysis);
         }
     }
@@ -115,11 +132,15 @@ class BranchAnalyzer extends PersistenceAnalyzer implements BranchAnalysis {
         // Check if we already inserted smell previously to avoid having too much insert statements.
         // This could be removed and still checked by our unicity constraint.
         if (isNew(smell)) {
-            smell.id = insertSmellInstance(smell);
+            smell.id = smellIdentifier.identify(smell);
         }
         assert smell.id != -1;
 
-        insertSmellInCategory(smell, underAnalysis, SmellCategory.PRESENCE);
+        if (presenceIntervals != null) {
+            presenceIntervals.notifyPresence(smell, underAnalysis.getBranchOrdinal());
+        } else {
+            insertSmellInCategory(smell, underAnalysis, SmellCategory.PRESENCE);
+        }
 
         // We keep track of the smells present in our commit.
         underAnalysis.addSmell(smell);
@@ -165,6 +186,7 @@ class BranchAnalyzer extends PersistenceAnalyzer implements BranchAnalysis {
             logger.info("[" + projectId + "] No smell found");
             return;
         }
+        flushSmellPresences();
 
         // We persist the introduction and refactoring of the last commit.
         handleCommitChanges(underAnalysis);
@@ -186,6 +208,16 @@ class BranchAnalyzer extends PersistenceAnalyzer implements BranchAnalysis {
         }
     }
 
+    /**
+     * Persist the smells presence recorded as intervals, if any, so that they can be queried.
+     * The presence of each smell in each commit is otherwise inserted right away.
+     */
+    void flushSmellPresences() {
+        if (presenceIntervals != null) {
+            presenceIntervals.flush();
+        }
+    }
+
     /**
      * If we found a gap, it means that we have to smell of this type in the next commit.
      * Thus we consider that every smells has been refactored.
@@ -282,21 +314,11 @@ class BranchAnalyzer extends PersistenceAnalyzer implements BranchAnalysis {
     }
 
     private void updateCommitTracking(Commit commit) {
+        commit.setSmellDictionary(smellDictionary);
         previous = underAnalysis;
         underAnalysis = commit;
     }
 
-    private int insertSmellInstance(Smell smell) {
-        int insertResult = persistence.execute(smellQueries.smellInsertionStatement(projectId, smell));
-        List<Map<String, Object>> result;
-        if (insertResult == 1) {
-            result = persistence.query(smellQueries.lastSmellIdQuery(projectId));
-        } else {
-            result = persistence.query(smellQueries.smellIdQuery(projectId, smell));
-        }
-        return (int) result.get(0).get("id");
-    }
-
     /**
      * Helper method adding Smell- -Presence, -Introduction, or -Refactor statement.
      *
@@ -305,7 +327,9 @@ class BranchAnalyzer extends PersistenceAnalyzer implements BranchAnalysis {
      * @param category The table category, either SmellPresence, SmellIntroduction, or SmellRefactor
      */
     private void insertSmellInCategory(Smell smell, Commit commit, SmellCategory category) {
-        persistence.addStatements(smellQueries.smellCategoryInsertionStatement(projectId, commit.sha, smell, category));
+        persistence.addParameterizedStatements(
+                smellQueries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, category)
+        );
     }
 
     /**
@@ -369,8 +393,8 @@ class BranchAnalyzer extends PersistenceAnalyzer implements BranchAnalysis {
      * @param category The table category, either SmellPresence, SmellIntroduction, or SmellRefactor
      */
     private void insertLostSmellInCategory(Smell smell, SmellCategory category, int since, int until) {
-        persistence.addStatements(
-                smellQueries.lostSmellCategoryInsertionStatement(projectId, smell, category, since, until)
+        persistence.addParameterizedStatements(
+                smellQueries.parameterizedLostSmellCategoryInsertion(projectId, smell, category, since, until)
         );
     }
 }
@@ -2,7 +2,9 @@ package fr.inria.sniffer.tracker.analysis.query.smell;
 
 import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.model.SmellDictionary;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
+import fr.inria.sniffer.tracker.analysis.query.AnalysisProgress;
 import fr.inria.sniffer.tracker.analysis.query.Query;
 import fr.inria.sniffer.tracker.analysis.query.QueryException;
 import fr.inria.sniffer.tracker.analysis.query.branch.BranchQuery;
@@ -14,12 +16,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Analyze a {@link Smell} type considering the commits ordinal as well as their original branch.
  * This class requires the {@link BranchQuery} to be processed on the project.
  * <p>
  * This should reduce the number of false positive on smell analysis by sorting commits by branch.
+ * <p>
+ * The branches can also be analyzed concurrently, in which case the persistence and the other
+ * data sources have to be thread safe.
  */
 class BranchAwareSmellTypeAnalysis implements Query {
     private static final Logger logger = LoggerFactory.getLogger(BranchAwareSmellTypeAnalysis.class.getName());
@@ -34,6 +40,14 @@ class BranchAwareSmellTypeAnalysis implements Query {
     private final SmellQueries smellQueries;
     private final BranchQueries branchQueries;
     private final SmellDuplicationChecker duplicationChecker;
+    private final SmellIdentifier smellIdentifier;
+    private final CommitBranchLocator branchLocator;
+    private final Integer lastAnalyzedCommitId;
+    private final AnalysisProgress progress;
+    private final boolean presenceIntervals;
+    private final int branchThreads;
+    private final SmellDictionary smellDictionary;
+    private final Set<String> finalizedBranches;
 
     // Processed data
     private final Iterator<Map<String, Object>> smells;
@@ -43,6 +57,25 @@ class BranchAwareSmellTypeAnalysis implements Query {
     BranchAwareSmellTypeAnalysis(int projectId, Persistence persistence, Iterator<Map<String, Object>> smells,
                                  String smellType, SmellDuplicationChecker duplicationChecker,
                                  CommitQueries commitQueries, SmellQueries smellQueries, BranchQueries branchQueries) {
+        this(projectId, persistence, smells, smellType, duplicationChecker, commitQueries, smellQueries, branchQueries,
+                new SynchronousSmellIdentifier(projectId, persistence, smellQueries),
+                new SynchronousCommitBranchLocator(projectId, persistence, branchQueries),
+                SmellAnalysisSettings.defaults());
+    }
+
+    /**
+     * @param smellIdentifier The {@link SmellIdentifier} bound to the persistence.
+     * @param branchLocator   The {@link CommitBranchLocator} to use.
+     * @param settings        The {@link SmellAnalysisSettings} of the analysis,
+     *                        the branches are analyzed concurrently if it has more than one branch thread,
+     *                        see {@link #queryConcurrently()}.
+     *                        The last analyzed commit identifier is expected to be loaded in the {@link CommitQueries}.
+     */
+    BranchAwareSmellTypeAnalysis(int projectId, Persistence persistence, Iterator<Map<String, Object>> smells,
+                                 String smellType, SmellDuplicationChecker duplicationChecker,
+                                 CommitQueries commitQueries, SmellQueries smellQueries, BranchQueries branchQueries,
+                                 SmellIdentifier smellIdentifier, CommitBranchLocator branchLocator,
+                                 SmellAnalysisSettings settings) {
         this.projectId = projectId;
         this.persistence = persistence;
         this.smells = smells;
@@ -51,13 +84,27 @@ class BranchAwareSmellTypeAnalysis implements Query {
         this.commitQueries = commitQueries;
         this.smellQueries = smellQueries;
         this.branchQueries = branchQueries;
+        this.smellIdentifier = smellIdentifier;
+        this.branchLocator = branchLocator;
+        this.lastAnalyzedCommitId = settings.getLastAnalyzedCommitId();
+        this.progress = settings.getProgress();
+        this.presenceIntervals = settings.isPresenceIntervals();
+        this.branchThreads = settings.getBranchThreads();
+        this.smellDictionary = new SmellDictionary();
+        this.finalizedBranches = progress == null ?
+                Collections.emptySet() : progress.doneSteps(branchStage());
 
         branchAnalyzers = new HashMap<>();
-        branchLastCommitSha = new HashMap<>();
+        branchLastCommitSha = new ConcurrentHashMap<>();
     }
 
     @Override
     public void query() throws QueryException {
+        if (branchThreads > 1) {
+            queryConcurrently();
+            return;
+        }
+
         Smell smell;
         Commit previousCommit;
         Commit commit = Commit.empty();
@@ -65,14 +112,19 @@ class BranchAwareSmellTypeAnalysis implements Query {
         Integer currentBranch = -1;
 
         Map<String, Object> instance;
+        Commit instanceCommit;
         while (smells.hasNext()) {
             instance = smells.next();
+            instanceCommit = Commit.fromInstance(instance);
+            if (isAlreadyAnalyzed(instanceCommit) || isOnFinalizedBranch(instanceCommit)) {
+                continue;
+            }
             previousCommit = commit;
             previousBranch = currentBranch;
-            commit = Commit.fromInstance(instance);
+            commit = instanceCommit;
             smell = Smell.fromPaprikaInstance(instance, smellType);
             try {
-                currentBranch = fetchCommitBranch(commit);
+                currentBranch = branchLocator.branchId(commit);
             } catch (BranchNotFoundException e) {
                 logger.warn("[" + projectId + "] ==> Unable to guess branch for commit (" + commit.sha + "), skipping", e.getMessage());
                 continue;
@@ -86,7 +138,7 @@ class BranchAwareSmellTypeAnalysis implements Query {
 
             // We set the commit ordinal, branch-wise to enable our BranchAnalyzer
             // to correctly handle gaps.
-            commit.setBranchOrdinal(fetchCommitOrdinal(currentBranch, commit));
+            commit.setBranchOrdinal(branchLocator.branchOrdinal(currentBranch, commit));
             branchAnalyzers.get(currentBranch).notifyCommit(commit);
 
             // On commit change, we ensure to merge SmellPresence from the merged commit if necessary.
@@ -100,15 +152,175 @@ class BranchAwareSmellTypeAnalysis implements Query {
             // When we are sure that we passed the last branch commit, we will finalize the branch analysis,
             // i.e. setting introductions and refactoring for the last branch commit.
             if (!previousCommit.equals(commit) && isLastBranchCommit(previousCommit, previousBranch)) {
-                finalizeBranch(previousBranch);
-                branchAnalyzers.remove(previousBranch);
+                finalizeBranch(previousBranch, branchAnalyzers.remove(previousBranch));
             }
         }
 
         // We should only perform operations for branch 0 since all other commits are looped around.
         // On top of that, we may have missed some branch finalization because of lost commits.
-        for (int branchId : branchAnalyzers.keySet()) {
-            finalizeBranch(branchId);
+        for (Map.Entry<Integer, BranchAnalyzer> analyzer : branchAnalyzers.entrySet()) {
+            finalizeBranch(analyzer.getKey(), analyzer.getValue());
+        }
+    }
+
+    /**
+     * Analyze the branches concurrently, once the smells are split by branch.
+     * <p>
+     * A branch only depends on the smells of its parent commit and of the commits merged into it,
+     * read from the persistence. Each branch is thus cut in segments of consecutive commits,
+     * starting at its merge commits and ending after the commits other branches depend on.
+     * A segment is analyzed once the previous segment of its branch and the segments holding
+     * the commits it depends on are completed. Each branch encodes its smells in its own {@link SmellDictionary}.
+     *
+     * @throws QueryException If the analysis of a branch failed.
+     */
+    private void queryConcurrently() throws QueryException {
+        Map<Integer, BranchPlan> plans = splitByBranch();
+        Map<String, CommitPosition> commitPositions = new HashMap<>();
+        for (BranchPlan plan : plans.values()) {
+            for (int index = 0; index < plan.smells.size(); index++) {
+                if (plan.isLastCommitSmell(index)) {
+                    commitPositions.put(plan.smells.get(index).commit.sha,
+                            new CommitPosition(plan.branchId, index, plan.smells.get(index).position));
+                }
+            }
+        }
+
+        for (BranchPlan plan : plans.values()) {
+            addDependency(plan, 0, commitPositions.get(retrieveBranchParentSha(plan.branchId)));
+            for (int index = 0; index < plan.smells.size(); index++) {
+                if (plan.isFirstCommitSmell(index)) {
+                    List<Map<String, Object>> merged = persistence.query(
+                            commitQueries.mergedCommitQuery(projectId, plan.smells.get(index).commit));
+                    if (!merged.isEmpty() && merged.get(0).get("id") != null) {
+                        plan.mergedCommits.put(index, (Integer) merged.get(0).get("id"));
+                        addDependency(plan, index, commitPositions.get(merged.get(0).get("sha1")));
+                    }
+                }
+            }
+        }
+        // The commits other branches depend on end a segment.
+        for (BranchPlan plan : plans.values()) {
+            for (List<CommitPosition> dependencies : plan.dependencies.values()) {
+                for (CommitPosition dependency : dependencies) {
+                    plans.get(dependency.branchId).segmentStarts.add(dependency.index + 1);
+                }
+            }
+        }
+
+        TaskGraph graph = new TaskGraph();
+        for (BranchPlan plan : plans.values()) {
+            TaskGraph.Node previous = null;
+            for (int start : plan.segmentStarts) {
+                if (start >= plan.smells.size()) {
+                    break;
+                }
+                Integer next = plan.segmentStarts.higher(start);
+                int end = next == null ? plan.smells.size() : Math.min(next, plan.smells.size());
+                TaskGraph.Node segment = graph.add("branch " + plan.branchId + " [" + start + ", " + end + ")",
+                        () -> analyzeSegment(plan, start, end));
+                if (previous != null) {
+                    graph.addDependency(segment, previous);
+                }
+                plan.segments.put(start, segment);
+                previous = segment;
+            }
+        }
+        for (BranchPlan plan : plans.values()) {
+            for (Map.Entry<Integer, List<CommitPosition>> dependencies : plan.dependencies.entrySet()) {
+                for (CommitPosition dependency : dependencies.getValue()) {
+                    graph.addDependency(plan.segments.get(dependencies.getKey()),
+                            plans.get(dependency.branchId).segments.floorEntry(dependency.index).getValue());
+                }
+            }
+        }
+
+        logger.info("[" + projectId + "] => Analyzing " + plans.size() + " branches in " + graph.size()
+                + " segments using " + branchThreads + " threads");
+        graph.execute(branchThreads);
+    }
+
+    /**
+     * Consume the smells, splitting them by branch.
+     *
+     * @return The smells of each branch, in the order of the branches first commit.
+     * @throws QueryException If a commit ordinal could not be found in its branch.
+     */
+    private Map<Integer, BranchPlan> splitByBranch() throws QueryException {
+        Map<Integer, BranchPlan> plans = new LinkedHashMap<>();
+        int position = 0;
+        Map<String, Object> instance;
+        Commit commit;
+        int branchId;
+        while (smells.hasNext()) {
+            instance = smells.next();
+            commit = Commit.fromInstance(instance);
+            if (isAlreadyAnalyzed(commit) || isOnFinalizedBranch(commit)) {
+                continue;
+            }
+            try {
+                branchId = branchLocator.branchId(commit);
+            } catch (BranchNotFoundException e) {
+                logger.warn("[" + projectId + "] ==> Unable to guess branch for commit (" + commit.sha + "), skipping", e.getMessage());
+                continue;
+            }
+            commit.setBranchOrdinal(branchLocator.branchOrdinal(branchId, commit));
+            plans.computeIfAbsent(branchId, BranchPlan::new).smells.add(
+                    new BranchSmell(commit, Smell.fromPaprikaInstance(instance, smellType), position++));
+        }
+        return plans;
+    }
+
+    /**
+     * Make a branch smell wait for the analysis of a previous commit.
+     *
+     * @param plan       The dependent branch.
+     * @param index      Index of the first dependent smell in the branch.
+     * @param dependency Position of the last smell of the awaited commit, null if the commit has no smell to wait for.
+     */
+    private void addDependency(BranchPlan plan, int index, CommitPosition dependency) {
+        if (dependency == null || dependency.branchId == plan.branchId) {
+            return;
+        }
+        // The awaited commit precedes the dependent one in the smells stream, hence the dependencies can't be cyclic.
+        if (dependency.position >= plan.smells.get(index).position) {
+            logger.warn("[" + projectId + "] ==> Commit " + plan.smells.get(index).commit.sha
+                    + " depends on a following commit, ignoring the dependency");
+            return;
+        }
+        plan.dependencies.computeIfAbsent(index, key -> new ArrayList<>()).add(dependency);
+        plan.segmentStarts.add(index);
+    }
+
+    /**
+     * Analyze a segment of consecutive smells of a branch.
+     *
+     * @param plan  The branch to analyze.
+     * @param start Index of the first smell of the segment.
+     * @param end   Index following the last smell of the segment.
+     * @throws QueryException If the branch could not be finalized.
+     */
+    private void analyzeSegment(BranchPlan plan, int start, int end) throws QueryException {
+        if (start == 0) {
+            logger.debug("[" + projectId + "] => Initializing branch: " + plan.branchId);
+            persistence.commit();
+            plan.analyzer = createBranchAnalyzer(plan.branchId, new SmellDictionary());
+        }
+        for (int index = start; index < end; index++) {
+            BranchSmell branchSmell = plan.smells.get(index);
+            plan.analyzer.notifyCommit(branchSmell.commit);
+            Integer mergedCommitId = plan.mergedCommits.get(index);
+            if (mergedCommitId != null) {
+                persistence.commit();
+                plan.analyzer.addMergedSmells(retrieveCommitSmells(mergedCommitId));
+            }
+            plan.analyzer.notifySmell(branchSmell.smell);
+        }
+        if (end == plan.smells.size()) {
+            finalizeBranch(plan.branchId, plan.analyzer);
+        } else {
+            // The following segments of other branches may read the smells presence.
+            plan.analyzer.flushSmellPresences();
         }
     }
 
@@ -122,19 +334,12 @@ class BranchAwareSmellTypeAnalysis implements Query {
     private void synchronizeMergeSmells(Commit commit, Integer currentBranch) {
         Integer mergedCommitId = getMergedCommitId(commit);
         if (mergedCommitId != null) {
+            flushSmellPresences();
             persistence.commit();
             addSmellsToMergeCommit(mergedCommitId, currentBranch);
         }
     }
 
-    private int fetchCommitOrdinal(int branchId, Commit commit) throws QueryException {
-        List<Map<String, Object>> result = persistence.query(branchQueries.commitOrdinalQuery(projectId, branchId, commit));
-        if (result.isEmpty()) {
-            throw new QueryException(logger.getName(), "Unable to find commit (" + commit.sha + ") in branch n°" + branchId);
-        }
-        return (int) result.get(0).get("ordinal");
-    }
-
     /**
      * When we change our commit, we check if it is a merge commit,
      * if we have one, we will retrieve all smells from the merged branch last commit, in order
@@ -144,22 +349,88 @@ class BranchAwareSmellTypeAnalysis implements Query {
      * @param currentBranch  The branch to add commits onto.
      */
     private void addSmellsToMergeCommit(int mergedCommitId, int currentBranch) {
-        branchAnalyzers.get(currentBranch).addMergedSmells(retrieveMergedCommitSmells(mergedCommitId));
+        branchAnalyzers.get(currentBranch).addMergedSmells(retrieveCommitSmells(mergedCommitId));
+    }
+
+    /**
+     * Tells if the commit smells were analyzed by a previous analysis.
+     *
+     * @param commit The commit to test.
+     * @return True if the commit was inserted by a previous analysis, false otherwise.
+     */
+    private boolean isAlreadyAnalyzed(Commit commit) {
+        if (lastAnalyzedCommitId == null) {
+            return false;
+        }
+        Integer commitId = commitQueries.cachedCommitId(projectId, commit.sha);
+        return commitId != null && commitId <= lastAnalyzedCommitId;
+    }
+
+    /**
+     * Tells if the commit branch was finalized by an interrupted analysis.
+     *
+     * @param commit The commit to test.
+     * @return True if the commit smells are already persisted, false otherwise.
+     */
+    private boolean isOnFinalizedBranch(Commit commit) {
+        if (finalizedBranches.isEmpty()) {
+            return false;
+        }
+        try {
+            return finalizedBranches.contains(String.valueOf(branchLocator.branchId(commit)));
+        } catch (BranchNotFoundException e) {
+            // The commit will be skipped by the analysis loop.
+            return false;
+        }
+    }
+
+    /**
+     * @return The {@link AnalysisProgress} stage listing the branches finalized for this smell type.
+     */
+    private String branchStage() {
+        return AnalysisProgress.BRANCH_STAGE_PREFIX + smellType;
     }
 
     /**
      * Create a new {@link BranchAnalyzer} and add is to the branchAnalyzers,
      * With all the smells from its parent commit.
+     * <p>
+     * If the branch was partially analyzed by a previous analysis, the analyzer rather resumes
+     * from the smells present in the last analyzed commit of the branch.
      *
      * @param currentBranch Identifier of the branch to initialize.
      */
     private void initializeBranch(int currentBranch) {
         logger.debug("[" + projectId + "] => Initializing branch: " + currentBranch);
+        flushSmellPresences();
         persistence.commit();
-        BranchAnalyzer analyzer = new MultiBranchAnalyzer(projectId, persistence, duplicationChecker,
-                commitQueries, smellQueries, branchQueries, currentBranch, retrieveBranchParentSha(currentBranch));
-        analyzer.addExistingSmells(retrieveBranchParentSmells(currentBranch));
-        branchAnalyzers.put(currentBranch, analyzer);
+        branchAnalyzers.put(currentBranch, createBranchAnalyzer(currentBranch, smellDictionary));
+    }
+
+    /**
+     * Create a new {@link BranchAnalyzer}, with all the smells from its parent commit,
+     * or from the last analyzed commit of the branch.
+     *
+     * @param currentBranch   Identifier of the branch to initialize.
+     * @param smellDictionary The {@link SmellDictionary} encoding the branch smells.
+     * @return The branch analyzer.
+     */
+    private BranchAnalyzer createBranchAnalyzer(int currentBranch, SmellDictionary smellDictionary) {
+        Map<String, Object> lastAnalyzedCommit = retrieveLastAnalyzedCommit(currentBranch);
+        BranchAnalyzer analyzer;
+        if (lastAnalyzedCommit != null) {
+            logger.debug("[" + projectId + "] => Resuming branch " + currentBranch
+                    + " from commit: " + lastAnalyzedCommit.get("sha1"));
+            analyzer = new MultiBranchAnalyzer(projectId, persistence, duplicationChecker,
+                    commitQueries, smellQueries, branchQueries, currentBranch, (String) lastAnalyzedCommit.get("sha1"),
+                    smellIdentifier, presenceIntervals, smellDictionary);
+            analyzer.addExistingSmells(retrieveCommitSmells((int) lastAnalyzedCommit.get("id")));
+        } else {
+            analyzer = new MultiBranchAnalyzer(projectId, persistence, duplicationChecker,
+                    commitQueries, smellQueries, branchQueries, currentBranch, retrieveBranchParentSha(currentBranch),
+                    smellIdentifier, presenceIntervals, smellDictionary);
+            analyzer.addExistingSmells(retrieveBranchParentSmells(currentBranch));
+        }
 
         List<Map<String, Object>> query = persistence.query(branchQueries.lastCommitShaQuery(projectId, currentBranch));
         if (query.isEmpty()) {
@@ -167,6 +438,32 @@ class BranchAwareSmellTypeAnalysis implements Query {
         } else {
             branchLastCommitSha.put(currentBranch, (String) query.get(0).get("sha1"));
         }
+        return analyzer;
+    }
+
+    /**
+     * Persist the smells presence intervals still open in the analyzed branches,
+     * before querying the smells of a commit that may belong to one of them.
+     */
+    private void flushSmellPresences() {
+        for (BranchAnalyzer analyzer : branchAnalyzers.values()) {
+            analyzer.flushSmellPresences();
+        }
+    }
+
+    /**
+     * Find the last commit of this branch analyzed by a previous analysis.
+     *
+     * @param currentBranch The current branch identifier.
+     * @return The commit id and sha1, null if the branch was not analyzed before.
+     */
+    private Map<String, Object> retrieveLastAnalyzedCommit(int currentBranch) {
+        if (lastAnalyzedCommitId == null) {
+            return null;
+        }
+        List<Map<String, Object>> result = persistence.query(
+                branchQueries.lastAnalyzedCommitQuery(projectId, currentBranch, lastAnalyzedCommitId));
+        return result.isEmpty() ? null : result.get(0);
     }
 
     /**
@@ -198,15 +495,20 @@ class BranchAwareSmellTypeAnalysis implements Query {
      * Call finalize on {@link BranchAnalyzer} with the correct end commit for this branch.
      *
      * @param branchId The branch identifier.
+     * @param analyzer The branch analyzer.
      * @throws QueryException If anything goes wrong while querying the last commit for this project.
      */
-    private void finalizeBranch(int branchId) throws QueryException {
+    private void finalizeBranch(int branchId, BranchAnalyzer analyzer) throws QueryException {
         logger.debug("[" + projectId + "] => Finalizing branch: " + branchId);
         String lastBranchCommit = getLastBranchCommit(branchId);
         if (lastBranchCommit != null) {
-            branchAnalyzers.get(branchId).notifyEnd(lastBranchCommit);
+            analyzer.notifyEnd(lastBranchCommit);
         } else {
-            branchAnalyzers.get(branchId).notifyEnd();
+            analyzer.notifyEnd();
+        }
+        if (progress != null) {
+            // The branch smells are written before the progress.
+            progress.record(persistence, branchStage(), String.valueOf(branchId));
         }
     }
 
@@ -225,11 +527,11 @@ class BranchAwareSmellTypeAnalysis implements Query {
     /**
      * Fetch the SmellPresences of the given commit.
      *
-     * @param mergedCommitId Identifier of the commit being merged.
+     * @param commitId Identifier of the commit, e.g. being merged.
      * @return A {@link List} of {@link Smell}.
      */
-    private List<Smell> retrieveMergedCommitSmells(int mergedCommitId) {
-        String lastCommitSmellsQuery = smellQueries.commitSmellsQuery(projectId, String.valueOf(mergedCommitId), smellType);
+    private List<Smell> retrieveCommitSmells(int commitId) {
+        String lastCommitSmellsQuery = smellQueries.commitSmellsQuery(projectId, String.valueOf(commitId), smellType);
         List<Map<String, Object>> results = persistence.query(lastCommitSmellsQuery);
         return toSmells(results);
     }
@@ -271,18 +573,61 @@ class BranchAwareSmellTypeAnalysis implements Query {
     }
 
     /**
-     * Retrieve the branch on which the commit is located.
-     *
-     * @param commit The commit to find a branch for.
-     * @return The branch ordinal in the project.
-     * @throws BranchNotFoundException If no branch could be found for this commit.
-     *                                 This can happen until there are no commit gap anymore on Paprika result.
+     * A smell of the analyzed stream, along with its commit located in the branch.
      */
-    private int fetchCommitBranch(Commit commit) throws BranchNotFoundException {
-        List<Map<String, Object>> result = persistence.query(branchQueries.idFromCommitQueryStatement(projectId, commit));
-        if (result.isEmpty() || result.get(0).get("id") == null) {
-            throw new BranchNotFoundException(projectId, commit.sha);
+    private static final class BranchSmell {
+        private final Commit commit;
+        private final Smell smell;
+        // Position of the smell in the stream.
+        private final int position;
+
+        BranchSmell(Commit commit, Smell smell, int position) {
+            this.commit = commit;
+            this.smell = smell;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Position of the last smell of a commit in its branch.
+     */
+    private static final class CommitPosition {
+        private final int branchId;
+        private final int index;
+        private final int position;
+
+        CommitPosition(int branchId, int index, int position) {
+            this.branchId = branchId;
+            this.index = index;
+            this.position = position;
+        }
+    }
+
+    /**
+     * The smells of a branch, split in segments analyzed concurrently with the other branches.
+     */
+    private static final class BranchPlan {
+        private final int branchId;
+        private final List<BranchSmell> smells = new ArrayList<>();
+        // Identifier of the commit merged by the commit starting at a smell index.
+        private final Map<Integer, Integer> mergedCommits = new HashMap<>();
+        // The commits awaited by the smell index starting a segment.
+        private final Map<Integer, List<CommitPosition>> dependencies = new HashMap<>();
+        private final TreeSet<Integer> segmentStarts = new TreeSet<>(Collections.singleton(0));
+        private final TreeMap<Integer, TaskGraph.Node> segments = new TreeMap<>();
+        // Only used by a single segment at a time.
+        private BranchAnalyzer analyzer;
+
+        BranchPlan(int branchId) {
+            this.branchId = branchId;
+        }
+
+        boolean isFirstCommitSmell(int index) {
+            return index == 0 || !smells.get(index - 1).commit.equals(smells.get(index).commit);
+        }
+
+        boolean isLastCommitSmell(int index) {
+            return index == smells.size() - 1 || !smells.get(index + 1).commit.equals(smells.get(index).commit);
         }
-        return (int) result.get(0).get("id");
     }
 }
@@ -0,0 +1,162 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Identify the {@link Smell}s of a project from an in memory identity map.
+ * <p>
+ * The identity map is loaded with the existing project smells on first use.
+ * New smells take their identifier from a block reserved on the smell sequence,
+ * and their insertion is batched with the other statements of the analysis.
+ */
+class CachedSmellIdentifier implements SmellIdentifier {
+    private static final Logger logger = LoggerFactory.getLogger(CachedSmellIdentifier.class.getName());
+    static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private final int projectId;
+    private final Persistence persistence;
+    private final SmellQueries smellQueries;
+    private final int blockSize;
+    private final SmellIdentifier fallback;
+
+    private final Map<SmellKey, Integer> identifiers = new HashMap<>();
+    private boolean loaded = false;
+    private boolean loadFailed = false;
+    private int[] reserved = new int[0];
+    private int nextReserved = 0;
+
+    CachedSmellIdentifier(int projectId, Persistence persistence, SmellQueries smellQueries) {
+        this(projectId, persistence, smellQueries, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param projectId    The project identifier.
+     * @param persistence  The persistence to insert the smells into.
+     * @param smellQueries The {@link SmellQueries} to use.
+     * @param blockSize    Number of identifiers reserved at once.
+     */
+    CachedSmellIdentifier(int projectId, Persistence persistence, SmellQueries smellQueries, int blockSize) {
+        this.projectId = projectId;
+        this.persistence = persistence;
+        this.smellQueries = smellQueries;
+        this.blockSize = blockSize;
+        this.fallback = new SynchronousSmellIdentifier(projectId, persistence, smellQueries);
+    }
+
+    @Override
+    public synchronized int identify(Smell smell) {
+        if (!loaded) {
+            loadProjectSmells();
+        }
+        if (loadFailed) {
+            return fallback.identify(smell);
+        }
+        SmellKey key = new SmellKey(smell);
+        Integer id = identifiers.get(key);
+        if (id != null) {
+            return id;
+        }
+
+        if (nextReserved >= reserved.length && !reserveBlock()) {
+            // Pending smells may be referenced as parent by the inserted one.
+            persistence.commit();
+            id = fallback.identify(smell);
+        } else {
+            id = reserved[nextReserved++];
+            smell.id = id;
+            persistence.addParameterizedStatements(smellQueries.parameterizedSmellInsertion(projectId, smell));
+        }
+        identifiers.put(key, id);
+        return id;
+    }
+
+    private void loadProjectSmells() {
+        int count = persistence.streamQuery(smellQueries.projectSmellsQuery(projectId),
+                CachedSmellIdentifier::fromDBEntry, entry -> identifiers.put(entry.getKey(), entry.getValue()));
+        if (count < 0) {
+            logger.error("[" + projectId + "] Unable to load existing smells, inserting smells one by one");
+            loadFailed = true;
+        } else {
+            logger.debug("[" + projectId + "] Loaded " + count + " existing smells");
+        }
+        loaded = true;
+    }
+
+    private static Map.Entry<SmellKey, Integer> fromDBEntry(ResultSet row) throws SQLException {
+        int parentId = row.getInt("renamed_from");
+        if (row.wasNull()) {
+            parentId = -1;
+        }
+        SmellKey key = new SmellKey(row.getString("type"), row.getString("instance"),
+                row.getString("file"), parentId);
+        return new AbstractMap.SimpleImmutableEntry<>(key, row.getInt("id"));
+    }
+
+    /**
+     * Reserve a new block of identifiers on the smell sequence.
+     *
+     * @return True if the block has been reserved, false otherwise.
+     */
+    private boolean reserveBlock() {
+        List<Map<String, Object>> result = persistence.query(smellQueries.smellIdReservationQuery(blockSize));
+        if (result.isEmpty()) {
+            logger.error("[" + projectId + "] Unable to reserve smell identifiers, inserting smells one by one");
+            return false;
+        }
+        reserved = new int[result.size()];
+        for (int i = 0; i < reserved.length; i++) {
+            reserved[i] = ((Number) result.get(i).get("id")).intValue();
+        }
+        nextReserved = 0;
+        return true;
+    }
+
+    /**
+     * Identity of a smell in a project, its parent being referenced by identifier.
+     */
+    private static final class SmellKey {
+        private final String type;
+        private final String instance;
+        private final String file;
+        private final int parentId;
+
+        SmellKey(Smell smell) {
+            this(smell.type, smell.instance, smell.file, smell.parent == null ? -1 : smell.parent.id);
+        }
+
+        SmellKey(String type, String instance, String file, int parentId) {
+            this.type = type;
+            this.instance = instance;
+            this.file = file;
+            this.parentId = parentId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SmellKey smellKey = (SmellKey) o;
+            return parentId == smellKey.parentId &&
+                    Objects.equals(type, smellKey.type) &&
+                    Objects.equals(instance, smellKey.instance) &&
+                    Objects.equals(file, smellKey.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, instance, file, parentId);
+        }
+    }
+}
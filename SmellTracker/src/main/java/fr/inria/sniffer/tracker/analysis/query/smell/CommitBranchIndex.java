@@ -0,0 +1,110 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.model.Commit;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.BranchQueries;
+import fr.inria.sniffer.tracker.analysis.query.QueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Locate the commits from an in memory index of the project branches.
+ * <p>
+ * The whole project mapping is loaded on first use, giving each commit an index
+ * in primitive arrays holding its branch identifier and ordinal.
+ * As for the branch queries, a commit present in multiple branches is located on the first one.
+ */
+class CommitBranchIndex implements CommitBranchLocator {
+    private static final Logger logger = LoggerFactory.getLogger(CommitBranchIndex.class.getName());
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int projectId;
+    private final Persistence persistence;
+    private final BranchQueries branchQueries;
+    private final CommitBranchLocator fallback;
+
+    private final Map<String, Integer> commitIndexes = new HashMap<>();
+    private int[] branchIds = new int[INITIAL_CAPACITY];
+    private int[] branchOrdinals = new int[INITIAL_CAPACITY];
+    private int size = 0;
+    private volatile boolean loaded = false;
+    private boolean loadFailed = false;
+
+    CommitBranchIndex(int projectId, Persistence persistence, BranchQueries branchQueries) {
+        this.projectId = projectId;
+        this.persistence = persistence;
+        this.branchQueries = branchQueries;
+        this.fallback = new SynchronousCommitBranchLocator(projectId, persistence, branchQueries);
+    }
+
+    @Override
+    public int branchId(Commit commit) throws BranchNotFoundException {
+        if (!ensureLoaded()) {
+            return fallback.branchId(commit);
+        }
+        Integer index = commitIndexes.get(commit.sha);
+        if (index == null) {
+            throw new BranchNotFoundException(projectId, commit.sha);
+        }
+        return branchIds[index];
+    }
+
+    @Override
+    public int branchOrdinal(int branchId, Commit commit) throws QueryException {
+        if (!ensureLoaded()) {
+            return fallback.branchOrdinal(branchId, commit);
+        }
+        Integer index = commitIndexes.get(commit.sha);
+        if (index == null || branchIds[index] != branchId) {
+            // Only the first branch of each commit is indexed.
+            return fallback.branchOrdinal(branchId, commit);
+        }
+        return branchOrdinals[index];
+    }
+
+    /**
+     * Load the project branches on first use.
+     *
+     * @return True if the index is usable, false if the persistence has to be queried instead.
+     */
+    private boolean ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    load();
+                    loaded = true;
+                }
+            }
+        }
+        return !loadFailed;
+    }
+
+    private void load() {
+        int count = persistence.streamQuery(branchQueries.branchCommitsQuery(projectId), row -> {
+            String sha = (String) row.get("sha1");
+            if (!commitIndexes.containsKey(sha)) {
+                add(sha, (int) row.get("branch_id"), (int) row.get("ordinal"));
+            }
+        });
+        if (count < 0) {
+            logger.error("[" + projectId + "] Unable to load branch commits, querying them one by one");
+            loadFailed = true;
+        } else {
+            logger.debug("[" + projectId + "] Indexed " + size + " commits from " + count + " branch commits");
+        }
+    }
+
+    private void add(String sha, int branchId, int ordinal) {
+        if (size == branchIds.length) {
+            branchIds = Arrays.copyOf(branchIds, size * 2);
+            branchOrdinals = Arrays.copyOf(branchOrdinals, size * 2);
+        }
+        branchIds[size] = branchId;
+        branchOrdinals[size] = ordinal;
+        commitIndexes.put(sha, size++);
+    }
+}
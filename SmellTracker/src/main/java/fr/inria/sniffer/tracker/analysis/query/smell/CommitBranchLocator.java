@@ -0,0 +1,28 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.model.Commit;
+import fr.inria.sniffer.tracker.analysis.query.QueryException;
+
+/**
+ * Locate the analyzed {@link Commit}s in the project branches.
+ */
+interface CommitBranchLocator {
+    /**
+     * Retrieve the branch on which the commit is located.
+     *
+     * @param commit The commit to find a branch for.
+     * @return The branch identifier.
+     * @throws BranchNotFoundException If no branch could be found for this commit.
+     */
+    int branchId(Commit commit) throws BranchNotFoundException;
+
+    /**
+     * Retrieve the commit ordinal in the given branch.
+     *
+     * @param branchId The branch identifier.
+     * @param commit   The commit to look for.
+     * @return The commit ordinal in the branch.
+     * @throws QueryException If the commit is not part of the branch.
+     */
+    int branchOrdinal(int branchId, Commit commit) throws QueryException;
+}
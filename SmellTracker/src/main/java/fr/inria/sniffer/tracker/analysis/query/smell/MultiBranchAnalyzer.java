@@ -1,5 +1,6 @@
 package fr.inria.sniffer.tracker.analysis.query.smell;
 
+import fr.inria.sniffer.tracker.analysis.model.SmellDictionary;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.BranchQueries;
@@ -23,9 +24,18 @@ class MultiBranchAnalyzer extends BranchAnalyzer {
     private final BranchQueries branchQueries;
     private final int branchId;
 
+    /**
+     * @param presenceIntervals Record the smells presence as intervals of branch ordinals
+     *                          rather than inserting it for each commit.
+     * @param smellDictionary   The {@link SmellDictionary} shared by the analyzers of the smell type.
+     */
     MultiBranchAnalyzer(int projectId, Persistence persistence, SmellDuplicationChecker duplicationChecker,
-                        CommitQueries commitQueries, SmellQueries smellQueries, BranchQueries branchQueries, int branchId, String parentCommitSha) {
-        super(projectId, persistence, duplicationChecker, commitQueries, smellQueries, new MultiBranchGapHandler(projectId, branchId, persistence, branchQueries), parentCommitSha);
+                        CommitQueries commitQueries, SmellQueries smellQueries, BranchQueries branchQueries, int branchId, String parentCommitSha,
+                        SmellIdentifier smellIdentifier, boolean presenceIntervals,
+                        SmellDictionary smellDictionary) {
+        super(projectId, persistence, duplicationChecker, commitQueries, smellQueries, new MultiBranchGapHandler(projectId, branchId, persistence, branchQueries), parentCommitSha,
+                smellIdentifier, presenceIntervals ? new SmellPresenceIntervals(projectId, branchId, persistence, smellQueries) : null,
+                smellDictionary);
         this.branchQueries = branchQueries;
         this.branchId = branchId;
     }
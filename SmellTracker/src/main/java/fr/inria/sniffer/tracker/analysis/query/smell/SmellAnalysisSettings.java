@@ -0,0 +1,110 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.query.AnalysisProgress;
+
+/**
+ * Settings of a project smells analysis, shared by its smell types and branches.
+ */
+public final class SmellAnalysisSettings {
+    private final int smellThreads;
+    private final Integer lastAnalyzedCommitId;
+    private final AnalysisProgress progress;
+    private final boolean presenceIntervals;
+    private final int branchThreads;
+
+    private SmellAnalysisSettings(Builder builder) {
+        this.smellThreads = builder.smellThreads;
+        this.lastAnalyzedCommitId = builder.lastAnalyzedCommitId;
+        this.progress = builder.progress;
+        this.presenceIntervals = builder.presenceIntervals;
+        this.branchThreads = builder.branchThreads;
+    }
+
+    /**
+     * @return Settings analyzing every commit of every smell type sequentially.
+     */
+    public static SmellAnalysisSettings defaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * Builder of {@link SmellAnalysisSettings}, starting from the default settings.
+     */
+    public static final class Builder {
+        private int smellThreads = 1;
+        private Integer lastAnalyzedCommitId = null;
+        private AnalysisProgress progress = null;
+        private boolean presenceIntervals = false;
+        private int branchThreads = 1;
+
+        /**
+         * @param smellThreads Number of smell types analyzed concurrently.
+         */
+        public Builder smellThreads(int smellThreads) {
+            this.smellThreads = smellThreads;
+            return this;
+        }
+
+        /**
+         * @param lastAnalyzedCommitId Identifier of the last commit inserted by a previous analysis,
+         *                             only the smells of the commits inserted afterwards are analyzed.
+         *                             Null to analyze every commit.
+         */
+        public Builder lastAnalyzedCommitId(Integer lastAnalyzedCommitId) {
+            this.lastAnalyzedCommitId = lastAnalyzedCommitId;
+            return this;
+        }
+
+        /**
+         * @param progress The {@link AnalysisProgress} recording the completed smell types and branches,
+         *                 the ones completed by an interrupted analysis are skipped.
+         *                 Null to analyze every smell type without recording them.
+         */
+        public Builder progress(AnalysisProgress progress) {
+            this.progress = progress;
+            return this;
+        }
+
+        /**
+         * @param presenceIntervals Record the smells presence as intervals of branch ordinals
+         *                          rather than inserting it for each commit.
+         */
+        public Builder presenceIntervals(boolean presenceIntervals) {
+            this.presenceIntervals = presenceIntervals;
+            return this;
+        }
+
+        /**
+         * @param branchThreads Number of branches of a smell type analyzed concurrently,
+         *                      sharing the persistence of their smell type.
+         */
+        public Builder branchThreads(int branchThreads) {
+            this.branchThreads = branchThreads;
+            return this;
+        }
+
+        public SmellAnalysisSettings build() {
+            return new SmellAnalysisSettings(this);
+        }
+    }
+
+    public int getSmellThreads() {
+        return smellThreads;
+    }
+
+    public Integer getLastAnalyzedCommitId() {
+        return lastAnalyzedCommitId;
+    }
+
+    public AnalysisProgress getProgress() {
+        return progress;
+    }
+
+    public boolean isPresenceIntervals() {
+        return presenceIntervals;
+    }
+
+    public int getBranchThreads() {
+        return branchThreads;
+    }
+}
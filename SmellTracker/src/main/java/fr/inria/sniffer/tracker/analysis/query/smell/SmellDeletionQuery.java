@@ -4,82 +4,181 @@ import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
 import fr.inria.sniffer.tracker.analysis.query.Query;
 import fr.inria.sniffer.tracker.analysis.query.QueryException;
-import fr.inria.sniffer.detector.neo4j.IsClassExistingQuery;
-import fr.inria.sniffer.detector.neo4j.IsMethodExistingQuery;
 import fr.inria.sniffer.detector.neo4j.QueryEngine;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Tells for each smell refactoring if the entity holding the smell has been deleted in the refactoring commit.
+ * <p>
+ * The refactorings are grouped by commit and kind of entity, so that a single Neo4j query checks
+ * the existence of every instance of the group. The groups are checked concurrently,
+ * and each group is updated in a single statement.
+ */
 public class SmellDeletionQuery implements Query {
     private static final Logger logger = LoggerFactory.getLogger(SmellDeletionQuery.class.getName());
+    private static final String INSTANCE = "instance";
+    private static final String EXISTING_METHODS = "MATCH (n:Method) WHERE n.app_key = $sha1 " +
+            "AND n.full_name IN $instances RETURN DISTINCT n.full_name AS " + INSTANCE;
+    private static final String EXISTING_CLASSES = "MATCH (n:Class) WHERE n.app_key = $sha1 " +
+            "AND n.name IN $instances RETURN DISTINCT n.name AS " + INSTANCE;
+
     private final String paprikaDB;
     private final Persistence persistence;
     private final int projectId;
     private final SmellQueries smellQueries;
+    private final int workers;
+    private final QueryEngine queryEngine;
 
     public SmellDeletionQuery(int projectId, String paprikaDB, Persistence persistence,
                               SmellQueries smellQueries) {
+        this(projectId, paprikaDB, persistence, smellQueries, 1);
+    }
+
+    /**
+     * @param workers Number of groups of refactorings checked concurrently.
+     */
+    public SmellDeletionQuery(int projectId, String paprikaDB, Persistence persistence,
+                              SmellQueries smellQueries, int workers) {
+        this(projectId, paprikaDB, persistence, smellQueries, workers, null);
+    }
+
+    SmellDeletionQuery(int projectId, String paprikaDB, Persistence persistence,
+                       SmellQueries smellQueries, int workers, QueryEngine queryEngine) {
         this.projectId = projectId;
         this.paprikaDB = paprikaDB;
         this.persistence = persistence;
         this.smellQueries = smellQueries;
+        this.workers = Math.max(1, workers);
+        this.queryEngine = queryEngine;
     }
 
     @Override
     public void query() throws QueryException {
         logger.info("[" + projectId + "] Starting Smells deletion query");
-        QueryEngine queryEngine = new QueryEngine(paprikaDB);
+        QueryEngine queryEngine = this.queryEngine != null ? this.queryEngine : new QueryEngine(paprikaDB);
 
+        Map<RefactoringGroup, List<RefactoredInstance>> groups = new LinkedHashMap<>();
         String refactoredQuery = smellQueries.allRefactoredInstancesWithSha1(projectId);
-        List<Map<String, Object>> result = persistence.query(refactoredQuery);
-
-        int refactoringId;
-        String instance;
-        String type;
-        String sha1;
-        logger.info("[" + projectId + "] Found " + result.size() + " refactoring to analyze");
-
-        int index = 0;
-        for (Map<String, Object> refactored : result) {
-            refactoringId = (int) refactored.get("id");
-            sha1 = (String) refactored.get("sha1");
-            instance = (String) refactored.get("instance");
-            type = (String) refactored.get("type");
-            logger.debug("[" + projectId + "] Checking smell: " + instance + " (" + type + ", " + sha1 + ")");
-
-            try {
-                boolean deleted = isDeleted(queryEngine, sha1, instance, type);
-                logger.debug("[" + projectId + "] Setting smell as deleted: " + deleted + " - sha1: " + sha1
-                        + " - instance: " + instance + " (" + type + ")");
-                persistence.addStatements(smellQueries.setAsDeleted(projectId, refactoringId, deleted));
-            } catch (QueryException e) {
-                logger.warn("[" + projectId + "] Unable to set deleted", e);
+        int count = persistence.streamQuery(refactoredQuery, RefactoredInstance::fromDBEntry, refactored -> {
+            String existenceQuery = existenceQuery(refactored.type);
+            if (existenceQuery == null) {
+                logger.warn("[" + projectId + "] Unable to set deleted, could not recognize smell type: "
+                        + refactored.type);
+                return;
             }
+            groups.computeIfAbsent(new RefactoringGroup(refactored.sha1, existenceQuery), group -> new ArrayList<>())
+                    .add(refactored);
+        });
+        logger.info("[" + projectId + "] Checking " + count + " refactoring in " + groups.size() + " groups");
 
-            if (++index % 1000 == 0) {
-                logger.info("[" + projectId + "] Persisting smells deletion (" + index + ")");
-                persistence.commit();
+        ExecutorService executorService = Executors.newFixedThreadPool(workers);
+        try {
+            // The groups are checked concurrently, but persisted on this thread in the submission order.
+            List<Future<Set<String>>> existing = new ArrayList<>(groups.size());
+            for (Map.Entry<RefactoringGroup, List<RefactoredInstance>> group : groups.entrySet()) {
+                existing.add(executorService.submit(
+                        () -> existingInstances(queryEngine, group.getKey(), group.getValue())));
             }
+
+            int index = 0;
+            int uncommitted = 0;
+            for (Map.Entry<RefactoringGroup, List<RefactoredInstance>> group : groups.entrySet()) {
+                try {
+                    persistDeletions(group.getValue(), existing.get(index++).get());
+                } catch (ExecutionException e) {
+                    logger.warn("[" + projectId + "] Unable to set deleted for commit " + group.getKey().sha1,
+                            e.getCause());
+                }
+                uncommitted += group.getValue().size();
+                if (uncommitted >= 1000) {
+                    logger.info("[" + projectId + "] Persisting smells deletion (group " + index + ")");
+                    persistence.commit();
+                    uncommitted = 0;
+                }
+            }
+            persistence.commit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryException(logger.getName(), e);
+        } finally {
+            executorService.shutdownNow();
+            queryEngine.shutDown();
         }
-        persistence.commit();
+        logger.info("[" + projectId + "] Analyzed " + count + " refactoring");
+    }
 
-        queryEngine.shutDown();
+    /**
+     * Set the refactorings of a group as deleted if their instance does not exist anymore.
+     *
+     * @param refactorings The refactorings of the group.
+     * @param existing     The instances still existing in the refactoring commit.
+     */
+    private void persistDeletions(List<RefactoredInstance> refactorings, Set<String> existing) {
+        List<Integer> ids = new ArrayList<>(refactorings.size());
+        List<Integer> deletedIds = new ArrayList<>();
+        for (RefactoredInstance refactored : refactorings) {
+            ids.add(refactored.id);
+            if (!existing.contains(refactored.instance)) {
+                deletedIds.add(refactored.id);
+            }
+        }
+        logger.debug("[" + projectId + "] Setting " + deletedIds.size() + " smells out of "
+                + ids.size() + " as deleted - sha1: " + refactorings.get(0).sha1);
+        persistence.addStatements(smellQueries.setAsDeleted(projectId, ids, deletedIds));
     }
 
     /**
-     * Tells if the entity holding the smell has been deleted in the commit.
+     * Query the entities still existing in the refactoring commit of a group.
      *
-     * @param queryEngine The Harissa's neo4j {@link QueryEngine}.
-     * @param sha1        The commit sha1.
-     * @param instance    The smell instance name, referencing its holding entity.
-     * @param type        The smell type to check.
-     * @return True if the smell has been deleted, False otherwise.
+     * @param queryEngine  The Harissa's neo4j {@link QueryEngine}.
+     * @param group        The group commit and existence query.
+     * @param refactorings The refactorings of the group.
+     * @return The names of the existing instances.
+     */
+    private static Set<String> existingInstances(QueryEngine queryEngine, RefactoringGroup group,
+                                                 List<RefactoredInstance> refactorings) {
+        Set<String> instances = new HashSet<>();
+        for (RefactoredInstance refactored : refactorings) {
+            instances.add(refactored.instance);
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("sha1", group.sha1);
+        parameters.put("instances", new ArrayList<>(instances));
+
+        Set<String> existing = new HashSet<>();
+        GraphDatabaseService graphDatabaseService = queryEngine.getGraphDatabaseService();
+        try (Transaction transaction = graphDatabaseService.beginTx()) {
+            for (Map<String, Object> row : queryEngine.toMap(graphDatabaseService.execute(group.existenceQuery, parameters))) {
+                existing.add((String) row.get(INSTANCE));
+            }
+            transaction.success();
+        }
+        return existing;
+    }
+
+    /**
+     * @param type The smell type.
+     * @return The query listing the existing entities holding this smell type, null if unknown.
      */
-    private boolean isDeleted(QueryEngine queryEngine, String sha1, String instance, String type) throws QueryException {
-        fr.inria.sniffer.detector.neo4j.Query query;
+    private static String existenceQuery(String type) {
         switch (type) {
             case "HMU":
             case "IOD":
@@ -88,13 +187,60 @@ public class SmellDeletionQuery implements Query {
             case "UCS":
             case "UHA":
             case "UIO":
-                query = new IsMethodExistingQuery(queryEngine, sha1, instance);
-                return query.fetchResult(false).isEmpty();
+                return EXISTING_METHODS;
             case "LIC":
             case "NLMR":
-                query = new IsClassExistingQuery(queryEngine, sha1, instance);
-                return query.fetchResult(false).isEmpty();
+                return EXISTING_CLASSES;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Refactorings of the same commit, whose smells are held by the same kind of entity.
+     */
+    private static final class RefactoringGroup {
+        final String sha1;
+        final String existenceQuery;
+
+        RefactoringGroup(String sha1, String existenceQuery) {
+            this.sha1 = sha1;
+            this.existenceQuery = existenceQuery;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RefactoringGroup that = (RefactoringGroup) o;
+            return Objects.equals(sha1, that.sha1) && existenceQuery.equals(that.existenceQuery);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sha1, existenceQuery);
+        }
+    }
+
+    /**
+     * A refactored smell instance, along with the sha1 of the refactoring commit.
+     */
+    private static final class RefactoredInstance {
+        final int id;
+        final String sha1;
+        final String instance;
+        final String type;
+
+        private RefactoredInstance(int id, String sha1, String instance, String type) {
+            this.id = id;
+            this.sha1 = sha1;
+            this.instance = instance;
+            this.type = type;
+        }
+
+        static RefactoredInstance fromDBEntry(ResultSet row) throws SQLException {
+            return new RefactoredInstance(row.getInt("id"), row.getString("sha1"),
+                    row.getString("instance"), row.getString("type"));
         }
-        throw new QueryException(logger.getName(), "Could not recognize smell type");
     }
 }
@@ -0,0 +1,17 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.model.Smell;
+
+/**
+ * Provide the persistence identifier of the analyzed {@link Smell}s,
+ * inserting the ones seen for the first time.
+ */
+interface SmellIdentifier {
+    /**
+     * Retrieve the identifier of the smell, inserting the smell if necessary.
+     *
+     * @param smell The smell to identify, its parent must be identified if any.
+     * @return The smell identifier.
+     */
+    int identify(Smell smell);
+}
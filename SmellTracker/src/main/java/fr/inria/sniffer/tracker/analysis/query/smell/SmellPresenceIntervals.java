@@ -0,0 +1,101 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Record the smells presence of a branch as ranges of consecutive branch ordinals,
+ * rather than inserting one 'smell_presence' row for each smell of each commit.
+ * <p>
+ * An interval is opened when a smell appears, extended while the smell is present in the next commit,
+ * and persisted once the smell disappears, i.e. when a commit is analyzed without it.
+ * The view 'all_smell_presence' expands the intervals in the branch commits.
+ */
+class SmellPresenceIntervals {
+    private final int projectId;
+    private final int branchId;
+    private final Persistence persistence;
+    private final SmellQueries smellQueries;
+
+    // The intervals not persisted yet, by smell identifier.
+    private final Map<Integer, Interval> openIntervals;
+
+    SmellPresenceIntervals(int projectId, int branchId, Persistence persistence, SmellQueries smellQueries) {
+        this.projectId = projectId;
+        this.branchId = branchId;
+        this.persistence = persistence;
+        this.smellQueries = smellQueries;
+        this.openIntervals = new HashMap<>();
+    }
+
+    /**
+     * Notify the presence of a smell in a commit.
+     *
+     * @param smell   The present smell, must be identified.
+     * @param ordinal The commit ordinal in the branch.
+     */
+    void notifyPresence(Smell smell, int ordinal) {
+        Interval interval = openIntervals.get(smell.id);
+        if (interval == null) {
+            openIntervals.put(smell.id, new Interval(smell, ordinal));
+        } else if (interval.until == ordinal - 1) {
+            interval.until = ordinal;
+        } else if (interval.until != ordinal) {
+            persist(interval);
+            openIntervals.put(smell.id, new Interval(smell, ordinal));
+        }
+    }
+
+    /**
+     * Notify the analysis of a new commit, the intervals that can't be extended
+     * to this commit are persisted.
+     *
+     * @param ordinal The new commit ordinal in the branch.
+     */
+    void notifyCommit(int ordinal) {
+        Iterator<Interval> intervals = openIntervals.values().iterator();
+        while (intervals.hasNext()) {
+            Interval interval = intervals.next();
+            if (interval.until < ordinal - 1) {
+                persist(interval);
+                intervals.remove();
+            }
+        }
+    }
+
+    /**
+     * Persist every open interval, e.g. at the end of the branch or before reading the smells presence.
+     * The smells still present in the following commits start a new interval.
+     */
+    void flush() {
+        for (Interval interval : openIntervals.values()) {
+            persist(interval);
+        }
+        openIntervals.clear();
+    }
+
+    private void persist(Interval interval) {
+        persistence.addParameterizedStatements(smellQueries.parameterizedSmellPresenceIntervalInsertion(
+                projectId, interval.smell, branchId, interval.since, interval.until));
+    }
+
+    /**
+     * Presence of a smell, from its first to its last branch ordinal.
+     */
+    private static final class Interval {
+        private final Smell smell;
+        private final int since;
+        private int until;
+
+        Interval(Smell smell, int ordinal) {
+            this.smell = smell;
+            this.since = ordinal;
+            this.until = ordinal;
+        }
+    }
+}
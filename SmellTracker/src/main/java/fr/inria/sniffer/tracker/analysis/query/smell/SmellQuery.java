@@ -1,9 +1,12 @@
 package fr.inria.sniffer.tracker.analysis.query.smell;
 
 import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
+import fr.inria.sniffer.tracker.analysis.query.AnalysisProgress;
 import fr.inria.sniffer.tracker.analysis.query.Query;
 import fr.inria.sniffer.tracker.analysis.query.QueryException;
 import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.SynchronizedPersistence;
+import fr.inria.sniffer.tracker.analysis.persistence.TransactionGranularity;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.BranchQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.CommitQueries;
 import fr.inria.sniffer.tracker.analysis.query.smell.duplication.SmellDuplicationChecker;
@@ -23,9 +26,19 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Retrieve all the smells of a given project for each commits, through Paprika.
+ * <p>
+ * The smell types are independent from each other and can be analyzed concurrently,
+ * each worker using its own persistence.
  */
 public class SmellQuery implements Query {
     private static final Logger logger = LoggerFactory.getLogger(SmellQuery.class.getName());
@@ -35,19 +48,42 @@ public class SmellQuery implements Query {
     private BranchQueries branchQueries;
     private SmellQueries smellQueries;
     private CommitQueries commitQueries;
+    private final Supplier<Persistence> workerPersistence;
+    private final int parallelism;
+    private final Integer lastAnalyzedCommitId;
+    private final AnalysisProgress progress;
+    private final int branchThreads;
+    private final SmellAnalysisSettings settings;
 
+    /**
+     * @param projectId         The project identifier.
+     * @param paprikaDB         Path to the Paprika database.
+     * @param persistence       The persistence used for sequential analysis.
+     * @param commitQueries     The {@link CommitQueries} to use.
+     * @param smellQueries      The {@link SmellQueries} to use.
+     * @param branchQueries     The {@link BranchQueries} to use.
+     * @param workerPersistence Open a new persistence for each concurrent worker.
+     * @param settings          The {@link SmellAnalysisSettings} of the analysis.
+     */
     public SmellQuery(int projectId, String paprikaDB, Persistence persistence,
-                      CommitQueries commitQueries, SmellQueries smellQueries, BranchQueries branchQueries) {
+                      CommitQueries commitQueries, SmellQueries smellQueries, BranchQueries branchQueries,
+                      Supplier<Persistence> workerPersistence, SmellAnalysisSettings settings) {
         this.projectId = projectId;
         this.paprikaDB = paprikaDB;
-        this.persistence = persistence;
+        this.settings = settings;
+        this.persistence = settings.getBranchThreads() > 1 ? new SynchronizedPersistence(persistence) : persistence;
         this.commitQueries = commitQueries;
         this.smellQueries = smellQueries;
         this.branchQueries = branchQueries;
+        this.workerPersistence = workerPersistence;
+        this.parallelism = settings.getSmellThreads();
+        this.lastAnalyzedCommitId = settings.getLastAnalyzedCommitId();
+        this.progress = settings.getProgress();
+        this.branchThreads = settings.getBranchThreads();
     }
 
     private List<fr.inria.sniffer.detector.neo4j.Query> queries(QueryEngine queryEngine) {
-        ArrayList<fr.inria.sniffer.detector.neo4j.Query> queries = new ArrayList<>();
+        List<fr.inria.sniffer.detector.neo4j.Query> queries = new ArrayList<>();
         queries.add(MIMQuery.createMIMQuery(queryEngine));
         queries.add(LICQuery.createLICQuery(queryEngine));
         queries.add(NLMRQuery.createNLMRQuery(queryEngine));
@@ -57,7 +93,29 @@ public class SmellQuery implements Query {
         queries.add(UnsupportedHardwareAccelerationQuery.createUnsupportedHardwareAccelerationQuery(queryEngine));
         queries.add(HashMapUsageQuery.createHashMapUsageQuery(queryEngine));
         queries.add(InvalidateWithoutRectQuery.createInvalidateWithoutRectQuery(queryEngine));
-        return queries;
+        return remainingQueries(queries);
+    }
+
+    /**
+     * Remove the smell types completed by an interrupted analysis.
+     *
+     * @param queries The smell types to analyze.
+     * @return The smell types not analyzed yet.
+     */
+    private List<fr.inria.sniffer.detector.neo4j.Query> remainingQueries(
+            List<fr.inria.sniffer.detector.neo4j.Query> queries) {
+        if (progress == null) {
+            return queries;
+        }
+        List<fr.inria.sniffer.detector.neo4j.Query> remaining = new ArrayList<>();
+        for (fr.inria.sniffer.detector.neo4j.Query query : queries) {
+            if (progress.isDone(AnalysisProgress.SMELL_TYPE_STAGE, query.getSmellName())) {
+                logger.info("[" + projectId + "] => Skipping completed smell type: " + query.getSmellName());
+            } else {
+                remaining.add(query);
+            }
+        }
+        return remaining;
     }
 
     @Override
@@ -65,19 +123,141 @@ public class SmellQuery implements Query {
         logger.info("[" + projectId + "] Starting Smells insertion");
         QueryEngine queryEngine = new QueryEngine(paprikaDB);
         SmellDuplicationChecker duplicationChecker = new SmellDuplicationChecker(projectId, persistence, queryEngine);
+        CommitBranchLocator branchLocator = new CommitBranchIndex(projectId, persistence, branchQueries);
+        if (lastAnalyzedCommitId != null) {
+            logger.info("[" + projectId + "] => Analyzing the commits inserted after: " + lastAnalyzedCommitId);
+            // The analyzed commits are recognized by their loaded identifier.
+            commitQueries.loadCommitIds(persistence, projectId);
+        }
 
-        for (fr.inria.sniffer.detector.neo4j.Query query : queries(queryEngine)) {
-            logger.info("[" + projectId + "] => Querying Smells of type: " + query.getSmellName());
+        try {
+            List<fr.inria.sniffer.detector.neo4j.Query> queries = queries(queryEngine);
+            if (queries.isEmpty()) {
+                logger.info("[" + projectId + "] => Every smell type is already analyzed");
+            } else if (parallelism > 1 && workerPersistence != null) {
+                analyzeConcurrently(queries, duplicationChecker, branchLocator);
+            } else {
+                SmellIdentifier smellIdentifier = new CachedSmellIdentifier(projectId, persistence, smellQueries);
+                for (fr.inria.sniffer.detector.neo4j.Query query : queries) {
+                    analyzeSmellType(query, persistence, smellIdentifier, duplicationChecker, branchLocator);
+                }
+            }
+        } finally {
+            queryEngine.shutDown();
+        }
+    }
 
-            Result result = query.streamResult(true, true);
-            logger.trace("[" + projectId + "]   ==> Found smells: " + result);
+    /**
+     * Analyze the smell types on a pool of workers, each holding its own persistence.
+     *
+     * @param queries            The smell types to analyze.
+     * @param duplicationChecker Shared {@link SmellDuplicationChecker}.
+     * @param branchLocator      Shared {@link CommitBranchLocator}.
+     * @throws QueryException The first failure of the analyzed smell types, once all of them are done.
+     */
+    private void analyzeConcurrently(List<fr.inria.sniffer.detector.neo4j.Query> queries,
+                                     SmellDuplicationChecker duplicationChecker,
+                                     CommitBranchLocator branchLocator) throws QueryException {
+        int workers = Math.min(parallelism, queries.size());
+        logger.info("[" + projectId + "] => Analyzing smell types using " + workers + " workers");
+        // Workers use their own connection, the previous writes have to be visible to them.
+        persistence.commit();
+        persistence.endTransaction(TransactionGranularity.PROJECT);
+        persistence.flush();
 
-            new BranchAwareSmellTypeAnalysis(projectId, persistence, result, query.getSmellName(), duplicationChecker, commitQueries, smellQueries, branchQueries).query();
+        BlockingQueue<Worker> idleWorkers = new ArrayBlockingQueue<>(workers);
+        List<Worker> openedWorkers = new ArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                Persistence opened = workerPersistence.get();
+                Worker worker = new Worker(branchThreads > 1 ? new SynchronizedPersistence(opened) : opened);
+                openedWorkers.add(worker);
+                idleWorkers.add(worker);
+            }
 
-            // Calling commit for each smell type to avoid too big request.
-            persistence.commit();
+            List<Future<Void>> analyses = new ArrayList<>();
+            for (fr.inria.sniffer.detector.neo4j.Query query : queries) {
+                analyses.add(executorService.submit(() -> {
+                    Worker worker = idleWorkers.take();
+                    try {
+                        analyzeSmellType(query, worker.persistence, worker.smellIdentifier,
+                                duplicationChecker, branchLocator);
+                        worker.persistence.flush();
+                    } finally {
+                        idleWorkers.put(worker);
+                    }
+                    return null;
+                }));
+            }
+
+            QueryException failure = null;
+            for (Future<Void> analysis : analyses) {
+                try {
+                    analysis.get();
+                } catch (ExecutionException e) {
+                    logger.error("[" + projectId + "] Smell type analysis failed", e.getCause());
+                    if (failure == null) {
+                        failure = e.getCause() instanceof QueryException ?
+                                (QueryException) e.getCause() : new QueryException(logger.getName(), e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new QueryException(logger.getName(), e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executorService.shutdownNow();
+            for (Worker worker : openedWorkers) {
+                worker.persistence.endTransaction(TransactionGranularity.QUERY);
+                worker.persistence.close();
+            }
         }
+    }
 
-        queryEngine.shutDown();
+    /**
+     * Analyze a single smell type.
+     *
+     * @param query              The smell type query.
+     * @param persistence        The persistence to write the smells into.
+     * @param smellIdentifier    The {@link SmellIdentifier} bound to this persistence.
+     * @param duplicationChecker The {@link SmellDuplicationChecker} to use.
+     * @param branchLocator      The {@link CommitBranchLocator} to use.
+     * @throws QueryException If the analysis failed.
+     */
+    private void analyzeSmellType(fr.inria.sniffer.detector.neo4j.Query query, Persistence persistence,
+                                  SmellIdentifier smellIdentifier, SmellDuplicationChecker duplicationChecker,
+                                  CommitBranchLocator branchLocator) throws QueryException {
+        logger.info("[" + projectId + "] => Querying Smells of type: " + query.getSmellName());
+
+        Result result = query.streamResult(true, true);
+        logger.trace("[" + projectId + "]   ==> Found smells: " + result);
+
+        new BranchAwareSmellTypeAnalysis(projectId, persistence, result, query.getSmellName(), duplicationChecker,
+                commitQueries, smellQueries, branchQueries, smellIdentifier, branchLocator, settings).query();
+
+        // Calling commit for each smell type to avoid too big request.
+        persistence.commit();
+        if (progress != null) {
+            progress.record(persistence, AnalysisProgress.SMELL_TYPE_STAGE, query.getSmellName());
+        }
+        persistence.endTransaction(TransactionGranularity.SMELL_TYPE);
+    }
+
+    /**
+     * A persistence dedicated to a concurrent worker, along with its smell identifiers.
+     */
+    private final class Worker {
+        private final Persistence persistence;
+        private final SmellIdentifier smellIdentifier;
+
+        Worker(Persistence persistence) {
+            persistence.initialize();
+            this.persistence = persistence;
+            this.smellIdentifier = new CachedSmellIdentifier(projectId, persistence, smellQueries);
+        }
     }
 }
@@ -0,0 +1,46 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.model.Commit;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.BranchQueries;
+import fr.inria.sniffer.tracker.analysis.query.QueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query the persistence for the branch location of each commit.
+ */
+class SynchronousCommitBranchLocator implements CommitBranchLocator {
+    private static final Logger logger = LoggerFactory.getLogger(SynchronousCommitBranchLocator.class.getName());
+
+    private final int projectId;
+    private final Persistence persistence;
+    private final BranchQueries branchQueries;
+
+    SynchronousCommitBranchLocator(int projectId, Persistence persistence, BranchQueries branchQueries) {
+        this.projectId = projectId;
+        this.persistence = persistence;
+        this.branchQueries = branchQueries;
+    }
+
+    @Override
+    public int branchId(Commit commit) throws BranchNotFoundException {
+        List<Map<String, Object>> result = persistence.query(branchQueries.idFromCommitQueryStatement(projectId, commit));
+        if (result.isEmpty() || result.get(0).get("id") == null) {
+            throw new BranchNotFoundException(projectId, commit.sha);
+        }
+        return (int) result.get(0).get("id");
+    }
+
+    @Override
+    public int branchOrdinal(int branchId, Commit commit) throws QueryException {
+        List<Map<String, Object>> result = persistence.query(branchQueries.commitOrdinalQuery(projectId, branchId, commit));
+        if (result.isEmpty()) {
+            throw new QueryException(logger.getName(), "Unable to find commit (" + commit.sha + ") in branch n°" + branchId);
+        }
+        return (int) result.get(0).get("ordinal");
+    }
+}
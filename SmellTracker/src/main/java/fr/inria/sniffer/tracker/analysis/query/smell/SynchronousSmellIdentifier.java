@@ -0,0 +1,35 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insert each new {@link Smell} right away, then query back its identifier.
+ */
+class SynchronousSmellIdentifier implements SmellIdentifier {
+    private final int projectId;
+    private final Persistence persistence;
+    private final SmellQueries smellQueries;
+
+    SynchronousSmellIdentifier(int projectId, Persistence persistence, SmellQueries smellQueries) {
+        this.projectId = projectId;
+        this.persistence = persistence;
+        this.smellQueries = smellQueries;
+    }
+
+    @Override
+    public int identify(Smell smell) {
+        int insertResult = persistence.execute(smellQueries.smellInsertionStatement(projectId, smell));
+        List<Map<String, Object>> result;
+        if (insertResult == 1) {
+            result = persistence.query(smellQueries.lastSmellIdQuery(projectId));
+        } else {
+            result = persistence.query(smellQueries.smellIdQuery(projectId, smell));
+        }
+        return (int) result.get(0).get("id");
+    }
+}
@@ -0,0 +1,163 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.query.QueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Directed acyclic graph of tasks, each task being executed on a pool of threads
+ * as soon as all its dependencies are completed.
+ * <p>
+ * The first failing task stops the scheduling of new tasks, and is thrown back
+ * once the running ones are completed.
+ */
+class TaskGraph {
+    private static final Logger logger = LoggerFactory.getLogger(TaskGraph.class.getName());
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    // Execution state, guarded by this graph.
+    private ExecutorService executorService;
+    private int running;
+    private int completed;
+    private QueryException failure;
+
+    /**
+     * An action executed by the graph.
+     */
+    interface Task {
+        void run() throws QueryException;
+    }
+
+    /**
+     * A task of the graph, along with its dependencies.
+     */
+    static final class Node {
+        private final String name;
+        private final Task task;
+        private final List<Node> dependents = new ArrayList<>();
+        private int pendingDependencies = 0;
+
+        private Node(String name, Task task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Add a task to the graph.
+     *
+     * @param name The task name, used in the logs.
+     * @param task The action to execute.
+     * @return The task node, to declare its dependencies.
+     */
+    Node add(String name, Task task) {
+        Node node = new Node(name, task);
+        nodes.add(node);
+        return node;
+    }
+
+    /**
+     * Declare that a task can only start once another one is completed.
+     *
+     * @param node       The dependent task.
+     * @param dependency The task to complete first.
+     */
+    void addDependency(Node node, Node dependency) {
+        if (node == dependency || dependency.dependents.contains(node)) {
+            return;
+        }
+        dependency.dependents.add(node);
+        node.pendingDependencies++;
+    }
+
+    /**
+     * @return The number of tasks in the graph.
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Execute every task of the graph, and wait for their completion.
+     *
+     * @param threads Number of tasks executed concurrently.
+     * @throws QueryException The first task failure, or if the dependencies are cyclic.
+     */
+    void execute(int threads) throws QueryException {
+        executorService = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            synchronized (this) {
+                for (Node node : nodes) {
+                    if (node.pendingDependencies == 0) {
+                        submit(node);
+                    }
+                }
+                while (running > 0) {
+                    wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryException(logger.getName(), e);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        if (completed < nodes.size()) {
+            throw new QueryException(logger.getName(), "Cyclic dependencies, "
+                    + (nodes.size() - completed) + " tasks were never started");
+        }
+    }
+
+    private void submit(Node node) {
+        running++;
+        executorService.execute(() -> run(node));
+    }
+
+    private void run(Node node) {
+        QueryException nodeFailure = null;
+        try {
+            node.task.run();
+        } catch (QueryException e) {
+            nodeFailure = e;
+        } catch (Throwable e) {
+            // Errors must also be accounted for, otherwise the execution would wait for this task forever.
+            nodeFailure = new QueryException(logger.getName(), e);
+        } finally {
+            complete(node, nodeFailure);
+        }
+    }
+
+    private synchronized void complete(Node node, QueryException nodeFailure) {
+        running--;
+        completed++;
+        if (nodeFailure != null) {
+            logger.error("Task " + node + " failed", nodeFailure);
+            if (failure == null) {
+                failure = nodeFailure;
+            }
+        }
+        if (failure == null) {
+            for (Node dependent : node.dependents) {
+                if (--dependent.pendingDependencies == 0) {
+                    submit(dependent);
+                }
+            }
+        }
+        notifyAll();
+    }
+}
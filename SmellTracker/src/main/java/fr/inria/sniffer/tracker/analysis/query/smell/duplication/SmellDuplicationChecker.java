@@ -9,14 +9,24 @@ import fr.inria.sniffer.detector.neo4j.QueryEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * Tries to generate parent {@link Smell} instances from project's files
  * renamings.
+ * <p>
+ * The renamings are indexed by commit and new file, and the qualified names fetched from SmellDetector
+ * are kept in a bounded LRU cache, since the same checker is used by every smell type of the project.
+ * This class is thread safe, the qualified names of different files being queried concurrently.
  * TODO: Add interface.
  */
 public class SmellDuplicationChecker {
@@ -26,11 +36,34 @@ public class SmellDuplicationChecker {
 
     private static final Logger logger = LoggerFactory.getLogger(SmellDuplicationChecker.class.getName());
     public static final String QUALIFIED_NAME = "qualified_name";
-    private final List<FileRenameEntry> fileRenamings;
+    /**
+     * Default number of (commit, file) qualified names kept in cache.
+     */
+    public static final int DEFAULT_QUALIFIED_NAME_CACHE_SIZE = 4096;
+
+    private final Map<FileRenameEntry, FileRenameEntry> fileRenamings;
+    private final Map<Map.Entry<String, String>, FutureTask<String>> qualifiedNames;
     private final QueryEngine queryEngine;
 
     public SmellDuplicationChecker(int projectId, Persistence persistence, QueryEngine queryEngine) {
+        this(projectId, persistence, queryEngine, DEFAULT_QUALIFIED_NAME_CACHE_SIZE);
+    }
+
+    /**
+     * @param projectId              Project identifier.
+     * @param persistence            Persistence to load the file renamings from.
+     * @param queryEngine            SmellDetector engine to fetch the previous qualified names from.
+     * @param qualifiedNameCacheSize Maximum number of qualified names kept in cache.
+     */
+    public SmellDuplicationChecker(int projectId, Persistence persistence, QueryEngine queryEngine,
+                                   int qualifiedNameCacheSize) {
         this.queryEngine = queryEngine;
+        this.qualifiedNames = new LinkedHashMap<Map.Entry<String, String>, FutureTask<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Map.Entry<String, String>, FutureTask<String>> eldest) {
+                return size() > qualifiedNameCacheSize;
+            }
+        };
         fileRenamings = loadFileRename(projectId, persistence);
     }
 
@@ -51,12 +84,18 @@ public class SmellDuplicationChecker {
                 "WHERE file_rename.project_id = '" + projectId + "'";
     }
 
-    private List<FileRenameEntry> loadFileRename(int projectId, Persistence persistence) {
-        List<FileRenameEntry> renaming = new ArrayList<>();
-        List<Map<String, Object>> result = persistence.query(getFileRenameStatement(projectId));
-        for (Map<String, Object> rename : result) {
-            renaming.add(FileRenameEntry.fromDBEntry(rename));
-        }
+    /**
+     * Index the project renamings by commit and new file.
+     * Only the first renaming is kept for a given key, as a lookup in the renamings list would.
+     *
+     * @param projectId   Project identifier.
+     * @param persistence Persistence to query.
+     * @return The renamings, indexed by themselves since their equality only considers the commit and new file.
+     */
+    private Map<FileRenameEntry, FileRenameEntry> loadFileRename(int projectId, Persistence persistence) {
+        Map<FileRenameEntry, FileRenameEntry> renaming = new HashMap<>();
+        persistence.streamQuery(getFileRenameStatement(projectId), FileRenameEntry::fromDBEntry,
+                entry -> renaming.putIfAbsent(entry, entry));
         return renaming;
     }
 
@@ -72,10 +111,10 @@ public class SmellDuplicationChecker {
         logger.trace("==> Trying to guess original smell for: " + instance);
 
         // If we find a renaming of the smell file in this specific commit, try to guess the original smell.
-        int index = fileRenamings.indexOf(FileRenameEntry.fromSmell(instance, commit));
-        if (index > -1) {
+        FileRenameEntry renaming = fileRenamings.get(FileRenameEntry.fromSmell(instance, commit));
+        if (renaming != null) {
             logger.trace("  ==> Guessing new original smell!");
-            return guessOriginalSmell(instance, previous, fileRenamings.get(index));
+            return guessOriginalSmell(instance, previous, renaming);
         }
 
         logger.trace("  ==> No original smell found");
@@ -103,13 +142,56 @@ public class SmellDuplicationChecker {
     }
 
     /**
-     * Fetch the class fully qualified name from SmellDetector.
+     * Fetch the class fully qualified name from the cache, or from SmellDetector on a cache miss.
+     * The cache is only locked to look up and insert the pending query, which is run by the first thread
+     * requesting the file. The other threads requesting the same file wait for its result.
      *
      * @param sha  The commit to look into.
      * @param file The file containing the queried class.
      * @return The class fully qualified name if found, an empty String if not.
      */
     private String fetchQualifiedName(String sha, String file) {
+        Map.Entry<String, String> key = new AbstractMap.SimpleImmutableEntry<>(sha, file);
+        FutureTask<String> qualifiedName;
+        boolean owner = false;
+        synchronized (qualifiedNames) {
+            qualifiedName = qualifiedNames.get(key);
+            if (qualifiedName == null) {
+                qualifiedName = new FutureTask<>(() -> queryQualifiedName(sha, file));
+                qualifiedNames.put(key, qualifiedName);
+                owner = true;
+            }
+        }
+        if (owner) {
+            qualifiedName.run();
+        }
+        try {
+            return qualifiedName.get();
+        } catch (ExecutionException e) {
+            // The failed query is not cached, the next request will try again.
+            synchronized (qualifiedNames) {
+                qualifiedNames.remove(key, qualifiedName);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while querying qualified name for file " + file + " on commit " + sha);
+            return "";
+        }
+    }
+
+    /**
+     * Query the class fully qualified name on SmellDetector.
+     *
+     * @param sha  The commit to look into.
+     * @param file The file containing the queried class.
+     * @return The class fully qualified name if found, an empty String if not.
+     */
+    private String queryQualifiedName(String sha, String file) {
         QualifiedNameFromFileQuery query = new QualifiedNameFromFileQuery(queryEngine, sha, "/" + file);
         List<Map<String, Object>> result = query.fetchResult(false);
         if (result.isEmpty() || !result.get(0).containsKey(QUALIFIED_NAME)) {
@@ -117,7 +199,6 @@ public class SmellDuplicationChecker {
             return "";
         }
         return (String) result.get(0).get(QUALIFIED_NAME);
-
     }
 
 
@@ -182,16 +263,17 @@ public class SmellDuplicationChecker {
         }
 
         /**
-         * Create a new {@link FileRenameEntry} from a database entry.
+         * Create a new {@link FileRenameEntry} from a database row.
          *
-         * @param renameEntry The database entry to create a {@link FileRenameEntry} for.
+         * @param row The database row to create a {@link FileRenameEntry} for.
          * @return The created {@link FileRenameEntry}
+         * @throws SQLException If a column could not be read.
          */
-        static FileRenameEntry fromDBEntry(Map<String, Object> renameEntry) {
+        static FileRenameEntry fromDBEntry(ResultSet row) throws SQLException {
             // Fields returned  by postgresql are always lowercase!
-            String sha1 = (String) renameEntry.get(SHA1_COLUMN);
-            String oldFile = (String) renameEntry.get(OLD_FILE_COLUMN);
-            String newFile = (String) renameEntry.get(NEW_FILE_COLUMN);
+            String sha1 = row.getString(SHA1_COLUMN);
+            String oldFile = row.getString(OLD_FILE_COLUMN);
+            String newFile = row.getString(NEW_FILE_COLUMN);
             return new FileRenameEntry(sha1, oldFile, newFile);
         }
 
@@ -46,6 +46,7 @@ CREATE TABLE IF NOT EXISTS `commit_entry` (
   date        DATE             NOT NULL,
   merged_commit_id INTEGER,
   in_detector        BOOLEAN NOT NULL DEFAULT FALSE,
+  changed_files_computed BOOLEAN NOT NULL DEFAULT FALSE,
   UNIQUE (project_id, sha1),
   FOREIGN KEY (project_id) REFERENCES Project (id),
   FOREIGN KEY (developer_id) REFERENCES Developer (id),
@@ -88,6 +89,16 @@ CREATE TABLE IF NOT EXISTS `file_rename` (
   FOREIGN KEY (commit_id) REFERENCES commit_entry (id)
 );
 
+CREATE TABLE IF NOT EXISTS `file_changed` (
+  project_id        INTEGER         NOT NULL,
+  commit_id         INTEGER         NOT NULL,
+  file_name         VARCHAR         NOT NULL,
+  modification_size INT,
+  UNIQUE (project_id, commit_id, file_name),
+  FOREIGN KEY (project_id) REFERENCES Project (id),
+  FOREIGN KEY (commit_id) REFERENCES commit_entry (id)
+);
+
 CREATE TABLE IF NOT EXISTS `commit_entry_tag` (
   id       INTEGER PRIMARY KEY AUTOINCREMENT,
   commit_id INTEGER NOT NULL,
@@ -119,6 +130,33 @@ CREATE TABLE IF NOT EXISTS `smell_presence` (
   FOREIGN KEY (project_id) REFERENCES Project (id)
 );
 
+-- Smell presence stored as ranges of consecutive branch ordinals, instead of one row per commit.
+-- An interval inserted again with the same start is extended to the furthest end.
+CREATE TABLE IF NOT EXISTS `smell_presence_interval` (
+  id         INTEGER PRIMARY KEY AUTOINCREMENT,
+  smell_id   INTEGER NOT NULL,
+  project_id INTEGER NOT NULL,
+  branch_id  INTEGER NOT NULL,
+  since      INTEGER NOT NULL,
+  until      INTEGER NOT NULL,
+  UNIQUE (smell_id, branch_id, since),
+  FOREIGN KEY (smell_id) REFERENCES Smell (id),
+  FOREIGN KEY (branch_id) REFERENCES Branch (id),
+  FOREIGN KEY (project_id) REFERENCES Project (id)
+);
+
+CREATE INDEX IF NOT EXISTS smell_presence_interval__branch_id_since_until
+  ON smell_presence_interval (branch_id, since, until);
+
+-- Smell presence for each commit, whether it is stored by commit or by interval.
+CREATE VIEW IF NOT EXISTS all_smell_presence AS
+  SELECT smell_id, project_id, commit_id FROM `smell_presence`
+  UNION ALL
+  SELECT smell_presence_interval.smell_id, smell_presence_interval.project_id, branch_commit.commit_id
+  FROM smell_presence_interval
+  JOIN branch_commit ON branch_commit.branch_id = smell_presence_interval.branch_id
+    AND branch_commit.ordinal BETWEEN smell_presence_interval.since AND smell_presence_interval.until;
+
 CREATE TABLE IF NOT EXISTS `smell_introduction` (
   id       INTEGER PRIMARY KEY AUTOINCREMENT,
   smell_id  INTEGER NOT NULL,
@@ -148,6 +186,9 @@ CREATE TABLE IF NOT EXISTS lost_smell_introduction (
   id       SERIAL NOT NULL PRIMARY KEY,
   smell_id  INTEGER NOT NULL,
   project_id INTEGER NOT NULL,
+  since    INTEGER NOT NULL,
+  until    INTEGER NOT NULL,
+  UNIQUE (smell_id, since, until),
   FOREIGN KEY (smell_id) REFERENCES Smell (id),
   FOREIGN KEY (project_id) REFERENCES Project (id)
 );
@@ -156,6 +197,20 @@ CREATE TABLE IF NOT EXISTS lost_smell_refactoring (
   id       SERIAL NOT NULL PRIMARY KEY,
   smell_id  INTEGER NOT NULL,
   project_id INTEGER NOT NULL,
+  since    INTEGER NOT NULL,
+  until    INTEGER NOT NULL,
+  UNIQUE (smell_id, since, until),
   FOREIGN KEY (smell_id) REFERENCES Smell (id),
   FOREIGN KEY (project_id) REFERENCES Project (id)
 );
+
+-- Progress of an analysis, allowing an interrupted analysis to resume.
+CREATE TABLE IF NOT EXISTS analysis_progress (
+  id         INTEGER PRIMARY KEY AUTOINCREMENT,
+  project_id INTEGER NOT NULL,
+  stage      VARCHAR(64) NOT NULL,
+  step       VARCHAR(256) NOT NULL,
+  value      INTEGER,
+  UNIQUE (project_id, stage, step),
+  FOREIGN KEY (project_id) REFERENCES Project (id)
+);
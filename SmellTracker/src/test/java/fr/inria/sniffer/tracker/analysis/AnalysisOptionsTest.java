@@ -0,0 +1,70 @@
+package fr.inria.sniffer.tracker.analysis;
+
+import fr.inria.sniffer.tracker.analysis.persistence.TransactionGranularity;
+import fr.inria.sniffer.tracker.analysis.query.commit.CommitDetailsProvider;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AnalysisOptionsTest {
+    private ArgumentParser parser;
+
+    @Before
+    public void setUp() {
+        parser = ArgumentParsers.newArgumentParser("test");
+        AnalysisOptions.setArguments(parser.addSubparsers().dest("command").addParser("analysis"));
+    }
+
+    private AnalysisOptions parse(String... options) throws ArgumentParserException {
+        String[] arguments = new String[options.length + 1];
+        arguments[0] = "analysis";
+        System.arraycopy(options, 0, arguments, 1, options.length);
+        Namespace namespace = parser.parseArgs(arguments);
+        return new AnalysisOptions(namespace);
+    }
+
+    @Test
+    public void defaultArgumentsMatchDefaultOptions() throws ArgumentParserException {
+        assertEquals(new AnalysisOptions.Builder().build().toString(), parse().toString());
+    }
+
+    @Test
+    public void argumentsAreSetOnTheirOption() throws ArgumentParserException {
+        AnalysisOptions options = parse("--batchSize", "10", "--copy", "--fetchSize", "20", "--writeBehind",
+                "--transaction", "ROWS", "--commitInterval", "30", "--asyncCommit", "--smellThreads", "2",
+                "--commitDetails", "JGIT", "--commitThreads", "3", "--commitGraphCache", "--incremental",
+                "--resume", "--presenceIntervals", "--branchThreads", "4", "--deletionThreads", "5");
+
+        AnalysisOptions expected = new AnalysisOptions.Builder()
+                .batchSize(10)
+                .copy(true)
+                .fetchSize(20)
+                .writeBehind(true)
+                .transaction(TransactionGranularity.ROWS)
+                .commitInterval(30)
+                .asyncCommit(true)
+                .smellThreads(2)
+                .commitDetails(CommitDetailsProvider.JGIT)
+                .commitThreads(3)
+                .commitGraphCache(true)
+                .incremental(true)
+                .resume(true)
+                .presenceIntervals(true)
+                .branchThreads(4)
+                .deletionThreads(5)
+                .build();
+        assertEquals(expected.toString(), options.toString());
+    }
+
+    @Test
+    public void connectionsPerAnalysisAccountForSmellWorkers() {
+        assertEquals(1, new AnalysisOptions.Builder().build().getConnectionsPerAnalysis());
+        assertEquals(1, new AnalysisOptions.Builder().smellThreads(1).build().getConnectionsPerAnalysis());
+        assertEquals(5, new AnalysisOptions.Builder().smellThreads(4).build().getConnectionsPerAnalysis());
+    }
+}
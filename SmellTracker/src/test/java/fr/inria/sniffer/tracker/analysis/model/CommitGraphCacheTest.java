@@ -0,0 +1,120 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CommitGraphCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Git git;
+    private Path cacheFile;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(folder.getRoot()).call();
+        cacheFile = git.getRepository().getDirectory().toPath().resolve(CommitGraphCache.FILE_NAME);
+        commit("a.java", "root", "first@email.com");
+        git.branchCreate().setName("feature").call();
+        commit("b.java", "master\n\nwith a body é", "second@email.com");
+        git.checkout().setName("feature").call();
+        commit("c.java", "feature", "first@email.com");
+        git.checkout().setName("master").call();
+        git.merge().include(git.getRepository().resolve("feature")).setMessage("merge").call();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        git.close();
+    }
+
+    private void commit(String file, String message, String email) throws Exception {
+        Files.write(new File(folder.getRoot(), file).toPath(), message.getBytes(StandardCharsets.UTF_8));
+        git.add().addFilepattern(file).call();
+        git.commit().setMessage(message).setAuthor(new PersonIdent("author", email)).call();
+    }
+
+    private static void assertSameGraph(CommitGraph expected, CommitGraph actual) {
+        assertEquals(expected.log(), actual.log());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i, actual.indexOf(expected.sha(i)));
+            assertEquals(expected.parentCount(i), actual.parentCount(i));
+            for (int p = 0; p < expected.parentCount(i); p++) {
+                assertEquals(expected.parent(i, p), actual.parent(i, p));
+            }
+            assertEquals(expected.commitTime(i), actual.commitTime(i));
+            assertEquals(expected.authorEmail(i), actual.authorEmail(i));
+            assertEquals(expected.message(i), actual.message(i));
+        }
+    }
+
+    @Test
+    public void testCacheWrittenThenRead() throws Exception {
+        CommitGraph walked = CommitGraph.load(git.getRepository());
+
+        CommitGraph first = CommitGraphCache.load(git.getRepository());
+        assertTrue(Files.exists(cacheFile));
+        CommitGraph cached = CommitGraphCache.read(cacheFile, CommitGraph.resolveHead(git.getRepository()));
+
+        assertNotNull(cached);
+        assertSameGraph(walked, first);
+        assertSameGraph(walked, cached);
+        assertSameGraph(walked, CommitGraphCache.load(git.getRepository()));
+    }
+
+    @Test
+    public void testCacheInvalidatedWhenHeadMoves() throws Exception {
+        CommitGraphCache.load(git.getRepository());
+        ObjectId previousHead = CommitGraph.resolveHead(git.getRepository());
+
+        commit("d.java", "new commit", "third@email.com");
+        ObjectId head = CommitGraph.resolveHead(git.getRepository());
+        assertNull(CommitGraphCache.read(cacheFile, head));
+
+        CommitGraph graph = CommitGraphCache.load(git.getRepository());
+        assertEquals(5, graph.size());
+        assertEquals(head.name(), graph.sha(0));
+        assertNotNull(CommitGraphCache.read(cacheFile, head));
+        assertNull(CommitGraphCache.read(cacheFile, previousHead));
+    }
+
+    @Test
+    public void testInvalidCacheIgnored() throws Exception {
+        CommitGraphCache.load(git.getRepository());
+        byte[] content = Files.readAllBytes(cacheFile);
+        Files.write(cacheFile, Arrays.copyOf(content, content.length - 3));
+
+        assertNull(CommitGraphCache.read(cacheFile, CommitGraph.resolveHead(git.getRepository())));
+        CommitGraph graph = CommitGraphCache.load(git.getRepository());
+        assertSameGraph(CommitGraph.load(git.getRepository()), graph);
+        assertEquals(content.length, Files.size(cacheFile));
+    }
+
+    @Test
+    public void testRepositoryUsesCache() throws Exception {
+        Repository repository = new Repository(folder.getRoot().toString());
+        repository.setCommitGraphCached(true);
+        repository.initializeRepository();
+
+        assertEquals(4, repository.getLog().size());
+        assertTrue(Files.exists(cacheFile));
+        repository.getGitRepository().close();
+    }
+}
@@ -0,0 +1,144 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CommitGraphTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Git git;
+    private Repository repository;
+    private RevCommit root;
+    private RevCommit master;
+    private RevCommit feature;
+    private RevCommit merge;
+
+    /**
+     * <pre><code>
+     *     *   merge
+     *     |\
+     *     * | master
+     *     | * feature
+     *     |/
+     *     * root
+     * </code></pre>
+     */
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(folder.getRoot()).call();
+        root = commit("a.java", "root", "first@email.com");
+        git.branchCreate().setName("feature").call();
+        master = commit("b.java", "master\n\nwith a body", "second@email.com");
+        git.checkout().setName("feature").call();
+        feature = commit("c.java", "feature", "first@email.com");
+        git.checkout().setName("master").call();
+        git.merge().include(feature).setMessage("merge").call();
+        merge = git.log().setMaxCount(1).call().iterator().next();
+
+        repository = new Repository(folder.getRoot().toString());
+        repository.initializeRepository();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        repository.getGitRepository().close();
+        git.close();
+    }
+
+    private RevCommit commit(String file, String message, String email) throws Exception {
+        Files.write(new File(folder.getRoot(), file).toPath(), message.getBytes(StandardCharsets.UTF_8));
+        git.add().addFilepattern(file).call();
+        return git.commit().setMessage(message).setAuthor(new PersonIdent("author", email)).call();
+    }
+
+    @Test
+    public void testGraphStructure() throws Exception {
+        CommitGraph graph = repository.getCommitGraph();
+
+        assertEquals(4, graph.size());
+        assertEquals(0, graph.indexOf(merge.name()));
+        assertEquals(-1, graph.indexOf("unknown"));
+
+        int mergeIndex = graph.indexOf(merge.name());
+        assertEquals(2, graph.parentCount(mergeIndex));
+        assertEquals(master.name(), graph.sha(graph.parent(mergeIndex, 0)));
+        assertEquals(feature.name(), graph.sha(graph.parent(mergeIndex, 1)));
+        assertEquals(0, graph.parentCount(graph.indexOf(root.name())));
+
+        int masterIndex = graph.indexOf(master.name());
+        assertEquals("master\n\nwith a body", graph.message(masterIndex));
+        assertEquals("second@email.com", graph.authorEmail(masterIndex));
+        assertEquals(master.getCommitTime(), graph.commitTime(masterIndex));
+        assertEquals("first@email.com", graph.authorEmail(graph.indexOf(feature.name())));
+    }
+
+    @Test
+    public void testSameLogAsGit() throws Exception {
+        List<String> log = new ArrayList<>();
+        for (RevCommit commit : git.log().call()) {
+            log.add(commit.name());
+        }
+
+        assertEquals(log, repository.getLog());
+    }
+
+    @Test
+    public void testSameCommitsAsRevWalk() throws Exception {
+        CommitGraph graph = repository.getCommitGraph();
+        try (RevWalk walk = new RevWalk(git.getRepository())) {
+            for (String sha : graph.log()) {
+                RevCommit revCommit = walk.parseCommit(git.getRepository().resolve(sha));
+                Commit expectedParents = Commit.commitWithParents(revCommit);
+                Commit expectedDetails = Commit.commitWithDetails(revCommit);
+
+                Commit withParents = repository.getCommitWithParents(sha);
+                assertEquals(expectedParents, withParents);
+                assertEquals(expectedParents.parents, withParents.parents);
+
+                Commit withDetails = repository.getCommitWithDetails(sha);
+                assertEquals(expectedDetails, withDetails);
+                assertEquals(expectedDetails.date, withDetails.date);
+                assertEquals(expectedDetails.message, withDetails.message);
+                assertEquals(expectedDetails.authorEmail, withDetails.authorEmail);
+                assertEquals(0, withDetails.getParentCount());
+            }
+        }
+        assertEquals(merge.name(), repository.getHead().sha);
+    }
+
+    @Test
+    public void testShallowRepository() throws Exception {
+        // The root commit is cut from the history, along with the feature parent.
+        Files.write(new File(git.getRepository().getDirectory(), "shallow").toPath(),
+                (master.name() + "\n" + feature.name() + "\n").getBytes(StandardCharsets.UTF_8));
+        Repository shallow = new Repository(folder.getRoot().toString());
+        shallow.initializeRepository();
+        try {
+            CommitGraph graph = shallow.getCommitGraph();
+
+            assertEquals(3, graph.size());
+            assertEquals(-1, graph.indexOf(root.name()));
+            assertEquals(2, graph.parentCount(graph.indexOf(merge.name())));
+            assertEquals(0, graph.parentCount(graph.indexOf(master.name())));
+            assertEquals(0, graph.parentCount(graph.indexOf(feature.name())));
+        } finally {
+            shallow.getGitRepository().close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Build {@link CommitGraph} instances from in-memory commits, for the tests of its users.
+ */
+public final class CommitGraphs {
+    private CommitGraphs() {
+    }
+
+    /**
+     * Build the graph of the commits reachable from the given head through their {@link Commit#parents},
+     * with empty dates, authors and messages.
+     *
+     * @param head The graph HEAD, indexed first.
+     * @return The new {@link CommitGraph}.
+     */
+    public static CommitGraph reachableFrom(Commit head) {
+        List<Commit> commits = new ArrayList<>();
+        Map<String, Integer> indexes = new HashMap<>();
+        Deque<Commit> toVisit = new ArrayDeque<>();
+        toVisit.push(head);
+        while (!toVisit.isEmpty()) {
+            Commit commit = toVisit.pop();
+            if (indexes.putIfAbsent(commit.sha, commits.size()) == null) {
+                commits.add(commit);
+                for (Commit parent : commit.parents) {
+                    toVisit.push(parent);
+                }
+            }
+        }
+
+        String[] shas = new String[commits.size()];
+        int[] parentOffsets = new int[commits.size() + 1];
+        List<Integer> parents = new ArrayList<>();
+        for (int i = 0; i < commits.size(); i++) {
+            shas[i] = commits.get(i).sha;
+            parentOffsets[i] = parents.size();
+            for (Commit parent : commits.get(i).parents) {
+                parents.add(indexes.get(parent.sha));
+            }
+        }
+        parentOffsets[commits.size()] = parents.size();
+
+        return new CommitGraph(shas, parentOffsets, parents.stream().mapToInt(Integer::intValue).toArray(),
+                new int[commits.size()], new int[commits.size()], new String[]{""},
+                new int[commits.size() + 1], "");
+    }
+}
@@ -0,0 +1,122 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CommitTest {
+    private Commit previous;
+    private Commit current;
+    private Smell first;
+    private Smell second;
+    private Smell third;
+
+    @Before
+    public void setUp() throws Exception {
+        previous = new Commit("previous", 0);
+        current = new Commit("current", 1);
+        first = new Smell("MIM", "first", "file");
+        second = new Smell("MIM", "second", "file");
+        third = new Smell("MIM", "third", "file");
+    }
+
+    @Test
+    public void testIntroducedAndRefactored() {
+        previous.addSmells(Arrays.asList(first, second));
+        current.addSmells(Arrays.asList(third, second, new Smell("MIM", "fourth", "file")));
+
+        assertEquals(Arrays.asList(third, new Smell("MIM", "fourth", "file")), current.getIntroduced(previous));
+        assertEquals(Collections.singletonList(first), current.getRefactored(previous));
+    }
+
+    @Test
+    public void testSmellsWithDistinctParentsDiffer() {
+        Smell renamed = new Smell("MIM", "first", "file");
+        renamed.parent = second;
+        previous.addSmell(first);
+        current.addSmell(renamed);
+
+        assertEquals(Collections.singletonList(renamed), current.getIntroduced(previous));
+        assertEquals(Collections.singletonList(first), current.getRefactored(previous));
+    }
+
+    @Test
+    public void testRenamedSmells() {
+        Smell renamed = new Smell("MIM", "renamed", "file");
+        renamed.parent = first;
+        previous.addSmells(Arrays.asList(first, second));
+        current.addSmell(renamed);
+        current.setRenamedSmell(first, renamed);
+
+        assertTrue(current.getIntroduced(previous).isEmpty());
+        assertEquals(Collections.singletonList(second), current.getRefactored(previous));
+    }
+
+    @Test
+    public void testMergeCommit() {
+        previous.addSmells(Arrays.asList(first, second));
+        current.addMergedSmells(Arrays.asList(second, third));
+        current.addSmell(third);
+
+        // Smells from the merged branch are not introduced
+        assertTrue(current.getIntroduced(previous).isEmpty());
+        // Only the smells present on both branches can be refactored
+        assertEquals(Collections.singletonList(second), current.getRefactored(previous));
+    }
+
+    @Test
+    public void testPreviousInstance() {
+        Smell parent = new Smell("MIM", "parent", "file");
+        Smell child = new Smell("MIM", "first", "file");
+        child.parent = parent;
+        child.id = 3;
+        previous.addSmells(Arrays.asList(child, first));
+
+        assertSame(child, previous.getPreviousInstance(new Smell("MIM", "first", "file")));
+        Smell unknown = new Smell("MIM", "unknown", "file");
+        assertSame(unknown, previous.getPreviousInstance(unknown));
+        // The tested smell is expected without parent
+        assertSame(child, previous.getPreviousInstance(Smell.copyWithoutParent(child)));
+        Smell withParent = new Smell("MIM", "first", "file");
+        withParent.parent = parent;
+        assertSame(withParent, previous.getPreviousInstance(withParent));
+    }
+
+    @Test
+    public void testMergedInstance() {
+        Smell merged = new Smell("MIM", "first", "file");
+        merged.id = 4;
+        current.addMergedSmell(second);
+        current.addMergedSmells(Collections.singletonList(merged));
+
+        assertSame(merged, current.getMergedInstance(new Smell("MIM", "first", "file")));
+        assertSame(third, current.getMergedInstance(third));
+    }
+
+    @Test
+    public void testSharedDictionary() {
+        SmellDictionary dictionary = new SmellDictionary();
+        previous.setSmellDictionary(dictionary);
+        current.setSmellDictionary(dictionary);
+        previous.addSmells(Arrays.asList(first, second));
+        current.addSmells(Arrays.asList(third, second, third));
+
+        assertEquals(3, dictionary.size());
+        // Smells added twice are introduced once
+        assertEquals(Collections.singletonList(third), current.getIntroduced(previous));
+        assertEquals(Collections.singletonList(first), current.getRefactored(previous));
+        assertEquals(Arrays.asList(third, second, third), current.getSmells());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDictionaryChangeWithSmells() {
+        current.addSmell(first);
+        current.setSmellDictionary(new SmellDictionary());
+    }
+}
@@ -0,0 +1,105 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GitSummaryParserTest {
+    private GitSummaryParser parser;
+
+    @Before
+    public void setUp() throws Exception {
+        parser = new GitSummaryParser();
+    }
+
+    @Test
+    public void parseWholeOutput() {
+        CommitDetails details = parser.parse(Arrays.asList(
+                " app/src/main/java/{Old.java => New.java}        |  4 ++--",
+                " app/src/main/res/layout/main.xml               | 12 ++++++++----",
+                " app/src/main/res/drawable/icon.png             | Bin 0 -> 1234 bytes",
+                " README.md                                       |  3 +++",
+                " 4 files changed, 12 insertions(+), 7 deletions(-)",
+                " create mode 100644 README.md",
+                " rename app/src/main/java/{Old.java => New.java} (90%)",
+                " mode change 100644 => 100755 gradlew",
+                ""
+        ));
+
+        assertEquals(4, details.diff.getChangedFiles());
+        assertEquals(12, details.diff.getAddition());
+        assertEquals(7, details.diff.getDeletion());
+
+        assertEquals(1, details.renames.size());
+        assertEquals("app/src/main/java/Old.java", details.renames.get(0).oldFile);
+        assertEquals("app/src/main/java/New.java", details.renames.get(0).newFile);
+        assertEquals(90, details.renames.get(0).similarity);
+
+        // The renamed and binary files are not considered, as with GitChangedFile#parseFileChange.
+        assertEquals(2, details.changedFiles.size());
+        assertEquals("app/src/main/res/layout/main.xml", details.changedFiles.get(0).name);
+        assertEquals(12, details.changedFiles.get(0).changeSize);
+        assertEquals("README.md", details.changedFiles.get(1).name);
+        assertEquals(3, details.changedFiles.get(1).changeSize);
+    }
+
+    @Test
+    public void parseEmptyOutput() {
+        CommitDetails details = parser.parse(Collections.emptyList());
+
+        assertEquals(GitDiff.EMPTY, details.diff);
+        assertTrue(details.renames.isEmpty());
+        assertTrue(details.changedFiles.isEmpty());
+    }
+
+    @Test
+    public void parserReusedBetweenOutputs() {
+        parser.parse(Arrays.asList(
+                " a.java | 2 +-",
+                " 1 file changed, 1 insertion(+), 1 deletion(-)",
+                " rename b.java => c.java (100%)"
+        ));
+        CommitDetails details = parser.parse(Arrays.asList(
+                " d.java | 1 -",
+                " 1 file changed, 1 deletion(-)"
+        ));
+
+        assertEquals(1, details.diff.getChangedFiles());
+        assertEquals(0, details.diff.getAddition());
+        assertEquals(1, details.diff.getDeletion());
+        assertTrue(details.renames.isEmpty());
+        assertEquals(1, details.changedFiles.size());
+        assertEquals("d.java", details.changedFiles.get(0).name);
+    }
+
+    @Test
+    public void invalidLinesIgnored() {
+        CommitDetails details = parser.parse(Arrays.asList(
+                " a.java | 99999999999 +",
+                " b.java | 2 +x",
+                " rename {a => } (100%)",
+                " rename a.java => b.java (99999999999%)",
+                " 99999999999 files changed, 1 insertion(+)",
+                " 2 files changed, 3 insertions(+)"
+        ));
+
+        assertTrue(details.changedFiles.isEmpty());
+        assertTrue(details.renames.isEmpty());
+        assertEquals(2, details.diff.getChangedFiles());
+        assertEquals(3, details.diff.getAddition());
+    }
+
+    @Test
+    public void parseIntBounds() {
+        assertEquals(0, GitSummaryParser.parseInt("0", 0, 1));
+        assertEquals(Integer.MAX_VALUE, GitSummaryParser.parseInt("2147483647", 0, 10));
+        assertEquals(-1, GitSummaryParser.parseInt("2147483648", 0, 10));
+        assertEquals(-1, GitSummaryParser.parseInt("", 0, 0));
+        assertEquals(42, GitSummaryParser.parseInt("| 42 +", 2, 4));
+    }
+}
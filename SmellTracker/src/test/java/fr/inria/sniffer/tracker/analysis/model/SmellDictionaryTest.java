@@ -0,0 +1,78 @@
+package fr.inria.sniffer.tracker.analysis.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class SmellDictionaryTest {
+    private SmellDictionary dictionary;
+
+    @Before
+    public void setUp() {
+        dictionary = new SmellDictionary();
+    }
+
+    @Test
+    public void equalSmellsShareTheirCode() {
+        Smell first = new Smell("MIM", "first", "file");
+        int code = dictionary.encode(first);
+
+        assertEquals(code, dictionary.encode(new Smell("MIM", "first", "file")));
+        assertEquals(code, dictionary.find(new Smell("MIM", "first", "file")));
+        assertNotEquals(code, dictionary.encode(new Smell("LIC", "first", "file")));
+        assertNotEquals(code, dictionary.encode(new Smell("MIM", "first", "other")));
+        assertSame(first, dictionary.decode(code));
+    }
+
+    @Test
+    public void parentsAreEncoded() {
+        Smell parent = new Smell("MIM", "parent", "file");
+        Smell child = new Smell("MIM", "child", "file");
+        child.parent = parent;
+        Smell otherParent = new Smell("MIM", "child", "file");
+        otherParent.parent = new Smell("MIM", "other", "file");
+
+        int code = dictionary.encode(child);
+        assertEquals(3, dictionary.size());
+        assertEquals(0, dictionary.find(parent));
+        assertNotEquals(code, dictionary.encode(otherParent));
+        assertEquals(-1, dictionary.find(new Smell("MIM", "unknown", "file")));
+
+        // The child identity without parent is known, but not decoded until added.
+        int base = dictionary.baseCode(code);
+        assertNotEquals(code, base);
+        assertEquals(base, dictionary.find(Smell.copyWithoutParent(child)));
+        assertEquals(base, dictionary.baseCode(base));
+        assertEquals(null, dictionary.decode(base));
+        Smell withoutParent = Smell.copyWithoutParent(child);
+        assertEquals(base, dictionary.encode(withoutParent));
+        assertSame(withoutParent, dictionary.decode(base));
+    }
+
+    @Test
+    public void identifiedInstanceIsKept() {
+        Smell unidentified = new Smell("MIM", "first", "file");
+        Smell identified = new Smell("MIM", "first", "file");
+        identified.id = 3;
+        Smell other = new Smell("MIM", "first", "file");
+        other.id = 4;
+
+        int code = dictionary.encode(unidentified);
+        dictionary.encode(identified);
+        dictionary.encode(other);
+
+        assertSame(identified, dictionary.decode(code));
+    }
+
+    @Test
+    public void dictionaryGrows() {
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, dictionary.encode(new Smell("MIM", "smell" + i, "file")));
+        }
+        assertEquals(1000, dictionary.size());
+        assertEquals("smell999", dictionary.decode(999).instance);
+    }
+}
@@ -0,0 +1,121 @@
+package fr.inria.sniffer.tracker.analysis.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class AsyncPersistenceTest {
+    private Persistence persistence;
+    private AsyncPersistence asyncPersistence;
+
+    @Before
+    public void setUp() throws Exception {
+        persistence = mock(Persistence.class);
+        asyncPersistence = new AsyncPersistence(persistence, 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        asyncPersistence.close();
+    }
+
+    @Test
+    public void testOperationsOrder() {
+        List<Map<String, Object>> result = Collections.singletonList(Collections.singletonMap("id", 1));
+        doReturn(result).when(persistence).query("query");
+        ParameterizedStatement statement = new ParameterizedStatement("statement", 1);
+
+        asyncPersistence.addStatements("first");
+        asyncPersistence.addParameterizedStatements(statement);
+        asyncPersistence.commit();
+        asyncPersistence.addStatements("second");
+        assertEquals(result, asyncPersistence.query("query"));
+        asyncPersistence.commit();
+        asyncPersistence.flush();
+
+        InOrder order = inOrder(persistence);
+        order.verify(persistence).addStatements("first");
+        order.verify(persistence).addParameterizedStatements(statement);
+        order.verify(persistence).commit();
+        order.verify(persistence).addStatements("second");
+        order.verify(persistence).query("query");
+        order.verify(persistence).commit();
+        order.verify(persistence).flush();
+    }
+
+    @Test
+    public void testWritesDoNotWait() throws Exception {
+        CountDownLatch commitStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            commitStarted.countDown();
+            release.await();
+            return null;
+        }).when(persistence).commit();
+
+        asyncPersistence.commit();
+        assertTrue(commitStarted.await(5, TimeUnit.SECONDS));
+        // The caller continues while the writer executes the commit.
+        asyncPersistence.addStatements("statement");
+        release.countDown();
+        asyncPersistence.flush();
+        verify(persistence).addStatements("statement");
+    }
+
+    @Test
+    public void testFailureIsSurfaced() {
+        doThrow(new IllegalStateException("failure")).when(persistence).commit();
+
+        asyncPersistence.commit();
+        try {
+            asyncPersistence.flush();
+            fail("Writer failure should be thrown");
+        } catch (PersistenceException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        // The failure is only reported once, and the writer keeps going.
+        asyncPersistence.addStatements("statement");
+        asyncPersistence.flush();
+        verify(persistence).addStatements("statement");
+    }
+
+    @Test
+    public void testStreamConsumerCanWrite() {
+        doAnswer(invocation -> {
+            Consumer<Map<String, Object>> consumer = invocation.getArgument(1);
+            for (int i = 0; i < 5; i++) {
+                consumer.accept(Collections.singletonMap("id", i));
+            }
+            return 5;
+        }).when(persistence).streamQuery(anyString(), any());
+
+        int count = asyncPersistence.streamQuery("query", row -> {
+            asyncPersistence.addStatements("update " + row.get("id"));
+            asyncPersistence.commit();
+        });
+
+        assertEquals(5, count);
+        verify(persistence).addStatements("update 4");
+    }
+}
@@ -0,0 +1,176 @@
+package fr.inria.sniffer.tracker.analysis.persistence;
+
+import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCProjectQueries;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.ProjectQueries;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JDBCPersistenceTest extends PostgresTestCase {
+    private ProjectQueries projectQueries;
+    private JDBCPersistence jdbcPersistence;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        projectQueries = new JDBCProjectQueries();
+        jdbcPersistence = (JDBCPersistence) persistence;
+    }
+
+    /**
+     * Count the projects from another connection, i.e. only seeing the committed ones.
+     */
+    private long committedProjects() throws SQLException {
+        try (Connection other = openConnection();
+             Statement statement = other.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT count(*) AS cnt FROM tracker.project")) {
+            resultSet.next();
+            return resultSet.getLong("cnt");
+        }
+    }
+
+    @Test
+    public void testStatementGranularityCommitsEachStatement() throws Exception {
+        executeSuccess(projectQueries.projectInsertStatement("first", "url"));
+
+        assertEquals(1, committedProjects());
+    }
+
+    @Test
+    public void testQueryGranularity() throws Exception {
+        jdbcPersistence.setTransactionGranularity(TransactionGranularity.QUERY);
+
+        executeSuccess(projectQueries.projectInsertStatement("first", "url"));
+        persistence.addStatements(projectQueries.projectInsertStatement("second", "url"));
+        persistence.commit();
+        assertEquals(2, countElements("project"));
+        assertEquals(0, committedProjects());
+
+        persistence.endTransaction(TransactionGranularity.SMELL_TYPE);
+        assertEquals(0, committedProjects());
+
+        persistence.endTransaction(TransactionGranularity.QUERY);
+        assertEquals(2, committedProjects());
+    }
+
+    @Test
+    public void testEndTransactionExecutesPendingStatements() throws Exception {
+        jdbcPersistence.setTransactionGranularity(TransactionGranularity.PROJECT);
+
+        persistence.addStatements(projectQueries.projectInsertStatement("first", "url"));
+        persistence.endTransaction(TransactionGranularity.QUERY);
+        assertEquals(0, committedProjects());
+
+        persistence.endTransaction(TransactionGranularity.PROJECT);
+        assertEquals(1, committedProjects());
+    }
+
+    @Test
+    public void testRowsGranularity() throws Exception {
+        jdbcPersistence.setTransactionGranularity(TransactionGranularity.ROWS);
+        jdbcPersistence.setCommitInterval(2);
+
+        executeSuccess(projectQueries.projectInsertStatement("first", "url"));
+        assertEquals(0, committedProjects());
+
+        executeSuccess(projectQueries.projectInsertStatement("second", "url"));
+        assertEquals(2, committedProjects());
+    }
+
+    @Test
+    public void testFailingBatchOnlyDiscardsItsRows() throws Exception {
+        jdbcPersistence.setTransactionGranularity(TransactionGranularity.PROJECT);
+
+        executeSuccess(projectQueries.projectInsertStatement("first", "url"));
+        persistence.addStatements(
+                projectQueries.projectInsertStatement("second", "url"),
+                "INSERT INTO project (id, name) VALUES ('not an id', 'third');"
+        );
+        persistence.commit();
+        executeFailure("INSERT INTO unknown_table VALUES (1);");
+        executeSuccess(projectQueries.projectInsertStatement("fourth", "url"));
+
+        persistence.endTransaction(TransactionGranularity.PROJECT);
+        assertEquals(2, committedProjects());
+    }
+
+    @Test
+    public void testFlushReportsFailedWrites() throws Exception {
+        persistence.addParameterizedStatements(
+                new ParameterizedStatement("INSERT INTO project (id, name) VALUES (?, ?)", "not an id", "first"));
+        persistence.commit();
+        try {
+            persistence.flush();
+            fail("The failed batch should be reported");
+        } catch (PersistenceException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+
+        // The failure is only reported once.
+        executeSuccess(projectQueries.projectInsertStatement("second", "url"));
+        persistence.flush();
+        assertEquals(1, committedProjects());
+    }
+
+    @Test
+    public void testWriteBehindReportsFailedWrites() throws Exception {
+        Persistence writeBehind = new AsyncPersistence(persistence);
+
+        writeBehind.addStatements("INSERT INTO project (id, name) VALUES ('not an id', 'first');");
+        writeBehind.commit();
+        try {
+            writeBehind.flush();
+            fail("The failed batch should be reported");
+        } catch (PersistenceException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+        writeBehind.addStatements(projectQueries.projectInsertStatement("second", "url"));
+        writeBehind.commit();
+        writeBehind.flush();
+        assertEquals(1, committedProjects());
+    }
+
+    @Test
+    public void testCommitIsDeferredWhileStreaming() throws Exception {
+        executeSuccess(projectQueries.projectInsertStatement("first", "url"));
+        executeSuccess(projectQueries.projectInsertStatement("second", "url"));
+        jdbcPersistence.setTransactionGranularity(TransactionGranularity.BATCH);
+        jdbcPersistence.setFetchSize(1);
+
+        int streamed = persistence.streamQuery("SELECT name FROM project WHERE name NOT LIKE 'copy%'",
+                row -> executeSuccess(projectQueries.projectInsertStatement("copy-" + row.get("name"), "url")));
+
+        assertEquals(2, streamed);
+        assertEquals(4, committedProjects());
+    }
+
+    @Test
+    public void testCloseExecutesPendingStatements() throws Exception {
+        JDBCPersistence closing = new PostgresqlPersistence(openConnection());
+        closing.initialize();
+        closing.setTransactionGranularity(TransactionGranularity.PROJECT);
+
+        closing.addStatements(projectQueries.projectInsertStatement("first", "url"));
+        closing.addParameterizedStatements(
+                new ParameterizedStatement("INSERT INTO project (name, url) VALUES (?, ?)", "second", "url"));
+        closing.close();
+
+        assertEquals(2, committedProjects());
+    }
+
+    @Test
+    public void testSynchronousCommit() throws Exception {
+        jdbcPersistence.setSynchronousCommit(false);
+
+        assertEquals("off", persistence.query("SHOW synchronous_commit").get(0).get("synchronous_commit"));
+    }
+}
@@ -7,17 +7,19 @@ import ru.yandex.qatools.embed.postgresql.EmbeddedPostgres;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
 
 import static ru.yandex.qatools.embed.postgresql.distribution.Version.Main.V9_6;
 
 public abstract class PostgresTestCase extends PersistenceTestCase {
     private Connection connection;
     private EmbeddedPostgres postgres;
+    private String url;
 
     @Before
     public void setUp() throws Exception {
         postgres = new EmbeddedPostgres(V9_6);
-        final String url = postgres.start("localhost", Network.getFreeServerPort(),
+        url = postgres.start("localhost", Network.getFreeServerPort(),
                 "tracker-tests", "tracker", "tracker");
 
         connection = DriverManager.getConnection(url);
@@ -29,6 +31,14 @@ public abstract class PostgresTestCase extends PersistenceTestCase {
         return new PostgresqlPersistence(connection);
     }
 
+    /**
+     * @return A new connection to the test database, the caller is responsible for closing it.
+     * @throws SQLException If the connection could not be opened.
+     */
+    protected Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(url);
+    }
+
     @After
     public void tearDown() throws Exception {
         super.tearDown();
@@ -3,6 +3,7 @@ package fr.inria.sniffer.tracker.analysis.persistence.queries;
 import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.GitDiff;
 import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.JDBCPersistence;
 import fr.inria.sniffer.tracker.analysis.persistence.PostgresTestCase;
 import fr.inria.sniffer.tracker.analysis.persistence.SmellCategory;
 import org.joda.time.DateTime;
@@ -17,6 +18,7 @@ import java.util.Map;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class JDBCBranchQueriesTest extends PostgresTestCase {
     private DeveloperQueries developerQueries;
@@ -194,6 +196,59 @@ public class JDBCBranchQueriesTest extends PostgresTestCase {
         assertEquals(count, getBranchCommitCount());
     }
 
+    @Test
+    public void testParameterizedBranchInsertion() {
+        Commit branchCommit = prepareCommit("sha", 1);
+        Commit anotherCommit = prepareCommit("another", 3);
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedBranchInsertion(projectId, 0, null, null),
+                queries.parameterizedBranchInsertion(projectId, 1, originCommit, mergedIntoCommit)
+        );
+        persistence.addParameterizedStatements(
+                queries.parameterizedBranchCommitInsertion(projectId, 0, originCommit.sha, 0),
+                queries.parameterizedBranchCommitInsertion(projectId, 0, mergedIntoCommit.sha, 1),
+                queries.parameterizedBranchCommitInsertion(projectId, 1, branchCommit.sha, 0),
+                queries.parameterizedBranchCommitInsertion(projectId, 1, anotherCommit.sha, 1)
+        );
+        persistence.commit();
+        assertEquals(2, getBranchCount());
+        assertEquals(4, getBranchCommitCount());
+
+        List<Map<String, Object>> result = persistence.query("SELECT * FROM branch WHERE ordinal = 1");
+        assertEquals(originCommitId, result.get(0).get("parent_commit"));
+        assertEquals(mergedIntoCommitId, result.get(0).get("merged_into"));
+        result = persistence.query("SELECT * FROM branch WHERE ordinal = 0");
+        assertEquals(null, result.get(0).get("parent_commit"));
+        assertEquals(null, result.get(0).get("merged_into"));
+    }
+
+    @Test
+    public void testCopyBranchCommitInsertion() {
+        ((JDBCPersistence) persistence).setCopyEnabled(true);
+        // Force the copy to be split.
+        ((JDBCPersistence) persistence).setCopyBufferSize(10);
+        Commit branchCommit = prepareCommit("sha", 1);
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedBranchInsertion(projectId, 0, null, null),
+                queries.parameterizedBranchCommitInsertion(projectId, 0, originCommit.sha, 0),
+                queries.parameterizedBranchCommitInsertion(projectId, 0, branchCommit.sha, 1),
+                queries.parameterizedBranchCommitInsertion(projectId, 0, mergedIntoCommit.sha, 2),
+                queries.parameterizedBranchInsertion(projectId, 1, originCommit, mergedIntoCommit),
+                queries.parameterizedBranchCommitInsertion(projectId, 1, branchCommit.sha, 0),
+                // Not existing commits are skipped
+                queries.parameterizedBranchCommitInsertion(projectId, 1, "unknown", 1)
+        );
+        persistence.commit();
+        assertEquals(2, getBranchCount());
+        assertEquals(4, getBranchCommitCount());
+
+        List<Map<String, Object>> result = persistence.query(queries.lastCommitShaQuery(projectId,
+                (int) persistence.query(queries.idFromOrdinalQueryStatement(projectId, 0)).get(0).get("id")));
+        assertEquals(mergedIntoCommit.sha, result.get(0).get("sha1"));
+    }
+
     @Test
     public void testIdFromOrdinalQueryStatement() {
         List<Map<String, Object>> result;
@@ -364,6 +419,59 @@ public class JDBCBranchQueriesTest extends PostgresTestCase {
         assertEquals(anotherCommit.sha, result.get(0).get("sha1"));
     }
 
+    @Test
+    public void testLastAnalyzedCommitQuery() {
+        List<Map<String, Object>> result;
+
+        Commit first = generateCommit("first", 3);
+        first.setInPaprika(true);
+        int firstId = insertCommitReturnId(projectId, first);
+        Commit notInDetector = generateCommit("notInDetector", 4);
+        int notInDetectorId = insertCommitReturnId(projectId, notInDetector);
+        Commit second = generateCommit("second", 5);
+        second.setInPaprika(true);
+        int secondId = insertCommitReturnId(projectId, second);
+        Commit newCommit = generateCommit("new", 6);
+        newCommit.setInPaprika(true);
+        insertCommitReturnId(projectId, newCommit);
+
+        int branchId = insertBranch(projectId, 0, null, null);
+        executeSuccess(queries.branchCommitInsertionQuery(projectId, 0, first.sha, 0));
+        executeSuccess(queries.branchCommitInsertionQuery(projectId, 0, notInDetector.sha, 1));
+        executeSuccess(queries.branchCommitInsertionQuery(projectId, 0, second.sha, 2));
+        executeSuccess(queries.branchCommitInsertionQuery(projectId, 0, newCommit.sha, 3));
+
+        // No commit analyzed
+        result = persistence.query(queries.lastAnalyzedCommitQuery(projectId, branchId, firstId - 1));
+        assertTrue(result.isEmpty());
+
+        // The commits not in detector are ignored
+        result = persistence.query(queries.lastAnalyzedCommitQuery(projectId, branchId, notInDetectorId));
+        assertEquals(first.sha, result.get(0).get("sha1"));
+        assertEquals(firstId, result.get(0).get("id"));
+
+        // The commits inserted after the last analyzed one are ignored
+        result = persistence.query(queries.lastAnalyzedCommitQuery(projectId, branchId, secondId));
+        assertEquals(second.sha, result.get(0).get("sha1"));
+        assertEquals(secondId, result.get(0).get("id"));
+    }
+
+    @Test
+    public void testLastBranchOrdinalQuery() {
+        List<Map<String, Object>> result;
+
+        // No branch means a null ordinal
+        result = persistence.query(queries.lastBranchOrdinalQuery(projectId));
+        assertNull(result.get(0).get("ordinal"));
+
+        insertBranch(projectId, 0, null, null);
+        insertBranch(projectId, 3, originCommit, mergedIntoCommit);
+        insertBranch(projectId, 1, originCommit, mergedIntoCommit);
+
+        result = persistence.query(queries.lastBranchOrdinalQuery(projectId));
+        assertEquals(3, result.get(0).get("ordinal"));
+    }
+
     @Test
     public void testLastCommitIdQuery() {
         List<Map<String, Object>> result;
@@ -445,6 +553,35 @@ public class JDBCBranchQueriesTest extends PostgresTestCase {
         assertEquals(4, result.get(0).get("ordinal"));
     }
 
+    @Test
+    public void testBranchCommitsQuery() {
+        List<Map<String, Object>> result;
+        Commit branchCommit = prepareCommit("sha", 0);
+        Commit anotherCommit = prepareCommit("another", 4);
+
+        result = persistence.query(queries.branchCommitsQuery(projectId));
+        assertTrue(result.isEmpty());
+
+        int firstBranchID = insertBranch(projectId, 4, originCommit, mergedIntoCommit);
+        int secondBranchID = insertBranch(projectId, 5, mergedIntoCommit, originCommit);
+        executeSuccess(queries.branchCommitInsertionQuery(projectId, 5, branchCommit.sha, 3));
+        executeSuccess(queries.branchCommitInsertionQuery(projectId, 4, branchCommit.sha, 5));
+        executeSuccess(queries.branchCommitInsertionQuery(projectId, 4, anotherCommit.sha, 1));
+
+        // Ordered by branch
+        result = persistence.query(queries.branchCommitsQuery(projectId));
+        assertEquals(3, result.size());
+        assertEquals(firstBranchID, result.get(0).get("branch_id"));
+        assertEquals(firstBranchID, result.get(1).get("branch_id"));
+        assertEquals(secondBranchID, result.get(2).get("branch_id"));
+        assertEquals(branchCommit.sha, result.get(2).get("sha1"));
+        assertEquals(3, result.get(2).get("ordinal"));
+
+        // Other projects are not retrieved
+        result = persistence.query(queries.branchCommitsQuery(projectId + 1));
+        assertTrue(result.isEmpty());
+    }
+
     @Test
     public void testParentCommitSmellsQuery() {
         List<Map<String, Object>> result;
@@ -1,7 +1,10 @@
 package fr.inria.sniffer.tracker.analysis.persistence.queries;
 
+import fr.inria.sniffer.tracker.analysis.persistence.JDBCPersistence;
+import fr.inria.sniffer.tracker.analysis.persistence.PersistenceException;
 import fr.inria.sniffer.tracker.analysis.persistence.PostgresTestCase;
 import fr.inria.sniffer.tracker.analysis.model.Commit;
+import fr.inria.sniffer.tracker.analysis.model.GitChangedFile;
 import fr.inria.sniffer.tracker.analysis.model.GitDiff;
 import fr.inria.sniffer.tracker.analysis.model.GitRename;
 import org.joda.time.DateTime;
@@ -17,6 +20,7 @@ import static junit.framework.TestCase.assertNull;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 public class JDBCCommitQueriesTest extends PostgresTestCase {
     private DeveloperQueries developerQueries;
@@ -134,6 +138,133 @@ public class JDBCCommitQueriesTest extends PostgresTestCase {
         assertEquals(count, getRenameCount());
     }
 
+    @Test
+    public void testParameterizedCommitInsertion() {
+        Commit commit = generateCommit("sha", 1);
+        Commit merge = new Commit("merge", 2, new DateTime(), "test $$ subString ' \" work $", this.mainDev,
+                Arrays.asList(generateCommit("parent", 0), commit));
+        Commit stringInserted = new Commit("stringSha", 3, merge.date, merge.message, this.mainDev, new ArrayList<>());
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedCommitInsertion(projectId, commit, GitDiff.EMPTY),
+                queries.parameterizedCommitInsertion(projectId, merge, new GitDiff(3, 2, 1)),
+                // We can't insert the same sha1
+                queries.parameterizedCommitInsertion(projectId, commit, GitDiff.EMPTY)
+        );
+        persistence.commit();
+        executeSuccess(queries.commitInsertionStatement(projectId, stringInserted, GitDiff.EMPTY));
+        assertEquals(3, getCommitCount());
+
+        List<Map<String, Object>> result = persistence.query("SELECT * FROM commit_entry WHERE sha1 = 'merge'");
+        Map<String, Object> inserted = result.get(0);
+        assertEquals(2, inserted.get("ordinal"));
+        assertEquals(3, inserted.get("additions"));
+        assertEquals(2, inserted.get("deletions"));
+        assertEquals(1, inserted.get("files_changed"));
+        assertEquals(persistence.query(queries.idFromShaQuery(projectId, commit.sha)).get(0).get("id"),
+                inserted.get("merged_commit_id"));
+
+        // Both statements store the same values
+        Map<String, Object> reference = persistence.query("SELECT * FROM commit_entry WHERE sha1 = 'stringSha'").get(0);
+        assertEquals(reference.get("message"), inserted.get("message"));
+        assertEquals(reference.get("date"), inserted.get("date"));
+        assertEquals(reference.get("developer_id"), inserted.get("developer_id"));
+    }
+
+    @Test
+    public void testCopyCommitInsertion() {
+        ((JDBCPersistence) persistence).setCopyEnabled(true);
+        Commit parent = generateCommit("parent", 0);
+        Commit commit = generateCommit("sha", 1, "multi\nline\tmessage with \\ backslash");
+        Commit merge = new Commit("merge", 2, new DateTime(), "message", this.mainDev, Arrays.asList(parent, commit));
+        GitRename rename = new GitRename("old", "new", 100);
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedCommitInsertion(projectId, merge, new GitDiff(3, 2, 1)),
+                queries.parameterizedCommitInsertion(projectId, parent, GitDiff.EMPTY),
+                queries.parameterizedCommitInsertion(projectId, commit, GitDiff.EMPTY),
+                queries.parameterizedCommitInsertion(projectId, commit, GitDiff.EMPTY),
+                // Copied commits are loaded before the following statements
+                queries.parameterizedFileRenameInsertion(projectId, commit.sha, rename)
+        );
+        persistence.commit();
+        assertEquals(3, getCommitCount());
+        assertEquals(1, getRenameCount());
+
+        // Merged commit is bound even if inserted later in the copy
+        Map<String, Object> inserted = persistence.query("SELECT * FROM commit_entry WHERE sha1 = 'merge'").get(0);
+        assertEquals(3, inserted.get("additions"));
+        assertEquals(persistence.query(queries.idFromShaQuery(projectId, commit.sha)).get(0).get("id"),
+                inserted.get("merged_commit_id"));
+
+        // Values are stored as with the statements
+        inserted = persistence.query("SELECT * FROM commit_entry WHERE sha1 = 'sha'").get(0);
+        assertEquals(" " + commit.message + " ", inserted.get("message"));
+        assertNull(inserted.get("merged_commit_id"));
+    }
+
+    @Test
+    public void testCopyCommitWithoutDeveloperFails() {
+        Commit commit = new Commit("sha", 1, new DateTime(), "message", "unknown@email.com", new ArrayList<>());
+
+        // The copied commit fails as the inserted one, instead of being dropped
+        for (boolean copyEnabled : new boolean[]{false, true}) {
+            ((JDBCPersistence) persistence).setCopyEnabled(copyEnabled);
+            persistence.addParameterizedStatements(queries.parameterizedCommitInsertion(projectId, commit, GitDiff.EMPTY));
+            persistence.commit();
+            try {
+                persistence.flush();
+                fail("The commit without developer should be reported");
+            } catch (PersistenceException e) {
+                assertEquals(0, getCommitCount());
+            }
+        }
+    }
+
+    @Test
+    public void testParameterizedFileRenameInsertion() {
+        Commit commit = generateCommit("sha", 1);
+        GitRename rename = new GitRename("old", "new", 100);
+        executeSuccess(queries.commitInsertionStatement(projectId, commit, GitDiff.EMPTY));
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedFileRenameInsertion(projectId, commit.sha, rename),
+                queries.parameterizedFileRenameInsertion(projectId, commit.sha, new GitRename("new", "old", 50)),
+                // We can't insert the same rename in the same commit of the same project
+                queries.parameterizedFileRenameInsertion(projectId, commit.sha, rename)
+        );
+        persistence.commit();
+        assertEquals(2, getRenameCount());
+    }
+
+    @Test
+    public void testStreamQuery() {
+        ((JDBCPersistence) persistence).setFetchSize(2);
+        for (int i = 0; i < 5; i++) {
+            executeSuccess(queries.commitInsertionStatement(projectId, generateCommit("sha" + i, i), GitDiff.EMPTY));
+        }
+        String query = "SELECT sha1, ordinal FROM commit_entry ORDER BY ordinal";
+
+        List<String> shas = new ArrayList<>();
+        int count = persistence.streamQuery(query, row -> row.getString("sha1"), shas::add);
+        assertEquals(5, count);
+        assertEquals(Arrays.asList("sha0", "sha1", "sha2", "sha3", "sha4"), shas);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        assertEquals(5, persistence.streamQuery(query, rows::add));
+        assertEquals(persistence.query(query), rows);
+
+        // Statements can be executed while streaming
+        persistence.streamQuery(query, row -> row.getInt("ordinal"), ordinal -> {
+            persistence.addStatements("UPDATE commit_entry SET additions = " + ordinal + " WHERE ordinal = " + ordinal);
+            persistence.commit();
+        });
+        assertEquals(4, persistence.query("SELECT additions FROM commit_entry WHERE sha1 = 'sha4'").get(0).get("additions"));
+
+        assertEquals(-1, persistence.streamQuery("SELECT * FROM unknown_table", rows::add));
+        assertEquals(5, persistence.streamQuery(query, rows::add));
+    }
+
     @Test
     public void testIdFromShaQuery() {
         List<Map<String, Object>> result;
@@ -158,6 +289,36 @@ public class JDBCCommitQueriesTest extends PostgresTestCase {
         assertEquals(2, result.get(0).get("id"));
     }
 
+    @Test
+    public void testLoadCommitIds() {
+        Commit commit = generateCommit("sha", 1);
+        executeSuccess(queries.commitInsertionStatement(projectId, commit, GitDiff.EMPTY));
+        GitRename rename = new GitRename("old", "new", 100);
+
+        // Not loaded commits are referenced through a query
+        assertNull(queries.cachedCommitId(projectId, commit.sha));
+        assertEquals("(" + queries.idFromShaQuery(projectId, commit.sha) + ")",
+                queries.commitIdReference(projectId, commit.sha));
+
+        assertEquals(1, queries.loadCommitIds(persistence, projectId));
+        Object commitId = persistence.query(queries.idFromShaQuery(projectId, commit.sha)).get(0).get("id");
+        assertEquals(commitId, queries.cachedCommitId(projectId, commit.sha));
+        assertEquals(String.valueOf(commitId), queries.commitIdReference(projectId, commit.sha));
+        assertNull(queries.cachedCommitId(projectId + 1, commit.sha));
+        assertNull(queries.cachedCommitId(projectId, "anotherSha"));
+
+        // Loaded commits are referenced by their identifier
+        executeSuccess(queries.fileRenameInsertionStatement(projectId, commit.sha, rename));
+        persistence.addParameterizedStatements(
+                queries.parameterizedFileRenameInsertion(projectId, commit.sha, new GitRename("new", "old", 50)),
+                queries.parameterizedFileRenameInsertion(projectId, commit.sha, rename)
+        );
+        persistence.commit();
+        assertEquals(2, getRenameCount());
+        assertEquals(commitId, persistence.query("SELECT commit_id FROM file_rename WHERE old_file = 'new'")
+                .get(0).get("commit_id"));
+    }
+
     @Test
     public void testShaFromOrdinalQuery() {
         List<Map<String, Object>> result;
@@ -213,6 +374,72 @@ public class JDBCCommitQueriesTest extends PostgresTestCase {
         assertEquals(fifthOrdinal.sha, result.get(0).get("sha1"));
     }
 
+    @Test
+    public void testLastProjectCommitIdQuery() {
+        List<Map<String, Object>> result;
+
+        // No commit means a null identifier
+        result = persistence.query(queries.lastProjectCommitIdQuery(projectId));
+        assertNull(result.get(0).get("id"));
+
+        Commit commit = generateCommit("sha", 5);
+        executeSuccess(queries.commitInsertionStatement(projectId, commit, GitDiff.EMPTY));
+        int commitId = (int) persistence.query(queries.idFromShaQuery(projectId, commit.sha)).get(0).get("id");
+        result = persistence.query(queries.lastProjectCommitIdQuery(projectId));
+        assertEquals(commitId, result.get(0).get("id"));
+
+        // The last inserted commit is returned, whatever its ordinal
+        Commit anotherCommit = generateCommit("anotherSha", 1);
+        executeSuccess(queries.commitInsertionStatement(projectId, anotherCommit, GitDiff.EMPTY));
+        int anotherCommitId = (int) persistence.query(queries.idFromShaQuery(projectId, anotherCommit.sha))
+                .get(0).get("id");
+        result = persistence.query(queries.lastProjectCommitIdQuery(projectId));
+        assertEquals(anotherCommitId, result.get(0).get("id"));
+
+        // Commits of other projects are ignored
+        int secondProjectID = createProject("anotherProject");
+        executeSuccess(queries.commitInsertionStatement(secondProjectID, generateCommit("sha", 1), GitDiff.EMPTY));
+        result = persistence.query(queries.lastProjectCommitIdQuery(projectId));
+        assertEquals(anotherCommitId, result.get(0).get("id"));
+    }
+
+    @Test
+    public void testCommitsWithoutChangedFileQuery() {
+        List<Map<String, Object>> result;
+        Commit commit = generateCommit("sha", 0);
+        Commit anotherCommit = generateCommit("anotherSha", 1);
+        executeSuccess(queries.commitInsertionStatement(projectId, commit, GitDiff.EMPTY));
+        executeSuccess(queries.commitInsertionStatement(projectId, anotherCommit, GitDiff.EMPTY));
+
+        result = persistence.query(queries.commitsWithoutChangedFileQuery(projectId));
+        assertEquals(2, result.size());
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedFileChangedInsertion(projectId, commit.sha, new GitChangedFile("a.java", 3)),
+                queries.parameterizedFileChangedInsertion(projectId, commit.sha, new GitChangedFile("b.java", 1))
+        );
+        persistence.commit();
+        result = persistence.query(queries.commitsWithoutChangedFileQuery(projectId));
+        assertEquals(1, result.size());
+        assertEquals(anotherCommit.sha, result.get(0).get("sha1"));
+
+        // Changed files of another project's commit are not considered
+        int secondProjectID = createProject("anotherProject");
+        executeSuccess(queries.commitInsertionStatement(secondProjectID, generateCommit("anotherSha", 1), GitDiff.EMPTY));
+        persistence.addParameterizedStatements(queries.parameterizedFileChangedInsertion(
+                secondProjectID, anotherCommit.sha, new GitChangedFile("a.java", 3)));
+        persistence.commit();
+        result = persistence.query(queries.commitsWithoutChangedFileQuery(projectId));
+        assertEquals(1, result.size());
+        assertEquals(anotherCommit.sha, result.get(0).get("sha1"));
+        assertTrue(persistence.query(queries.commitsWithoutChangedFileQuery(secondProjectID)).isEmpty());
+
+        // A commit without any changed file is not listed once computed
+        persistence.addParameterizedStatements(queries.parameterizedChangedFilesComputed(projectId, anotherCommit.sha));
+        persistence.commit();
+        assertTrue(persistence.query(queries.commitsWithoutChangedFileQuery(projectId)).isEmpty());
+    }
+
     @Test
     public void testMergedCommitIdQuery() {
         List<Map<String, Object>> result;
@@ -243,4 +470,28 @@ public class JDBCCommitQueriesTest extends PostgresTestCase {
         result = persistence.query(queries.mergedCommitIdQuery(projectId, mergeCommit));
         assertEquals(1, result.get(0).get("id"));
     }
+
+    @Test
+    public void testMergedCommitQuery() {
+        Commit commit = generateCommit("sha", 1);
+        Commit secondCommit = generateCommit("anotherSha", 2);
+        Commit mergeCommit = generateCommit("thirdSha", 3);
+        mergeCommit.setParents(Arrays.asList(secondCommit, commit));
+
+        executeSuccess(queries.commitInsertionStatement(projectId, commit, GitDiff.EMPTY));
+        executeSuccess(queries.commitInsertionStatement(projectId, secondCommit, GitDiff.EMPTY));
+        executeSuccess(queries.commitInsertionStatement(projectId, mergeCommit, GitDiff.EMPTY));
+
+        // Not a merge commit means no row
+        assertTrue(persistence.query(queries.mergedCommitQuery(projectId, secondCommit)).isEmpty());
+
+        List<Map<String, Object>> result = persistence.query(queries.mergedCommitQuery(projectId, mergeCommit));
+        assertEquals(1, result.size());
+        assertEquals(1, result.get(0).get("id"));
+        assertEquals(commit.sha, result.get(0).get("sha1"));
+
+        // The commit is looked up in the given project only
+        int anotherProjectId = createProject("anotherProject");
+        assertTrue(persistence.query(queries.mergedCommitQuery(anotherProjectId, mergeCommit)).isEmpty());
+    }
 }
@@ -1,5 +1,6 @@
 package fr.inria.sniffer.tracker.analysis.persistence.queries;
 
+import fr.inria.sniffer.tracker.analysis.persistence.JDBCPersistence;
 import fr.inria.sniffer.tracker.analysis.persistence.PostgresTestCase;
 import org.junit.Before;
 import org.junit.Test;
@@ -60,6 +61,32 @@ public class JDBCDeveloperQueriesTest extends PostgresTestCase {
         assertEquals(count, getDevelopersCount());
     }
 
+    @Test
+    public void testParameterizedDeveloperInsertion() {
+        ((JDBCPersistence) persistence).setBatchSize(2);
+        String name = "dev@name.com";
+
+        // Statements are executed in order, whichever the batch they are in.
+        persistence.addParameterizedStatements(
+                queries.parameterizedDeveloperInsertion(name),
+                queries.parameterizedDeveloperInsertion("another@dev.net"),
+                queries.parameterizedDeveloperInsertion("$$third@dev.net"),
+                queries.parameterizedDeveloperInsertion(name)
+        );
+        persistence.addStatements(queries.developerInsertStatement("fourth@dev.net"));
+        persistence.addParameterizedStatements(
+                queries.parameterizedProjectDeveloperInsertion(projectId, name),
+                queries.parameterizedProjectDeveloperInsertion(projectId, "fourth@dev.net"),
+                queries.parameterizedProjectDeveloperInsertion(projectId, "$$third@dev.net")
+        );
+        persistence.commit();
+        assertEquals(4, getDevelopersCount());
+        assertEquals(3, getProjectDevelopersCount());
+
+        // Parameterized values are stored as the dollar quoted ones.
+        assertFalse(persistence.query(queries.idFromEmailQuery("$$third@dev.net")).isEmpty());
+    }
+
     @Test
     public void testInsertProjectDeveloper() {
         long count = 0;
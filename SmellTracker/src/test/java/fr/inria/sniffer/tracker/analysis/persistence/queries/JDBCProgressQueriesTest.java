@@ -0,0 +1,82 @@
+package fr.inria.sniffer.tracker.analysis.persistence.queries;
+
+import fr.inria.sniffer.tracker.analysis.persistence.PostgresTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class JDBCProgressQueriesTest extends PostgresTestCase {
+    private ProgressQueries queries;
+    private int projectId;
+    private int anotherProjectId;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        ProjectQueries projectQueries = new JDBCProjectQueries();
+        queries = new JDBCProgressQueries();
+        projectId = createProject("whatever", projectQueries);
+        anotherProjectId = createProject("another", projectQueries);
+    }
+
+    private Map<String, Object> findStep(List<Map<String, Object>> result, String stage, String step) {
+        for (Map<String, Object> row : result) {
+            if (stage.equals(row.get("stage")) && step.equals(row.get("step"))) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testProgressInsertion() {
+        assertTrue(persistence.query(queries.progressQuery(projectId)).isEmpty());
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedProgressInsertion(projectId, "query", "CommitsQuery", null),
+                queries.parameterizedProgressInsertion(projectId, "query", "lastAnalyzedCommit", 12),
+                queries.parameterizedProgressInsertion(projectId, "branch:MIM", "3", null),
+                queries.parameterizedProgressInsertion(anotherProjectId, "query", "CommitsQuery", null)
+        );
+        persistence.commit();
+        assertEquals(4, countElements("analysis_progress"));
+
+        // The same step can be recorded again, e.g. by a resumed analysis.
+        persistence.addParameterizedStatements(
+                queries.parameterizedProgressInsertion(projectId, "query", "lastAnalyzedCommit", 15));
+        persistence.commit();
+        assertEquals(4, countElements("analysis_progress"));
+
+        List<Map<String, Object>> result = persistence.query(queries.progressQuery(projectId));
+        assertEquals(3, result.size());
+        assertNull(findStep(result, "query", "CommitsQuery").get("value"));
+        assertEquals(12, findStep(result, "query", "lastAnalyzedCommit").get("value"));
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("stage", "branch:MIM");
+        expected.put("step", "3");
+        expected.put("value", null);
+        assertEquals(expected, findStep(result, "branch:MIM", "3"));
+    }
+
+    @Test
+    public void testProgressDeletion() {
+        persistence.addParameterizedStatements(
+                queries.parameterizedProgressInsertion(projectId, "query", "CommitsQuery", null),
+                queries.parameterizedProgressInsertion(projectId, "smell_type", "MIM", null),
+                queries.parameterizedProgressInsertion(anotherProjectId, "query", "CommitsQuery", null)
+        );
+        persistence.commit();
+
+        executeExpect(queries.progressDeletionStatement(projectId), 2);
+        assertTrue(persistence.query(queries.progressQuery(projectId)).isEmpty());
+        assertEquals(1, persistence.query(queries.progressQuery(anotherProjectId)).size());
+    }
+}
@@ -2,18 +2,28 @@ package fr.inria.sniffer.tracker.analysis.persistence.queries;
 
 import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.JDBCPersistence;
 import fr.inria.sniffer.tracker.analysis.persistence.PostgresTestCase;
+import fr.inria.sniffer.tracker.analysis.persistence.PostgresqlPersistence;
 import fr.inria.sniffer.tracker.analysis.persistence.SmellCategory;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class JDBCSmellQueriesTest extends PostgresTestCase {
     private SmellQueries queries;
@@ -96,6 +106,41 @@ public class JDBCSmellQueriesTest extends PostgresTestCase {
         assertEquals(++count, getSmellCount());
     }
 
+    @Test
+    public void testParameterizedSmellInsertion() {
+        List<Map<String, Object>> reserved = persistence.query(queries.smellIdReservationQuery(3));
+        assertEquals(3, reserved.size());
+        assertEquals(3, reserved.stream().map(row -> row.get("id")).distinct().count());
+
+        smell.id = ((Number) reserved.get(0).get("id")).intValue();
+        Smell childSmell = new Smell(smell.type, smell.instance, smell.file);
+        childSmell.parent = smell;
+        childSmell.id = ((Number) reserved.get(1).get("id")).intValue();
+        Smell sameSmell = new Smell(smell.type, smell.instance, smell.file);
+        sameSmell.id = ((Number) reserved.get(2).get("id")).intValue();
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedSmellInsertion(projectId, smell),
+                queries.parameterizedSmellInsertion(projectId, childSmell),
+                // We don't insert the same smell
+                queries.parameterizedSmellInsertion(projectId, sameSmell)
+        );
+        persistence.commit();
+        assertEquals(2, getSmellCount());
+        assertEquals(childSmell.id, persistence.query(queries.smellIdQuery(projectId, childSmell)).get(0).get("id"));
+
+        List<Map<String, Object>> result = persistence.query(queries.projectSmellsQuery(projectId));
+        assertEquals(2, result.size());
+        for (Map<String, Object> row : result) {
+            Object parentId = row.get("id").equals(childSmell.id) ? smell.id : null;
+            assertEquals(parentId, row.get("renamed_from"));
+        }
+
+        // The sequence is still used by the other insertions
+        executeSuccess(queries.smellInsertionStatement(projectId, new Smell("MIM", "instance", "file")));
+        assertEquals(3, getSmellCount());
+    }
+
     @Test
     public void testInsertSmellCategory() {
         smell.id = createSmell(projectId, smell, queries);
@@ -137,6 +182,148 @@ public class JDBCSmellQueriesTest extends PostgresTestCase {
         assertEquals(1, getSmellCount(SmellCategory.PRESENCE));
     }
 
+    @Test
+    public void testCopySmellCategoryInsertion() {
+        ((JDBCPersistence) persistence).setCopyEnabled(true);
+        smell.id = createSmell(projectId, smell, queries);
+        Smell anotherSmell = new Smell("MIM", "another\tinstance", "file");
+        anotherSmell.id = createSmell(projectId, anotherSmell, queries);
+        Commit commit = prepareCommit();
+        Commit anotherCommit = prepareCommit("anotherSha");
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.PRESENCE),
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.INTRODUCTION),
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, anotherSmell, SmellCategory.PRESENCE),
+                queries.parameterizedSmellCategoryInsertion(projectId, anotherCommit.sha, anotherSmell, SmellCategory.PRESENCE),
+                queries.parameterizedSmellCategoryInsertion(projectId, anotherCommit.sha, smell, SmellCategory.REFACTOR),
+                // Duplicates are ignored
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.PRESENCE)
+        );
+        persistence.commit();
+        assertEquals(1, getSmellCount(SmellCategory.INTRODUCTION));
+        assertEquals(1, getSmellCount(SmellCategory.REFACTOR));
+        assertEquals(3, getSmellCount(SmellCategory.PRESENCE));
+
+        List<Map<String, Object>> result = persistence.query(
+                queries.commitSmellsQuery(projectId, "(" + commitQueries.idFromShaQuery(projectId, commit.sha) + ")", null));
+        assertEquals(2, result.size());
+    }
+
+    @Test
+    public void testCopyInterleavedWithSmellInsertion() throws SQLException {
+        Commit commit = prepareCommit();
+        List<Smell> smells = new ArrayList<>();
+        for (Map<String, Object> row : persistence.query(queries.smellIdReservationQuery(3))) {
+            Smell newSmell = new Smell("LIC", "instance" + smells.size(), "file");
+            newSmell.id = ((Number) row.get("id")).intValue();
+            smells.add(newSmell);
+        }
+        Connection connection = spy(openConnection());
+        JDBCPersistence copying = new PostgresqlPersistence(connection);
+        copying.initialize();
+        copying.setCopyEnabled(true);
+        clearInvocations(connection);
+
+        for (Smell newSmell : smells) {
+            copying.addParameterizedStatements(
+                    queries.parameterizedSmellInsertion(projectId, newSmell),
+                    queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, newSmell, SmellCategory.PRESENCE)
+            );
+        }
+        copying.commit();
+        copying.close();
+
+        // The smells insertion does not load the copied rows, loaded at once on commit.
+        verify(connection, times(1)).createStatement();
+        assertEquals(3, getSmellCount());
+        assertEquals(3, getSmellCount(SmellCategory.PRESENCE));
+    }
+
+    @Test
+    public void testCachedCommitSmellCategoryInsertion() {
+        ((JDBCPersistence) persistence).setCopyEnabled(true);
+        smell.id = createSmell(projectId, smell, queries);
+        Commit commit = prepareCommit();
+        Commit anotherCommit = prepareCommit("anotherSha");
+        commitQueries.loadCommitIds(persistence, projectId);
+        Commit notLoaded = prepareCommit("notLoaded");
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.PRESENCE),
+                queries.parameterizedSmellCategoryInsertion(projectId, anotherCommit.sha, smell, SmellCategory.PRESENCE),
+                queries.parameterizedSmellCategoryInsertion(projectId, notLoaded.sha, smell, SmellCategory.PRESENCE),
+                // Duplicates are ignored
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.PRESENCE)
+        );
+        persistence.commit();
+        assertEquals(3, getSmellCount(SmellCategory.PRESENCE));
+
+        executeSuccess(queries.smellCategoryInsertionStatement(projectId, commit.sha, smell, SmellCategory.INTRODUCTION));
+        List<Map<String, Object>> result = persistence.query(
+                queries.commitSmellsQuery(projectId, commitQueries.commitIdReference(projectId, commit.sha), null));
+        assertEquals(1, result.size());
+        assertEquals(1, getSmellCount(SmellCategory.INTRODUCTION));
+    }
+
+    @Test
+    public void testParameterizedSmellCategoryInsertion() {
+        smell.id = createSmell(projectId, smell, queries);
+        Commit commit = prepareCommit();
+        Commit anotherCommit = prepareCommit("anotherSha");
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.INTRODUCTION),
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.PRESENCE),
+                queries.parameterizedSmellCategoryInsertion(projectId, anotherCommit.sha, smell, SmellCategory.PRESENCE),
+                queries.parameterizedSmellCategoryInsertion(projectId, anotherCommit.sha, smell, SmellCategory.REFACTOR)
+        );
+        persistence.commit();
+        assertEquals(1, getSmellCount(SmellCategory.INTRODUCTION));
+        assertEquals(1, getSmellCount(SmellCategory.REFACTOR));
+        assertEquals(2, getSmellCount(SmellCategory.PRESENCE));
+
+        persistence.addParameterizedStatements(
+                queries.parameterizedLostSmellCategoryInsertion(projectId, smell, SmellCategory.INTRODUCTION, 2, 4),
+                queries.parameterizedLostSmellCategoryInsertion(projectId, smell, SmellCategory.REFACTOR, 5, 6)
+        );
+        persistence.commit();
+        assertEquals(1, getLostSmellCount(SmellCategory.INTRODUCTION));
+        assertEquals(1, getLostSmellCount(SmellCategory.REFACTOR));
+    }
+
+    @Test
+    public void testResumedSmellCategoryInsertion() {
+        smell.id = createSmell(projectId, smell, queries);
+        Commit commit = prepareCommit();
+        Commit anotherCommit = prepareCommit("anotherSha");
+        commitQueries.loadCommitIds(persistence, projectId);
+        Commit notLoaded = prepareCommit("notLoaded");
+
+        // The interrupted analysis only flushed the beginning of the branch
+        persistence.addParameterizedStatements(
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.INTRODUCTION),
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.PRESENCE),
+                queries.parameterizedLostSmellCategoryInsertion(projectId, smell, SmellCategory.REFACTOR, 2, 4)
+        );
+        persistence.commit();
+
+        // The resumed analysis inserts the whole branch again
+        persistence.addParameterizedStatements(
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.INTRODUCTION),
+                queries.parameterizedSmellCategoryInsertion(projectId, commit.sha, smell, SmellCategory.PRESENCE),
+                queries.parameterizedLostSmellCategoryInsertion(projectId, smell, SmellCategory.REFACTOR, 2, 4),
+                queries.parameterizedSmellCategoryInsertion(projectId, anotherCommit.sha, smell, SmellCategory.PRESENCE),
+                queries.parameterizedSmellCategoryInsertion(projectId, notLoaded.sha, smell, SmellCategory.PRESENCE),
+                queries.parameterizedSmellCategoryInsertion(projectId, notLoaded.sha, smell, SmellCategory.REFACTOR)
+        );
+        persistence.commit();
+        assertEquals(1, getSmellCount(SmellCategory.INTRODUCTION));
+        assertEquals(3, getSmellCount(SmellCategory.PRESENCE));
+        assertEquals(1, getSmellCount(SmellCategory.REFACTOR));
+        assertEquals(1, getLostSmellCount(SmellCategory.REFACTOR));
+    }
+
     @Test
     public void testInsertLostSmellCategory() {
         persistence.execute(queries.smellInsertionStatement(projectId, smell));
@@ -160,10 +347,14 @@ public class JDBCSmellQueriesTest extends PostgresTestCase {
                 queries.lostSmellCategoryInsertionStatement(projectId, smell, SmellCategory.PRESENCE, 0, 4)
         );
 
-        // Two inserts in same category will update category count since we can't check unicity here.
-        executeSuccess(
+        // The same interval is only inserted once in a category.
+        persistence.execute(
                 queries.lostSmellCategoryInsertionStatement(projectId, smell, SmellCategory.INTRODUCTION, 0, 4)
         );
+        assertEquals(1, getLostSmellCount(SmellCategory.INTRODUCTION));
+        executeSuccess(
+                queries.lostSmellCategoryInsertionStatement(projectId, smell, SmellCategory.INTRODUCTION, 0, 5)
+        );
         assertEquals(2, getLostSmellCount(SmellCategory.INTRODUCTION));
         assertEquals(1, getLostSmellCount(SmellCategory.REFACTOR));
     }
@@ -268,4 +459,113 @@ public class JDBCSmellQueriesTest extends PostgresTestCase {
         checkContainsSmells(result, Arrays.asList(anotherSmell, smellOtherCommit));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSmellPresenceIntervalInsertion() {
+        JDBCBranchQueries branchQueries = new JDBCBranchQueries(commitQueries, queries);
+        Commit first = prepareCommit("first");
+        Commit second = prepareCommit("second");
+        Commit third = prepareCommit("third");
+        executeSuccess(branchQueries.branchInsertionStatement(projectId, 0, null, null));
+        int branchId = (int) persistence.query(branchQueries.idFromOrdinalQueryStatement(projectId, 0)).get(0).get("id");
+        executeSuccess(branchQueries.branchCommitInsertionQuery(projectId, 0, first.sha, 0));
+        executeSuccess(branchQueries.branchCommitInsertionQuery(projectId, 0, second.sha, 1));
+        executeSuccess(branchQueries.branchCommitInsertionQuery(projectId, 0, third.sha, 2));
+
+        Smell anotherSmell = new Smell(smell.type, "anotherinstance", "anotherfile");
+        smell.id = createSmell(projectId, smell, queries);
+        anotherSmell.id = createSmell(projectId, anotherSmell, queries);
+        persistence.addParameterizedStatements(
+                queries.parameterizedSmellPresenceIntervalInsertion(projectId, smell, branchId, 0, 2),
+                queries.parameterizedSmellPresenceIntervalInsertion(projectId, anotherSmell, branchId, 1, 1),
+                // The same interval is only inserted once
+                queries.parameterizedSmellPresenceIntervalInsertion(projectId, anotherSmell, branchId, 1, 1)
+        );
+        persistence.commit();
+        assertEquals(2, countElements("smell_presence_interval"));
+        assertEquals(0, getSmellCount(SmellCategory.PRESENCE));
+
+        // The view expands the intervals in each commit
+        assertEquals(4, countElements("all_smell_presence"));
+        List<Map<String, Object>> result = persistence.query(queries.commitSmellsQuery(projectId,
+                "(" + commitQueries.idFromShaQuery(projectId, second.sha) + ")", null));
+        assertEquals(2, result.size());
+        checkContainsSmells(result, Arrays.asList(smell, anotherSmell));
+        result = persistence.query(queries.commitSmellsQuery(projectId,
+                "(" + commitQueries.idFromShaQuery(projectId, third.sha) + ")", null));
+        assertEquals(1, result.size());
+        checkContainsSmells(result, Arrays.asList(smell));
+
+        // Both storages are listed by the view
+        executeSuccess(queries.smellCategoryInsertionStatement(projectId, third.sha, anotherSmell, SmellCategory.PRESENCE));
+        result = persistence.query(queries.commitSmellsQuery(projectId,
+                "(" + commitQueries.idFromShaQuery(projectId, third.sha) + ")", null));
+        assertEquals(2, result.size());
+        checkContainsSmells(result, Arrays.asList(smell, anotherSmell));
+    }
+
+    @Test
+    public void testResumedSmellPresenceInterval() {
+        JDBCBranchQueries branchQueries = new JDBCBranchQueries(commitQueries, queries);
+        Commit first = prepareCommit("first");
+        Commit second = prepareCommit("second");
+        Commit third = prepareCommit("third");
+        executeSuccess(branchQueries.branchInsertionStatement(projectId, 0, null, null));
+        int branchId = (int) persistence.query(branchQueries.idFromOrdinalQueryStatement(projectId, 0)).get(0).get("id");
+        executeSuccess(branchQueries.branchCommitInsertionQuery(projectId, 0, first.sha, 0));
+        executeSuccess(branchQueries.branchCommitInsertionQuery(projectId, 0, second.sha, 1));
+        executeSuccess(branchQueries.branchCommitInsertionQuery(projectId, 0, third.sha, 2));
+        smell.id = createSmell(projectId, smell, queries);
+
+        // The interrupted analysis only flushed the beginning of the interval
+        persistence.addParameterizedStatements(
+                queries.parameterizedSmellPresenceIntervalInsertion(projectId, smell, branchId, 0, 0));
+        persistence.commit();
+        assertEquals(1, countElements("all_smell_presence"));
+
+        // The resumed analysis inserts the whole interval again
+        persistence.addParameterizedStatements(
+                queries.parameterizedSmellPresenceIntervalInsertion(projectId, smell, branchId, 0, 2));
+        persistence.commit();
+        assertEquals(1, countElements("smell_presence_interval"));
+        List<Map<String, Object>> result = persistence.query("SELECT smell_id, commit_id FROM all_smell_presence " +
+                "ORDER BY commit_id");
+        assertEquals(3, result.size());
+        int[] expectedCommits = {commitId(first.sha), commitId(second.sha), commitId(third.sha)};
+        for (int i = 0; i < expectedCommits.length; i++) {
+            assertEquals(smell.id, result.get(i).get("smell_id"));
+            assertEquals(expectedCommits[i], result.get(i).get("commit_id"));
+        }
+
+        // A shorter interval never truncates the stored one
+        persistence.addParameterizedStatements(
+                queries.parameterizedSmellPresenceIntervalInsertion(projectId, smell, branchId, 0, 1));
+        persistence.commit();
+        assertEquals(3, countElements("all_smell_presence"));
+    }
+
+    private int commitId(String sha) {
+        return (int) persistence.query(commitQueries.idFromShaQuery(projectId, sha)).get(0).get("id");
+    }
+
+    @Test
+    public void testSetAsDeletedBatch() {
+        assertEquals("UPDATE smell_refactoring SET deleted = id IN (2) WHERE id IN (1, 2)",
+                queries.setAsDeleted(projectId, Arrays.asList(1, 2), Collections.singletonList(2)));
+        assertEquals("UPDATE smell_refactoring SET deleted = false WHERE id IN (1)",
+                queries.setAsDeleted(projectId, Collections.singletonList(1), Collections.emptyList()));
+        assertEquals("UPDATE smell_refactoring SET deleted = true WHERE id IN (1, 2)",
+                queries.setAsDeleted(projectId, Arrays.asList(1, 2), Arrays.asList(1, 2)));
+
+        smell.id = createSmell(projectId, smell, queries);
+        Commit commit = prepareCommit();
+        executeSuccess(queries.smellCategoryInsertionStatement(projectId, commit.sha, smell, SmellCategory.REFACTOR));
+        int refactoringId = (int) persistence.query("SELECT id FROM smell_refactoring").get(0).get("id");
+
+        executeSuccess(queries.setAsDeleted(projectId,
+                Arrays.asList(refactoringId, refactoringId + 1), Collections.singletonList(refactoringId)));
+        assertEquals(true, persistence.query("SELECT deleted FROM smell_refactoring").get(0).get("deleted"));
+        executeSuccess(queries.setAsDeleted(projectId,
+                Collections.singletonList(refactoringId), Collections.emptyList()));
+        assertEquals(false, persistence.query("SELECT deleted FROM smell_refactoring").get(0).get("deleted"));
+    }
+}
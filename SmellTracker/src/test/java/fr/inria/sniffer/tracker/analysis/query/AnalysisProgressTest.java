@@ -0,0 +1,142 @@
+package fr.inria.sniffer.tracker.analysis.query;
+
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.PersistenceException;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.ProgressQueries;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class AnalysisProgressTest {
+    private static final String PROGRESS_QUERY = "progressQuery";
+    private final int projectId = 1;
+
+    private Persistence persistence;
+    private ProgressQueries progressQueries;
+    private AnalysisProgress progress;
+
+    @Before
+    public void setUp() throws Exception {
+        persistence = mock(Persistence.class);
+        progressQueries = mock(ProgressQueries.class);
+        doReturn(PROGRESS_QUERY).when(progressQueries).progressQuery(projectId);
+        progress = new AnalysisProgress(projectId, progressQueries);
+    }
+
+    private static Map<String, Object> row(String stage, String step, Integer value) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("stage", stage);
+        row.put("step", step);
+        row.put("value", value);
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockPersistedSteps(List<Map<String, Object>> rows) {
+        doAnswer((Answer<Integer>) invocation -> {
+            Consumer<Map<String, Object>> consumer = invocation.getArgument(1);
+            rows.forEach(consumer);
+            return rows.size();
+        }).when(persistence).streamQuery(eq(PROGRESS_QUERY), any());
+    }
+
+    @Test
+    public void testLoadPersistedSteps() {
+        mockPersistedSteps(Arrays.asList(
+                row(AnalysisProgress.QUERY_STAGE, "CommitsQuery", null),
+                row(AnalysisProgress.QUERY_STAGE, "lastAnalyzedCommit", 42),
+                row("branch:MIM", "0", null),
+                row("branch:MIM", "3", null)
+        ));
+
+        progress.load(persistence);
+
+        assertTrue(progress.isDone(AnalysisProgress.QUERY_STAGE, "CommitsQuery"));
+        assertFalse(progress.isDone(AnalysisProgress.QUERY_STAGE, "BranchQuery"));
+        assertFalse(progress.isDone(AnalysisProgress.SMELL_TYPE_STAGE, "MIM"));
+        assertTrue(progress.isDone(AnalysisProgress.QUERY_STAGE, "lastAnalyzedCommit"));
+        assertEquals(Integer.valueOf(42), progress.value(AnalysisProgress.QUERY_STAGE, "lastAnalyzedCommit"));
+        assertNull(progress.value(AnalysisProgress.QUERY_STAGE, "CommitsQuery"));
+        assertEquals(new HashSet<>(Arrays.asList("0", "3")), progress.doneSteps("branch:MIM"));
+        assertTrue(progress.doneSteps("branch:LIC").isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLoadFailureAnalyzesFromScratch() {
+        doReturn(-1).when(persistence).streamQuery(eq(PROGRESS_QUERY), any());
+
+        progress.load(persistence);
+
+        assertFalse(progress.isDone(AnalysisProgress.QUERY_STAGE, "CommitsQuery"));
+    }
+
+    @Test
+    public void testRecordAfterStepWrites() {
+        ParameterizedStatement statement = new ParameterizedStatement("insertion");
+        doReturn(statement).when(progressQueries)
+                .parameterizedProgressInsertion(projectId, AnalysisProgress.SMELL_TYPE_STAGE, "MIM", null);
+
+        persistence.addStatements("smell writes");
+        progress.record(persistence, AnalysisProgress.SMELL_TYPE_STAGE, "MIM");
+
+        assertTrue(progress.isDone(AnalysisProgress.SMELL_TYPE_STAGE, "MIM"));
+        InOrder order = Mockito.inOrder(persistence);
+        order.verify(persistence).addStatements("smell writes");
+        order.verify(persistence).commit();
+        order.verify(persistence).flush();
+        order.verify(persistence).addParameterizedStatements(statement);
+        order.verify(persistence).commit();
+        order.verify(persistence).flush();
+    }
+
+    @Test
+    public void testNoRecordAfterFailedWrites() {
+        doThrow(new PersistenceException("failure", null)).when(persistence).flush();
+
+        try {
+            progress.record(persistence, AnalysisProgress.SMELL_TYPE_STAGE, "MIM");
+            fail("The failed writes should be thrown");
+        } catch (PersistenceException e) {
+            assertFalse(progress.isDone(AnalysisProgress.SMELL_TYPE_STAGE, "MIM"));
+        }
+        verify(persistence, never()).addParameterizedStatements(any());
+    }
+
+    @Test
+    public void testClear() {
+        doReturn("deletion").when(progressQueries).progressDeletionStatement(projectId);
+        progress.record(persistence, AnalysisProgress.QUERY_STAGE, "CommitsQuery");
+
+        progress.clear(persistence);
+
+        assertFalse(progress.isDone(AnalysisProgress.QUERY_STAGE, "CommitsQuery"));
+        InOrder order = Mockito.inOrder(persistence);
+        order.verify(persistence).addStatements("deletion");
+        order.verify(persistence).commit();
+    }
+}
@@ -1,7 +1,9 @@
 package fr.inria.sniffer.tracker.analysis.query.branch;
 
 import fr.inria.sniffer.tracker.analysis.model.Commit;
+import fr.inria.sniffer.tracker.analysis.model.CommitGraphs;
 import fr.inria.sniffer.tracker.analysis.model.Repository;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
 import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.BranchQueries;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.CommitQueries;
@@ -16,6 +18,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -23,7 +27,9 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -42,8 +48,8 @@ public class BranchQueryTest {
         persistence = Mockito.mock(Persistence.class);
         branchQueries = Mockito.mock(BranchQueries.class);
         commitQueries = Mockito.mock(CommitQueries.class);
-        doReturn("BranchInsertion").when(branchQueries).branchInsertionStatement(eq(projectId), anyInt(), any(Commit.class), any(Commit.class));
-        doReturn("BranchInsertion").when(branchQueries).branchCommitInsertionQuery(eq(projectId), anyInt(), anyString(), anyInt());
+        doReturn(new ParameterizedStatement("BranchInsertion")).when(branchQueries).parameterizedBranchInsertion(eq(projectId), anyInt(), any(Commit.class), any(Commit.class));
+        doReturn(new ParameterizedStatement("BranchInsertion")).when(branchQueries).parameterizedBranchCommitInsertion(eq(projectId), anyInt(), anyString(), anyInt());
     }
 
     private BranchQuery getQuery() {
@@ -59,21 +65,34 @@ public class BranchQueryTest {
     }
 
     /**
-     * Register all the given commits to be returned by getCommit.
+     * Create a commit as read from the repository {@link fr.inria.sniffer.tracker.analysis.model.CommitGraph},
+     * i.e. without ordinal.
+     *
+     * @param sha     The commit sha.
+     * @param parents The commit parents, the first one being in the same branch.
+     * @return The new {@link Commit}.
+     */
+    private static Commit commit(String sha, Commit... parents) {
+        return new Commit(sha, -1, Arrays.asList(parents));
+    }
+
+    /**
+     * Register all the given commits in the repository commit graph, the last one being HEAD.
      *
      * @param commits Input order does not matter as they are referenced by their sha.
      * @throws IOException
      */
     private void initializeMocks(Commit... commits) throws IOException {
+        Commit head = commits[commits.length - 1];
+        doReturn(CommitGraphs.reachableFrom(head)).when(repository).getCommitGraph();
         for (Commit commit : commits) {
-            doReturn(commit).when(repository).getCommitWithParents(commit.sha);
             doReturn(commit.sha).when(commitQueries).idFromShaQuery(projectId, commit.sha);
             doReturn(commit.sha).when(commitQueries).idFromShaQuery(eq(projectId), eq(commit.sha), anyBoolean());
             HashMap<Object, Object> map = new HashMap<>();
             map.put("id", 1);
             doReturn(Collections.singletonList(map)).when(persistence).query(commit.sha);
         }
-        doReturn(commits[commits.length - 1]).when(repository).getHead();
+        doReturn(head).when(repository).getHead();
     }
 
     /**
@@ -91,9 +110,9 @@ public class BranchQueryTest {
      */
     @Test
     public void testNoMerge() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Collections.singletonList(B));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
 
         initializeHead(C);
         initializeMocks(A, B, C);
@@ -101,11 +120,11 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(4)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, C.sha, 2);
+        verify(persistence, times(4)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, C.sha, 2);
     }
 
     /**
@@ -126,12 +145,12 @@ public class BranchQueryTest {
      */
     @Test
     public void testSingleMergeCommit() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Collections.singletonList(B));
-        Commit D = new Commit("d", 5, Collections.singletonList(A));
-        Commit E = new Commit("e", 4, Collections.singletonList(D));
-        Commit F = new Commit("f", 6, Arrays.asList(C, E));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", A);
+        Commit E = commit("e", D);
+        Commit F = commit("f", C, E);
 
         initializeHead(F);
         initializeMocks(A, B, C, D, E, F);
@@ -139,16 +158,16 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(8)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, C.sha, 2);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, F.sha, 3);
+        verify(persistence, times(8)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, C.sha, 2);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, F.sha, 3);
 
-        verify(branchQueries).branchInsertionStatement(projectId, 1, A, F);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, D.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, E.sha, 1);
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, F);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, D.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, E.sha, 1);
     }
 
     /**
@@ -174,15 +193,15 @@ public class BranchQueryTest {
      */
     @Test
     public void testSuccessiveBranches() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Collections.singletonList(B));
-        Commit D = new Commit("d", 5, Collections.singletonList(A));
-        Commit E = new Commit("e", 4, Collections.singletonList(D));
-        Commit F = new Commit("f", 6, Arrays.asList(C, E));
-        Commit G = new Commit("g", 7, Collections.singletonList(F));
-        Commit H = new Commit("h", 8, Collections.singletonList(F));
-        Commit I = new Commit("i", 9, Arrays.asList(H, G));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", A);
+        Commit E = commit("e", D);
+        Commit F = commit("f", C, E);
+        Commit G = commit("g", F);
+        Commit H = commit("h", F);
+        Commit I = commit("i", H, G);
 
         initializeHead(I);
         initializeMocks(A, B, C, D, E, F, G, H, I);
@@ -190,21 +209,21 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(12)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, C.sha, 2);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, F.sha, 3);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, H.sha, 4);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, I.sha, 5);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 1, F, I);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, G.sha, 0);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 2, A, F);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 2, D.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 2, E.sha, 1);
+        verify(persistence, times(12)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, C.sha, 2);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, F.sha, 3);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, H.sha, 4);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, I.sha, 5);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, F, I);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, G.sha, 0);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 2, A, F);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 2, D.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 2, E.sha, 1);
     }
 
     /**
@@ -230,15 +249,15 @@ public class BranchQueryTest {
      */
     @Test
     public void testContinuingBranches() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Collections.singletonList(B));
-        Commit D = new Commit("d", 4, Collections.singletonList(A));
-        Commit E = new Commit("e", 5, Collections.singletonList(D));
-        Commit F = new Commit("f", 6, Arrays.asList(C, E));
-        Commit G = new Commit("g", 7, Collections.singletonList(E));
-        Commit H = new Commit("h", 8, Collections.singletonList(F));
-        Commit I = new Commit("i", 9, Arrays.asList(H, G));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", A);
+        Commit E = commit("e", D);
+        Commit F = commit("f", C, E);
+        Commit G = commit("g", E);
+        Commit H = commit("h", F);
+        Commit I = commit("i", H, G);
 
         initializeHead(I);
         initializeMocks(A, B, C, D, E, F, G, H, I);
@@ -246,19 +265,19 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(11)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, C.sha, 2);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, F.sha, 3);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, H.sha, 4);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, I.sha, 5);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 1, A, I);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, D.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, E.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, G.sha, 2);
+        verify(persistence, times(11)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, C.sha, 2);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, F.sha, 3);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, H.sha, 4);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, I.sha, 5);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, I);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, D.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, E.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, G.sha, 2);
     }
 
     /**
@@ -287,15 +306,15 @@ public class BranchQueryTest {
      */
     @Test
     public void testCyclicMergesBranches() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Arrays.asList(A, B));
-        Commit D = new Commit("d", 4, Arrays.asList(B, C));
-        Commit E = new Commit("e", 5, Arrays.asList(C, D));
-        Commit F = new Commit("f", 6, Arrays.asList(D, E));
-        Commit G = new Commit("g", 7, Arrays.asList(E, F));
-        Commit H = new Commit("h", 8, Collections.singletonList(F));
-        Commit I = new Commit("i", 9, Arrays.asList(H, G));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", A, B);
+        Commit D = commit("d", B, C);
+        Commit E = commit("e", C, D);
+        Commit F = commit("f", D, E);
+        Commit G = commit("g", E, F);
+        Commit H = commit("h", F);
+        Commit I = commit("i", H, G);
 
         initializeHead(I);
         initializeMocks(A, B, C, D, E, F, G, H, I);
@@ -303,19 +322,19 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(11)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, D.sha, 2);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, F.sha, 3);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, H.sha, 4);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, I.sha, 5);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 1, A, I);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, C.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, E.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, G.sha, 2);
+        verify(persistence, times(11)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, D.sha, 2);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, F.sha, 3);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, H.sha, 4);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, I.sha, 5);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, I);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, C.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, E.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, G.sha, 2);
     }
 
     /**
@@ -343,15 +362,15 @@ public class BranchQueryTest {
      */
     @Test
     public void testSuccessiveMergesBranches() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Arrays.asList(A, B));
-        Commit D = new Commit("d", 4, Collections.singletonList(B));
-        Commit E = new Commit("e", 5, Arrays.asList(C, D));
-        Commit F = new Commit("f", 6, Collections.singletonList(D));
-        Commit G = new Commit("g", 7, Arrays.asList(E, F));
-        Commit H = new Commit("h", 8, Collections.singletonList(F));
-        Commit I = new Commit("i", 9, Arrays.asList(H, G));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", A, B);
+        Commit D = commit("d", B);
+        Commit E = commit("e", C, D);
+        Commit F = commit("f", D);
+        Commit G = commit("g", E, F);
+        Commit H = commit("h", F);
+        Commit I = commit("i", H, G);
 
         initializeHead(I);
         initializeMocks(A, B, C, D, E, F, G, H, I);
@@ -359,19 +378,19 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(11)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, D.sha, 2);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, F.sha, 3);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, H.sha, 4);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, I.sha, 5);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 1, A, I);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, C.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, E.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, G.sha, 2);
+        verify(persistence, times(11)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, D.sha, 2);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, F.sha, 3);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, H.sha, 4);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, I.sha, 5);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, I);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, C.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, E.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, G.sha, 2);
     }
 
     /**
@@ -396,15 +415,15 @@ public class BranchQueryTest {
      */
     @Test
     public void testOverlappingBranches() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Collections.singletonList(B));
-        Commit D = new Commit("d", 5, Collections.singletonList(A));
-        Commit E = new Commit("e", 4, Collections.singletonList(D));
-        Commit F = new Commit("f", 6, Collections.singletonList(D));
-        Commit G = new Commit("g", 7, Arrays.asList(F, E));
-        Commit H = new Commit("h", 8, Collections.singletonList(C));
-        Commit I = new Commit("i", 9, Arrays.asList(H, G));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", A);
+        Commit E = commit("e", D);
+        Commit F = commit("f", D);
+        Commit G = commit("g", F, E);
+        Commit H = commit("h", C);
+        Commit I = commit("i", H, G);
 
         initializeHead(I);
         initializeMocks(A, B, C, D, E, F, G, H, I);
@@ -412,21 +431,21 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(12)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, C.sha, 2);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, H.sha, 3);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, I.sha, 4);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 1, A, I);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, D.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, F.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, G.sha, 2);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 2, D, G);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 2, E.sha, 0);
+        verify(persistence, times(12)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, C.sha, 2);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, H.sha, 3);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, I.sha, 4);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, I);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, D.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, F.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, G.sha, 2);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 2, D, G);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 2, E.sha, 0);
     }
 
     /**
@@ -451,15 +470,15 @@ public class BranchQueryTest {
      */
     @Test
     public void testParallelBranches() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Collections.singletonList(B));
-        Commit D = new Commit("d", 5, Collections.singletonList(A));
-        Commit E = new Commit("e", 4, Collections.singletonList(A));
-        Commit F = new Commit("f", 6, Collections.singletonList(D));
-        Commit G = new Commit("g", 7, Collections.singletonList(F));
-        Commit H = new Commit("h", 8, Arrays.asList(C, E));
-        Commit I = new Commit("i", 9, Arrays.asList(H, G));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", A);
+        Commit E = commit("e", A);
+        Commit F = commit("f", D);
+        Commit G = commit("g", F);
+        Commit H = commit("h", C, E);
+        Commit I = commit("i", H, G);
 
         initializeHead(I);
         initializeMocks(A, B, C, D, E, F, G, H, I);
@@ -467,21 +486,21 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(12)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, C.sha, 2);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, H.sha, 3);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, I.sha, 4);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 1, A, I);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, D.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, F.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, G.sha, 2);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 2, A, H);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 2, E.sha, 0);
+        verify(persistence, times(12)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, C.sha, 2);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, H.sha, 3);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, I.sha, 4);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, I);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, D.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, F.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, G.sha, 2);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 2, A, H);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 2, E.sha, 0);
     }
 
     /**
@@ -504,14 +523,14 @@ public class BranchQueryTest {
      */
     @Test
     public void testCrossedBranches() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Collections.singletonList(B));
-        Commit D = new Commit("d", 5, Collections.singletonList(A));
-        Commit E = new Commit("e", 4, Collections.singletonList(B));
-        Commit F = new Commit("f", 6, Arrays.asList(C, D));
-        Commit G = new Commit("g", 7, Collections.singletonList(E));
-        Commit H = new Commit("h", 8, Arrays.asList(F, G));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", A);
+        Commit E = commit("e", B);
+        Commit F = commit("f", C, D);
+        Commit G = commit("g", E);
+        Commit H = commit("h", F, G);
 
         initializeHead(H);
         initializeMocks(A, B, C, D, E, F, G, H);
@@ -519,20 +538,20 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(11)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, C.sha, 2);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, F.sha, 3);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, H.sha, 4);
+        verify(persistence, times(11)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, C.sha, 2);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, F.sha, 3);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, H.sha, 4);
 
-        verify(branchQueries).branchInsertionStatement(projectId, 1, B, H);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, E.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, G.sha, 1);
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, B, H);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, E.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, G.sha, 1);
 
-        verify(branchQueries).branchInsertionStatement(projectId, 2, A, F);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 2, D.sha, 0);
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 2, A, F);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 2, D.sha, 0);
     }
 
     /**
@@ -558,34 +577,34 @@ public class BranchQueryTest {
      */
     @Test
     public void testMergeBackAndForth() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Collections.singletonList(B));
-        Commit D = new Commit("d", 5, Collections.singletonList(A));
-        Commit E = new Commit("e", 4, Arrays.asList(D, C));
-        Commit F = new Commit("f", 6, Collections.singletonList(C));
-        Commit G = new Commit("g", 7, Collections.singletonList(E));
-        Commit H = new Commit("h", 8, Collections.singletonList(F));
-        Commit I = new Commit("i", 9, Arrays.asList(H, G));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", A);
+        Commit E = commit("e", D, C);
+        Commit F = commit("f", C);
+        Commit G = commit("g", E);
+        Commit H = commit("h", F);
+        Commit I = commit("i", H, G);
         initializeHead(I);
         initializeMocks(A, B, C, D, E, F, G, H, I);
 
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(11)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, C.sha, 2);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, F.sha, 3);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, H.sha, 4);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, I.sha, 5);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 1, A, I);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, D.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, E.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, G.sha, 2);
+        verify(persistence, times(11)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, C.sha, 2);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, F.sha, 3);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, H.sha, 4);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, I.sha, 5);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, I);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, D.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, E.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, G.sha, 2);
     }
 
     /**
@@ -611,15 +630,15 @@ public class BranchQueryTest {
      */
     @Test
     public void testMergeNotInDirectParent() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Collections.singletonList(B));
-        Commit D = new Commit("d", 5, Collections.singletonList(A));
-        Commit E = new Commit("e", 4, Collections.singletonList(D));
-        Commit F = new Commit("f", 6, Collections.singletonList(D));
-        Commit G = new Commit("g", 7, Arrays.asList(C, E));
-        Commit H = new Commit("h", 8, Collections.singletonList(F));
-        Commit I = new Commit("i", 9, Arrays.asList(G, H));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", A);
+        Commit E = commit("e", D);
+        Commit F = commit("f", D);
+        Commit G = commit("g", C, E);
+        Commit H = commit("h", F);
+        Commit I = commit("i", G, H);
 
         initializeHead(I);
         initializeMocks(A, B, C, D, E, F, G, H, I);
@@ -627,21 +646,21 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(12)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, B.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, C.sha, 2);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, G.sha, 3);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, I.sha, 4);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 1, A, I);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, D.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, F.sha, 1);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, H.sha, 2);
-
-        verify(branchQueries).branchInsertionStatement(projectId, 2, D, G);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 2, E.sha, 0);
+        verify(persistence, times(12)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, B.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, C.sha, 2);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, G.sha, 3);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, I.sha, 4);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, I);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, D.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, F.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, H.sha, 2);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 2, D, G);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 2, E.sha, 0);
     }
 
     /**
@@ -666,12 +685,12 @@ public class BranchQueryTest {
      */
     @Test
     public void testMergeIsLastBranchCommit() throws QueryException, IOException {
-        Commit A = new Commit("a", 1);
-        Commit B = new Commit("b", 2, Collections.singletonList(A));
-        Commit C = new Commit("c", 3, Collections.singletonList(B));
-        Commit D = new Commit("d", 5, Arrays.asList(B, C));
-        Commit E = new Commit("e", 4, Arrays.asList(B, D));
-        Commit F = new Commit("f", 6, Arrays.asList(A, E));
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", B, C);
+        Commit E = commit("e", B, D);
+        Commit F = commit("f", A, E);
 
         initializeHead(F);
         initializeMocks(A, B, C, D, E, F);
@@ -679,20 +698,175 @@ public class BranchQueryTest {
         getQuery().query();
         debugBranchCommitInsertions();
 
-        verify(persistence, times(10)).addStatements(any());
-        verify(branchQueries).branchInsertionStatement(projectId, 0, null, null);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, A.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 0, F.sha, 1);
+        verify(persistence, times(10)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, A.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, F.sha, 1);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, F);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, B.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, E.sha, 1);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 2, B, E);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 2, D.sha, 0);
+
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 3, B, D);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 3, C.sha, 0);
+    }
+
+    /**
+     * Testing deeply nested branches, each branch merging the next one:
+     * <pre><code>
+     * .       A
+     * |\
+     * | .     B1 (merge)
+     * | |\
+     * | | .   B2 (merge)
+     * | | |\
+     * | | | ...
+     * |/ /
+     * .       F (merge)
+     * </pre></code>
+     *
+     * @throws QueryException
+     * @throws IOException
+     */
+    @Test
+    public void testDeeplyNestedBranches() throws QueryException, IOException {
+        int depth = 20000;
+        Map<String, Commit> commits = new HashMap<>();
+        Commit A = commit("a");
+        commits.put(A.sha, A);
+        Commit nested = commit("b" + depth, A);
+        commits.put(nested.sha, nested);
+        for (int i = depth - 1; i > 0; i--) {
+            nested = commit("b" + i, A, nested);
+            commits.put(nested.sha, nested);
+        }
+        Commit F = commit("f", A, nested);
+        commits.put(F.sha, F);
+        doReturn(CommitGraphs.reachableFrom(F)).when(repository).getCommitGraph();
+        doReturn(F).when(repository).getHead();
+
+        getQuery().query();
+
+        verify(branchQueries, times(depth + 1)).parameterizedBranchInsertion(eq(projectId), anyInt(), any(), any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 0, null, null);
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, F);
+        verify(branchQueries).parameterizedBranchInsertion(projectId, depth, A, commits.get("b" + (depth - 1)));
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, depth, "b" + depth, 0);
+    }
+
+    /**
+     * Mock a previous analysis having persisted the given commits in the principal branch.
+     *
+     * @param commits The persisted commits, from the oldest one.
+     */
+    private void initializePersistedBranch(Commit... commits) {
+        doReturn("lastBranchOrdinal").when(branchQueries).lastBranchOrdinalQuery(projectId);
+        doReturn(Collections.singletonList(Collections.singletonMap("ordinal", 0)))
+                .when(persistence).query("lastBranchOrdinal");
+        doReturn("branchCommits").when(branchQueries).branchCommitsQuery(projectId);
+        doAnswer(invocation -> {
+            Consumer<Map<String, Object>> consumer = invocation.getArgument(1);
+            for (Commit commit : commits) {
+                consumer.accept(Collections.singletonMap("sha1", commit.sha));
+            }
+            return commits.length;
+        }).when(persistence).streamQuery(eq("branchCommits"), any());
+
+        doReturn("principalId").when(branchQueries).idFromOrdinalQueryStatement(projectId, 0);
+        doReturn(Collections.singletonList(Collections.singletonMap("id", 10)))
+                .when(persistence).query("principalId");
+        Commit last = commits[commits.length - 1];
+        doReturn("principalLastCommit").when(branchQueries).lastCommitShaQuery(projectId, 10);
+        doReturn(Collections.singletonList(Collections.singletonMap("sha1", last.sha)))
+                .when(persistence).query("principalLastCommit");
+        doReturn("lastCommitOrdinal").when(branchQueries).commitOrdinalQuery(projectId, 10, last);
+        doReturn(Collections.singletonList(Collections.singletonMap("ordinal", commits.length - 1)))
+                .when(persistence).query("lastCommitOrdinal");
+    }
+
+    /**
+     * Testing the incremental analysis of new commits, A, B and C being already persisted:
+     * <pre><code>
+     * .   A
+     * |\
+     * . | B
+     * | . D
+     * . | C
+     * | . E
+     * |/
+     * .   F (merge)
+     * |
+     * .   G
+     * </pre></code>
+     *
+     * @throws QueryException
+     * @throws IOException
+     */
+    @Test
+    public void testIncrementalExtendsPrincipalBranch() throws QueryException, IOException {
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", A);
+        Commit E = commit("e", D);
+        Commit F = commit("f", C, E);
+        Commit G = commit("g", F);
+
+        initializeMocks(A, B, C, D, E, F, G);
+        initializePersistedBranch(A, B, C);
+
+        new BranchQuery(projectId, repository, persistence, commitQueries, branchQueries, true).query();
+        debugBranchCommitInsertions();
+
+        verify(persistence, times(5)).addParameterizedStatements(any());
+        verify(branchQueries).parameterizedBranchInsertion(projectId, 1, A, F);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, D.sha, 0);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 1, E.sha, 1);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, F.sha, 3);
+        verify(branchQueries).parameterizedBranchCommitInsertion(projectId, 0, G.sha, 4);
+        verify(branchQueries, never()).parameterizedBranchInsertion(eq(projectId), eq(0), any(), any());
+    }
+
+    @Test
+    public void testIncrementalWithoutNewCommit() throws QueryException, IOException {
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+
+        initializeMocks(A, B);
+        initializePersistedBranch(A, B);
 
-        verify(branchQueries).branchInsertionStatement(projectId, 1, A, F);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, B.sha, 0);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 1, E.sha, 1);
+        new BranchQuery(projectId, repository, persistence, commitQueries, branchQueries, true).query();
+
+        verify(persistence, never()).addParameterizedStatements(any());
+    }
+
+    /**
+     * HEAD does not descend from C, the last commit of the persisted principal branch:
+     * <pre><code>
+     * . A
+     * |\
+     * . | B
+     * | . D
+     * . | C
+     * </pre></code>
+     *
+     * @throws QueryException
+     * @throws IOException
+     */
+    @Test(expected = QueryException.class)
+    public void testIncrementalRejectsRewrittenHistory() throws QueryException, IOException {
+        Commit A = commit("a");
+        Commit B = commit("b", A);
+        Commit C = commit("c", B);
+        Commit D = commit("d", A);
 
-        verify(branchQueries).branchInsertionStatement(projectId, 2, B, E);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 2, D.sha, 0);
+        initializeMocks(A, B, C, D);
+        initializePersistedBranch(A, B, C);
 
-        verify(branchQueries).branchInsertionStatement(projectId, 3, B, D);
-        verify(branchQueries).branchCommitInsertionQuery(projectId, 3, C.sha, 0);
+        new BranchQuery(projectId, repository, persistence, commitQueries, branchQueries, true).query();
     }
 
     // TODO: TEST GAP COMMIT FOR: Merge, Parent, Last branch commit, initial commit, las project commit, random commit
@@ -710,14 +884,14 @@ public class BranchQueryTest {
         ArgumentCaptor<Integer> intCaptor = ArgumentCaptor.forClass(Integer.class);
         ArgumentCaptor<Integer> ordinalCaptor = ArgumentCaptor.forClass(Integer.class);
 
-        verify(branchQueries, atLeastOnce()).branchCommitInsertionQuery(eq(projectId),
+        verify(branchQueries, atLeastOnce()).parameterizedBranchCommitInsertion(eq(projectId),
                 intCaptor.capture(), stringCaptor.capture(), ordinalCaptor.capture());
         List<Integer> ints = intCaptor.getAllValues();
         List<String> strs = stringCaptor.getAllValues();
         List<Integer> ordinals = ordinalCaptor.getAllValues();
 
         for (int i = 0; i < ints.size(); i++) {
-            System.out.println("Call to branchCommitInsertionQuery: " + ints.get(i) + " - " + strs.get(i) + " - " + ordinals.get(i));
+            System.out.println("Call to parameterizedBranchCommitInsertion: " + ints.get(i) + " - " + strs.get(i) + " - " + ordinals.get(i));
         }
     }
 
@@ -726,7 +900,7 @@ public class BranchQueryTest {
         ArgumentCaptor<Commit> mergeCaptor = ArgumentCaptor.forClass(Commit.class);
         ArgumentCaptor<Integer> ordinalCaptor = ArgumentCaptor.forClass(Integer.class);
 
-        verify(branchQueries, atLeastOnce()).branchInsertionStatement(eq(projectId),
+        verify(branchQueries, atLeastOnce()).parameterizedBranchInsertion(eq(projectId),
                 ordinalCaptor.capture(),
                 parentCaptor.capture(), mergeCaptor.capture());
         List<Commit> parents = parentCaptor.getAllValues();
@@ -3,15 +3,18 @@ package fr.inria.sniffer.tracker.analysis.query.commit;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.DeveloperQueries;
 import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.CommitDetails;
+import fr.inria.sniffer.tracker.analysis.model.GitChangedFile;
 import fr.inria.sniffer.tracker.analysis.model.GitDiff;
 import fr.inria.sniffer.tracker.analysis.model.GitRename;
 import fr.inria.sniffer.tracker.analysis.model.Repository;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
 import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
 import fr.inria.sniffer.tracker.analysis.persistence.queries.CommitQueries;
 import fr.inria.sniffer.tracker.analysis.query.QueryException;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 import java.io.IOException;
@@ -26,7 +29,11 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -61,14 +68,20 @@ public class CommitsAnalysisTest {
         detailsChecker = Mockito.mock(CommitDetailsChecker.class);
 
         paprikaCommitsList = new ArrayList<>();
-        doReturn("CommitInsertion").when(commitQueries).commitInsertionStatement(
+        doReturn(new ParameterizedStatement("CommitInsertion")).when(commitQueries).parameterizedCommitInsertion(
                 eq(projectId), any(Commit.class), any(GitDiff.class));
-        doReturn("DeveloperInsertion").when(developerQueries).developerInsertStatement(
+        doReturn(new ParameterizedStatement("DeveloperInsertion")).when(developerQueries).parameterizedDeveloperInsertion(
                 anyString());
-        doReturn("DeveloperProjectInsertion").when(developerQueries).projectDeveloperInsertStatement(
+        doReturn(new ParameterizedStatement("DeveloperProjectInsertion")).when(developerQueries).parameterizedProjectDeveloperInsertion(
                 eq(projectId), anyString());
-        doReturn("FileRenameInsertion").when(commitQueries).fileRenameInsertionStatement(
+        doReturn(new ParameterizedStatement("FileRenameInsertion")).when(commitQueries).parameterizedFileRenameInsertion(
                 eq(projectId), anyString(), any(GitRename.class));
+        when(commitQueries.parameterizedChangedFilesComputed(eq(projectId), anyString())).then(
+                invocation -> changedFilesComputed(invocation.getArgument(1)));
+    }
+
+    private static ParameterizedStatement changedFilesComputed(String sha) {
+        return new ParameterizedStatement("ChangedFilesComputed", sha);
     }
 
     private CommitsAnalysis getCommitsAnalysis() {
@@ -134,23 +147,23 @@ public class CommitsAnalysisTest {
 
         getCommitsAnalysis().query();
 
-        verify(commitQueries, times(3)).commitInsertionStatement(anyInt(), any(Commit.class), any(GitDiff.class));
-        verify(commitQueries).commitInsertionStatement(projectId, merged, dummyDetails.diff);
-        verify(commitQueries).commitInsertionStatement(projectId, parent, dummyDetails.diff);
-        verify(commitQueries).commitInsertionStatement(projectId, merge, dummyDetails.diff);
+        verify(commitQueries, times(3)).parameterizedCommitInsertion(anyInt(), any(Commit.class), any(GitDiff.class));
+        verify(commitQueries).parameterizedCommitInsertion(projectId, merged, dummyDetails.diff);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, parent, dummyDetails.diff);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, merge, dummyDetails.diff);
 
         // Author insertion is brainlessly done at each encounter
-        verify(developerQueries, times(3)).developerInsertStatement(anyString());
-        verify(developerQueries, times(1)).developerInsertStatement(merged.authorEmail);
-        verify(developerQueries, times(1)).developerInsertStatement(parent.authorEmail);
-        verify(developerQueries, times(1)).developerInsertStatement(merge.authorEmail);
-        verify(developerQueries, times(3)).projectDeveloperInsertStatement(eq(projectId), anyString());
-        verify(developerQueries, times(1)).projectDeveloperInsertStatement(projectId, merged.authorEmail);
-        verify(developerQueries, times(1)).projectDeveloperInsertStatement(projectId, parent.authorEmail);
-        verify(developerQueries, times(1)).projectDeveloperInsertStatement(projectId, merge.authorEmail);
+        verify(developerQueries, times(3)).parameterizedDeveloperInsertion(anyString());
+        verify(developerQueries, times(1)).parameterizedDeveloperInsertion(merged.authorEmail);
+        verify(developerQueries, times(1)).parameterizedDeveloperInsertion(parent.authorEmail);
+        verify(developerQueries, times(1)).parameterizedDeveloperInsertion(merge.authorEmail);
+        verify(developerQueries, times(3)).parameterizedProjectDeveloperInsertion(eq(projectId), anyString());
+        verify(developerQueries, times(1)).parameterizedProjectDeveloperInsertion(projectId, merged.authorEmail);
+        verify(developerQueries, times(1)).parameterizedProjectDeveloperInsertion(projectId, parent.authorEmail);
+        verify(developerQueries, times(1)).parameterizedProjectDeveloperInsertion(projectId, merge.authorEmail);
 
         // No GitRename handled
-        verify(commitQueries, times(0)).fileRenameInsertionStatement(eq(projectId), anyString(), any(GitRename.class));
+        verify(commitQueries, times(0)).parameterizedFileRenameInsertion(eq(projectId), anyString(), any(GitRename.class));
     }
 
     /**
@@ -181,22 +194,22 @@ public class CommitsAnalysisTest {
 
         getCommitsAnalysis().query();
 
-        verify(commitQueries, times(4)).commitInsertionStatement(anyInt(), any(Commit.class), any(GitDiff.class));
-        verify(commitQueries).commitInsertionStatement(projectId, A, dummyDetails.diff);
-        verify(commitQueries).commitInsertionStatement(projectId, B, dummyDetails.diff);
-        verify(commitQueries).commitInsertionStatement(projectId, C, dummyDetails.diff);
-        verify(commitQueries).commitInsertionStatement(projectId, D, dummyDetails.diff);
+        verify(commitQueries, times(4)).parameterizedCommitInsertion(anyInt(), any(Commit.class), any(GitDiff.class));
+        verify(commitQueries).parameterizedCommitInsertion(projectId, A, dummyDetails.diff);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, B, dummyDetails.diff);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, C, dummyDetails.diff);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, D, dummyDetails.diff);
 
         // Author insertion is brainlessly done at each encounter
-        verify(developerQueries, times(4)).developerInsertStatement(anyString());
-        verify(developerQueries, times(2)).developerInsertStatement(A.authorEmail);
-        verify(developerQueries, times(2)).developerInsertStatement(C.authorEmail);
-        verify(developerQueries, times(4)).projectDeveloperInsertStatement(eq(projectId), anyString());
-        verify(developerQueries, times(2)).projectDeveloperInsertStatement(projectId, A.authorEmail);
-        verify(developerQueries, times(2)).projectDeveloperInsertStatement(projectId, C.authorEmail);
+        verify(developerQueries, times(4)).parameterizedDeveloperInsertion(anyString());
+        verify(developerQueries, times(2)).parameterizedDeveloperInsertion(A.authorEmail);
+        verify(developerQueries, times(2)).parameterizedDeveloperInsertion(C.authorEmail);
+        verify(developerQueries, times(4)).parameterizedProjectDeveloperInsertion(eq(projectId), anyString());
+        verify(developerQueries, times(2)).parameterizedProjectDeveloperInsertion(projectId, A.authorEmail);
+        verify(developerQueries, times(2)).parameterizedProjectDeveloperInsertion(projectId, C.authorEmail);
 
         // No GitRename handled
-        verify(commitQueries, times(0)).fileRenameInsertionStatement(eq(projectId), anyString(), any(GitRename.class));
+        verify(commitQueries, times(0)).parameterizedFileRenameInsertion(eq(projectId), anyString(), any(GitRename.class));
     }
 
     /**
@@ -213,6 +226,32 @@ public class CommitsAnalysisTest {
      * @throws IOException
      * @throws QueryException
      */
+    @Test
+    public void testIncrementalSkipsPersistedCommits() throws Exception {
+        addCommitInPaprika(A);
+        addCommitInRepository(A);
+        addCommitInPaprika(B);
+        addCommitInRepository(B);
+        addCommitInPaprika(C);
+        addCommitInRepository(C);
+        addCommitInPaprika(D);
+        addCommitInRepository(D);
+        prepareGitLog(A, B, C, D);
+        doReturn(10).when(commitQueries).cachedCommitId(projectId, A.sha);
+        doReturn(11).when(commitQueries).cachedCommitId(projectId, B.sha);
+        doReturn(null).when(commitQueries).cachedCommitId(projectId, C.sha);
+        doReturn(null).when(commitQueries).cachedCommitId(projectId, D.sha);
+
+        new CommitsAnalysis(projectId, persistence, repository, paprikaCommitsList.iterator(), detailsChecker,
+                developerQueries, commitQueries, false, 1, true).query();
+
+        verify(commitQueries, times(2)).parameterizedCommitInsertion(anyInt(), any(Commit.class), any(GitDiff.class));
+        verify(commitQueries).parameterizedCommitInsertion(projectId, C, dummyDetails.diff);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, D, dummyDetails.diff);
+        verify(detailsChecker, never()).fetch(A.sha);
+        verify(detailsChecker, never()).fetch(B.sha);
+    }
+
     @Test
     public void testCommitNotInPaprika() throws Exception {
         addCommitInPaprika(A);
@@ -227,22 +266,22 @@ public class CommitsAnalysisTest {
 
         getCommitsAnalysis().query();
 
-        verify(commitQueries, times(4)).commitInsertionStatement(anyInt(), any(Commit.class), any(GitDiff.class));
-        verify(commitQueries).commitInsertionStatement(projectId, A, dummyDetails.diff);
-        verify(commitQueries).commitInsertionStatement(projectId, B, dummyDetails.diff);
-        verify(commitQueries).commitInsertionStatement(projectId, C, dummyDetails.diff);
-        verify(commitQueries).commitInsertionStatement(projectId, D, dummyDetails.diff);
+        verify(commitQueries, times(4)).parameterizedCommitInsertion(anyInt(), any(Commit.class), any(GitDiff.class));
+        verify(commitQueries).parameterizedCommitInsertion(projectId, A, dummyDetails.diff);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, B, dummyDetails.diff);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, C, dummyDetails.diff);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, D, dummyDetails.diff);
 
         // Author insertion is brainlessly done at each encounter
-        verify(developerQueries, times(4)).developerInsertStatement(anyString());
-        verify(developerQueries, times(2)).developerInsertStatement(A.authorEmail);
-        verify(developerQueries, times(2)).developerInsertStatement(C.authorEmail);
-        verify(developerQueries, times(4)).projectDeveloperInsertStatement(eq(projectId), anyString());
-        verify(developerQueries, times(2)).projectDeveloperInsertStatement(projectId, A.authorEmail);
-        verify(developerQueries, times(2)).projectDeveloperInsertStatement(projectId, C.authorEmail);
+        verify(developerQueries, times(4)).parameterizedDeveloperInsertion(anyString());
+        verify(developerQueries, times(2)).parameterizedDeveloperInsertion(A.authorEmail);
+        verify(developerQueries, times(2)).parameterizedDeveloperInsertion(C.authorEmail);
+        verify(developerQueries, times(4)).parameterizedProjectDeveloperInsertion(eq(projectId), anyString());
+        verify(developerQueries, times(2)).parameterizedProjectDeveloperInsertion(projectId, A.authorEmail);
+        verify(developerQueries, times(2)).parameterizedProjectDeveloperInsertion(projectId, C.authorEmail);
 
         // No GitRename handled
-        verify(commitQueries, times(0)).fileRenameInsertionStatement(eq(projectId), anyString(), any(GitRename.class));
+        verify(commitQueries, times(0)).parameterizedFileRenameInsertion(eq(projectId), anyString(), any(GitRename.class));
     }
 
     /**
@@ -272,16 +311,136 @@ public class CommitsAnalysisTest {
 
         getCommitsAnalysis().query();
 
-        verify(commitQueries).commitInsertionStatement(projectId, A, details.diff);
-        verify(commitQueries, times(0)).fileRenameInsertionStatement(projectId, A.sha, notJavaRename);
-        verify(commitQueries).fileRenameInsertionStatement(projectId, A.sha, actualRename);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, A, details.diff);
+        verify(commitQueries, times(0)).parameterizedFileRenameInsertion(projectId, A.sha, notJavaRename);
+        verify(commitQueries).parameterizedFileRenameInsertion(projectId, A.sha, actualRename);
 
-        verify(commitQueries).commitInsertionStatement(projectId, B, otherDetails.diff);
-        verify(commitQueries).fileRenameInsertionStatement(projectId, B.sha, renameB);
+        verify(commitQueries).parameterizedCommitInsertion(projectId, B, otherDetails.diff);
+        verify(commitQueries).parameterizedFileRenameInsertion(projectId, B.sha, renameB);
 
         // A and B share the same author.
-        verify(developerQueries, times(2)).developerInsertStatement(A.authorEmail);
-        verify(developerQueries, times(2)).projectDeveloperInsertStatement(projectId, A.authorEmail);
+        verify(developerQueries, times(2)).parameterizedDeveloperInsertion(A.authorEmail);
+        verify(developerQueries, times(2)).parameterizedProjectDeveloperInsertion(projectId, A.authorEmail);
+
+    }
+
+    /**
+     * The changed files are persisted along with the commits, after the commit insertions.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCommitWithChangedFiles() throws Exception {
+        GitChangedFile changedA = new GitChangedFile("a.java", 3);
+        GitChangedFile changedB = new GitChangedFile("res/b.xml", 12);
+        GitChangedFile otherChangedB = new GitChangedFile("b.java", 1);
+        ParameterizedStatement changedFileInsertion = new ParameterizedStatement("FileChangedInsertion");
+        doReturn(changedFileInsertion).when(commitQueries).parameterizedFileChangedInsertion(
+                eq(projectId), anyString(), any(GitChangedFile.class));
+
+        addCommitInPaprika(A);
+        addCommitInRepository(A, new CommitDetails(new GitDiff(3, 0, 1), Collections.emptyList(),
+                Collections.singletonList(changedA)));
+        addCommitInPaprika(B);
+        addCommitInRepository(B, new CommitDetails(new GitDiff(8, 5, 2), Collections.emptyList(),
+                Arrays.asList(changedB, otherChangedB)));
+        addCommitInPaprika(C);
+        addCommitInRepository(C);
+        prepareGitLog(A, B, C);
+
+        getCommitsAnalysis().query();
+
+        verify(commitQueries).parameterizedFileChangedInsertion(projectId, A.sha, changedA);
+        verify(commitQueries).parameterizedFileChangedInsertion(projectId, B.sha, changedB);
+        verify(commitQueries).parameterizedFileChangedInsertion(projectId, B.sha, otherChangedB);
+        verify(commitQueries, times(3)).parameterizedFileChangedInsertion(
+                eq(projectId), anyString(), any(GitChangedFile.class));
+
+        // The changed files reference the commits, thus are sent in the same batch afterwards.
+        InOrder inOrder = inOrder(persistence);
+        inOrder.verify(persistence).addParameterizedStatements(new ParameterizedStatement("CommitInsertion"),
+                new ParameterizedStatement("CommitInsertion"), new ParameterizedStatement("CommitInsertion"));
+        inOrder.verify(persistence).addParameterizedStatements(
+                changedFilesComputed(C.sha),
+                changedFileInsertion, changedFileInsertion, changedFilesComputed(B.sha),
+                changedFileInsertion, changedFilesComputed(A.sha));
+        inOrder.verify(persistence).commit();
+    }
+
+    /**
+     * The commits without any changed file, e.g. whose details could not be fetched,
+     * are recorded as computed so that FilesChangeDetectionQuery does not compute them again.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCommitWithoutChangedFileIsComputed() throws Exception {
+        addCommitInPaprika(A);
+        addCommitInRepository(A, new CommitDetails(new GitDiff(4, 0, 0), Collections.emptyList()));
+        addCommitInPaprika(B);
+        // Details returned by the checkers when the commit could not be read.
+        addCommitInRepository(B, new CommitDetails(GitDiff.EMPTY, new ArrayList<>(), new ArrayList<>()));
+        prepareGitLog(A, B);
+
+        getCommitsAnalysis().query();
+
+        verify(commitQueries, never()).parameterizedFileChangedInsertion(
+                eq(projectId), anyString(), any(GitChangedFile.class));
+        verify(commitQueries).parameterizedChangedFilesComputed(projectId, A.sha);
+        verify(commitQueries).parameterizedChangedFilesComputed(projectId, B.sha);
+        InOrder inOrder = inOrder(persistence);
+        inOrder.verify(persistence).addParameterizedStatements(new ParameterizedStatement("CommitInsertion"),
+                new ParameterizedStatement("CommitInsertion"));
+        inOrder.verify(persistence).addParameterizedStatements(changedFilesComputed(B.sha), changedFilesComputed(A.sha));
+        inOrder.verify(persistence).commit();
+    }
+
+    /**
+     * The commits details are retrieved concurrently, with the slowest ones on the first commits,
+     * but still persisted in the log order.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParallelAnalysisKeepsLogOrder() throws Exception {
+        List<Commit> commits = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Commit commit = new Commit("sha" + i, i, new DateTime(i),
+                    "message" + i, "author" + (i % 3) + "@email.com", Collections.emptyList());
+            CommitDetails details = new CommitDetails(new GitDiff(i, 0, 1), Collections.emptyList());
+            commits.add(commit);
+            addCommitInPaprika(commit);
+            addCommitInRepository(commit, details);
+            long delay = (40 - i) % 7;
+            doAnswer(invocation -> {
+                Thread.sleep(delay);
+                return details;
+            }).when(detailsChecker).fetch(commit.sha);
+        }
+        List<Commit> log = new ArrayList<>(commits);
+        Collections.reverse(log);
+        prepareGitLog(log.toArray(new Commit[0]));
+
+        new CommitsAnalysis(projectId, persistence, repository, paprikaCommitsList.iterator(), detailsChecker,
+                developerQueries, commitQueries, false, 4, false).query();
+
+        InOrder inOrder = inOrder(commitQueries, developerQueries);
+        for (Commit commit : commits) {
+            inOrder.verify(developerQueries).parameterizedDeveloperInsertion(commit.authorEmail);
+            inOrder.verify(commitQueries).parameterizedCommitInsertion(eq(projectId), eq(commit), any(GitDiff.class));
+        }
+        verify(persistence).commit();
+    }
+
+    @Test(expected = QueryException.class)
+    public void testParallelAnalysisFailure() throws Exception {
+        addCommitInPaprika(A);
+        addCommitInRepository(A);
+        addCommitInPaprika(B);
+        doThrow(new IOException("missing")).when(repository).getCommitWithDetails(B.sha);
+        prepareGitLog(B, A);
 
+        new CommitsAnalysis(projectId, persistence, repository, paprikaCommitsList.iterator(), detailsChecker,
+                developerQueries, commitQueries, false, 2, false).query();
     }
-}
\ No newline at end of file
+}
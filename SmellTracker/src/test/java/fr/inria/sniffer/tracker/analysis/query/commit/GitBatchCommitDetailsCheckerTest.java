@@ -0,0 +1,125 @@
+package fr.inria.sniffer.tracker.analysis.query.commit;
+
+import fr.inria.sniffer.tracker.analysis.model.CommitDetails;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GitBatchCommitDetailsCheckerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Git git;
+    private List<String> commits;
+    private GitCommitDetailsChecker reference;
+    private GitBatchCommitDetailsChecker checker;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(folder.getRoot()).call();
+        commits = new ArrayList<>();
+
+        write("a.java", "one", "two", "three", "four");
+        write("b.java", "five");
+        commit("root");
+        git.branchCreate().setName("feature").call();
+        write("b.java", "5", "six");
+        new File(folder.getRoot(), "a.java").delete();
+        write("src/c.java", "one", "two", "three", "four");
+        commit("rename");
+        git.checkout().setName("feature").call();
+        write("d.java", "seven");
+        commit("feature");
+        git.checkout().setName("master").call();
+        git.merge().include(git.getRepository().resolve("feature")).setMessage("merge").call();
+        commits.add(git.getRepository().resolve("HEAD").getName());
+
+        String repository = folder.getRoot().toString();
+        reference = new GitCommitDetailsChecker(repository);
+        checker = new GitBatchCommitDetailsChecker(repository, 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        checker.close();
+        git.close();
+    }
+
+    private void write(String path, String... lines) throws IOException {
+        File file = new File(folder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), String.join("\n", lines).concat("\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void commit(String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.add().setUpdate(true).addFilepattern(".").call();
+        RevCommit commit = git.commit().setMessage(message).call();
+        commits.add(commit.getName());
+    }
+
+    private static String describe(CommitDetails details) {
+        return details + " " + details.changedFiles;
+    }
+
+    @Test
+    public void testSameDetailsAsSingleCommand() {
+        CommitDetails renamed = checker.fetch(commits.get(1));
+        assertEquals(1, renamed.renames.size());
+        assertEquals(1, renamed.changedFiles.size());
+
+        for (String commit : commits) {
+            assertEquals(describe(reference.fetch(commit)), describe(checker.fetch(commit)));
+        }
+        // Fetching again using the same process.
+        for (String commit : commits) {
+            assertEquals(describe(reference.fetch(commit)), describe(checker.fetch(commit)));
+        }
+    }
+
+    @Test
+    public void testUnknownCommitDoesNotShiftFrames() {
+        CommitDetails unknown = checker.fetch("0123456789abcdef0123456789abcdef01234567");
+        assertEquals(0, unknown.diff.getChangedFiles());
+        assertTrue(unknown.renames.isEmpty());
+        assertTrue(unknown.changedFiles.isEmpty());
+
+        String commit = commits.get(1);
+        assertEquals(describe(reference.fetch(commit)), describe(checker.fetch(commit)));
+    }
+
+    @Test
+    public void testConcurrentFetch() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String commit = commits.get(i % commits.size());
+                results.add(executor.submit(() -> describe(checker.fetch(commit))));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                String commit = commits.get(i % commits.size());
+                assertEquals(describe(reference.fetch(commit)), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
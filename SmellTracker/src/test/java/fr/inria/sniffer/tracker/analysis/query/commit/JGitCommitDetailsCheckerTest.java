@@ -0,0 +1,148 @@
+package fr.inria.sniffer.tracker.analysis.query.commit;
+
+import fr.inria.sniffer.tracker.analysis.model.CommitDetails;
+import fr.inria.sniffer.tracker.analysis.model.GitChangedFile;
+import fr.inria.sniffer.tracker.analysis.model.GitRename;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JGitCommitDetailsCheckerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Git git;
+    private JGitCommitDetailsChecker checker;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(folder.getRoot()).call();
+        checker = new JGitCommitDetailsChecker(git.getRepository());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        git.close();
+    }
+
+    private void write(String path, String... lines) throws IOException {
+        File file = new File(folder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), String.join("\n", lines).concat("\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private RevCommit commit(String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.add().setUpdate(true).addFilepattern(".").call();
+        return git.commit().setMessage(message).call();
+    }
+
+    private static void assertChangedFile(GitChangedFile file, String name, int changeSize) {
+        assertEquals(name, file.name);
+        assertEquals(changeSize, file.changeSize);
+    }
+
+    @Test
+    public void testRootCommit() throws Exception {
+        write("a.java", "one", "two", "three");
+        write("b.java", "four");
+        RevCommit root = commit("root");
+
+        CommitDetails details = checker.fetch(root.getName());
+
+        assertEquals(4, details.diff.getAddition());
+        assertEquals(0, details.diff.getDeletion());
+        assertEquals(2, details.diff.getChangedFiles());
+        assertTrue(details.renames.isEmpty());
+        assertEquals(2, details.changedFiles.size());
+        assertChangedFile(details.changedFiles.get(0), "a.java", 3);
+        assertChangedFile(details.changedFiles.get(1), "b.java", 1);
+    }
+
+    @Test
+    public void testModificationAndDeletion() throws Exception {
+        write("a.java", "one", "two", "three");
+        write("b.java", "four", "five");
+        commit("root");
+        write("a.java", "one", "2", "three", "four");
+        new File(folder.getRoot(), "b.java").delete();
+        RevCommit change = commit("change");
+
+        CommitDetails details = checker.fetch(change.getName());
+
+        assertEquals(2, details.diff.getAddition());
+        assertEquals(3, details.diff.getDeletion());
+        assertEquals(2, details.diff.getChangedFiles());
+        assertTrue(details.renames.isEmpty());
+        assertEquals(2, details.changedFiles.size());
+        assertChangedFile(details.changedFiles.get(0), "a.java", 3);
+        assertChangedFile(details.changedFiles.get(1), "b.java", 2);
+    }
+
+    @Test
+    public void testRename() throws Exception {
+        write("src/a.java", "one", "two", "three", "four");
+        commit("root");
+        new File(folder.getRoot(), "src/a.java").delete();
+        write("src/b.java", "one", "two", "three", "four");
+        RevCommit rename = commit("rename");
+
+        CommitDetails details = checker.fetch(rename.getName());
+
+        assertEquals(1, details.diff.getChangedFiles());
+        assertEquals(0, details.diff.getAddition());
+        assertEquals(0, details.diff.getDeletion());
+        assertTrue(details.changedFiles.isEmpty());
+        assertEquals(1, details.renames.size());
+        GitRename renamed = details.renames.get(0);
+        assertEquals("src/a.java", renamed.oldFile);
+        assertEquals("src/b.java", renamed.newFile);
+        assertEquals(100, renamed.similarity);
+    }
+
+    @Test
+    public void testMergeIsComparedToFirstParent() throws Exception {
+        write("a.java", "one");
+        commit("root");
+        git.branchCreate().setName("feature").call();
+        write("b.java", "two", "three");
+        RevCommit master = commit("master");
+        git.checkout().setName("feature").call();
+        write("c.java", "four");
+        commit("feature");
+        git.checkout().setName("master").call();
+        git.merge().include(git.getRepository().resolve("feature")).setMessage("merge").call();
+        RevCommit merge = git.log().setMaxCount(1).call().iterator().next();
+
+        CommitDetails details = checker.fetch(merge.getName());
+
+        assertEquals(master, merge.getParent(0));
+        assertEquals(1, details.diff.getAddition());
+        assertEquals(1, details.changedFiles.size());
+        assertChangedFile(details.changedFiles.get(0), "c.java", 1);
+    }
+
+    @Test
+    public void testUnknownCommit() throws Exception {
+        write("a.java", "one");
+        commit("root");
+
+        CommitDetails details = checker.fetch("0123456789abcdef0123456789abcdef01234567");
+
+        assertEquals(0, details.diff.getChangedFiles());
+        assertTrue(details.renames.isEmpty());
+        assertTrue(details.changedFiles.isEmpty());
+    }
+}
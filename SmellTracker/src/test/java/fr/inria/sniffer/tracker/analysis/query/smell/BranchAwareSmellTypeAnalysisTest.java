@@ -2,11 +2,16 @@ package fr.inria.sniffer.tracker.analysis.query.smell;
 
 import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
 import fr.inria.sniffer.tracker.analysis.persistence.SmellCategory;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.JDBCSmellQueries;
+import fr.inria.sniffer.tracker.analysis.query.AnalysisProgress;
 import fr.inria.sniffer.tracker.analysis.query.QueryException;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
 import org.mockito.stubbing.Answer;
 
 import java.util.ArrayList;
@@ -17,12 +22,16 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -63,6 +72,9 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         when(commitQueries.mergedCommitIdQuery(anyInt(), any(Commit.class))).then((Answer<String>)
                 invocation -> mergedCommitStatement(invocation.getArgument(0),
                         ((Commit) invocation.getArgument(1)).sha));
+        when(commitQueries.mergedCommitQuery(anyInt(), any(Commit.class))).then((Answer<String>)
+                invocation -> mergedCommitQuery(invocation.getArgument(0),
+                        ((Commit) invocation.getArgument(1)).sha));
         when(smellQueries.commitSmellsQuery(anyInt(), anyString(), anyString())).then((Answer<String>)
                 invocation -> commitSmellsStatement(invocation.getArgument(0),
                         Integer.valueOf(invocation.getArgument(1)), invocation.getArgument(2)));
@@ -100,6 +112,10 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         return "commitShaFromOrdinalStatement-" + projectId + "-" + sha;
     }
 
+    private static String mergedCommitQuery(int projectId, String sha) {
+        return "mergedCommitQuery-" + projectId + "-" + sha;
+    }
+
     private static String commitSmellsStatement(int projectId, int commitId, String smellType) {
         return "commitSmellsStatement-" + projectId + "-" + commitId + "-" + smellType;
     }
@@ -110,6 +126,14 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
                 duplicationChecker, commitQueries, smellQueries, branchQueries);
     }
 
+    private BranchAwareSmellTypeAnalysis getConcurrentAnalysis(int branchThreads) {
+        return new BranchAwareSmellTypeAnalysis(projectId, persistence, smellList.iterator(), smellType,
+                duplicationChecker, commitQueries, smellQueries, branchQueries,
+                new SynchronousSmellIdentifier(projectId, persistence, smellQueries),
+                new SynchronousCommitBranchLocator(projectId, persistence, branchQueries),
+                new SmellAnalysisSettings.Builder().branchThreads(branchThreads).build());
+    }
+
     protected void mockGapCommit(String sha1, int branch, int ordinal) {
         mockCommitPosition(sha1, commitShaFromOrdinalStatement(projectId, branch, ordinal));
     }
@@ -132,6 +156,11 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         List<Map<String, Object>> mergedResult = new ArrayList<>();
         mergedResult.add(Collections.singletonMap("id", merged.ordinal));
         doReturn(mergedResult).when(persistence).query(mergedCommitStatement(projectId, merge.sha));
+
+        Map<String, Object> mergedCommit = new HashMap<>();
+        mergedCommit.put("id", merged.ordinal);
+        mergedCommit.put("sha1", merged.sha);
+        doReturn(Collections.singletonList(mergedCommit)).when(persistence).query(mergedCommitQuery(projectId, merge.sha));
     }
 
     private void mockCommitSmells(Commit commit, Smell... smells) {
@@ -219,9 +248,9 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(persistence, times(1)).execute(any());
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
 
-        verify(persistence, times(2)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(2)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
     }
 
     /**
@@ -248,10 +277,10 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(persistence, times(1)).execute(any());
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
 
-        verify(persistence, times(3)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, lastCommitSha, firstSmell, SmellCategory.REFACTOR);
+        verify(persistence, times(3)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, lastCommitSha, firstSmell, SmellCategory.REFACTOR);
     }
 
     /**
@@ -277,13 +306,13 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(5)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(5)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, firstSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, firstSmell, SmellCategory.REFACTOR);
     }
 
     /**
@@ -310,13 +339,13 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(5)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(5)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
     }
 
     /**
@@ -343,14 +372,14 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(6)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(6)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, secondSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, secondSmell, SmellCategory.REFACTOR);
     }
 
     /**
@@ -376,10 +405,10 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         // We have only one smell insertion here since we check for existence in the previous commit.
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
 
-        verify(persistence, times(3)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(persistence, times(3)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -411,17 +440,17 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(6)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, someCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, someCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, someCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, someCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(6)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, someCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, someCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, someCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, someCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
 
         // 3rd commit is counted as consecutive to the first.
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, anotherCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, anotherCommit.sha, secondSmell, SmellCategory.PRESENCE);
 
         // Since we couldn't find the missing commit, we put the smells in LostRefactor and no presence.
-        verify(smellQueries).lostSmellCategoryInsertionStatement(projectId, firstSmell, SmellCategory.REFACTOR, someCommit.ordinal + 1, anotherCommit.ordinal);
+        verify(smellQueries).parameterizedLostSmellCategoryInsertion(projectId, firstSmell, SmellCategory.REFACTOR, someCommit.ordinal + 1, anotherCommit.ordinal);
     }
 
     /**
@@ -458,10 +487,10 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         assertEquals(expectedSecondSmell, renamed);
         assertEquals(firstSmell, renamed.parent);
 
-        verify(persistence, times(3)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
+        verify(persistence, times(3)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -504,12 +533,12 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         assertEquals(expectedSecondSmell, renamed);
         assertEquals(firstSmell, renamed.parent);
 
-        verify(persistence, times(4)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(4)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, thirdCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, thirdCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -531,9 +560,9 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(persistence, times(1)).execute(any());
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
 
-        verify(persistence, times(2)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, thirdCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, thirdCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(2)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, thirdCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, thirdCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
     }
 
     /**
@@ -588,28 +617,28 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(15)).addStatements(any());
+        verify(persistence, times(15)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A0.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A0.sha, thirdSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A0.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A0.sha, thirdSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B0.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B0.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B0.sha, thirdSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B0.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B0.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B0.sha, thirdSmell, SmellCategory.REFACTOR);
 
         // Forked branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A1.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A1.sha, secondSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A1.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B1.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B1.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C1.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C1.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A1.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A1.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A1.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B1.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B1.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C1.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C1.sha, thirdSmell, SmellCategory.PRESENCE);
 
         // Merge commit
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C0.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C0.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C0.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C0.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C0.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C0.sha, thirdSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -680,36 +709,36 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
         verify(smellQueries).smellInsertionStatement(projectId, thirdSmell);
 
-        verify(persistence, times(18)).addStatements(any());
+        verify(persistence, times(18)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
 
         // First branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, secondSmell, SmellCategory.INTRODUCTION);
 
         // First merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, secondSmell, SmellCategory.PRESENCE);
 
         // Second branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, secondSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, secondSmell, SmellCategory.REFACTOR);
 
         // Second branch's master
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, thirdSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, thirdSmell, SmellCategory.INTRODUCTION);
 
         // Second merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -776,29 +805,29 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
         verify(smellQueries).smellInsertionStatement(projectId, thirdSmell);
 
-        verify(persistence, times(17)).addStatements(any());
+        verify(persistence, times(17)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, thirdSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, thirdSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, thirdSmell, SmellCategory.PRESENCE);
 
         // Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, secondSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
 
         // Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -865,31 +894,31 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
         verify(smellQueries).smellInsertionStatement(projectId, thirdSmell);
 
-        verify(persistence, times(17)).addStatements(any());
+        verify(persistence, times(17)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, firstSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, firstSmell, SmellCategory.REFACTOR);
 
         // First Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, thirdSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, thirdSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, thirdSmell, SmellCategory.PRESENCE);
 
         // Second Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, secondSmell, SmellCategory.INTRODUCTION);
 
         // Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -958,35 +987,35 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
         verify(smellQueries).smellInsertionStatement(projectId, thirdSmell);
 
-        verify(persistence, times(19)).addStatements(any());
+        verify(persistence, times(19)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
 
         // First Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, secondSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
 
         // First Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, thirdSmell, SmellCategory.PRESENCE);
 
         // Second Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, thirdSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, thirdSmell, SmellCategory.INTRODUCTION);
 
         // Second Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -1049,28 +1078,28 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(12)).addStatements(any());
+        verify(persistence, times(12)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
 
         // First Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, secondSmell, SmellCategory.INTRODUCTION);
 
         // First Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, secondSmell, SmellCategory.PRESENCE);
 
         // Second Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
 
         // Second Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -1137,31 +1166,31 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
         verify(smellQueries).smellInsertionStatement(projectId, thirdSmell);
 
-        verify(persistence, times(17)).addStatements(any());
+        verify(persistence, times(17)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, thirdSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, thirdSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, thirdSmell, SmellCategory.PRESENCE);
 
         // Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, secondSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
 
         // Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -1229,34 +1258,34 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
         verify(smellQueries).smellInsertionStatement(projectId, thirdSmell);
-        verify(persistence, times(17)).addStatements(any());
+        verify(persistence, times(17)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.REFACTOR);
 
         // First Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, secondSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, secondSmell, SmellCategory.PRESENCE);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, H.sha, thirdSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, H.sha, thirdSmell, SmellCategory.INTRODUCTION);
 
         // Second Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, firstSmell, SmellCategory.REFACTOR);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
 
         // First Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
 
         // Second Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, thirdSmell, SmellCategory.PRESENCE);
 
     }
 
@@ -1320,31 +1349,31 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
         verify(smellQueries).smellInsertionStatement(projectId, thirdSmell);
 
-        verify(persistence, times(15)).addStatements(any());
+        verify(persistence, times(15)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, secondSmell, SmellCategory.INTRODUCTION);
 
         // First Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, secondSmell, SmellCategory.REFACTOR);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, secondSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, thirdSmell, SmellCategory.PRESENCE);
 
         // Second Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, thirdSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, thirdSmell, SmellCategory.INTRODUCTION);
 
         // Third Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, thirdSmell, SmellCategory.PRESENCE);
 
         // Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, thirdSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -1400,26 +1429,26 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(12)).addStatements(any());
+        verify(persistence, times(12)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
 
         // First Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, secondSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, secondSmell, SmellCategory.PRESENCE);
 
         // First merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, secondSmell, SmellCategory.PRESENCE);
 
         // Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, secondSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -1482,22 +1511,22 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(12)).addStatements(any());
+        verify(persistence, times(12)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, secondSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, secondSmell, SmellCategory.PRESENCE);
-
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, secondSmell, SmellCategory.REFACTOR);
-
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, secondSmell, SmellCategory.PRESENCE);
+
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, secondSmell, SmellCategory.REFACTOR);
+
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, firstSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -1565,17 +1594,17 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, expectedSecondSmell);
         verify(smellQueries).smellInsertionStatement(projectId, expectedRenamedFirstSmell);
 
-        verify(persistence, times(8)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(8)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, expectedSecondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, expectedSecondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, expectedSecondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, expectedSecondSmell, SmellCategory.PRESENCE);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -1621,24 +1650,298 @@ public class BranchAwareSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase
         verify(smellQueries).smellInsertionStatement(projectId, fourthSmell);
 
 
-        verify(persistence, times(12)).addStatements(any());
+        verify(persistence, times(12)).addParameterizedStatements(any());
         // Initial branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, secondSmell, SmellCategory.INTRODUCTION);
 
         // First Branch
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, secondSmell, SmellCategory.REFACTOR);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, thirdSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, secondSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, thirdSmell, SmellCategory.INTRODUCTION);
 
         // Merge
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, firstSmell, SmellCategory.REFACTOR);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, thirdSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, fourthSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, fourthSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, fourthSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, fourthSmell, SmellCategory.INTRODUCTION);
+    }
+
+    /**
+     * A is analyzed by a previous analysis, only B is new:
+     * <pre><code>
+     * * A (1, 2)
+     * |
+     * * B (   2)
+     * </code></pre>
+     *
+     * @throws QueryException
+     */
+    @Test
+    public void testIncrementalResumesFromLastAnalyzedCommit() throws QueryException {
+        Commit A = new Commit("A", 3);
+        Commit B = new Commit("B", 4);
+        int lastAnalyzedCommitId = A.ordinal;
+
+        mockCommitSmells(A, firstSmell, secondSmell);
+        mockCommitSmells(B, secondSmell);
+        doReturn(A.ordinal).when(commitQueries).cachedCommitId(projectId, A.sha);
+        doReturn(B.ordinal).when(commitQueries).cachedCommitId(projectId, B.sha);
+
+        mockCommitBranch(A, 0, 0);
+        mockCommitBranch(B, 0, 1);
+        mockLastBranchCommit(0, B);
+        Map<String, Object> lastAnalyzed = new HashMap<>();
+        lastAnalyzed.put("id", A.ordinal);
+        lastAnalyzed.put("sha1", A.sha);
+        doReturn("lastAnalyzedCommit").when(branchQueries).lastAnalyzedCommitQuery(projectId, 0, lastAnalyzedCommitId);
+        doReturn(Collections.singletonList(lastAnalyzed)).when(persistence).query("lastAnalyzedCommit");
+
+        new BranchAwareSmellTypeAnalysis(projectId, persistence, smellList.iterator(), smellType,
+                duplicationChecker, commitQueries, smellQueries, branchQueries,
+                new SynchronousSmellIdentifier(projectId, persistence, smellQueries),
+                new SynchronousCommitBranchLocator(projectId, persistence, branchQueries),
+                new SmellAnalysisSettings.Builder().lastAnalyzedCommitId(lastAnalyzedCommitId).build()).query();
+
+        // The smells are known from the last analyzed commit presences.
+        verify(persistence, never()).execute(any());
+
+        verify(persistence, times(2)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.REFACTOR);
+    }
+
+    /**
+     * Branch 1 was finalized by an interrupted analysis, only branch 0 is analyzed again:
+     * <pre><code>
+     * .    A (1, 2,     )
+     * |\
+     * | .  B (1,    3,  ) [finalized]
+     * |/
+     * .    C (      3, 4) [merge]
+     * </pre></code>
+     *
+     * @throws QueryException
+     */
+    @Test
+    public void testResumeSkipsFinalizedBranches() throws QueryException {
+        Commit A = new Commit("0-A", 0);
+        Commit B = new Commit("1-B", 1);
+        Commit C = new Commit("0-C", 2);
+        Smell fourthSmell = new Smell(smellType, "fourthSmellInstance", "fourthSmellFile");
+        mockSmellId(fourthSmell);
+
+        mockCommitSmells(A, firstSmell, secondSmell);
+        mockCommitSmells(B, firstSmell, thirdSmell);
+        mockCommitSmells(C, thirdSmell, fourthSmell);
+
+        mockCommitBranch(A, 0, 0);
+        mockCommitBranch(B, 1, 0);
+        mockCommitBranch(C, 0, 1);
+        mockLastBranchCommit(0, C);
+        mockLastBranchCommit(1, B);
+
+        mockMergeCommit(C, B);
+
+        AnalysisProgress progress = Mockito.mock(AnalysisProgress.class);
+        String branchStage = AnalysisProgress.BRANCH_STAGE_PREFIX + smellType;
+        doReturn(Collections.singleton("1")).when(progress).doneSteps(branchStage);
+
+        new BranchAwareSmellTypeAnalysis(projectId, persistence, smellList.iterator(), smellType,
+                duplicationChecker, commitQueries, smellQueries, branchQueries,
+                new SynchronousSmellIdentifier(projectId, persistence, smellQueries),
+                new SynchronousCommitBranchLocator(projectId, persistence, branchQueries),
+                new SmellAnalysisSettings.Builder().progress(progress).build()).query();
+
+        // The merged smells are read from the persisted branch.
+        verify(persistence, never()).query(branchParentCommitSmellStatement(projectId, 1, smellType));
+        verify(smellQueries, never()).parameterizedSmellCategoryInsertion(eq(projectId), eq(B.sha),
+                any(Smell.class), any(SmellCategory.class));
+
+        verify(persistence, times(8)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, thirdSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, fourthSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, fourthSmell, SmellCategory.INTRODUCTION);
+
+        verify(progress).record(persistence, branchStage, "0");
+        verify(progress, never()).record(persistence, branchStage, "1");
+    }
+
+    /**
+     * Branch 0 was partially written by an interrupted analysis, which did not finalize it:
+     * <pre><code>
+     * * A (1, 2)
+     * |
+     * x Missing commit B
+     * |
+     * * C (  2)
+     * </code></pre>
+     * The resumed analysis inserts the same rows again, which must be ignored by the persistence.
+     *
+     * @throws QueryException
+     */
+    @Test
+    public void testResumePartiallyWrittenBranch() throws QueryException {
+        Commit A = new Commit("A", 57);
+        Commit C = new Commit("C", 60);
+
+        mockCommitSmells(A, firstSmell, secondSmell);
+        mockCommitSmells(C, secondSmell);
+        mockCommitBranch(A, 0, 0);
+        mockCommitBranch(C, 0, 2);
+        mockLastBranchCommit(0, C.sha);
+        doReturn(A.ordinal).when(commitQueries).cachedCommitId(projectId, A.sha);
+
+        JDBCSmellQueries jdbcSmellQueries = new JDBCSmellQueries(commitQueries);
+        when(smellQueries.parameterizedSmellCategoryInsertion(anyInt(), anyString(), any(Smell.class),
+                any(SmellCategory.class))).then(invocation -> jdbcSmellQueries.parameterizedSmellCategoryInsertion(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                invocation.getArgument(3)));
+        when(smellQueries.parameterizedLostSmellCategoryInsertion(anyInt(), any(Smell.class), any(SmellCategory.class),
+                anyInt(), anyInt())).then(invocation -> jdbcSmellQueries.parameterizedLostSmellCategoryInsertion(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                invocation.getArgument(3), invocation.getArgument(4)));
+
+        AnalysisProgress progress = Mockito.mock(AnalysisProgress.class);
+        String branchStage = AnalysisProgress.BRANCH_STAGE_PREFIX + smellType;
+        doReturn(Collections.emptySet()).when(progress).doneSteps(branchStage);
+        SmellAnalysisSettings settings = new SmellAnalysisSettings.Builder().progress(progress).build();
+
+        new BranchAwareSmellTypeAnalysis(projectId, persistence, smellList.iterator(), smellType,
+                duplicationChecker, commitQueries, smellQueries, branchQueries,
+                new SynchronousSmellIdentifier(projectId, persistence, smellQueries),
+                new SynchronousCommitBranchLocator(projectId, persistence, branchQueries), settings).query();
+        ArgumentCaptor<ParameterizedStatement> interrupted = ArgumentCaptor.forClass(ParameterizedStatement.class);
+        verify(persistence, times(6)).addParameterizedStatements(interrupted.capture());
+        clearInvocations(persistence);
+
+        new BranchAwareSmellTypeAnalysis(projectId, persistence, smellList.iterator(), smellType,
+                duplicationChecker, commitQueries, smellQueries, branchQueries,
+                new SynchronousSmellIdentifier(projectId, persistence, smellQueries),
+                new SynchronousCommitBranchLocator(projectId, persistence, branchQueries), settings).query();
+        ArgumentCaptor<ParameterizedStatement> resumed = ArgumentCaptor.forClass(ParameterizedStatement.class);
+        verify(persistence, times(6)).addParameterizedStatements(resumed.capture());
+
+        assertEquals(interrupted.getAllValues(), resumed.getAllValues());
+        for (ParameterizedStatement statement : resumed.getAllValues()) {
+            assertTrue(statement.getSql(), statement.getSql().contains("ON CONFLICT DO NOTHING"));
+        }
+    }
+
+    /**
+     * <pre><code>
+     * * A (1, 2)
+     * |
+     * * B (1)
+     * |
+     * * C (1, 2)
+     * </code></pre>
+     *
+     * @throws QueryException
+     */
+    @Test
+    public void testPresenceIntervals() throws QueryException {
+        Commit A = new Commit("0-A", 0);
+        Commit B = new Commit("0-B", 1);
+        Commit C = new Commit("0-C", 2);
+
+        mockCommitSmells(A, firstSmell, secondSmell);
+        mockCommitSmells(B, firstSmell);
+        mockCommitSmells(C, firstSmell, secondSmell);
+
+        mockCommitBranch(A, 0, 0);
+        mockCommitBranch(B, 0, 1);
+        mockCommitBranch(C, 0, 2);
+        mockLastBranchCommit(0, C);
+
+        new BranchAwareSmellTypeAnalysis(projectId, persistence, smellList.iterator(), smellType,
+                duplicationChecker, commitQueries, smellQueries, branchQueries,
+                new SynchronousSmellIdentifier(projectId, persistence, smellQueries),
+                new SynchronousCommitBranchLocator(projectId, persistence, branchQueries),
+                new SmellAnalysisSettings.Builder().presenceIntervals(true).build()).query();
+
+        verify(smellQueries, never()).parameterizedSmellCategoryInsertion(anyInt(), anyString(),
+                any(Smell.class), eq(SmellCategory.PRESENCE));
+        verify(smellQueries, times(3)).parameterizedSmellPresenceIntervalInsertion(anyInt(), any(Smell.class),
+                anyInt(), anyInt(), anyInt());
+        verify(smellQueries).parameterizedSmellPresenceIntervalInsertion(projectId, firstSmell, 0, 0, 2);
+        verify(smellQueries).parameterizedSmellPresenceIntervalInsertion(projectId, secondSmell, 0, 0, 0);
+        verify(smellQueries).parameterizedSmellPresenceIntervalInsertion(projectId, secondSmell, 0, 2, 2);
+
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, secondSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, secondSmell, SmellCategory.INTRODUCTION);
     }
 
-}
\ No newline at end of file
+    /**
+     * Same history as {@link #testMergeBackAndForthBranchesSeparateSmells()}, analyzing the branches concurrently.
+     *
+     * @throws QueryException
+     */
+    @Test
+    public void testConcurrentMergeBackAndForthBranches() throws QueryException {
+        Commit A = new Commit("0-A", 0);
+        Commit B = new Commit("0-B", 1);
+        Commit C = new Commit("0-C", 3);
+        Commit D = new Commit("1-D", 2);
+        Commit E = new Commit("1-E", 4);
+        Commit F = new Commit("0-F", 5);
+        Commit G = new Commit("1-G", 6);
+        Commit H = new Commit("0-H", 7);
+        Commit I = new Commit("0-I", 8);
+
+        mockCommitSmells(B, firstSmell);
+        mockCommitSmells(D, secondSmell);
+        mockCommitSmells(C, firstSmell);
+        mockCommitSmells(E, firstSmell, secondSmell);
+        mockCommitSmells(F, firstSmell, thirdSmell);
+        mockCommitSmells(G, firstSmell, secondSmell);
+        mockCommitSmells(H, firstSmell, thirdSmell);
+        mockCommitSmells(I, firstSmell, secondSmell, thirdSmell);
+
+        mockCommitBranch(A, 0, 0);
+        mockCommitBranch(B, 0, 1);
+        mockCommitBranch(C, 0, 2);
+        mockCommitBranch(D, 1, 0);
+        mockCommitBranch(E, 1, 1);
+        mockCommitBranch(F, 0, 3);
+        mockCommitBranch(G, 1, 2);
+        mockCommitBranch(H, 0, 4);
+        mockCommitBranch(I, 0, 5);
+        mockLastBranchCommit(0, I);
+        mockLastBranchCommit(1, G);
+
+        mockMergeCommit(I, G);
+        mockMergeCommit(E, C);
+        mockBranchParentCommitSmells(1, Collections.emptyList());
+
+        getConcurrentAnalysis(4).query();
+
+        verify(persistence, times(3)).execute(any());
+        verify(persistence, times(17)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, thirdSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, I.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries, never()).parameterizedSmellCategoryInsertion(anyInt(), anyString(), any(Smell.class),
+                eq(SmellCategory.REFACTOR));
+
+        // The merged commits smells are read once persisted by their branch.
+        InOrder mergedC = inOrder(smellQueries, persistence);
+        mergedC.verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, firstSmell, SmellCategory.PRESENCE);
+        mergedC.verify(persistence).query(commitSmellsStatement(projectId, C.ordinal, smellType));
+        InOrder mergedG = inOrder(smellQueries, persistence);
+        mergedG.verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, secondSmell, SmellCategory.PRESENCE);
+        mergedG.verify(persistence).query(commitSmellsStatement(projectId, G.ordinal, smellType));
+    }
+}
@@ -0,0 +1,131 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.ParameterizedStatement;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.RowMapper;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CachedSmellIdentifierTest {
+    private static final String PROJECT_SMELLS = "projectSmells";
+    private static final String RESERVATION = "reservation";
+
+    private final int projectId = 1;
+    private Persistence persistence;
+    private SmellQueries smellQueries;
+    private Smell existingSmell;
+
+    @Before
+    public void setUp() throws Exception {
+        persistence = mock(Persistence.class);
+        smellQueries = mock(SmellQueries.class);
+        existingSmell = new Smell("MIM", "existing", "file");
+
+        doReturn(PROJECT_SMELLS).when(smellQueries).projectSmellsQuery(projectId);
+        doReturn(RESERVATION).when(smellQueries).smellIdReservationQuery(anyInt());
+        doAnswer(invocation -> new ParameterizedStatement("insert", ((Smell) invocation.getArgument(1)).id))
+                .when(smellQueries).parameterizedSmellInsertion(eq(projectId), any(Smell.class));
+
+        ResultSet existing = mock(ResultSet.class);
+        doReturn(3).when(existing).getInt("id");
+        doReturn(0).when(existing).getInt("renamed_from");
+        doReturn(true).when(existing).wasNull();
+        doReturn(existingSmell.type).when(existing).getString("type");
+        doReturn(existingSmell.instance).when(existing).getString("instance");
+        doReturn(existingSmell.file).when(existing).getString("file");
+        doAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            Consumer<Object> consumer = invocation.getArgument(2);
+            consumer.accept(mapper.map(existing));
+            return 1;
+        }).when(persistence).streamQuery(eq(PROJECT_SMELLS), any(), any());
+    }
+
+    private void mockReservation(Integer... ids) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Integer id : ids) {
+            result.add(Collections.singletonMap("id", (long) id));
+        }
+        doReturn(result).when(persistence).query(RESERVATION);
+    }
+
+    @Test
+    public void testIdentifyExistingSmell() {
+        CachedSmellIdentifier identifier = new CachedSmellIdentifier(projectId, persistence, smellQueries);
+
+        assertEquals(3, identifier.identify(new Smell("MIM", "existing", "file")));
+
+        // The same smell with a parent is another smell
+        mockReservation(10, 11);
+        Smell renamed = new Smell("MIM", "existing", "file");
+        renamed.parent = existingSmell;
+        existingSmell.id = 3;
+        assertEquals(10, identifier.identify(renamed));
+
+        verify(persistence, never()).execute(anyString());
+        verify(persistence, times(1)).streamQuery(eq(PROJECT_SMELLS), any(), any());
+    }
+
+    @Test
+    public void testIdentifyNewSmells() {
+        mockReservation(10, 11);
+        CachedSmellIdentifier identifier = new CachedSmellIdentifier(projectId, persistence, smellQueries, 2);
+        Smell first = new Smell("MIM", "first", "file");
+        Smell second = new Smell("MIM", "second", "file");
+        Smell third = new Smell("LIC", "first", "file");
+
+        assertEquals(10, identifier.identify(first));
+        assertEquals(11, identifier.identify(second));
+        // Smells are only inserted once
+        assertEquals(10, identifier.identify(new Smell("MIM", "first", "file")));
+        verify(persistence, times(1)).query(RESERVATION);
+
+        // A new block is reserved once the current one is used
+        mockReservation(42, 43);
+        assertEquals(42, identifier.identify(third));
+        verify(persistence, times(2)).query(RESERVATION);
+        verify(smellQueries, times(2)).smellIdReservationQuery(2);
+
+        verify(persistence).addParameterizedStatements(new ParameterizedStatement("insert", 10));
+        verify(persistence).addParameterizedStatements(new ParameterizedStatement("insert", 11));
+        verify(persistence).addParameterizedStatements(new ParameterizedStatement("insert", 42));
+        verify(persistence, never()).execute(anyString());
+        verify(persistence, never()).commit();
+    }
+
+    @Test
+    public void testReservationFailure() {
+        mockReservation();
+        doReturn("insertion").when(smellQueries).smellInsertionStatement(eq(projectId), any(Smell.class));
+        doReturn(1).when(persistence).execute("insertion");
+        doReturn("last").when(smellQueries).lastSmellIdQuery(projectId);
+        doReturn(Collections.singletonList(Collections.singletonMap("id", 7))).when(persistence).query("last");
+        CachedSmellIdentifier identifier = new CachedSmellIdentifier(projectId, persistence, smellQueries);
+
+        assertEquals(7, identifier.identify(new Smell("MIM", "first", "file")));
+        verify(persistence).commit();
+        verify(persistence).execute("insertion");
+        verify(persistence, never()).addParameterizedStatements(any());
+    }
+}
@@ -0,0 +1,112 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.model.Commit;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.BranchQueries;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CommitBranchIndexTest {
+    private static final String BRANCH_COMMITS = "branchCommits";
+
+    private final int projectId = 1;
+    private Persistence persistence;
+    private BranchQueries branchQueries;
+
+    @Before
+    public void setUp() throws Exception {
+        persistence = mock(Persistence.class);
+        branchQueries = mock(BranchQueries.class);
+        doReturn(BRANCH_COMMITS).when(branchQueries).branchCommitsQuery(projectId);
+    }
+
+    private static Map<String, Object> branchCommit(String sha, int branchId, int ordinal) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("sha1", sha);
+        row.put("branch_id", branchId);
+        row.put("ordinal", ordinal);
+        return row;
+    }
+
+    private void mockBranchCommits(List<Map<String, Object>> rows, int count) {
+        doAnswer(invocation -> {
+            Consumer<Map<String, Object>> consumer = invocation.getArgument(1);
+            rows.forEach(consumer);
+            return count;
+        }).when(persistence).streamQuery(eq(BRANCH_COMMITS), any());
+    }
+
+    @Test
+    public void testLocateCommits() throws Throwable {
+        mockBranchCommits(Arrays.asList(
+                branchCommit("a", 10, 0),
+                branchCommit("b", 10, 1),
+                branchCommit("c", 11, 0),
+                // Commits are located on their first branch
+                branchCommit("b", 11, 1)
+        ), 4);
+        CommitBranchIndex index = new CommitBranchIndex(projectId, persistence, branchQueries);
+
+        assertEquals(10, index.branchId(new Commit("a", 0)));
+        assertEquals(0, index.branchOrdinal(10, new Commit("a", 0)));
+        assertEquals(10, index.branchId(new Commit("b", 1)));
+        assertEquals(1, index.branchOrdinal(10, new Commit("b", 1)));
+        assertEquals(11, index.branchId(new Commit("c", 2)));
+        assertEquals(0, index.branchOrdinal(11, new Commit("c", 2)));
+
+        verify(persistence, times(1)).streamQuery(eq(BRANCH_COMMITS), any());
+        verify(persistence, never()).query(anyString());
+    }
+
+    @Test(expected = BranchNotFoundException.class)
+    public void testUnknownCommit() throws Throwable {
+        mockBranchCommits(Collections.singletonList(branchCommit("a", 10, 0)), 1);
+        CommitBranchIndex index = new CommitBranchIndex(projectId, persistence, branchQueries);
+
+        index.branchId(new Commit("unknown", 0));
+    }
+
+    @Test
+    public void testOrdinalOnAnotherBranchIsQueried() throws Throwable {
+        mockBranchCommits(Collections.singletonList(branchCommit("a", 10, 0)), 1);
+        Commit commit = new Commit("a", 0);
+        doReturn("ordinal").when(branchQueries).commitOrdinalQuery(projectId, 11, commit);
+        doReturn(Collections.singletonList(Collections.singletonMap("ordinal", 4))).when(persistence).query("ordinal");
+        CommitBranchIndex index = new CommitBranchIndex(projectId, persistence, branchQueries);
+
+        assertEquals(4, index.branchOrdinal(11, commit));
+    }
+
+    @Test
+    public void testLoadFailure() throws Throwable {
+        mockBranchCommits(Collections.emptyList(), -1);
+        Commit commit = new Commit("a", 0);
+        doReturn("branch").when(branchQueries).idFromCommitQueryStatement(projectId, commit);
+        doReturn(Collections.singletonList(Collections.singletonMap("id", 10))).when(persistence).query("branch");
+        doReturn("ordinal").when(branchQueries).commitOrdinalQuery(projectId, 10, commit);
+        doReturn(Collections.singletonList(Collections.singletonMap("ordinal", 3))).when(persistence).query("ordinal");
+        CommitBranchIndex index = new CommitBranchIndex(projectId, persistence, branchQueries);
+
+        assertEquals(10, index.branchId(commit));
+        assertEquals(3, index.branchOrdinal(10, commit));
+        verify(persistence, times(1)).streamQuery(eq(BRANCH_COMMITS), any());
+    }
+}
@@ -52,9 +52,9 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(persistence, times(1)).execute(any());
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
 
-        verify(persistence, times(2)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(2)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
     }
 
     /**
@@ -79,10 +79,10 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(persistence, times(1)).execute(any());
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
 
-        verify(persistence, times(3)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, lastCommitSha, firstSmell, SmellCategory.REFACTOR);
+        verify(persistence, times(3)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, lastCommitSha, firstSmell, SmellCategory.REFACTOR);
     }
 
     /**
@@ -107,13 +107,13 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(5)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(5)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, firstSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, firstSmell, SmellCategory.REFACTOR);
     }
 
     /**
@@ -139,13 +139,13 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(5)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(5)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
     }
 
     /**
@@ -173,14 +173,14 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(6)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(6)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, secondSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, secondSmell, SmellCategory.REFACTOR);
     }
 
     /**
@@ -204,10 +204,10 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(persistence, times(1)).execute(any());
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
 
-        verify(persistence, times(3)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(persistence, times(3)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, firstSmell, SmellCategory.PRESENCE);
     }
 
     /**
@@ -238,20 +238,20 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries, times(2)).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(8)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(8)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
         // The 1st and 3rd commits will insert the secondSmell since 3rd has no idea it existed.
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
 
         // The missing Ordinal 1 will be replaced by an empty commit
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, gapCommitSha, firstSmell, SmellCategory.REFACTOR);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, gapCommitSha, secondSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, gapCommitSha, firstSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, gapCommitSha, secondSmell, SmellCategory.REFACTOR);
 
         // 3rd commit is counted as introducing the commit back.
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, thirdCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, thirdCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, thirdCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, thirdCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
     }
 
     /**
@@ -288,20 +288,20 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries, times(2)).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(8)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(8)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
         // The 1st and Nth commits will insert the secondSmell since 3rd has no idea it existed.
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
 
         // The missing Ordinal 1 will be replaced by an empty commit
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, gapCommitSha, firstSmell, SmellCategory.REFACTOR);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, gapCommitSha, secondSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, gapCommitSha, firstSmell, SmellCategory.REFACTOR);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, gapCommitSha, secondSmell, SmellCategory.REFACTOR);
 
         // Nth commit is counted as introducing the commit back.
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, anotherCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, anotherCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, anotherCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, anotherCommit.sha, secondSmell, SmellCategory.INTRODUCTION);
     }
 
     /**
@@ -330,17 +330,17 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
         verify(smellQueries).smellInsertionStatement(projectId, secondSmell);
 
-        verify(persistence, times(6)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(6)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
         // The 1st and Nth commits will insert the secondSmell since 3rd has no idea it existed.
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, secondSmell, SmellCategory.PRESENCE);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, thirdCommit.sha, secondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, thirdCommit.sha, secondSmell, SmellCategory.PRESENCE);
 
         // Since we couldn't find the missing commit, we put the smells in LostRefactor and no presence.
-        verify(smellQueries).lostSmellCategoryInsertionStatement(projectId, firstSmell, SmellCategory.REFACTOR, secondCommit.ordinal, thirdCommit.ordinal);
+        verify(smellQueries).parameterizedLostSmellCategoryInsertion(projectId, firstSmell, SmellCategory.REFACTOR, secondCommit.ordinal, thirdCommit.ordinal);
     }
 
     /**
@@ -373,13 +373,13 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         assertEquals(expectedSecondSmell, renamed);
         assertEquals(firstSmell, renamed.parent);
 
-        verify(persistence, times(3)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(3)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
 
         // We introduce the new smell instance definition with renamed_from filled in.
         // Since we use a captor we have to check all invocations of smellInsertionStatement...
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
 
     }
 
@@ -418,16 +418,16 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         assertEquals(expectedSecondSmell, renamed);
         assertEquals(firstSmell, renamed.parent);
 
-        verify(persistence, times(4)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(4)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, firstCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
 
         // We introduce the new smell instance definition with renamed_from filled in.
         // Since we use a captor we have to check all invocations of smellInsertionStatement...
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, secondCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, secondCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
 
         // We won't introduce the same rename multiple times, as before.
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, thirdCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, thirdCommit.sha, expectedSecondSmell, SmellCategory.PRESENCE);
 
     }
 
@@ -442,9 +442,9 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(persistence, times(1)).execute(any());
         verify(smellQueries).smellInsertionStatement(projectId, firstSmell);
 
-        verify(persistence, times(2)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, thirdCommit.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, thirdCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(2)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, thirdCommit.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, thirdCommit.sha, firstSmell, SmellCategory.INTRODUCTION);
     }
 
     /**
@@ -506,17 +506,17 @@ public class OrdinalSmellTypeAnalysisTest extends SmellTypeAnalysisTestCase {
         verify(smellQueries).smellInsertionStatement(projectId, expectedSecondSmell);
         verify(smellQueries).smellInsertionStatement(projectId, expectedRenamedFirstSmell);
 
-        verify(persistence, times(8)).addStatements(any());
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
+        verify(persistence, times(8)).addParameterizedStatements(any());
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, A.sha, firstSmell, SmellCategory.INTRODUCTION);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, B.sha, expectedSecondSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, C.sha, expectedSecondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, B.sha, expectedSecondSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, C.sha, expectedSecondSmell, SmellCategory.PRESENCE);
 
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, D.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, E.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, F.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
-        verify(smellQueries).smellCategoryInsertionStatement(projectId, G.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, D.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, E.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, F.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
+        verify(smellQueries).parameterizedSmellCategoryInsertion(projectId, G.sha, expectedRenamedFirstSmell, SmellCategory.PRESENCE);
     }
 
 }
@@ -0,0 +1,154 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.detector.neo4j.QueryEngine;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.RowMapper;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.MockitoAnnotations;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SmellDeletionQueryTest {
+    private List<Object[]> refactorings;
+    // Existing instances by commit sha1.
+    private Map<String, List<String>> existing;
+    private Persistence persistence;
+    private SmellQueries smellQueries;
+    private QueryEngine queryEngine;
+    private GraphDatabaseService graphDatabaseService;
+    @Captor
+    private ArgumentCaptor<Collection<Integer>> ids;
+    @Captor
+    private ArgumentCaptor<Collection<Integer>> deleted;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        refactorings = new ArrayList<>();
+        existing = new HashMap<>();
+        smellQueries = mock(SmellQueries.class);
+        doReturn("refactorings").when(smellQueries).allRefactoredInstancesWithSha1(anyInt());
+
+        persistence = mock(Persistence.class);
+        doAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            Consumer<Object> consumer = invocation.getArgument(2);
+            for (Object[] refactoring : refactorings) {
+                ResultSet row = mock(ResultSet.class);
+                doReturn(refactoring[0]).when(row).getInt("id");
+                doReturn(refactoring[1]).when(row).getString("sha1");
+                doReturn(refactoring[2]).when(row).getString("instance");
+                doReturn(refactoring[3]).when(row).getString("type");
+                consumer.accept(mapper.map(row));
+            }
+            return refactorings.size();
+        }).when(persistence).streamQuery(anyString(), any(), any());
+
+        queryEngine = mock(QueryEngine.class);
+        graphDatabaseService = mock(GraphDatabaseService.class);
+        doReturn(graphDatabaseService).when(queryEngine).getGraphDatabaseService();
+        doReturn(mock(Transaction.class)).when(graphDatabaseService).beginTx();
+        doAnswer(invocation -> {
+            Map<String, Object> parameters = invocation.getArgument(1);
+            Collection<?> instances = (Collection<?>) parameters.get("instances");
+            Result result = mock(Result.class);
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (String instance : existing.getOrDefault(parameters.get("sha1"), Collections.emptyList())) {
+                if (instances.contains(instance)) {
+                    rows.add(Collections.singletonMap("instance", instance));
+                }
+            }
+            doReturn(rows).when(queryEngine).toMap(result);
+            return result;
+        }).when(graphDatabaseService).execute(anyString(), anyMap());
+    }
+
+    private void addRefactoring(int id, String sha1, String instance, String type) {
+        refactorings.add(new Object[]{id, sha1, instance, type});
+    }
+
+    private void query(int workers) throws Exception {
+        new SmellDeletionQuery(1, "db", persistence, smellQueries, workers, queryEngine).query();
+    }
+
+    @Test
+    public void refactoringsAreGroupedByCommitAndKind() throws Exception {
+        addRefactoring(1, "a", "method#Class", "MIM");
+        addRefactoring(2, "a", "Class", "LIC");
+        addRefactoring(3, "b", "method#Class", "MIM");
+        addRefactoring(4, "a", "other#Class", "HMU");
+        addRefactoring(5, "a", "Other", "NLMR");
+        existing.put("a", Arrays.asList("method#Class", "Class"));
+
+        query(2);
+
+        verify(graphDatabaseService, times(3)).execute(anyString(), anyMap());
+        verify(smellQueries).setAsDeleted(1, Arrays.asList(1, 4), Collections.singletonList(4));
+        verify(smellQueries).setAsDeleted(1, Arrays.asList(2, 5), Collections.singletonList(5));
+        verify(smellQueries).setAsDeleted(1, Collections.singletonList(3), Collections.singletonList(3));
+        verify(persistence, times(3)).addStatements(any());
+        verify(queryEngine).shutDown();
+    }
+
+    @Test
+    public void unknownTypesAreIgnored() throws Exception {
+        addRefactoring(1, "a", "method#Class", "XYZ");
+        addRefactoring(2, "a", "method#Class", "MIM");
+        existing.put("a", Collections.singletonList("method#Class"));
+
+        query(1);
+
+        verify(smellQueries).setAsDeleted(eq(1), ids.capture(), deleted.capture());
+        assertEquals(Collections.singletonList(2), ids.getValue());
+        assertTrue(deleted.getValue().isEmpty());
+    }
+
+    @Test
+    public void failingGroupIsSkipped() throws Exception {
+        addRefactoring(1, "a", "method#Class", "MIM");
+        addRefactoring(2, "b", "method#Class", "MIM");
+        doAnswer(invocation -> {
+            Map<String, Object> parameters = invocation.getArgument(1);
+            if ("a".equals(parameters.get("sha1"))) {
+                throw new IllegalStateException("Neo4j failure");
+            }
+            Result result = mock(Result.class);
+            doReturn(Collections.emptyList()).when(queryEngine).toMap(result);
+            return result;
+        }).when(graphDatabaseService).execute(anyString(), anyMap());
+
+        query(1);
+
+        verify(smellQueries).setAsDeleted(1, Collections.singletonList(2), Collections.singletonList(2));
+        verify(persistence, times(1)).addStatements(any());
+        verify(persistence).commit();
+    }
+}
@@ -0,0 +1,107 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.model.Smell;
+import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.queries.SmellQueries;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SmellPresenceIntervalsTest {
+    private static final int PROJECT_ID = 1;
+    private static final int BRANCH_ID = 3;
+
+    private Persistence persistence;
+    private SmellQueries smellQueries;
+    private SmellPresenceIntervals intervals;
+    private Smell first;
+    private Smell second;
+
+    @Before
+    public void setUp() {
+        persistence = mock(Persistence.class);
+        smellQueries = mock(SmellQueries.class);
+        intervals = new SmellPresenceIntervals(PROJECT_ID, BRANCH_ID, persistence, smellQueries);
+        first = new Smell("MIM", "first", "file");
+        first.id = 1;
+        second = new Smell("MIM", "second", "file");
+        second.id = 2;
+    }
+
+    private void verifyInterval(Smell smell, int since, int until) {
+        verify(smellQueries).parameterizedSmellPresenceIntervalInsertion(PROJECT_ID, smell, BRANCH_ID, since, until);
+    }
+
+    @Test
+    public void presenceExtendedOnConsecutiveCommits() {
+        for (int ordinal = 0; ordinal < 5; ordinal++) {
+            intervals.notifyCommit(ordinal);
+            intervals.notifyPresence(first, ordinal);
+        }
+        verify(persistence, never()).addParameterizedStatements(any());
+
+        intervals.flush();
+        verifyInterval(first, 0, 4);
+        verify(persistence, times(1)).addParameterizedStatements(any());
+    }
+
+    @Test
+    public void intervalPersistedOnceSmellDisappears() {
+        intervals.notifyCommit(0);
+        intervals.notifyPresence(first, 0);
+        intervals.notifyPresence(second, 0);
+        intervals.notifyCommit(1);
+        intervals.notifyPresence(first, 1);
+        // Second is not present in commit 1
+        intervals.notifyCommit(2);
+        verifyInterval(second, 0, 0);
+        verify(smellQueries, never()).parameterizedSmellPresenceIntervalInsertion(PROJECT_ID, first, BRANCH_ID, 0, 1);
+
+        intervals.notifyPresence(second, 2);
+        intervals.flush();
+        verifyInterval(first, 0, 1);
+        verifyInterval(second, 2, 2);
+    }
+
+    @Test
+    public void gapInOrdinalsSplitsInterval() {
+        intervals.notifyPresence(first, 0);
+        intervals.notifyPresence(first, 1);
+        // The commit 2 holds no smell at all, thus is never notified
+        intervals.notifyPresence(first, 3);
+        intervals.flush();
+
+        verifyInterval(first, 0, 1);
+        verifyInterval(first, 3, 3);
+    }
+
+    @Test
+    public void duplicatePresenceIgnored() {
+        intervals.notifyPresence(first, 0);
+        intervals.notifyPresence(first, 0);
+        intervals.flush();
+
+        verifyInterval(first, 0, 0);
+        verify(smellQueries, times(1)).parameterizedSmellPresenceIntervalInsertion(anyInt(), any(Smell.class),
+                anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void flushRestartsIntervals() {
+        intervals.notifyPresence(first, 0);
+        intervals.flush();
+        intervals.notifyPresence(first, 1);
+        intervals.flush();
+        intervals.flush();
+
+        verifyInterval(first, 0, 0);
+        verifyInterval(first, 1, 1);
+        verify(persistence, times(2)).addParameterizedStatements(any());
+    }
+}
@@ -174,7 +174,7 @@ public abstract class SmellTypeAnalysisTestCase {
         ArgumentCaptor<String> shaCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<SmellCategory> typeCaptor = ArgumentCaptor.forClass(SmellCategory.class);
 
-        verify(smellQueries, atLeastOnce()).smellCategoryInsertionStatement(eq(projectId),
+        verify(smellQueries, atLeastOnce()).parameterizedSmellCategoryInsertion(eq(projectId),
                 shaCaptor.capture(), instancesCateCaptor.capture(), typeCaptor.capture());
 
         List<Smell> instancesCategory = instancesCateCaptor.getAllValues();
@@ -193,7 +193,7 @@ public abstract class SmellTypeAnalysisTestCase {
         ArgumentCaptor<Integer> sinceCaptor = ArgumentCaptor.forClass(Integer.class);
         ArgumentCaptor<Integer> untilCaptor = ArgumentCaptor.forClass(Integer.class);
 
-        verify(smellQueries, atLeast(0)).lostSmellCategoryInsertionStatement(eq(projectId),
+        verify(smellQueries, atLeast(0)).parameterizedLostSmellCategoryInsertion(eq(projectId),
                 instancesLostCateCaptor.capture(), lostTypeCaptor.capture(), sinceCaptor.capture(), untilCaptor.capture());
 
         List<Smell> lostInstancesCategory = instancesLostCateCaptor.getAllValues();
@@ -0,0 +1,110 @@
+package fr.inria.sniffer.tracker.analysis.query.smell;
+
+import fr.inria.sniffer.tracker.analysis.query.QueryException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TaskGraphTest {
+    private TaskGraph graph;
+    private List<String> executed;
+
+    @Before
+    public void setUp() {
+        graph = new TaskGraph();
+        executed = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private TaskGraph.Node add(String name) {
+        return graph.add(name, () -> executed.add(name));
+    }
+
+    @Test
+    public void dependenciesAreExecutedFirst() throws QueryException {
+        TaskGraph.Node merge = add("merge");
+        TaskGraph.Node branch = add("branch");
+        TaskGraph.Node parent = add("parent");
+        graph.addDependency(merge, branch);
+        graph.addDependency(merge, parent);
+        graph.addDependency(branch, parent);
+        // Declaring a dependency twice has no effect.
+        graph.addDependency(branch, parent);
+
+        graph.execute(4);
+
+        assertEquals(Arrays.asList("parent", "branch", "merge"), executed);
+    }
+
+    @Test
+    public void independentTasksAreConcurrent() throws QueryException {
+        CountDownLatch started = new CountDownLatch(2);
+        TaskGraph.Task awaitOther = () -> {
+            started.countDown();
+            try {
+                assertTrue("Tasks are not concurrent", started.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new QueryException("test", e);
+            }
+        };
+        graph.add("first", awaitOther);
+        graph.add("second", awaitOther);
+
+        graph.execute(2);
+
+        assertEquals(0, started.getCount());
+    }
+
+    @Test
+    public void failureStopsDependents() {
+        TaskGraph.Node failing = graph.add("failing", () -> {
+            throw new QueryException("test", "failure");
+        });
+        TaskGraph.Node dependent = add("dependent");
+        graph.addDependency(dependent, failing);
+
+        try {
+            graph.execute(2);
+            fail("The failure should be thrown");
+        } catch (QueryException e) {
+            assertTrue(e.getMessage().contains("failure"));
+        }
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void errorStopsDependents() {
+        TaskGraph.Node failing = graph.add("failing", () -> {
+            throw new StackOverflowError("error");
+        });
+        TaskGraph.Node dependent = add("dependent");
+        graph.addDependency(dependent, failing);
+
+        try {
+            graph.execute(2);
+            fail("The error should be thrown");
+        } catch (QueryException e) {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test(expected = QueryException.class)
+    public void cyclicDependenciesThrow() throws QueryException {
+        TaskGraph.Node first = add("first");
+        TaskGraph.Node second = add("second");
+        graph.addDependency(first, second);
+        graph.addDependency(second, first);
+
+        graph.execute(2);
+    }
+}
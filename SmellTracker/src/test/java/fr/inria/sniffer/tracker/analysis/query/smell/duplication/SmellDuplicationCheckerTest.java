@@ -4,6 +4,7 @@ import fr.inria.sniffer.detector.neo4j.QueryEngine;
 import fr.inria.sniffer.tracker.analysis.model.Commit;
 import fr.inria.sniffer.tracker.analysis.model.Smell;
 import fr.inria.sniffer.tracker.analysis.persistence.Persistence;
+import fr.inria.sniffer.tracker.analysis.persistence.RowMapper;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -11,21 +12,31 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class SmellDuplicationCheckerTest {
 
@@ -75,9 +86,24 @@ public class SmellDuplicationCheckerTest {
     }
 
     private SmellDuplicationChecker getDuplicationChecker() {
+        return getDuplicationChecker(SmellDuplicationChecker.DEFAULT_QUALIFIED_NAME_CACHE_SIZE);
+    }
+
+    private SmellDuplicationChecker getDuplicationChecker(int cacheSize) {
         Persistence persistence = mock(Persistence.class);
-        when(persistence.query(anyString())).thenReturn(filesRenames);
-        return new SmellDuplicationChecker(1, persistence, queryEngine);
+        doAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            Consumer<Object> consumer = invocation.getArgument(2);
+            for (Map<String, Object> rename : filesRenames) {
+                ResultSet row = mock(ResultSet.class);
+                for (Map.Entry<String, Object> column : rename.entrySet()) {
+                    doReturn(column.getValue()).when(row).getString(column.getKey());
+                }
+                consumer.accept(mapper.map(row));
+            }
+            return filesRenames.size();
+        }).when(persistence).streamQuery(anyString(), any(), any());
+        return new SmellDuplicationChecker(1, persistence, queryEngine, cacheSize);
     }
 
     private void mockPreviousQualifiedName(String qualifiedName) {
@@ -266,4 +292,93 @@ public class SmellDuplicationCheckerTest {
         assertEquals("method#a.b.c$myInnerClass$AnotherInnerClass", original.instance);
         assertEquals(g2jRename.oldFile, original.file);
     }
+
+    @Test
+    public void firstRenamingIsKeptForSameCommitAndNewFile() {
+        addRenameEntry(new SmellDuplicationChecker.FileRenameEntry(sameCommit.sha1, "another/old.java",
+                sameCommit.newFile));
+        Smell instance = new Smell("MIM", "g.h.i", sameCommit.newFile);
+        Commit commit = new Commit(sameCommit.sha1, 1);
+
+        mockPreviousQualifiedName("d.e.f");
+        SmellDuplicationChecker checker = getDuplicationChecker();
+        Smell original = checker.original(instance, commit, parent);
+
+        assertNotNull(original);
+        assertEquals(sameCommit.oldFile, original.file);
+    }
+
+    @Test
+    public void qualifiedNameIsQueriedOncePerFile() {
+        Smell instance = new Smell("MIM", "method#g.h.i", sameCommit.newFile);
+        Smell otherType = new Smell("HMU", "g.h.i$Inner", sameCommit.newFile);
+        Commit commit = new Commit(sameCommit.sha1, 1);
+
+        mockPreviousQualifiedName("d.e.f");
+        SmellDuplicationChecker checker = getDuplicationChecker();
+        Smell first = checker.original(instance, commit, parent);
+        Smell second = checker.original(otherType, commit, parent);
+
+        assertEquals("method#d.e.f", first.instance);
+        assertEquals("d.e.f$Inner", second.instance);
+        verify(queryEngine, times(1)).toMap(any(Result.class));
+    }
+
+    @Test
+    public void missingQualifiedNameIsCached() {
+        Smell instance = new Smell("MIM", "g.h.i", sameCommit.newFile);
+        Commit commit = new Commit(sameCommit.sha1, 1);
+
+        doReturn(Collections.emptyList()).when(queryEngine).toMap(any(Result.class));
+        SmellDuplicationChecker checker = getDuplicationChecker();
+        assertEquals("", checker.original(instance, commit, parent).instance);
+        assertEquals("", checker.original(instance, commit, parent).instance);
+
+        verify(queryEngine, times(1)).toMap(any(Result.class));
+    }
+
+    @Test
+    public void leastRecentlyUsedQualifiedNameIsEvicted() {
+        Smell renamed = new Smell("MIM", "g.h.i", sameCommit.newFile);
+        Smell otherRenamed = new Smell("MIM", "a.b.d", fileRename.newFile);
+        Commit commit = new Commit(sameCommit.sha1, 1);
+
+        mockPreviousQualifiedName("d.e.f");
+        SmellDuplicationChecker checker = getDuplicationChecker(1);
+        checker.original(renamed, commit, parent);
+        checker.original(otherRenamed, commit, parent);
+        checker.original(otherRenamed, commit, parent);
+        verify(queryEngine, times(2)).toMap(any(Result.class));
+
+        checker.original(renamed, commit, parent);
+        verify(queryEngine, times(3)).toMap(any(Result.class));
+    }
+
+    @Test(timeout = 10000)
+    public void qualifiedNamesOfDifferentFilesAreQueriedConcurrently() throws Exception {
+        Smell renamed = new Smell("MIM", "g.h.i", sameCommit.newFile);
+        Smell otherRenamed = new Smell("MIM", "a.b.d", fileRename.newFile);
+        Commit commit = new Commit(sameCommit.sha1, 1);
+
+        CountDownLatch started = new CountDownLatch(2);
+        Map<String, Object> resultMap = new HashMap<>();
+        resultMap.put(SmellDuplicationChecker.QUALIFIED_NAME, "d.e.f");
+        doAnswer(invocation -> {
+            started.countDown();
+            assertTrue("Queries are not concurrent", started.await(5, TimeUnit.SECONDS));
+            return Collections.singletonList(resultMap);
+        }).when(queryEngine).toMap(any(Result.class));
+        SmellDuplicationChecker checker = getDuplicationChecker();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Smell> first = executor.submit(() -> checker.original(renamed, commit, parent));
+            Future<Smell> second = executor.submit(() -> checker.original(otherRenamed, commit, parent));
+            assertEquals("d.e.f", first.get().instance);
+            assertEquals("d.e.f", second.get().instance);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, started.getCount());
+    }
 }